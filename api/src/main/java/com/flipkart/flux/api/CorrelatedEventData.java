@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * DTO class for transferring an event along with the correlation id of the state machine it is submitted against, used to submit events
+ * of many state machines in one request
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CorrelatedEventData {
+
+    /** Correlation id of the state machine the event is submitted against */
+    private String correlationId;
+
+    private EventData eventData;
+
+    /** Constructors*/
+    /* For use by Jackson for deserialization*/
+    public CorrelatedEventData() {}
+
+    public CorrelatedEventData(String correlationId, EventData eventData) {
+        this.correlationId = correlationId;
+        this.eventData = eventData;
+    }
+
+    /** Accessors*/
+    public String getCorrelationId() {
+        return correlationId;
+    }
+    public EventData getEventData() {
+        return eventData;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * <code>EventSubmissionResult</code> is the outcome of one of the events submitted in bulk. The status is the http status the event would
+ * have got had it been submitted on its own, e.g. 202 once it is accepted and 404 if the state machine or the event is not found.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EventSubmissionResult {
+
+    /** Correlation id of the state machine the event was submitted against */
+    private String correlationId;
+
+    /** Name of the submitted event */
+    private String eventName;
+
+    /** Http status code of the event's submission */
+    private int status;
+
+    /** Reason the event was not accepted, null when accepted */
+    private String message;
+
+    /** Constructors*/
+    /* For use by Jackson for deserialization*/
+    public EventSubmissionResult() {}
+
+    public EventSubmissionResult(String correlationId, String eventName, int status, String message) {
+        this.correlationId = correlationId;
+        this.eventName = eventName;
+        this.status = status;
+        this.message = message;
+    }
+
+    /** Accessors*/
+    public String getCorrelationId() {
+        return correlationId;
+    }
+    public String getEventName() {
+        return eventName;
+    }
+    public int getStatus() {
+        return status;
+    }
+    public String getMessage() {
+        return message;
+    }
+
+    /** Returns whether the event was accepted */
+    @JsonIgnore
+    public boolean isAccepted() {
+        return status >= 200 && status < 300;
+    }
+
+    @Override
+    public String toString() {
+        return "EventSubmissionResult{" +
+                "correlationId='" + correlationId + '\'' +
+                ", eventName='" + eventName + '\'' +
+                ", status=" + status +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
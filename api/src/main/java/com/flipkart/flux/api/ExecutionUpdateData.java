@@ -40,6 +40,8 @@ public class ExecutionUpdateData implements Serializable {
     private String errorMessage;
     private boolean deleteFromRedriver;
     private Long taskExecutionVersion;
+    /* Index of the chunk of a map state this update is for, null for updates of a state's own execution */
+    private Integer mapChunk;
 
     /**
      * Constructors
@@ -121,4 +123,12 @@ public class ExecutionUpdateData implements Serializable {
     public void setDependentAuditEvents(String dependentAuditEvents) {
         this.dependentAuditEvents = dependentAuditEvents;
     }
+
+    public Integer getMapChunk() {
+        return mapChunk;
+    }
+
+    public void setMapChunk(Integer mapChunk) {
+        this.mapChunk = mapChunk;
+    }
 }
\ No newline at end of file
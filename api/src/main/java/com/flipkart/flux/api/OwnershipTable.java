@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.api;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * <code>OwnershipTable</code> maps the buckets of state machine ids to the api endpoints of the orchestrator nodes owning them, so that
+ * requests of a state machine can be sent to its owner directly. A bucket is the first two hex characters of the SHA-256 of the state machine id,
+ * the same as the shard key used by Flux runtime.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OwnershipTable {
+
+    /** Bucket to the api endpoint of the owning node. Empty when ownership is disabled */
+    private Map<String, String> owners;
+
+    /** For use by Jackson for deserialization*/
+    OwnershipTable() {
+        this(Collections.emptyMap());
+    }
+
+    public OwnershipTable(Map<String, String> owners) {
+        this.owners = owners;
+    }
+
+    /** Accessors*/
+    public Map<String, String> getOwners() {
+        return owners;
+    }
+
+    /**
+     * Returns the api endpoint of the node owning the state machine, null if unknown
+     */
+    @JsonIgnore
+    public String getOwner(String stateMachineId) {
+        return owners.get(getBucket(stateMachineId));
+    }
+
+    /**
+     * Returns the bucket of the state machine id, i.e. the first two hex characters of its SHA-256
+     */
+    public static String getBucket(String stateMachineId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(stateMachineId.getBytes(StandardCharsets.UTF_8));
+            return String.format("%02x", digest[0] & 0xff);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Exception in generating SHA-256 for the given key : " + stateMachineId, e);
+        }
+    }
+}
@@ -90,6 +90,18 @@ public class StateDefinition {
      */
     private Short maxReplayableRetries;
 
+    /**
+     * No. of items of the collection event a map state's task is given per execution, null for states which are not map states.
+     * A map state depends on a single collection event and executes its task once per chunk of the collection, rather than being
+     * defined as one state per item
+     */
+    private Integer mapChunkSize;
+
+    /**
+     * Max. no. of chunks of a map state which are executed at the same time
+     */
+    private Integer mapConcurrency;
+
 
     /**
      * Used only by Jackson
@@ -234,6 +246,22 @@ public class StateDefinition {
         this.maxReplayableRetries = maxReplayableRetries;
     }
 
+    public Integer getMapChunkSize() {
+        return mapChunkSize;
+    }
+
+    public void setMapChunkSize(Integer mapChunkSize) {
+        this.mapChunkSize = mapChunkSize;
+    }
+
+    public Integer getMapConcurrency() {
+        return mapConcurrency;
+    }
+
+    public void setMapConcurrency(Integer mapConcurrency) {
+        this.mapConcurrency = mapConcurrency;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -252,6 +280,8 @@ public class StateDefinition {
         if (timeout != null ? !timeout.equals(that.timeout) : that.timeout != null) return false;
         if (replayable != that.replayable) return false;
         if (!Objects.equals(maxReplayableRetries, that.maxReplayableRetries)) return false;
+        if (!Objects.equals(mapChunkSize, that.mapChunkSize)) return false;
+        if (!Objects.equals(mapConcurrency, that.mapConcurrency)) return false;
 
 
         return !(dependencies != null ? !dependencies.equals(that.dependencies) : that.dependencies != null);
@@ -272,6 +302,8 @@ public class StateDefinition {
         result = 31 * result + (dependencies != null ? dependencies.hashCode() : 0);
         result = 31 * result + (maxReplayableRetries != null ? maxReplayableRetries.hashCode() : 0);
         result = 31 * result + (this.replayable ? REPLAYABLE_TRUE : REPLAYABLE_FALSE);
+        result = 31 * result + Objects.hashCode(mapChunkSize);
+        result = 31 * result + Objects.hashCode(mapConcurrency);
         return result;
     }
 
@@ -290,6 +322,8 @@ public class StateDefinition {
                 ", timeout=" + timeout +
                 ", replayable=" + replayable +
                 ", maxReplayableRetries=" + maxReplayableRetries +
+                ", mapChunkSize=" + mapChunkSize +
+                ", mapConcurrency=" + mapConcurrency +
                 '}';
     }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import com.flipkart.flux.client.registry.LocalExecutableRegistryImpl;
 import com.flipkart.flux.client.runtime.FluxRuntimeConnector;
 import com.flipkart.flux.client.runtime.FluxRuntimeConnectorHttpImpl;
 import com.flipkart.flux.client.runtime.LocalContext;
+import com.flipkart.flux.client.runtime.WireFormat;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 
@@ -67,7 +68,8 @@ public class FluxClientComponentModule extends AbstractModule {
         return new FluxRuntimeConnectorHttpImpl(configuration.getConnectionTimeout(),
                 configuration.getSocketTimeout(),
                 fluxRuntimeUrl + "api/machines",
-                objectMapper, SharedMetricRegistries.getOrCreate("mainMetricRegistry"));
+                objectMapper, SharedMetricRegistries.getOrCreate("mainMetricRegistry"),
+                WireFormat.fromValue(configuration.getWireFormat(), WireFormat.JSON), configuration.isOwnershipRouting());
     }
 
     @Provides
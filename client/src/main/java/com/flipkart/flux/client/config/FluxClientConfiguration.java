@@ -34,6 +34,10 @@ public class FluxClientConfiguration {
     private String clientElbId = "defaultElbId";
     private long socketTimeout = 10000;
     private long connectionTimeout = 10000;
+    /** Encoding of task status updates and output events sent to Flux runtime, one of json or smile. See WireFormat */
+    private String wireFormat = "smile";
+    /** Whether requests of a state machine are posted to the orchestrator node owning it, instead of the runtime url */
+    private boolean ownershipRouting = false;
 
     /** Constructors*/
     public FluxClientConfiguration() {}
@@ -69,4 +73,16 @@ public class FluxClientConfiguration {
     public String getClientElbId() {
         return clientElbId;
     }
+    public String getWireFormat() {
+        return wireFormat;
+    }
+    public void setWireFormat(String wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+    public boolean isOwnershipRouting() {
+        return ownershipRouting;
+    }
+    public void setOwnershipRouting(boolean ownershipRouting) {
+        this.ownershipRouting = ownershipRouting;
+    }
 }
\ No newline at end of file
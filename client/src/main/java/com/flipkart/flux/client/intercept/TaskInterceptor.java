@@ -38,6 +38,7 @@ import com.flipkart.flux.api.EventData;
 import com.flipkart.flux.api.EventDefinition;
 import com.flipkart.flux.client.guice.annotation.IsolatedEnv;
 import com.flipkart.flux.client.model.Event;
+import com.flipkart.flux.client.model.EventList;
 import com.flipkart.flux.client.model.ExternalEvent;
 import com.flipkart.flux.client.model.ReplayEvent;
 import com.flipkart.flux.client.model.Task;
@@ -99,7 +100,9 @@ public class TaskInterceptor implements MethodInterceptor {
                     + generateStateIdentifier(method) + ". StateMachine version: " + localContext.getStateMachineDef().getVersion() + ". State version: " + taskAnnotation.version());
         }
         /* Contribute to the ongoing state machine definition */
-        if (taskAnnotation.isReplayable())
+        if (taskAnnotation.mapChunkSize() > 0)
+            localContext.registerNewMapState(taskAnnotation.version(), generateStateIdentifier(method), null, null, taskIdentifier, taskAnnotation.retries(), taskAnnotation.timeout(), dependencySet, outputEventDefintion, taskAnnotation.mapChunkSize(), taskAnnotation.mapConcurrency());
+        else if (taskAnnotation.isReplayable())
             //TODO: Add a check to verify if the replayable task has at least one replayevent as params
             localContext.registerNewState(taskAnnotation.version(), generateStateIdentifier(method), null, null, taskIdentifier, taskAnnotation.retries(), taskAnnotation.timeout(), taskAnnotation.isReplayable(), dependencySet, outputEventDefintion, taskAnnotation.replayRetries());
         else
@@ -156,6 +159,18 @@ public class TaskInterceptor implements MethodInterceptor {
                 throw new IllegalSignatureException(new MethodId(method), "Task parameters need to implement the com.flipkart.flux.client.model.Event interface. Found parameter of type" + parameterType + " which does not");
             }
         }
+        final Task taskAnnotation = method.getAnnotationsByType(Task.class)[0];
+        if (taskAnnotation.mapChunkSize() > 0) {
+            if (parameterTypes.length != 1 || !EventList.class.isAssignableFrom(parameterTypes[0])) {
+                throw new IllegalSignatureException(new MethodId(method), "Map tasks need to take a single com.flipkart.flux.client.model.EventList parameter");
+            }
+            if (method.getReturnType() != void.class && !EventList.class.isAssignableFrom(method.getReturnType())) {
+                throw new IllegalSignatureException(new MethodId(method), "Map tasks need to return either void or a com.flipkart.flux.client.model.EventList. Found return type " + method.getReturnType());
+            }
+            if (taskAnnotation.isReplayable() || taskAnnotation.mapConcurrency() <= 0) {
+                throw new IllegalSignatureException(new MethodId(method), "Map tasks cannot be replayable and need a mapConcurrency greater than 0");
+            }
+        }
     }
 
     private List<EventDefinition> generateDependencyList(Object[] arguments, Annotation[][] parameterAnnotations, Class<?>[] parameterTypes) throws JsonProcessingException, Exception {
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * <code>EventList</code> is an {@link Event} which is a collection of items. It is the parameter, and optionally the return type, of map
+ * tasks, see {@link Task#mapChunkSize()}.
+ * An EventList is serialized as a JSON array, which lets Flux split it into chunks and concatenate the outputs of the chunks.
+ * Subclass it with the item type bound, e.g. <code>class Emails extends EventList&lt;Email&gt;</code>, so that the items can be deserialized.
+ */
+public abstract class EventList<E> extends ArrayList<E> implements Event {
+
+    public EventList() {
+        super();
+    }
+
+    public EventList(Collection<? extends E> items) {
+        super(items);
+    }
+}
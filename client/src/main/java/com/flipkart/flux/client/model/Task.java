@@ -72,5 +72,32 @@ public @interface Task {
      */
     short replayRetries() default 5;
 
+    /**
+     * Defines how the flux runtime isolates execution of this task. Supported values are "thread" (a dedicated thread pool per task),
+     * "semaphore" (execution on the dispatching actor thread with bounded concurrency) and "virtual_thread" (a thread per execution,
+     * virtual threads where the JVM supports them). An empty value uses the runtime default of "thread".
+     * The value may be overridden per task in the deployment unit's taskConfig using the key &lt;task prefix&gt;.executionIsolation
+     *
+     * @return
+     */
+    String executionIsolation() default "";
+
+    /**
+     * Marks the task as a map task when greater than 0. A map task takes a single {@link EventList} parameter and returns either void or
+     * an {@link EventList}. Flux splits the list the task is called with into chunks of this many items and executes the task once per chunk,
+     * instead of the workflow calling a task per item. The outputs of the chunks are concatenated, in order, into a single output event.
+     * Retries and timeout apply to each chunk
+     *
+     * @return
+     */
+    int mapChunkSize() default 0;
+
+    /**
+     * Max. no. of chunks of a map task which are executed at the same time
+     *
+     * @return
+     */
+    int mapConcurrency() default 10;
+
     Class<? extends Hook>[] hooks() default {};
 }
\ No newline at end of file
@@ -14,10 +14,14 @@
 
 package com.flipkart.flux.client.runtime;
 
+import com.flipkart.flux.api.CorrelatedEventData;
+import com.flipkart.flux.api.EventSubmissionResult;
 import com.flipkart.flux.api.ExecutionUpdateData;
 import com.flipkart.flux.api.StateMachineDefinition;
 import com.flipkart.flux.api.VersionedEventData;
 
+import java.util.List;
+
 /**
  * Used to connect with the core Flux Runtime
  * This class hides the actual API call to the Flux runtime
@@ -43,6 +47,13 @@ public interface FluxRuntimeConnector {
      */
     void submitEvent(String name, Object data,String correlationId,String eventSource);
 
+    /**
+     * Post events against many previously registered correlationIds in one request. Events are accepted or rejected individually
+     * @param events events along with the correlationIds of the workflow instances they are posted against
+     * @return results of the events, in the order of the events
+     */
+    List<EventSubmissionResult> submitEvents(List<CorrelatedEventData> events);
+
     /**
      * Post a replay event against a previously registered correlationId
      * @param name name of the event. Should be same as the name given using <code>ReplayEvent</code> annotation
@@ -16,13 +16,22 @@ package com.flipkart.flux.client.runtime;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.core.Response;
 
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -35,10 +44,14 @@ import org.apache.logging.log4j.Logger;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.flux.api.CorrelatedEventData;
 import com.flipkart.flux.api.EventAndExecutionData;
 import com.flipkart.flux.api.EventData;
+import com.flipkart.flux.api.EventSubmissionResult;
 import com.flipkart.flux.api.ExecutionUpdateData;
+import com.flipkart.flux.api.OwnershipTable;
 import com.flipkart.flux.api.StateMachineDefinition;
 import com.flipkart.flux.api.VersionedEventData;
 import com.google.common.annotations.VisibleForTesting;
@@ -56,12 +69,29 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
     private static final int MAX_TOTAL = 400;
     private static final int MAX_PER_ROUTE = 50;
     private static final String EXTERNAL = "external";
+    private static final String OWNERSHIP = "/ownership";
+    private static final long OWNERSHIP_REFRESH_INTERVAL_SECONDS = 30;
+    /** Endpoints of the runtime that payloads are posted to, the first one being the machines endpoint itself */
+    private static final String[] ENDPOINT_NAMES = {"machines", "eventandstatus", "events", "bulk", "replayevent", "eventupdate", "status"};
+    private static final PayloadLogger[] ENDPOINT_PAYLOAD_LOGGERS = Arrays.stream(ENDPOINT_NAMES).map(PayloadLogger::forEndpoint)
+            .toArray(PayloadLogger[]::new);
+    private static final TypeReference<List<EventSubmissionResult>> EVENT_SUBMISSION_RESULTS = new TypeReference<List<EventSubmissionResult>>() {};
     private static Logger logger = LogManager.getLogger(FluxRuntimeConnectorHttpImpl.class);
     private final CloseableHttpClient closeableHttpClient;
     private final String fluxEndpoint;
     private final ObjectMapper objectMapper;
     private final MetricRegistry metricRegistry;
 
+    /** Format of task status updates and output events, the execution path's traffic. Other requests are always JSON */
+    private final WireFormat wireFormat;
+    private final ObjectMapper smileObjectMapper = WireFormat.newSmileObjectMapper();
+
+    /** Set once the runtime rejected a request encoded in the wire format, later requests are JSON */
+    private volatile boolean wireFormatUnsupported;
+
+    /** Orchestrator nodes owning the state machines, requests of a state machine are posted to its owner. Empty unless ownership routing is enabled */
+    private volatile OwnershipTable ownershipTable = new OwnershipTable(Collections.emptyMap());
+
     @VisibleForTesting
     public FluxRuntimeConnectorHttpImpl(Long connectionTimeout, Long socketTimeout, String fluxEndpoint) {
         this(connectionTimeout, socketTimeout, fluxEndpoint, new ObjectMapper(), SharedMetricRegistries.getOrCreate("mainMetricRegistry"));
@@ -69,8 +99,23 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
 
     public FluxRuntimeConnectorHttpImpl(Long connectionTimeout, Long socketTimeout, String fluxEndpoint, ObjectMapper objectMapper,
                                         MetricRegistry metricRegistry) {
+        this(connectionTimeout, socketTimeout, fluxEndpoint, objectMapper, metricRegistry, WireFormat.JSON);
+    }
+
+    public FluxRuntimeConnectorHttpImpl(Long connectionTimeout, Long socketTimeout, String fluxEndpoint, ObjectMapper objectMapper,
+                                        MetricRegistry metricRegistry, WireFormat wireFormat) {
+        this(connectionTimeout, socketTimeout, fluxEndpoint, objectMapper, metricRegistry, wireFormat, false);
+    }
+
+    /**
+     * @param ownershipRouting whether requests of a state machine are posted to the orchestrator node owning it, as per the ownership table
+     *                         periodically fetched from the runtime. Requests are posted to the flux endpoint while the owner is not known
+     */
+    public FluxRuntimeConnectorHttpImpl(Long connectionTimeout, Long socketTimeout, String fluxEndpoint, ObjectMapper objectMapper,
+                                        MetricRegistry metricRegistry, WireFormat wireFormat, boolean ownershipRouting) {
         this.fluxEndpoint = fluxEndpoint;
         this.objectMapper = objectMapper;
+        this.wireFormat = wireFormat;
         RequestConfig clientConfig = RequestConfig.custom()
             .setConnectTimeout((connectionTimeout).intValue())
             .setSocketTimeout((socketTimeout).intValue())
@@ -87,6 +132,15 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         Runtime.getRuntime()
             .addShutdownHook(new Thread(() -> HttpClientUtils.closeQuietly(closeableHttpClient)));
         this.metricRegistry = metricRegistry;
+
+        if (ownershipRouting) {
+            ScheduledExecutorService ownershipRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "flux-ownership-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ownershipRefresher.scheduleWithFixedDelay(this::refreshOwnershipTable, 0, OWNERSHIP_REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
     }
 
     /***
@@ -119,7 +173,7 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         CloseableHttpResponse httpResponse = null;
         try {
             EventAndExecutionData eventAndExecutionData = new EventAndExecutionData(versionedEventData, executionUpdateData);
-            httpResponse = postOverHttp(eventAndExecutionData, "/" + stateMachineId + "/context/eventandstatus");
+            httpResponse = postOverHttp(eventAndExecutionData, "/" + stateMachineId + "/context/eventandstatus", wireFormat, stateMachineId);
         } finally {
             HttpClientUtils.closeQuietly(httpResponse);
         }
@@ -134,7 +188,7 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         CloseableHttpResponse httpResponse = null;
         try {
             final EventData eventData = new EventData(name, eventType, objectMapper.writeValueAsString(data), eventSource);
-            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId");
+            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId", WireFormat.JSON, correlationId);
         } catch (JsonProcessingException e) {
             logger.error("Posting over http errored. Message: {}", e.getMessage(), e);
             throw new RuntimeException(e);
@@ -143,13 +197,27 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         }
     }
 
+    @Override
+    public List<EventSubmissionResult> submitEvents(List<CorrelatedEventData> events) {
+        CloseableHttpResponse httpResponse = null;
+        try {
+            httpResponse = postOverHttp(events, "/events/bulk");
+            return objectMapper.readValue(EntityUtils.toByteArray(httpResponse.getEntity()), EVENT_SUBMISSION_RESULTS);
+        } catch (IOException e) {
+            logger.error("Reading the results of bulk event submission errored. Message: {}", e.getMessage(), e);
+            throw new RuntimeCommunicationException("Could not read the response of Flux runtime: " + fluxEndpoint);
+        } finally {
+            HttpClientUtils.closeQuietly(httpResponse);
+        }
+    }
+
     @Override
     public void submitReplayEvent(String name, Object data, String correlationId, String eventSource) {
         final String eventType = data.getClass().getName();
         CloseableHttpResponse httpResponse = null;
         try {
             final EventData eventData = new EventData(name, eventType, objectMapper.writeValueAsString(data), eventSource);
-            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/replayevent?searchField=correlationId");
+            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/replayevent?searchField=correlationId", WireFormat.JSON, correlationId);
         } catch (JsonProcessingException e) {
             logger.error("Posting over http errored. Message: {}", e.getMessage(), e);
             throw new RuntimeException(e);
@@ -168,12 +236,13 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         try {
             if (triggerTime != null) {
                 final EventData eventData = new EventData(name, eventType, objectMapper.writeValueAsString(data), eventSource);
-                httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId&triggerTime=" + triggerTime);
+                httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId&triggerTime=" + triggerTime,
+                        WireFormat.JSON, correlationId);
             } else {
                 //this block is used by flux to trigger the event when the time has arrived, send the data as plain string without serializing,
                 // as the data is already in serialized form (in ScheduledEvents table the data stored in serialized form)
                 final EventData eventData = new EventData(name, eventType, (String) data, eventSource);
-                httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId");
+                httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId", WireFormat.JSON, correlationId);
             }
         } catch (JsonProcessingException e) {
             logger.error("Posting over http errored. Message: {}", e.getMessage(), e);
@@ -192,7 +261,7 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         CloseableHttpResponse httpResponse = null;
         try {
             final EventData eventData = new EventData(name, eventType, objectMapper.writeValueAsString(data), eventSource);
-            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/eventupdate");
+            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/eventupdate", WireFormat.JSON, correlationId);
 
         } catch (JsonProcessingException e) {
             logger.error("Posting over http errored. Message: {}", e.getMessage(), e);
@@ -207,7 +276,7 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         CloseableHttpResponse httpResponse = null;
         try {
             final EventData eventData = new EventData(eventName, null, null, null, true);
-            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId");
+            httpResponse = postOverHttp(eventData, "/" + correlationId + "/context/events?searchField=correlationId", WireFormat.JSON, correlationId);
         } catch (Exception e) {
             logger.error("Posting over http errored. Message: {}", e.getMessage(), e);
             throw new RuntimeException(e);
@@ -224,7 +293,8 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
     public void updateExecutionStatus(ExecutionUpdateData executionUpdateData) {
         CloseableHttpResponse httpResponse = null;
         httpResponse = postOverHttp(executionUpdateData, "/" + executionUpdateData.getStateMachineId() +
-                "/" + executionUpdateData.getTaskId() + "/" + executionUpdateData.getTaskExecutionVersion() + "/status");
+                "/" + executionUpdateData.getTaskId() + "/" + executionUpdateData.getTaskExecutionVersion() + "/status", wireFormat,
+                executionUpdateData.getStateMachineId());
         HttpClientUtils.closeQuietly(httpResponse);
     }
 
@@ -237,7 +307,7 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
     public void incrementExecutionRetries(String stateMachineId, Long taskId, Long taskExecutionVersion) {
         CloseableHttpResponse httpResponse = null;
         httpResponse = postOverHttp(null, "/" + stateMachineId + "/" + taskId +
-                "/" + taskExecutionVersion + "/retries/inc");
+                "/" + taskExecutionVersion + "/retries/inc", WireFormat.JSON, stateMachineId);
         HttpClientUtils.closeQuietly(httpResponse);
     }
 
@@ -247,7 +317,8 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
     @Override
     public void redriveTask(String stateMachineId, Long taskId, Long executionVersion) {
         CloseableHttpResponse httpResponse = null;
-        httpResponse = postOverHttp(null, "/redrivetask/" + stateMachineId + "/taskId/" + taskId + "/taskExecutionVersion/" + executionVersion);
+        httpResponse = postOverHttp(null, "/redrivetask/" + stateMachineId + "/taskId/" + taskId + "/taskExecutionVersion/" + executionVersion, WireFormat.JSON,
+                stateMachineId);
         HttpClientUtils.closeQuietly(httpResponse);
     }
 
@@ -255,16 +326,60 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
      * Helper method to post data over Http
      */
     protected CloseableHttpResponse postOverHttp(Object dataToPost, String pathSuffix) {
+        return postOverHttp(dataToPost, pathSuffix, WireFormat.JSON);
+    }
+
+    /**
+     * Returns the logger of the payloads posted to the path, named after the last segment of the path. The endpoints of this connector are
+     * matched in place, as this is looked up on every post whether or not payload logging is enabled
+     */
+    static PayloadLogger getPayloadLogger(String pathSuffix) {
+        int end = pathSuffix.indexOf('?');
+        if (end < 0) {
+            end = pathSuffix.length();
+        }
+        int start = pathSuffix.lastIndexOf('/', end - 1) + 1;
+        if (start == end) {
+            return ENDPOINT_PAYLOAD_LOGGERS[0];
+        }
+        for (int i = 1; i < ENDPOINT_NAMES.length; i++) {
+            if (ENDPOINT_NAMES[i].length() == end - start && pathSuffix.regionMatches(start, ENDPOINT_NAMES[i], 0, end - start)) {
+                return ENDPOINT_PAYLOAD_LOGGERS[i];
+            }
+        }
+        return PayloadLogger.forEndpoint(pathSuffix.substring(start, end));
+    }
+
+    /**
+     * Helper method to post data over Http in the given wire format, falling back to JSON if the runtime does not support the format
+     */
+    protected CloseableHttpResponse postOverHttp(Object dataToPost, String pathSuffix, WireFormat format) {
+        return postOverHttp(dataToPost, pathSuffix, format, null);
+    }
+
+    /**
+     * Helper method to post data of a state machine over Http to the orchestrator node owning it, if known
+     */
+    protected CloseableHttpResponse postOverHttp(Object dataToPost, String pathSuffix, WireFormat format, String stateMachineId) {
         CloseableHttpResponse httpResponse = null;
-        HttpPost httpPostRequest;
-        httpPostRequest = new HttpPost(fluxEndpoint + pathSuffix);
+        if (wireFormatUnsupported) {
+            format = WireFormat.JSON;
+        }
+        String endpoint = getEndpoint(stateMachineId);
         try {
-            final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            objectMapper.writeValue(byteArrayOutputStream, dataToPost);
-            logger.info("Posting data: {} over http to Flux Endpoint : {}",dataToPost, fluxEndpoint);
-            httpPostRequest.setEntity(new ByteArrayEntity(byteArrayOutputStream.toByteArray(), ContentType.APPLICATION_JSON));
-            httpResponse = closeableHttpClient.execute(httpPostRequest);
-            final int statusCode = httpResponse.getStatusLine().getStatusCode();
+            logger.debug("Posting over http to Flux Endpoint : {}{}", endpoint, pathSuffix);
+            if (dataToPost != null) {
+                getPayloadLogger(pathSuffix).log(pathSuffix, dataToPost);
+            }
+            httpResponse = execute(endpoint, dataToPost, pathSuffix, format);
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            if (statusCode == WireFormat.UNSUPPORTED_MEDIA_TYPE && format != WireFormat.JSON) {
+                logger.warn("Flux runtime: {} does not support wire format: {}, falling back to JSON", fluxEndpoint, format);
+                wireFormatUnsupported = true;
+                HttpClientUtils.closeQuietly(httpResponse);
+                httpResponse = execute(endpoint, dataToPost, pathSuffix, WireFormat.JSON);
+                statusCode = httpResponse.getStatusLine().getStatusCode();
+            }
             if (statusCode >= Response.Status.OK.getStatusCode() && statusCode < Response.Status.MOVED_PERMANENTLY.getStatusCode()) {
                 logger.trace("Posting over http is successful. Status code: {}", statusCode);
                 metricRegistry.meter(new StringBuilder().
@@ -294,4 +409,55 @@ public class FluxRuntimeConnectorHttpImpl implements FluxRuntimeConnector {
         return httpResponse;
     }
 
+    /**
+     * Posts to the given endpoint, or to the flux endpoint if the given endpoint is a state machine's owner that could not be connected to
+     */
+    private CloseableHttpResponse execute(String endpoint, Object dataToPost, String pathSuffix, WireFormat format) throws IOException {
+        if (!endpoint.equals(fluxEndpoint)) {
+            try {
+                return post(endpoint, dataToPost, pathSuffix, format);
+            } catch (ConnectException | ConnectTimeoutException e) {
+                logger.warn("Unable to connect to state machine owner: {}, posting to Flux Endpoint : {}. Message: {}", endpoint, fluxEndpoint, e.getMessage());
+            }
+        }
+        return post(fluxEndpoint, dataToPost, pathSuffix, format);
+    }
+
+    private CloseableHttpResponse post(String endpoint, Object dataToPost, String pathSuffix, WireFormat format) throws IOException {
+        HttpPost httpPostRequest = new HttpPost(endpoint + pathSuffix);
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        (format == WireFormat.SMILE ? smileObjectMapper : objectMapper).writeValue(byteArrayOutputStream, dataToPost);
+        ContentType contentType = format == WireFormat.JSON ? ContentType.APPLICATION_JSON : ContentType.create(format.getMediaType());
+        httpPostRequest.setEntity(new ByteArrayEntity(byteArrayOutputStream.toByteArray(), contentType));
+        return closeableHttpClient.execute(httpPostRequest);
+    }
+
+    /**
+     * Returns the api endpoint of the orchestrator node owning the state machine, the flux endpoint if the owner is not known
+     */
+    private String getEndpoint(String stateMachineId) {
+        String owner = stateMachineId == null ? null : ownershipTable.getOwner(stateMachineId);
+        return owner == null ? fluxEndpoint : owner;
+    }
+
+    /**
+     * Fetches the ownership table from the runtime. The current table is retained if it could not be fetched
+     */
+    private void refreshOwnershipTable() {
+        CloseableHttpResponse httpResponse = null;
+        try {
+            httpResponse = closeableHttpClient.execute(new HttpGet(fluxEndpoint + OWNERSHIP));
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            if (statusCode == Response.Status.OK.getStatusCode()) {
+                ownershipTable = objectMapper.readValue(EntityUtils.toByteArray(httpResponse.getEntity()), OwnershipTable.class);
+            } else {
+                logger.warn("Unable to fetch state machine ownership from Flux runtime: {}. Status code: {}", fluxEndpoint, statusCode);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to fetch state machine ownership from Flux runtime: {}. Message: {}", fluxEndpoint, e.getMessage());
+        } finally {
+            HttpClientUtils.closeQuietly(httpResponse);
+        }
+    }
+
 }
\ No newline at end of file
@@ -114,6 +114,26 @@ public class LocalContext {
         this.stateMachineDefinition.get().addState(stateDefinition);
     }
 
+    /***
+     * Adds the StateDefinition object of a map state to StateMachineDefinition
+     * @param mapChunkSize no. of items of the collection event given to each execution of the task
+     * @param mapConcurrency max. no. of chunks executed at the same time
+     */
+    public void registerNewMapState(Long version,
+                                    String name, String description,
+                                    String hookIdentifier, String taskIdentifier,
+                                    Long retryCount, Long timeout,
+                                    List<EventDefinition> dependencySet, EventDefinition outputEvent,
+                                    int mapChunkSize, int mapConcurrency
+    ) {
+        final StateDefinition stateDefinition = new StateDefinition(version, name, description,
+                hookIdentifier, taskIdentifier, hookIdentifier,
+                retryCount, timeout, dependencySet, outputEvent);
+        stateDefinition.setMapChunkSize(mapChunkSize);
+        stateDefinition.setMapConcurrency(mapConcurrency);
+        this.stateMachineDefinition.get().addState(stateDefinition);
+    }
+
     /**
      * Resets the LocalContext so that it is ready to work on the next request
      */
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <code>PayloadLogger</code> logs the payloads exchanged over an endpoint, e.g. events posted to Flux runtime or task execution messages.
+ * <p>
+ * Payload logging is opt-in per endpoint: payloads are logged only when the logger {@link #LOGGER_NAME_PREFIX}&lt;endpoint&gt; is enabled at debug level.
+ * Logged payloads are truncated to the number of characters given by the system property {@link #MAX_LENGTH_PROPERTY}.
+ */
+public class PayloadLogger {
+
+    /** Prefix of the names of the payload loggers, one logger per endpoint */
+    public static final String LOGGER_NAME_PREFIX = "com.flipkart.flux.payload.";
+
+    /** System property holding the max no. of characters of a payload that are logged */
+    public static final String MAX_LENGTH_PROPERTY = "flux.payloadLogging.maxLength";
+
+    private static final int DEFAULT_MAX_LENGTH = 1024;
+
+    private static final ConcurrentHashMap<String, PayloadLogger> payloadLoggers = new ConcurrentHashMap<>();
+
+    private final Logger logger;
+    private final int maxLength;
+
+    PayloadLogger(Logger logger, int maxLength) {
+        this.logger = logger;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the payload logger of the given endpoint
+     */
+    public static PayloadLogger forEndpoint(String endpoint) {
+        return payloadLoggers.computeIfAbsent(endpoint, e -> new PayloadLogger(LogManager.getLogger(LOGGER_NAME_PREFIX + e),
+                Integer.getInteger(MAX_LENGTH_PROPERTY, DEFAULT_MAX_LENGTH)));
+    }
+
+    /**
+     * Logs the payload, if payload logging is enabled for this endpoint. The payload is converted to a String only in that case
+     * @param context identifies the request the payload belongs to, e.g. the path or the state machine id
+     */
+    public void log(Object context, Object payload) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} payload: {}", context, truncate(String.valueOf(payload), maxLength));
+        }
+    }
+
+    static String truncate(String payload, int maxLength) {
+        if (payload.length() <= maxLength) {
+            return payload;
+        }
+        return payload.substring(0, maxLength) + "...(" + payload.length() + " chars)";
+    }
+}
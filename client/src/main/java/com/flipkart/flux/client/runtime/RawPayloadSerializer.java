@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <code>RawPayloadSerializer</code> writes an already serialised payload, such as {@link com.flipkart.flux.api.VersionedEventData#getData()}.
+ * Binary formats (e.g. Smile) get the payload's UTF-8 bytes as a length prefixed binary value, so the payload is neither escaped nor
+ * re-encoded inside the envelope. Text formats get the payload as a plain string, as before.
+ *
+ * @see RawPayloadDeserializer
+ */
+public class RawPayloadSerializer extends JsonSerializer<String> {
+
+    @Override
+    public void serialize(String value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (gen.canWriteBinaryNatively()) {
+            byte[] payload = value.getBytes(StandardCharsets.UTF_8);
+            gen.writeBinary(payload, 0, payload.length);
+        } else {
+            gen.writeString(value);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.flipkart.flux.api.VersionedEventData;
+
+/**
+ * <code>WireFormat</code> enumerates the encodings of the messages exchanged between Flux orchestrators and execution nodes, i.e.
+ * task execution messages, status updates and task output events.
+ * <p>
+ * JSON is understood by every node and is the fallback: a sender using {@link #SMILE} switches to JSON when the receiver replies with
+ * 415 Unsupported Media Type.
+ */
+public enum WireFormat {
+
+    JSON(WireFormat.JSON_MEDIA_TYPE),
+    /** Binary JSON, event payloads are carried as raw bytes instead of escaped strings */
+    SMILE(WireFormat.SMILE_MEDIA_TYPE);
+
+    public static final String JSON_MEDIA_TYPE = "application/json";
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+
+    /** Status returned by receivers that do not understand the encoding of a request */
+    public static final int UNSUPPORTED_MEDIA_TYPE = 415;
+
+    private final String mediaType;
+
+    WireFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the format of the given name (case insensitive), or the default format if the name is empty
+     */
+    public static WireFormat fromValue(String value, WireFormat defaultFormat) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultFormat;
+        }
+        return WireFormat.valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * Creates the mapper that reads and writes {@link #SMILE}. Binary values are written unencoded, so payloads are length prefixed raw bytes
+     */
+    public static ObjectMapper newSmileObjectMapper() {
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.configure(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT, false);
+        ObjectMapper objectMapper = new ObjectMapper(smileFactory);
+        objectMapper.addMixIn(VersionedEventData.class, VersionedEventDataMixIn.class);
+        return objectMapper;
+    }
+
+    /**
+     * Carries the already serialised event data as a binary value
+     */
+    private static abstract class VersionedEventDataMixIn {
+        @JsonSerialize(using = RawPayloadSerializer.class)
+        @JsonDeserialize(using = RawPayloadDeserializer.class)
+        private String data;
+    }
+}
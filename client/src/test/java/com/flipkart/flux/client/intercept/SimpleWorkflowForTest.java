@@ -119,6 +119,16 @@ public class SimpleWorkflowForTest {
         // any parameters that are not some Subtypes of Event
     }
 
+    @Task(version = 1, retries = 2, timeout = 2000l, mapChunkSize = 100, mapConcurrency = 5)
+    public StringEvents simpleStringsModifyingMapTask(StringEvents someStrings) {
+        return someStrings;
+    }
+
+    @Task(version = 1, retries = 2, timeout = 2000l, mapChunkSize = 100)
+    public void badMapTaskWithoutEventList(StringEvent someString) {
+        // Doesn't matter. Map tasks need to take an EventList to be split into chunks
+    }
+
     /**
      * Needed a place to derive the above workflow's expected definition (<code>StateMachineDefinition</code>)
      * What better place to get the same than from the horse's mouth, eh?
@@ -165,6 +175,9 @@ public class SimpleWorkflowForTest {
 
     }
 
+    public static class StringEvents extends EventList<StringEvent> {
+    }
+
     public static class StringEvent implements Event {
         @JsonProperty
         private String aString;
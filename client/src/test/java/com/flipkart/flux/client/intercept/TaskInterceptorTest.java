@@ -19,6 +19,7 @@ import com.flipkart.flux.api.EventDefinition;
 import com.flipkart.flux.client.constant.ClientConstants;
 import com.flipkart.flux.client.intercept.SimpleWorkflowForTest.IntegerEvent;
 import com.flipkart.flux.client.intercept.SimpleWorkflowForTest.StringEvent;
+import com.flipkart.flux.client.intercept.SimpleWorkflowForTest.StringEvents;
 import com.flipkart.flux.client.model.Event;
 import com.flipkart.flux.client.registry.Executable;
 import com.flipkart.flux.client.registry.ExecutableImpl;
@@ -164,6 +165,27 @@ public class TaskInterceptorTest {
         taskInterceptor.invoke(dummyInvocation);
     }
 
+    @Test
+    public void testInterception_shouldSubmitNewMapState() throws Throwable {
+        setupMockLocalContext();
+
+        final Method invokedMethod = simpleWorkflowForTest.getClass().getDeclaredMethod("simpleStringsModifyingMapTask", StringEvents.class);
+        taskInterceptor.invoke(TestUtil.dummyInvocation(invokedMethod, new Object[]{new StringEvents()}));
+
+        final List<EventDefinition> expectedDependency =
+                Collections.singletonList(new EventDefinition(StringEvents.class.getName() + "0", StringEvents.class.getName()));
+        final EventDefinition expectedOutput = new EventDefinition(StringEvents.class.getName() + "1", StringEvents.class.getName());
+        verify(localContext, times(1)).
+                registerNewMapState(1l, "simpleStringsModifyingMapTask", null, null,
+                        new MethodId(invokedMethod).toString() + _VERSION + "1", 2l, 2000l, expectedDependency, expectedOutput, 100, 5);
+    }
+
+    @Test(expected = IllegalSignatureException.class)
+    public void testTaskInterception_BarkIfMapTaskParameterIsNotEventList() throws Throwable {
+        final MethodInvocation dummyInvocation = TestUtil.dummyInvocation(simpleWorkflowForTest.getClass().getDeclaredMethod("badMapTaskWithoutEventList", StringEvent.class), simpleWorkflowForTest);
+        taskInterceptor.invoke(dummyInvocation);
+    }
+
     @Test
     public void testRegisterExternalEventsWithTheirGivenName() throws Throwable {
         /* setup */
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class PayloadLoggerTest {
+
+    @Test
+    public void testLog_shouldNotFormatPayloadWhenDisabled() throws Exception {
+        Logger logger = mock(Logger.class);
+        when(logger.isDebugEnabled()).thenReturn(false);
+        Object payload = mock(Object.class);
+
+        new PayloadLogger(logger, 10).log("/smId/context/events", payload);
+
+        verify(logger, never()).debug(anyString(), any(), any());
+    }
+
+    @Test
+    public void testLog_shouldTruncateLargePayloads() throws Exception {
+        Logger logger = mock(Logger.class);
+        when(logger.isDebugEnabled()).thenReturn(true);
+
+        new PayloadLogger(logger, 10).log("/smId/context/events", "{\"key\":\"a long value\"}");
+
+        verify(logger).debug("{} payload: {}", "/smId/context/events", "{\"key\":\"a ...(22 chars)");
+        assertThat(PayloadLogger.truncate("{}", 10)).isEqualTo("{}");
+    }
+
+    @Test
+    public void testGetPayloadLogger_shouldResolveLoggerOfTheLastPathSegment() throws Exception {
+        assertThat(FluxRuntimeConnectorHttpImpl.getPayloadLogger("")).isSameAs(PayloadLogger.forEndpoint("machines"));
+        assertThat(FluxRuntimeConnectorHttpImpl.getPayloadLogger("/smId/context/events?searchField=correlationId"))
+                .isSameAs(PayloadLogger.forEndpoint("events"));
+        assertThat(FluxRuntimeConnectorHttpImpl.getPayloadLogger("/smId/context/eventandstatus")).isSameAs(PayloadLogger.forEndpoint("eventandstatus"));
+        assertThat(FluxRuntimeConnectorHttpImpl.getPayloadLogger("/events/bulk")).isSameAs(PayloadLogger.forEndpoint("bulk"));
+        assertThat(FluxRuntimeConnectorHttpImpl.getPayloadLogger("/smId/1/0/status")).isSameAs(PayloadLogger.forEndpoint("status"));
+        assertThat(FluxRuntimeConnectorHttpImpl.getPayloadLogger("/smId/1/0/retries/inc")).isSameAs(PayloadLogger.forEndpoint("inc"));
+    }
+}
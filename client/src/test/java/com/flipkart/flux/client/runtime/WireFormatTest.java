@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.flux.api.EventAndExecutionData;
+import com.flipkart.flux.api.ExecutionUpdateData;
+import com.flipkart.flux.api.Status;
+import com.flipkart.flux.api.VersionedEventData;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WireFormatTest {
+
+    private static final String PAYLOAD = "{\"name\":\"foo \\\"bar\\\"\",\"amount\":42}";
+
+    @Test
+    public void testSmile_shouldCarryEventDataAsRawBytes() throws Exception {
+        ObjectMapper smileObjectMapper = WireFormat.newSmileObjectMapper();
+        EventAndExecutionData eventAndExecutionData = new EventAndExecutionData(
+                new VersionedEventData("event1", "java.lang.String", PAYLOAD, "task1", 2L),
+                new ExecutionUpdateData("smId", "smName", "task1", 1L, Status.completed, 3, 1, null, true, "[]", 2L));
+
+        byte[] encoded = smileObjectMapper.writeValueAsBytes(eventAndExecutionData);
+        assertThat(new String(encoded, StandardCharsets.ISO_8859_1)).contains(new String(PAYLOAD.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1));
+
+        EventAndExecutionData decoded = smileObjectMapper.readValue(encoded, EventAndExecutionData.class);
+        assertThat(decoded.getVersionedEventData().getData()).isEqualTo(PAYLOAD);
+        assertThat(decoded.getVersionedEventData().getExecutionVersion()).isEqualTo(2L);
+        assertThat(decoded.getExecutionUpdateData().getStatus()).isEqualTo(Status.completed);
+        assertThat(decoded.getExecutionUpdateData().getTaskExecutionVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testJson_shouldCarryEventDataAsString() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        VersionedEventData versionedEventData = new VersionedEventData("event1", "java.lang.String", PAYLOAD, "task1", 2L);
+
+        String json = objectMapper.writeValueAsString(versionedEventData);
+        assertThat(json).contains("\"data\":" + objectMapper.writeValueAsString(PAYLOAD));
+        assertThat(objectMapper.readValue(json, VersionedEventData.class).getData()).isEqualTo(PAYLOAD);
+    }
+
+    @Test
+    public void testFromValue() throws Exception {
+        assertThat(WireFormat.fromValue("smile", WireFormat.JSON)).isEqualTo(WireFormat.SMILE);
+        assertThat(WireFormat.fromValue(" JSON ", WireFormat.SMILE)).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.fromValue(null, WireFormat.JSON)).isEqualTo(WireFormat.JSON);
+    }
+}
@@ -96,9 +96,14 @@ public class TransactionInterceptor implements MethodInterceptor {
                                     break;
                                 }
                                 // in this case invocation method will provide shardKey i.e stateMachineId, as the first argument,
-                                // which will determine to which shard the query should go to.
+                                // which will determine to which shard the query should go to. Methods operating on a whole shard,
+                                // like archival, provide the shardId of the master instead
                                 case READ_WRITE: {
                                     Object[] args = invocation.getArguments();
+                                    if (args[0] instanceof ShardId) {
+                                        sessionFactory = context.getRWSessionFactory((ShardId) args[0]);
+                                        break;
+                                    }
                                     shardKey = (String) args[0];
                                     String shardKeyPrefix = CryptHashGenerator.getUniformCryptHash(shardKey);
                                     sessionFactory = context.getRWSessionFactory(shardKeyPrefix);
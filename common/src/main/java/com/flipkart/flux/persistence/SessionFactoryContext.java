@@ -57,6 +57,14 @@ public interface SessionFactoryContext {
      */
     SessionFactory getRWSessionFactory(String shardKey);
 
+    /**
+     * Get Session Factory for the given shardId from RWSessionFactoryMap
+     *
+     * @param shardId
+     * @return
+     */
+    SessionFactory getRWSessionFactory(ShardId shardId);
+
     /**
      * Get Session Factory for the given  shardId from ROSessionFactoryMap
      *
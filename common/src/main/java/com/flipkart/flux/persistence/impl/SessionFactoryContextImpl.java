@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableMap;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -26,14 +27,17 @@ import java.util.Map;
  * for Master(Read-Write) and Slave(Read-Only) Shards, {@link SessionFactory} schedulerSessionFactory as well as shardString to ShardId Mapping for both Slave,Master
  * and uses a thread local to save the Session that is being used in an ongoing transaction.
  * <p>
+ * The session factory maps are read through, as the session factories of shards beyond the startup quorum are added to them while those
+ * shards warm up.
+ * <p>
  *
  * @author amitkumar.o
  * @author gourav.ashok
  */
 public class SessionFactoryContextImpl implements SessionFactoryContext {
 
-    private final ImmutableMap<ShardId, SessionFactory> RWSessionFactoryImmutableMap;
-    private final ImmutableMap<ShardId, SessionFactory> ROSessionFactoryImmutableMap;
+    private final Map<ShardId, SessionFactory> RWSessionFactoryMap;
+    private final Map<ShardId, SessionFactory> ROSessionFactoryMap;
     private final ImmutableMap<String, ShardId> shardKeyToShardIdMap;
     private final SessionFactory schedulerSessionFactory;
 
@@ -42,8 +46,8 @@ public class SessionFactoryContextImpl implements SessionFactoryContext {
     public SessionFactoryContextImpl(Map<ShardId, SessionFactory> rwSessionFactoryMap, Map<ShardId, SessionFactory> roSessionFactoryMap,
                                      Map<String, ShardId> shardKeyToShardIdMap,
                                      SessionFactory schedulerSessionFactory) {
-        this.RWSessionFactoryImmutableMap = ImmutableMap.copyOf(rwSessionFactoryMap);
-        this.ROSessionFactoryImmutableMap = ImmutableMap.copyOf(roSessionFactoryMap);
+        this.RWSessionFactoryMap = Collections.unmodifiableMap(rwSessionFactoryMap);
+        this.ROSessionFactoryMap = Collections.unmodifiableMap(roSessionFactoryMap);
         this.shardKeyToShardIdMap = ImmutableMap.copyOf(shardKeyToShardIdMap);
         this.schedulerSessionFactory = schedulerSessionFactory;
     }
@@ -65,12 +69,24 @@ public class SessionFactoryContextImpl implements SessionFactoryContext {
 
     @Override
     public SessionFactory getRWSessionFactory(String shardKey) {
-        return RWSessionFactoryImmutableMap.get(shardKeyToShardIdMap.get(shardKey));
+        return getRWSessionFactory(shardKeyToShardIdMap.get(shardKey));
+    }
+
+    @Override
+    public SessionFactory getRWSessionFactory(ShardId shardId) {
+        return checkReady(RWSessionFactoryMap.get(shardId), shardId, "RW");
     }
 
     @Override
     public SessionFactory getROSessionFactory(ShardId shardId) {
-        return ROSessionFactoryImmutableMap.get(shardId);
+        return checkReady(ROSessionFactoryMap.get(shardId), shardId, "RO");
+    }
+
+    private SessionFactory checkReady(SessionFactory sessionFactory, ShardId shardId, String type) {
+        if (sessionFactory == null && shardId != null) {
+            throw new RuntimeException(type + " session factory of shard: " + shardId + " is not available yet, the shard is warming up");
+        }
+        return sessionFactory;
     }
 
     @Override
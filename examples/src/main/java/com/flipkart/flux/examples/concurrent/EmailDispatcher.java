@@ -40,4 +40,12 @@ public class EmailDispatcher {
         logger.info("[EmailMarketingWorkflow] Sending email " + email);
         return new EmailAcknowledgement(random.nextBoolean());
     }
+
+    /* Executed once per chunk of up to 100 emails, at most 5 chunks at a time */
+    @Task(version = 1, timeout = 10000l, retries = 2, mapChunkSize = 100, mapConcurrency = 5)
+    public void sendEmailBatch(Emails emails) {
+        for (Email email : emails) {
+            logger.info("[EmailMarketingWorkflow] Sending email " + email);
+        }
+    }
 }
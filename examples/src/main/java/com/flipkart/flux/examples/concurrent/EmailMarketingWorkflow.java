@@ -25,6 +25,7 @@ import javax.inject.Singleton;
  * 1. Observe how concurrency works - there is no method that depends on output of another method
  * 2. Observe how the methods EmailMarketingWorkflow.sendEmails and EmailDispatcher.sendEmail are annotated with @Workflow and @Task respectively
  * 3. Observe how we are using javax.inject annotations for Dependency Injection
+ * 4. Observe how EmailMarketingWorkflow.sendCampaign sends a large set of emails with a single map task, rather than a task per email
  */
 @Singleton
 public class EmailMarketingWorkflow {
@@ -39,4 +40,10 @@ public class EmailMarketingWorkflow {
             emailDispatcher.sendEmail(email);
         }
     }
+
+    @Workflow(version = 1)
+    public void sendCampaign(Emails emails) {
+        /* The emails are sent in chunks, see EmailDispatcher.sendEmailBatch */
+        emailDispatcher.sendEmailBatch(emails);
+    }
 }
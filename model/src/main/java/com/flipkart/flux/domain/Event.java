@@ -13,9 +13,12 @@
 
 package com.flipkart.flux.domain;
 
+import org.hibernate.annotations.Type;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.Date;
 
 /**
  * <code>Event</code> is the result of a Task execution.
@@ -58,10 +61,17 @@ public class Event implements Serializable {
     private String stateMachineInstanceId;
 
     /**
-     * Data associated with this Event, stored as serialised json
+     * Data associated with this Event, stored as serialised json. Persisted through {@link #getStoredEventData()}
      */
+    @Transient
     private String eventData;
 
+    /**
+     * Indicates whether the event data is stored in the EventPayloads table rather than in the Events row, as it is too large.
+     * Offloaded event data is not part of the Events row, the DAO reads it from {@link EventPayload}
+     */
+    private boolean payloadOffloaded;
+
     /**
      * The source who generated this Event
      */
@@ -111,6 +121,18 @@ public class Event implements Serializable {
         this.executionVersion = executionVersion;
     }
 
+    /**
+     * Used by queries which read only the metadata of events, the event data is left null.
+     * Timestamps are declared as {@link Date} as that is the type hibernate resolves constructor arguments of timestamp columns to
+     */
+    public Event(String name, String type, EventStatus status, String stateMachineInstanceId, String eventSource,
+                 Long executionVersion, boolean payloadOffloaded, Date createdAt, Date updatedAt) {
+        this(name, type, status, stateMachineInstanceId, null, eventSource, executionVersion);
+        this.payloadOffloaded = payloadOffloaded;
+        this.createdAt = createdAt == null ? null : new Timestamp(createdAt.getTime());
+        this.updatedAt = updatedAt == null ? null : new Timestamp(updatedAt.getTime());
+    }
+
     /**
      * Accessor/Mutator methods
      */
@@ -143,6 +165,28 @@ public class Event implements Serializable {
         this.eventData = eventData;
     }
 
+    public boolean isPayloadOffloaded() {
+        return payloadOffloaded;
+    }
+
+    public void setPayloadOffloaded(boolean payloadOffloaded) {
+        this.payloadOffloaded = payloadOffloaded;
+    }
+
+    /**
+     * Event data as stored in the Events row, i.e null if the event data is offloaded
+     */
+    @Access(AccessType.PROPERTY)
+    @Column(name = "eventData")
+    @Type(type = "CompressedStringType")
+    private String getStoredEventData() {
+        return payloadOffloaded ? null : eventData;
+    }
+
+    private void setStoredEventData(String storedEventData) {
+        this.eventData = storedEventData;
+    }
+
     public String getEventSource() {
         return eventSource;
     }
@@ -210,7 +254,7 @@ public class Event implements Serializable {
     /**
      * <code>EventPK</code> is the composite primary key of "Event" table in DB.
      */
-    static class EventPK implements Serializable {
+    public static class EventPK implements Serializable {
 
         private String stateMachineInstanceId;
         private String name;
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.domain;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * <code>EventPayload</code> holds the data of an {@link Event} whose data is too large to be kept in the Events table.
+ * Keeping such payloads in a table of their own keeps the Events table compact, the payload is read only when a task needs the event's data.
+ */
+@Entity
+@Table(name = "EventPayloads")
+@IdClass(Event.EventPK.class)
+public class EventPayload implements Serializable {
+
+    /**
+     * Default serial version UID
+     */
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String stateMachineInstanceId;
+
+    @Id
+    private String name;
+
+    @Id
+    private Long executionVersion;
+
+    /**
+     * Data of the event, stored as serialised json
+     */
+    @Type(type = "CompressedStringType")
+    private String payload;
+
+    /**
+     * Default constructor needed for hibernate entity
+     */
+    public EventPayload() {
+    }
+
+    public EventPayload(Event event) {
+        this.stateMachineInstanceId = event.getStateMachineInstanceId();
+        this.name = event.getName();
+        this.executionVersion = event.getExecutionVersion();
+        this.payload = event.getEventData();
+    }
+
+    /**
+     * Accessor/Mutator methods
+     */
+    public String getStateMachineInstanceId() {
+        return stateMachineInstanceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getExecutionVersion() {
+        return executionVersion;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+}
@@ -91,7 +91,7 @@ public class State {
     /**
      * List of event names this state is dependent on
      */
-    @Type(type = "ListJsonType")
+    @Type(type = "StringListType")
     private List<String> dependencies;
 
     private String outputEvent;
@@ -142,6 +142,21 @@ public class State {
      * The max retry count for a replayable event
      */
     private Short maxReplayableRetries;
+    /***
+     * The no. of dependencies which are neither triggered nor cancelled, the state is executable when it reaches zero.
+     * It is decremented in the database as events arrive and is null for states created before it was maintained.
+     */
+    @Column(updatable = false)
+    private Integer pendingDependencies;
+    /***
+     * No. of items of the collection event given to each execution of the task of a map state, null for states which are not map states.
+     * The progress of the chunks is kept in the MapStateChunks table
+     */
+    private Integer mapChunkSize;
+    /***
+     * Max. no. of chunks of a map state executed at the same time
+     */
+    private Integer mapConcurrency;
 
     /**
      * Constructors
@@ -366,6 +381,30 @@ public class State {
         this.attemptedNumOfReplayableRetries = attemptedNumOfReplayableRetries;
     }
 
+    public Integer getPendingDependencies() {
+        return pendingDependencies;
+    }
+
+    public void setPendingDependencies(Integer pendingDependencies) {
+        this.pendingDependencies = pendingDependencies;
+    }
+
+    public Integer getMapChunkSize() {
+        return mapChunkSize;
+    }
+
+    public void setMapChunkSize(Integer mapChunkSize) {
+        this.mapChunkSize = mapChunkSize;
+    }
+
+    public Integer getMapConcurrency() {
+        return mapConcurrency;
+    }
+
+    public void setMapConcurrency(Integer mapConcurrency) {
+        this.mapConcurrency = mapConcurrency;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -13,6 +13,12 @@
 
 package com.flipkart.flux.domain;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * <code>Status</code> Describes the current status of execution {@link Task} within a {@link State}
  *
@@ -22,4 +28,22 @@ package com.flipkart.flux.domain;
  */
 public enum Status {
     initialized, running, completed, cancelled, errored, sidelined, unsidelined, invalid; //possible statuses of execution
+
+    /** Transition table: status -> statuses a state may be in to move to it. Terminal statuses (completed, cancelled, invalid) are left only by a replay */
+    private static final Map<Status, Set<Status>> ALLOWED_PREDECESSORS = new EnumMap<>(Status.class);
+
+    static {
+        Set<Status> nonTerminal = EnumSet.of(initialized, running, errored, sidelined, unsidelined);
+        for (Status status : values()) {
+            ALLOWED_PREDECESSORS.put(status, Collections.unmodifiableSet(nonTerminal));
+        }
+        ALLOWED_PREDECESSORS.put(unsidelined, Collections.unmodifiableSet(EnumSet.of(initialized, errored, sidelined, unsidelined)));
+    }
+
+    /**
+     * Returns the statuses from which a state may transition to this status on a task status update
+     */
+    public Set<Status> getAllowedPredecessors() {
+        return ALLOWED_PREDECESSORS.get(this);
+    }
 }
\ No newline at end of file
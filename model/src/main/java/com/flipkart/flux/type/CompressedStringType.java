@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.type;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <code>CompressedStringType</code> is a Hibernate {@link UserType} implementation to store a String as UTF-8 bytes in a blob column,
+ * LZ4 compressing values of at least <code>compressionThreshold</code> bytes.
+ * <p>
+ * Compressed values are stored as a {@link #LZ4_MARKER} byte, the uncompressed length (4 bytes, big endian) and the compressed bytes.
+ * Other values are stored as is, so rows written before compression was introduced remain readable. As serialised json never starts
+ * with a control character, the rare value that starts with a marker byte is stored after a {@link #RAW_MARKER} byte.
+ */
+public class CompressedStringType implements UserType, Serializable {
+
+    /** Marker byte of values stored uncompressed after the marker */
+    static final byte RAW_MARKER = 0x00;
+
+    /** Marker byte of LZ4 compressed values */
+    static final byte LZ4_MARKER = 0x01;
+
+    /** Length of marker byte and uncompressed length */
+    private static final int HEADER_LENGTH = 5;
+
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+    /** Values of at least these many bytes are compressed, 0 disables compression */
+    private final int compressionThreshold;
+
+    public CompressedStringType(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public int[] sqlTypes() {
+        return new int[]{Types.LONGVARBINARY};
+    }
+
+    @Override
+    public Class<?> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(Object x, Object y) throws HibernateException {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(Object x) throws HibernateException {
+        return x.hashCode();
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SessionImplementor session) throws HibernateException, SQLException {
+        if (value == null) {
+            st.setNull(index, Types.LONGVARBINARY);
+        } else {
+            st.setBytes(index, encode((String) value));
+        }
+    }
+
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SessionImplementor session, Object owner) throws HibernateException, SQLException {
+        byte[] value = rs.getBytes(names[0]);
+
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return decode(value);
+        } catch (LZ4Exception e) {
+            throw new SQLException("Cannot decompress column " + names[0] + ". Exception " + e.getMessage());
+        }
+    }
+
+    /**
+     * Strings are immutable, so no copy is needed
+     */
+    @Override
+    public Object deepCopy(Object value) throws HibernateException {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(Object value) throws HibernateException {
+        return (Serializable) value;
+    }
+
+    @Override
+    public Object assemble(Serializable cached, Object owner) throws HibernateException {
+        return cached;
+    }
+
+    @Override
+    public Object replace(Object original, Object target, Object owner) throws HibernateException {
+        return original;
+    }
+
+    /**
+     * converts a String to the bytes stored in DB, compressing it if it is large enough and compressible
+     */
+    public byte[] encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (compressionThreshold > 0 && bytes.length >= compressionThreshold) {
+            LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+            byte[] compressed = new byte[HEADER_LENGTH + compressor.maxCompressedLength(bytes.length)];
+            int compressedLength = compressor.compress(bytes, 0, bytes.length, compressed, HEADER_LENGTH);
+            if (HEADER_LENGTH + compressedLength < bytes.length) {
+                compressed[0] = LZ4_MARKER;
+                compressed[1] = (byte) (bytes.length >>> 24);
+                compressed[2] = (byte) (bytes.length >>> 16);
+                compressed[3] = (byte) (bytes.length >>> 8);
+                compressed[4] = (byte) bytes.length;
+                return Arrays.copyOf(compressed, HEADER_LENGTH + compressedLength);
+            }
+        }
+        if (bytes.length > 0 && (bytes[0] == RAW_MARKER || bytes[0] == LZ4_MARKER)) {
+            byte[] marked = new byte[bytes.length + 1];
+            marked[0] = RAW_MARKER;
+            System.arraycopy(bytes, 0, marked, 1, bytes.length);
+            return marked;
+        }
+        return bytes;
+    }
+
+    /**
+     * converts the bytes stored in DB to String
+     */
+    public String decode(byte[] value) {
+        if (value.length >= HEADER_LENGTH && value[0] == LZ4_MARKER) {
+            int length = ((value[1] & 0xFF) << 24) | ((value[2] & 0xFF) << 16) | ((value[3] & 0xFF) << 8) | (value[4] & 0xFF);
+            byte[] bytes = LZ4_FACTORY.fastDecompressor().decompress(value, HEADER_LENGTH, length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (value.length > 0 && value[0] == RAW_MARKER) {
+            return new String(value, 1, value.length - 1, StandardCharsets.UTF_8);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
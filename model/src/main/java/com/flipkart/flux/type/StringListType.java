@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.type;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.usertype.UserType;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * <code>StringListType</code> is a Hibernate {@link UserType} implementation to store a {@link java.util.List} of strings in DB as the strings separated
+ * by the unit separator control character, which does not appear in names. Reading a value is a split, so no JSON parser is involved.
+ * <p>
+ * Values stored by {@link ListJsonType} before, i.e. JSON arrays, are still read.
+ */
+public class StringListType implements UserType, Serializable {
+
+    static final char SEPARATOR = '\u001f';
+
+    private static final String LEGACY_JSON_PREFIX = "[";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public int[] sqlTypes() {
+        return new int[]{Types.VARCHAR};
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Class returnedClass() {
+        return List.class;
+    }
+
+    @Override
+    public boolean equals(Object x, Object y) throws HibernateException {
+        if (x == null) {
+            return (y == null);
+        }
+        return x.equals(y);
+    }
+
+    @Override
+    public int hashCode(Object x) throws HibernateException {
+        return x.hashCode();
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SessionImplementor session) throws HibernateException, SQLException {
+        st.setString(index, encode((List<?>) value));
+    }
+
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SessionImplementor session, Object owner) throws HibernateException, SQLException {
+        String value = rs.getString(names[0]);
+        try {
+            return decode(value);
+        } catch (IOException e) {
+            throw new SQLException("Cannot deserialize json string " + value + ". Exception " + e.getMessage());
+        }
+    }
+
+    /** Copies the list, its elements are immutable */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object deepCopy(Object value) throws HibernateException {
+        return value == null ? null : new LinkedList<>((List<String>) value);
+    }
+
+    @Override
+    public boolean isMutable() {
+        return true;
+    }
+
+    @Override
+    public Serializable disassemble(Object value) throws HibernateException {
+        return (Serializable) this.deepCopy(value);
+    }
+
+    @Override
+    public Object assemble(Serializable cached, Object owner) throws HibernateException {
+        return this.deepCopy(cached);
+    }
+
+    @Override
+    public Object replace(Object original, Object target, Object owner) throws HibernateException {
+        return original;
+    }
+
+    static String encode(List<?> values) {
+        if (values == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Object value : values) {
+            if (builder.length() > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    static List<String> decode(String value) throws IOException {
+        List<String> values = new LinkedList<>();
+        if (value == null || value.isEmpty()) {
+            return values;
+        }
+        if (value.startsWith(LEGACY_JSON_PREFIX)) {
+            values.addAll(MAPPER.<List<String>>readValue(value, new TypeReference<List<String>>() {
+            }));
+            return values;
+        }
+        int start = 0;
+        int end;
+        while ((end = value.indexOf(SEPARATOR, start)) >= 0) {
+            values.add(value.substring(start, end));
+            start = end + 1;
+        }
+        values.add(value.substring(start));
+        return values;
+    }
+}
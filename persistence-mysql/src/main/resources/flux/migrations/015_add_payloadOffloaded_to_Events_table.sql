@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset flux:15 runOnChange:false
+
+ALTER TABLE `Events`
+  ADD COLUMN `payloadOffloaded` TINYINT(1) NOT NULL DEFAULT 0;
+
+--rollback ALTER TABLE `Events` DROP COLUMN `payloadOffloaded`;
@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset flux:16 runOnChange:false
+
+CREATE TABLE IF NOT EXISTS `EventPayloads` (
+  `stateMachineInstanceId` VARCHAR(64) NOT NULL,
+  `name` VARCHAR(255) NOT NULL,
+  `executionVersion` INT UNSIGNED NOT NULL DEFAULT 0,
+  `payload` LONGBLOB,
+  PRIMARY KEY (`stateMachineInstanceId`, `name`, `executionVersion`),
+  CONSTRAINT `FK_sm_eventpayloads` FOREIGN KEY (`stateMachineInstanceId`) REFERENCES `StateMachines` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+)
+ENGINE=InnoDB
+ROW_FORMAT=DEFAULT
+DEFAULT CHARSET=utf8;
+
+--rollback drop table EventPayloads;
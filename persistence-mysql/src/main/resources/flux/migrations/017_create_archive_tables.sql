@@ -0,0 +1,36 @@
+--liquibase formatted sql
+
+--changeset flux:17 runOnChange:false
+
+-- Archive tables hold the rows of terminal state machines moved out of the live tables by the archival service.
+-- They have the columns of the live tables (columns added to a live table must be added to its archive table as well), no foreign keys,
+-- and are range partitioned on the creation time so that old data can be dropped a partition at a time. The archival service adds
+-- monthly partitions by splitting pMax before moving rows, so pMax stays empty.
+
+CREATE TABLE IF NOT EXISTS `StateMachinesArchive` LIKE `StateMachines`;
+ALTER TABLE `StateMachinesArchive`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`, `createdAt`)
+  PARTITION BY RANGE (UNIX_TIMESTAMP(`createdAt`)) (PARTITION `pMax` VALUES LESS THAN MAXVALUE);
+
+CREATE TABLE IF NOT EXISTS `StatesArchive` LIKE `States`;
+ALTER TABLE `StatesArchive`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`stateMachineId`, `id`, `createdAt`)
+  PARTITION BY RANGE (UNIX_TIMESTAMP(`createdAt`)) (PARTITION `pMax` VALUES LESS THAN MAXVALUE);
+
+CREATE TABLE IF NOT EXISTS `EventsArchive` LIKE `Events`;
+ALTER TABLE `EventsArchive`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`stateMachineInstanceId`, `name`, `executionVersion`, `createdAt`)
+  PARTITION BY RANGE (UNIX_TIMESTAMP(`createdAt`)) (PARTITION `pMax` VALUES LESS THAN MAXVALUE);
+
+CREATE TABLE IF NOT EXISTS `AuditRecordsArchive` LIKE `AuditRecords`;
+ALTER TABLE `AuditRecordsArchive`
+  MODIFY `id` BIGINT NOT NULL,
+  MODIFY `createdAt` TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`, `createdAt`)
+  PARTITION BY RANGE (UNIX_TIMESTAMP(`createdAt`)) (PARTITION `pMax` VALUES LESS THAN MAXVALUE);
+
+--rollback drop table StateMachinesArchive; drop table StatesArchive; drop table EventsArchive; drop table AuditRecordsArchive;
@@ -0,0 +1,26 @@
+--liquibase formatted sql
+
+--changeset flux:18 runOnChange:false
+
+CREATE TABLE IF NOT EXISTS `StateDependencies` (
+  `stateMachineId` VARCHAR(64) NOT NULL,
+  `eventName` VARCHAR(255) NOT NULL,
+  `stateId` BIGINT NOT NULL,
+  PRIMARY KEY (`stateMachineId`, `eventName`, `stateId`),
+  CONSTRAINT `FK_states_statedependencies` FOREIGN KEY (`stateMachineId`, `stateId`) REFERENCES `States` (`stateMachineId`, `id`) ON DELETE CASCADE ON UPDATE CASCADE
+)
+ENGINE=InnoDB
+ROW_FORMAT=DEFAULT
+DEFAULT CHARSET=utf8;
+
+-- index the dependencies of the existing states, which are stored as JSON arrays of up to 100 event names
+INSERT IGNORE INTO `StateDependencies` (`stateMachineId`, `eventName`, `stateId`)
+SELECT s.stateMachineId, SUBSTRING_INDEX(SUBSTRING_INDEX(s.names, ',', n.n), ',', -1), s.id
+FROM (SELECT stateMachineId, id, REPLACE(REPLACE(REPLACE(dependencies, '[', ''), ']', ''), '"', '') AS names
+      FROM States WHERE dependencies IS NOT NULL AND dependencies NOT IN ('', '[]')) s
+JOIN (SELECT units.d + tens.d * 10 + 1 AS n
+      FROM (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) units
+      CROSS JOIN (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) tens) n
+  ON n.n <= 1 + LENGTH(s.names) - LENGTH(REPLACE(s.names, ',', ''));
+
+--rollback drop table StateDependencies;
@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset flux:19 runOnChange:false
+
+-- no. of dependencies of a state which are neither triggered nor cancelled, null for the existing states whose dependencies are evaluated
+-- by reading their events
+ALTER TABLE `States`
+    ADD COLUMN `pendingDependencies` INT DEFAULT NULL;
+
+ALTER TABLE `StatesArchive`
+    ADD COLUMN `pendingDependencies` INT DEFAULT NULL;
+
+-- set once the event of a dependency is triggered or cancelled, so that the pending dependencies of a state are decremented once per event
+ALTER TABLE `StateDependencies`
+    ADD COLUMN `met` TINYINT(1) NOT NULL DEFAULT 0;
+
+--rollback Alter Table `StateDependencies` Drop Column `met`; Alter Table `StatesArchive` Drop Column `pendingDependencies`; Alter Table `States` Drop Column `pendingDependencies`;
@@ -0,0 +1,30 @@
+--liquibase formatted sql
+
+--changeset flux:20 runOnChange:false
+
+-- chunk size and concurrency of map states, null for the states which are not map states
+ALTER TABLE `States`
+    ADD COLUMN `mapChunkSize` INT DEFAULT NULL,
+    ADD COLUMN `mapConcurrency` INT DEFAULT NULL;
+
+ALTER TABLE `StatesArchive`
+    ADD COLUMN `mapChunkSize` INT DEFAULT NULL,
+    ADD COLUMN `mapConcurrency` INT DEFAULT NULL;
+
+-- the chunks of the collection event of a map state's execution and their progress, removed once the map state completes
+CREATE TABLE IF NOT EXISTS `MapStateChunks` (
+  `stateMachineId` VARCHAR(64) NOT NULL,
+  `stateId` BIGINT NOT NULL,
+  `chunkIndex` INT NOT NULL,
+  `executionVersion` INT UNSIGNED NOT NULL DEFAULT 0,
+  `status` VARCHAR(20) NOT NULL,
+  `input` LONGTEXT,
+  `output` LONGTEXT,
+  PRIMARY KEY (`stateMachineId`, `stateId`, `chunkIndex`),
+  CONSTRAINT `FK_states_mapstatechunks` FOREIGN KEY (`stateMachineId`, `stateId`) REFERENCES `States` (`stateMachineId`, `id`) ON DELETE CASCADE ON UPDATE CASCADE
+)
+ENGINE=InnoDB
+ROW_FORMAT=DEFAULT
+DEFAULT CHARSET=utf8;
+
+--rollback drop table MapStateChunks; Alter Table `StatesArchive` Drop Column `mapChunkSize`, Drop Column `mapConcurrency`; Alter Table `States` Drop Column `mapChunkSize`, Drop Column `mapConcurrency`;
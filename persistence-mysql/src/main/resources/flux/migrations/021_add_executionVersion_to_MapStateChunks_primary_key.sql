@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset flux:21 runOnChange:false
+
+-- chunks are created per execution of a map state, so that the chunks of an earlier execution do not take the place of a replayed execution's chunks
+ALTER TABLE `MapStateChunks`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`stateMachineId`, `stateId`, `executionVersion`, `chunkIndex`);
+
+--rollback Alter Table `MapStateChunks` Drop Primary Key, Add Primary Key (`stateMachineId`, `stateId`, `chunkIndex`);
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.archival;
+
+import com.flipkart.flux.dao.iface.StateMachineArchiveDAO;
+import com.flipkart.flux.shard.ShardId;
+import com.flipkart.flux.shard.ShardPairModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>StateMachineArchivalService</code> periodically moves the terminal state machines older than <code>archival.archiveAfterDays</code> to the archive
+ * tables, shard by shard, in batches of <code>archival.batchSize</code> separated by <code>archival.batchDelayms</code> so that the live tables
+ * are not locked for long. Archive partitions older than <code>archival.dropArchivedAfterDays</code> are dropped, 0 keeps them.
+ */
+@Singleton
+public class StateMachineArchivalService {
+
+    private static final Logger logger = LogManager.getLogger(StateMachineArchivalService.class);
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final Map<ShardId, ShardPairModel> fluxShardIdToShardPairMap;
+    private final StateMachineArchiveDAO stateMachineArchiveDAO;
+    private final boolean enabled;
+    private final int archiveAfterDays;
+    private final int dropArchivedAfterDays;
+    private final int batchSize;
+    private final int batchDelayMs;
+    private final int intervalMs;
+
+    private ScheduledExecutorService scheduledExecutorService;
+    private ScheduledFuture<?> scheduledFuture;
+
+    @Inject
+    public StateMachineArchivalService(@Named("fluxShardIdToShardPairMap") Map<ShardId, ShardPairModel> fluxShardIdToShardPairMap,
+                                       StateMachineArchiveDAO stateMachineArchiveDAO,
+                                       @Named("archival.enabled") boolean enabled,
+                                       @Named("archival.archiveAfterDays") int archiveAfterDays,
+                                       @Named("archival.dropArchivedAfterDays") int dropArchivedAfterDays,
+                                       @Named("archival.batchSize") int batchSize,
+                                       @Named("archival.batchDelayms") int batchDelayMs,
+                                       @Named("archival.intervalms") int intervalMs) {
+        this.fluxShardIdToShardPairMap = fluxShardIdToShardPairMap;
+        this.stateMachineArchiveDAO = stateMachineArchiveDAO;
+        this.enabled = enabled;
+        this.archiveAfterDays = archiveAfterDays;
+        this.dropArchivedAfterDays = dropArchivedAfterDays;
+        this.batchSize = batchSize;
+        this.batchDelayMs = batchDelayMs;
+        this.intervalMs = intervalMs;
+    }
+
+    public synchronized void start() {
+        if (!enabled || scheduledFuture != null) {
+            return;
+        }
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "state-machine-archival");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                archive();
+            } catch (Throwable e) {
+                logger.error("Error while archiving state machines", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("StateMachineArchivalService started");
+    }
+
+    public synchronized void stop() {
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(true);
+            scheduledExecutorService.shutdownNow();
+            scheduledFuture = null;
+            logger.info("StateMachineArchivalService stopped");
+        }
+    }
+
+    /**
+     * Archives the eligible state machines of all shards, a failure on one shard does not hold up the others
+     */
+    void archive() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        Timestamp createdBefore = new Timestamp(now - archiveAfterDays * DAY_MILLIS);
+        Timestamp dropBefore = dropArchivedAfterDays > 0 ? new Timestamp(now - dropArchivedAfterDays * DAY_MILLIS) : null;
+        for (ShardId shardId : fluxShardIdToShardPairMap.keySet()) {
+            try {
+                // events and audit records are created after their state machine, so partitions are added up to a day ahead of now
+                stateMachineArchiveDAO.maintainPartitions(shardId, createdBefore, new Timestamp(now + DAY_MILLIS), dropBefore);
+                int archived = archiveShard(shardId, createdBefore);
+                logger.info("Archived {} state machines of shard {}", archived, shardId);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error while archiving state machines of shard {}", shardId, e);
+            }
+        }
+    }
+
+    private int archiveShard(ShardId shardId, Timestamp createdBefore) throws InterruptedException {
+        int archived = 0;
+        List<String> stateMachineIds;
+        do {
+            stateMachineIds = stateMachineArchiveDAO.findArchivableStateMachineIds(shardId, createdBefore, batchSize);
+            if (!stateMachineIds.isEmpty()) {
+                archived += stateMachineArchiveDAO.archiveStateMachines(shardId, stateMachineIds);
+                Thread.sleep(batchDelayMs);
+            }
+        } while (stateMachineIds.size() == batchSize);
+        return archived;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.ws.rs.core.Response;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.codahale.metrics.SharedMetricRegistries;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.flux.api.CorrelatedEventData;
+import com.flipkart.flux.api.EventAndExecutionData;
+import com.flipkart.flux.api.EventData;
+import com.flipkart.flux.api.EventSubmissionResult;
+import com.flipkart.flux.api.ExecutionUpdateData;
+import com.flipkart.flux.api.StateMachineDefinition;
+import com.flipkart.flux.api.VersionedEventData;
+import com.flipkart.flux.client.config.FluxClientConfiguration;
+import com.flipkart.flux.cluster.OwnershipMap;
+import com.flipkart.flux.resource.StateMachineResource;
+
+/**
+ * <code>LocalFluxRuntimeConnector</code> is a {@link FluxRuntimeConnector} used when the orchestrator runs in the same JVM, i.e. in the COMBINED role.
+ * Requests are handed to the {@link StateMachineResource} as they are, instead of being serialized and posted over loopback http.
+ * Event payloads are still serialized, as events carry their data as strings.
+ * The resource is invoked directly, bypassing the owner forwarding of http requests. So requests of a state machine owned by another node,
+ * as per the {@link OwnershipMap}, are posted to the owner over http like the {@link FluxRuntimeConnectorHttpImpl} does.
+ */
+@Singleton
+public class LocalFluxRuntimeConnector implements FluxRuntimeConnector {
+
+    private static final Logger logger = LogManager.getLogger(LocalFluxRuntimeConnector.class);
+
+    private static final String EXTERNAL = "external";
+    private static final String CORRELATION_ID = "correlationId";
+
+    /** Looked up on use, as the resource depends on the components this connector is injected into */
+    private final Provider<StateMachineResource> stateMachineResource;
+    private final ObjectMapper objectMapper;
+    private final OwnershipMap ownershipMap;
+    private final FluxClientConfiguration configuration;
+
+    /** Http connectors to the other orchestrator nodes, by their api endpoint */
+    private final Map<String, FluxRuntimeConnector> ownerConnectors = new ConcurrentHashMap<>();
+
+    @Inject
+    public LocalFluxRuntimeConnector(Provider<StateMachineResource> stateMachineResource, ObjectMapper objectMapper, OwnershipMap ownershipMap,
+                                     FluxClientConfiguration configuration) {
+        this.stateMachineResource = stateMachineResource;
+        this.objectMapper = objectMapper;
+        this.ownershipMap = ownershipMap;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void submitNewWorkflow(StateMachineDefinition stateMachineDef) {
+        invoke(() -> stateMachineResource.get().createStateMachine(stateMachineDef));
+    }
+
+    @Override
+    public void submitEventAndUpdateStatus(VersionedEventData versionedEventData, String stateMachineId, ExecutionUpdateData executionUpdateData) {
+        FluxRuntimeConnector owner = getRemoteOwner(stateMachineId);
+        if (owner != null) {
+            owner.submitEventAndUpdateStatus(versionedEventData, stateMachineId, executionUpdateData);
+            return;
+        }
+        EventAndExecutionData eventAndExecutionData = new EventAndExecutionData(versionedEventData, executionUpdateData);
+        invoke(() -> stateMachineResource.get().submitEvent(stateMachineId, eventAndExecutionData));
+    }
+
+    @Override
+    public void submitEvent(String name, Object data, String correlationId, String eventSource) {
+        FluxRuntimeConnector owner = getRemoteOwner(correlationId);
+        if (owner != null) {
+            owner.submitEvent(name, data, correlationId, eventSource);
+            return;
+        }
+        EventData eventData = new EventData(name, data.getClass().getName(), serialize(data), eventSource == null ? EXTERNAL : eventSource);
+        invoke(() -> stateMachineResource.get().submitEvent(correlationId, CORRELATION_ID, null, eventData));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<EventSubmissionResult> submitEvents(List<CorrelatedEventData> events) {
+        return (List<EventSubmissionResult>) invoke(() -> stateMachineResource.get().submitEvents(events)).getEntity();
+    }
+
+    @Override
+    public void submitReplayEvent(String name, Object data, String correlationId, String eventSource) {
+        FluxRuntimeConnector owner = getRemoteOwner(correlationId);
+        if (owner != null) {
+            owner.submitReplayEvent(name, data, correlationId, eventSource);
+            return;
+        }
+        EventData eventData = new EventData(name, data.getClass().getName(), serialize(data), eventSource);
+        invoke(() -> stateMachineResource.get().submitReplayEvent(correlationId, CORRELATION_ID, eventData));
+    }
+
+    @Override
+    public void submitScheduledEvent(String name, Object data, String correlationId, String eventSource, Long scheduledTime) {
+        FluxRuntimeConnector owner = getRemoteOwner(correlationId);
+        if (owner != null) {
+            owner.submitScheduledEvent(name, data, correlationId, eventSource, scheduledTime);
+            return;
+        }
+        // without a trigger time the event is being triggered by the event scheduler, which holds the data serialized already
+        EventData eventData = new EventData(name, data.getClass().getName(), scheduledTime != null ? serialize(data) : (String) data,
+                eventSource == null ? EXTERNAL : eventSource);
+        invoke(() -> stateMachineResource.get().submitEvent(correlationId, CORRELATION_ID, scheduledTime, eventData));
+    }
+
+    @Override
+    public void submitEventUpdate(String name, Object data, String correlationId, String eventSource) {
+        FluxRuntimeConnector owner = getRemoteOwner(correlationId);
+        if (owner != null) {
+            owner.submitEventUpdate(name, data, correlationId, eventSource);
+            return;
+        }
+        EventData eventData = new EventData(name, data.getClass().getName(), serialize(data), eventSource == null ? EXTERNAL : eventSource);
+        invoke(() -> stateMachineResource.get().updateEvent(correlationId, eventData));
+    }
+
+    @Override
+    public void cancelEvent(String eventName, String correlationId) {
+        FluxRuntimeConnector owner = getRemoteOwner(correlationId);
+        if (owner != null) {
+            owner.cancelEvent(eventName, correlationId);
+            return;
+        }
+        EventData eventData = new EventData(eventName, null, null, null, true);
+        invoke(() -> stateMachineResource.get().submitEvent(correlationId, CORRELATION_ID, null, eventData));
+    }
+
+    @Override
+    public void updateExecutionStatus(ExecutionUpdateData executionUpdateData) {
+        FluxRuntimeConnector owner = getRemoteOwner(executionUpdateData.getStateMachineId());
+        if (owner != null) {
+            owner.updateExecutionStatus(executionUpdateData);
+            return;
+        }
+        invoke(() -> stateMachineResource.get().updateStatus(executionUpdateData.getStateMachineId(), executionUpdateData.getTaskId(),
+                executionUpdateData.getTaskExecutionVersion(), executionUpdateData));
+    }
+
+    @Override
+    public void incrementExecutionRetries(String stateMachineId, Long taskId, Long taskExecutionVersion) {
+        FluxRuntimeConnector owner = getRemoteOwner(stateMachineId);
+        if (owner != null) {
+            owner.incrementExecutionRetries(stateMachineId, taskId, taskExecutionVersion);
+            return;
+        }
+        invoke(() -> stateMachineResource.get().incrementRetry(stateMachineId, taskId, taskExecutionVersion));
+    }
+
+    @Override
+    public void redriveTask(String stateMachineId, Long taskId, Long taskExecutionVersion) {
+        FluxRuntimeConnector owner = getRemoteOwner(stateMachineId);
+        if (owner != null) {
+            owner.redriveTask(stateMachineId, taskId, taskExecutionVersion);
+            return;
+        }
+        invoke(() -> stateMachineResource.get().redriveTask(stateMachineId, taskId, taskExecutionVersion));
+    }
+
+    /**
+     * Returns the http connector to the node owning the state machine if it is another node, null if the request should be handled locally
+     */
+    private FluxRuntimeConnector getRemoteOwner(String stateMachineId) {
+        if (!ownershipMap.isEnabled()) {
+            return null;
+        }
+        String owner = ownershipMap.getRemoteOwner(stateMachineId);
+        return owner == null ? null : ownerConnectors.computeIfAbsent(owner, this::createOwnerConnector);
+    }
+
+    /**
+     * Creates the http connector to another orchestrator node, posting in the configured wire format
+     */
+    FluxRuntimeConnector createOwnerConnector(String ownerEndpoint) {
+        logger.info("Creating connector to orchestrator node: {} for the state machines it owns", ownerEndpoint);
+        return new FluxRuntimeConnectorHttpImpl(configuration.getConnectionTimeout(), configuration.getSocketTimeout(), ownerEndpoint, objectMapper,
+                SharedMetricRegistries.getOrCreate("mainMetricRegistry"), WireFormat.fromValue(configuration.getWireFormat(), WireFormat.JSON));
+    }
+
+    private String serialize(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            logger.error("Serializing event data errored. Message: {}", e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Invokes the resource, failing like the http connector does when the runtime does not accept the request
+     */
+    private Response invoke(ResourceCall call) {
+        Response response;
+        try {
+            response = call.invoke();
+        } catch (Exception e) {
+            logger.error("Invoking Flux runtime errored. Message: {}", e.getMessage(), e);
+            throw new RuntimeCommunicationException("Could not communicate with Flux runtime: " + e.getMessage());
+        }
+        int statusCode = response.getStatus();
+        if (statusCode < Response.Status.OK.getStatusCode() || statusCode >= Response.Status.MOVED_PERMANENTLY.getStatusCode()) {
+            logger.error("Did not receive a valid response from Flux core. Status code: {}, message: {}", statusCode, response.getEntity());
+            throw new RuntimeCommunicationException("Did not receive a valid response from Flux core");
+        }
+        return response;
+    }
+
+    private interface ResourceCall {
+        Response invoke() throws Exception;
+    }
+}
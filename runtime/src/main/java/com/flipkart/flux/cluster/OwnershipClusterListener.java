@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.cluster;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import akka.actor.Address;
+import akka.actor.UntypedActor;
+import akka.cluster.Cluster;
+import akka.cluster.ClusterEvent;
+import akka.cluster.ClusterEvent.MemberEvent;
+import akka.cluster.ClusterEvent.MemberExited;
+import akka.cluster.ClusterEvent.MemberRemoved;
+import akka.cluster.ClusterEvent.MemberUp;
+import akka.cluster.ClusterEvent.ReachabilityEvent;
+import akka.cluster.ClusterEvent.ReachableMember;
+import akka.cluster.ClusterEvent.UnreachableMember;
+import akka.cluster.MemberStatus;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+
+/**
+ * An Akka Actor that listens to Cluster membership changes and reassigns the buckets of the {@link OwnershipMap} to the members that are up
+ * and reachable
+ */
+public class OwnershipClusterListener extends UntypedActor {
+
+    /** Logger instance for this class*/
+    private LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
+
+    /** Get a handle to the cluster that this Actor is part of*/
+    private Cluster cluster = Cluster.get(getContext().system());
+
+    private final OwnershipMap ownershipMap;
+
+    /** Members that are up and reachable*/
+    private final Set<Address> members = new HashSet<>();
+
+    public OwnershipClusterListener(OwnershipMap ownershipMap) {
+        this.ownershipMap = ownershipMap;
+    }
+
+    @Override
+    public void preStart() {
+        cluster.subscribe(getSelf(), ClusterEvent.initialStateAsEvents(), MemberEvent.class, ReachabilityEvent.class);
+    }
+
+    @Override
+    public void postStop() {
+        cluster.unsubscribe(getSelf());
+    }
+
+    @Override
+    public void onReceive(Object message) {
+        boolean changed;
+        if (message instanceof MemberUp) {
+            changed = members.add(((MemberUp) message).member().address());
+        } else if (message instanceof ReachableMember) {
+            ReachableMember reachable = (ReachableMember) message;
+            changed = reachable.member().status() == MemberStatus.up() && members.add(reachable.member().address());
+        } else if (message instanceof UnreachableMember) {
+            changed = members.remove(((UnreachableMember) message).member().address());
+        } else if (message instanceof MemberExited) {
+            changed = members.remove(((MemberExited) message).member().address());
+        } else if (message instanceof MemberRemoved) {
+            changed = members.remove(((MemberRemoved) message).member().address());
+        } else if (message instanceof MemberEvent) {
+            changed = false; // ignore
+        } else {
+            unhandled(message);
+            return;
+        }
+        if (changed) {
+            logger.info("Cluster membership changed on: {}, members up and reachable: {}", message, members);
+            ownershipMap.membersChanged(ownershipMap.getEndpoint(cluster.selfAddress()),
+                    members.stream().map(ownershipMap::getEndpoint).collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.flipkart.flux.api.OwnershipTable;
+import com.flipkart.flux.impl.boot.ActorSystemManager;
+import com.flipkart.flux.persistence.CryptHashGenerator;
+import com.flipkart.polyguice.core.Initializable;
+import com.google.common.hash.Hashing;
+
+import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.actor.Props;
+import akka.cluster.Cluster;
+
+/**
+ * <code>OwnershipMap</code> assigns each of the 256 buckets of state machine ids, i.e. the shard keys generated by {@link CryptHashGenerator},
+ * to one of the orchestrator nodes of the Akka cluster joined by the {@link ActorSystemManager}, so that the requests of a state machine can be
+ * handled by one node. Buckets are assigned by rendezvous hashing over the reachable members, so only the buckets of a node that joins or
+ * leaves move. Nodes are addressed by the host of their cluster address and the api port, which is expected to be the same on all nodes.
+ */
+@Singleton
+public class OwnershipMap implements Initializable {
+
+    private static final Logger logger = LogManager.getLogger(OwnershipMap.class);
+
+    private static final int NO_OF_BUCKETS = 256;
+
+    private final ActorSystemManager actorSystemManager;
+    private final boolean enabled;
+    private final int apiPort;
+
+    /** Api endpoint of the owner of each bucket, indexed by the bucket's value. Empty until the cluster membership is known */
+    private volatile String[] owners = new String[0];
+
+    /** Api endpoint of this node */
+    private volatile String selfEndpoint;
+
+    @Inject
+    public OwnershipMap(ActorSystemManager actorSystemManager, @Named("ownership.enabled") boolean enabled,
+                        @Named("Api.service.port") int apiPort) {
+        this.actorSystemManager = actorSystemManager;
+        this.enabled = enabled;
+        this.apiPort = apiPort;
+    }
+
+    /**
+     * Starts following the cluster membership, if ownership is enabled
+     */
+    @Override
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        ActorSystem actorSystem = actorSystemManager.retrieveActorSystem();
+        selfEndpoint = getEndpoint(Cluster.get(actorSystem).selfAddress());
+        actorSystem.actorOf(Props.create(OwnershipClusterListener.class, this), "ownershipClusterListener");
+        logger.info("Following cluster membership for ownership of state machines, this node is: {}", selfEndpoint);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the api endpoint of the node owning the state machine if it is another node, null if this node owns it or the owner is not known
+     */
+    public String getRemoteOwner(String stateMachineId) {
+        String[] currentOwners = owners;
+        if (currentOwners.length == 0) {
+            return null;
+        }
+        String owner = currentOwners[Integer.parseInt(CryptHashGenerator.getUniformCryptHash(stateMachineId), 16)];
+        return owner == null || owner.equals(selfEndpoint) ? null : owner;
+    }
+
+    /**
+     * Returns the owners of all the buckets, empty if ownership is disabled or the cluster membership is not known yet
+     */
+    public OwnershipTable getOwnershipTable() {
+        String[] currentOwners = owners;
+        Map<String, String> table = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < currentOwners.length; bucket++) {
+            if (currentOwners[bucket] != null) {
+                table.put(String.format("%02x", bucket), currentOwners[bucket]);
+            }
+        }
+        return new OwnershipTable(table);
+    }
+
+    /**
+     * Reassigns the buckets to the given members, called on cluster membership changes
+     *
+     * @param self      api endpoint of this node
+     * @param endpoints api endpoints of the reachable members
+     */
+    void membersChanged(String self, Collection<String> endpoints) {
+        List<String> members = endpoints.stream().distinct().sorted().collect(Collectors.toList());
+        String[] newOwners = new String[NO_OF_BUCKETS];
+        if (!members.isEmpty()) {
+            for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++) {
+                newOwners[bucket] = getOwner(bucket, members);
+            }
+        }
+        selfEndpoint = self;
+        owners = newOwners;
+        logger.info("State machine buckets are now owned by: {}", members);
+    }
+
+    /**
+     * Returns the api endpoint of a cluster member
+     */
+    String getEndpoint(Address address) {
+        return "http://" + (address.host().isDefined() ? address.host().get() : "localhost") + ":" + apiPort + "/api/machines";
+    }
+
+    /** Rendezvous hashing: the member with the highest hash of (bucket, member) owns the bucket */
+    private static String getOwner(int bucket, List<String> members) {
+        String owner = null;
+        long highestWeight = Long.MIN_VALUE;
+        for (String member : members) {
+            long weight = Hashing.murmur3_128().newHasher().putInt(bucket).putString(member, StandardCharsets.UTF_8).hash().asLong();
+            if (owner == null || weight > highestWeight) {
+                owner = member;
+                highestWeight = weight;
+            }
+        }
+        return owner;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.controller;
+
+import com.flipkart.flux.utils.LoggingUtils;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <code>StateMachineEventSerializer</code> applies the events of a state machine one after the other. Events are run on one of
+ * <code>eventProcessing.stripes</code> single threaded executors chosen by the hash of the state machine id, so events of different
+ * state machines are processed concurrently while the events of one state machine never race. 0 stripes disables it, events are then processed on
+ * the calling thread.
+ * <p>
+ * When <code>eventProcessing.exclusive</code> is set, all the events of a state machine are assumed to reach this node (e.g. a single orchestrator),
+ * so the row locks otherwise taken to serialize event processing across nodes are skipped.
+ */
+@Singleton
+public class StateMachineEventSerializer {
+
+    /** Index of the stripe the current thread belongs to, -1 for threads outside the stripes */
+    private static final ThreadLocal<Integer> CURRENT_STRIPE = ThreadLocal.withInitial(() -> -1);
+
+    private final ExecutorService[] stripes;
+    private final boolean exclusive;
+
+    @Inject
+    public StateMachineEventSerializer(@Named("eventProcessing.stripes") int noOfStripes,
+                                       @Named("eventProcessing.exclusive") boolean exclusive) {
+        this.stripes = new ExecutorService[noOfStripes];
+        for (int i = 0; i < noOfStripes; i++) {
+            final int stripe = i;
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    CURRENT_STRIPE.set(stripe);
+                    runnable.run();
+                }, "event-processor-" + stripe);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.exclusive = exclusive && noOfStripes > 0;
+    }
+
+    /**
+     * Returns whether events of a state machine need not be serialized using DB locks
+     */
+    public boolean isExclusive() {
+        return exclusive;
+    }
+
+    /**
+     * Runs the task after the previously submitted tasks of the state machine and waits for its result. Exceptions thrown by the task are rethrown.
+     */
+    public <T> T execute(String stateMachineId, Callable<T> task) {
+        if (stripes.length == 0 || CURRENT_STRIPE.get() == getStripe(stateMachineId)) {
+            // runs inline when disabled, or when already serialized, e.g. when an event posts another event of the same state machine
+            return call(task);
+        }
+        try {
+            return stripes[getStripe(stateMachineId)].submit(() -> {
+                LoggingUtils.registerStateMachineIdForLogging(stateMachineId);
+                try {
+                    return task.call();
+                } finally {
+                    LoggingUtils.deRegisterStateMachineIdForLogging();
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while processing event for state machine " + stateMachineId, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Runs the task after the previously submitted tasks of the state machine without waiting for it, e.g. to process the events of many state
+     * machines together. The returned future completes with the task's result, or exceptionally with the exception thrown by the task.
+     */
+    public <T> CompletableFuture<T> submit(String stateMachineId, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (stripes.length == 0 || CURRENT_STRIPE.get() == getStripe(stateMachineId)) {
+            complete(result, task);
+            return result;
+        }
+        stripes[getStripe(stateMachineId)].execute(() -> {
+            LoggingUtils.registerStateMachineIdForLogging(stateMachineId);
+            try {
+                complete(result, task);
+            } finally {
+                LoggingUtils.deRegisterStateMachineIdForLogging();
+            }
+        });
+        return result;
+    }
+
+    int getStripe(String stateMachineId) {
+        return stripes.length == 0 ? -1 : (stateMachineId.hashCode() & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    private static <T> void complete(CompletableFuture<T> result, Callable<T> task) {
+        try {
+            result.complete(task.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
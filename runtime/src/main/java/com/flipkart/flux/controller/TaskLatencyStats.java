@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.controller;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.Snapshot;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>TaskLatencyStats</code> keeps the latencies of the tasks of each task type, measured from dispatching a task to receiving its final
+ * status, i.e. execution along with the retries on the execution node and the status callback. The redrive interval of a task is derived from the
+ * p99 latency of its task type, within <code>redriver.adaptiveInterval.floorms</code> and <code>redriver.adaptiveInterval.ceilingms</code>, so that
+ * stalled fast tasks are redriven soon while slow tasks are not redriven while they are still executing. The interval is never less than the
+ * time a single attempt of the task may take, as a redrive is not held back by a still running attempt.
+ * Task types with fewer than <code>redriver.adaptiveInterval.minSamples</code> latencies in the last {@value #WINDOW_MINUTES} minutes use the default,
+ * retry and timeout based, interval. Only the status updates received by the node that dispatched the task are sampled.
+ */
+@Singleton
+public class TaskLatencyStats {
+
+    /** Latencies are kept for this long */
+    static final int WINDOW_MINUTES = 10;
+
+    /** The redrive interval is this many times the p99 latency */
+    private static final int P99_MULTIPLIER = 2;
+
+    /** Bounds on the task types and the dispatched tasks tracked */
+    private static final int MAX_TASK_TYPES = 1000;
+    private static final int MAX_DISPATCHED_TASKS = 100000;
+
+    private final boolean enabled;
+    private final long floorMillis;
+    private final long ceilingMillis;
+    private final int minSamples;
+
+    /** Task type -> latencies in millis */
+    private final Cache<String, Histogram> latencies;
+
+    /** Dispatched tasks awaiting their final status, tasks which do not complete within the ceiling are dropped as they are redriven anyway */
+    private final Cache<String, Dispatch> dispatchedTasks;
+
+    @Inject
+    public TaskLatencyStats(@Named("redriver.adaptiveInterval.enabled") boolean enabled,
+                            @Named("redriver.adaptiveInterval.floorms") int floorMillis,
+                            @Named("redriver.adaptiveInterval.ceilingms") int ceilingMillis,
+                            @Named("redriver.adaptiveInterval.minSamples") int minSamples) {
+        this.enabled = enabled;
+        this.floorMillis = floorMillis;
+        this.ceilingMillis = ceilingMillis;
+        this.minSamples = minSamples;
+        this.latencies = CacheBuilder.newBuilder().maximumSize(MAX_TASK_TYPES).build();
+        this.dispatchedTasks = CacheBuilder.newBuilder().maximumSize(MAX_DISPATCHED_TASKS)
+                .expireAfterWrite(ceilingMillis, TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Notes the dispatch of a task, its latency is recorded when {@link #completed(String, Long, Long)} is called for it
+     */
+    public void dispatched(String taskType, String stateMachineId, Long taskId, Long taskExecutionVersion) {
+        if (enabled) {
+            dispatchedTasks.put(getKey(stateMachineId, taskId, taskExecutionVersion), new Dispatch(taskType, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Records the latency of a dispatched task on receiving its final status
+     */
+    public void completed(String stateMachineId, Long taskId, Long taskExecutionVersion) {
+        if (!enabled) {
+            return;
+        }
+        String key = getKey(stateMachineId, taskId, taskExecutionVersion);
+        Dispatch dispatch = dispatchedTasks.getIfPresent(key);
+        if (dispatch != null) {
+            dispatchedTasks.invalidate(key);
+            record(dispatch.taskType, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - dispatch.startNanos));
+        }
+    }
+
+    void record(String taskType, long latencyMillis) {
+        getLatencies(taskType).update(latencyMillis);
+    }
+
+    /**
+     * Returns the redrive interval of a task of the task type, or the given default interval if there are not enough latencies of the task type
+     * @param minInterval the time a single attempt of the task may take, the derived interval is never less than this
+     */
+    public long getRedriveInterval(String taskType, long minInterval, long defaultInterval) {
+        if (!enabled) {
+            return defaultInterval;
+        }
+        Histogram histogram = latencies.getIfPresent(taskType);
+        if (histogram == null) {
+            return defaultInterval;
+        }
+        Snapshot snapshot = histogram.getSnapshot();
+        if (snapshot.size() < minSamples) {
+            return defaultInterval;
+        }
+        long interval = Math.min(ceilingMillis, Math.max(floorMillis, (long) (P99_MULTIPLIER * snapshot.get99thPercentile())));
+        return Math.max(minInterval, interval);
+    }
+
+    private Histogram getLatencies(String taskType) {
+        try {
+            return latencies.get(taskType, () -> new Histogram(new SlidingTimeWindowArrayReservoir(WINDOW_MINUTES, TimeUnit.MINUTES)));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static String getKey(String stateMachineId, Long taskId, Long taskExecutionVersion) {
+        return stateMachineId + ":" + taskId + ":" + taskExecutionVersion;
+    }
+
+    /** Task type and dispatch time of a dispatched task */
+    private static class Dispatch {
+        private final String taskType;
+        private final long startNanos;
+
+        Dispatch(String taskType, long startNanos) {
+            this.taskType = taskType;
+            this.startNanos = startNanos;
+        }
+    }
+}
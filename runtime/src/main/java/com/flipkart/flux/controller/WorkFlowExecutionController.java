@@ -16,9 +16,11 @@ package com.flipkart.flux.controller;
 import static com.flipkart.flux.constant.RuntimeConstants.DEPENDENT_EVENTS_MESSAGE_TASK_CANCELLATION;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,15 +29,21 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.transaction.Transactional;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.flipkart.flux.api.EventAndExecutionData;
 import com.flipkart.flux.api.EventData;
 import com.flipkart.flux.api.EventDefinition;
@@ -44,6 +52,8 @@ import com.flipkart.flux.api.VersionedEventData;
 import com.flipkart.flux.api.core.TaskExecutionMessage;
 import com.flipkart.flux.dao.iface.AuditDAO;
 import com.flipkart.flux.dao.iface.EventsDAO;
+import com.flipkart.flux.dao.iface.MapStateChunksDAO;
+import com.flipkart.flux.dao.iface.MapStateChunksDAO.ChunkStatus;
 import com.flipkart.flux.dao.iface.StateMachinesDAO;
 import com.flipkart.flux.dao.iface.StateTraversalPathDAO;
 import com.flipkart.flux.dao.iface.StatesDAO;
@@ -63,6 +73,8 @@ import com.flipkart.flux.exception.TraversalPathException;
 import com.flipkart.flux.exception.UnknownStateMachine;
 import com.flipkart.flux.impl.RAMContext;
 import com.flipkart.flux.impl.message.TaskAndEvents;
+import com.flipkart.flux.impl.task.TaskExecutor;
+import com.flipkart.flux.metrics.TaskLifecycleStage;
 import com.flipkart.flux.metrics.iface.MetricsClient;
 import com.flipkart.flux.persistence.DataSourceType;
 import com.flipkart.flux.persistence.SelectDataSource;
@@ -72,7 +84,10 @@ import com.flipkart.flux.representation.ReplayEventPersistenceService;
 import com.flipkart.flux.task.redriver.RedriverRegistry;
 import com.flipkart.flux.taskDispatcher.ExecutionNodeTaskDispatcher;
 import com.flipkart.flux.utils.LoggingUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 
 
 /**
@@ -124,6 +139,17 @@ public class WorkFlowExecutionController {
      */
     private MetricsClient metricsClient;
 
+    /**
+     * Names of the task status meters, per status
+     */
+    private static final Map<com.flipkart.flux.domain.Status, String> STATUS_METRIC_NAMES = new EnumMap<>(com.flipkart.flux.domain.Status.class);
+
+    static {
+        for (com.flipkart.flux.domain.Status status : com.flipkart.flux.domain.Status.values()) {
+            STATUS_METRIC_NAMES.put(status, "status." + status.name());
+        }
+    }
+
     /**
      * ObjectMapper instance to be used for all purposes in this class
      */
@@ -139,6 +165,32 @@ public class WorkFlowExecutionController {
 
     private ReplayEventPersistenceService replayEventPersistenceService;
 
+    /**
+     * Idempotency keys of the events processed recently, see {@link #getIdempotencyKey(String, VersionedEventData)}.
+     * Task callbacks re-posted by retries and redrives are discarded when their key is found here, without reading the event from the DB.
+     * Duplicates missing here are discarded once {@link #persistEvent(String, VersionedEventData)} finds the identical event persisted.
+     */
+    private final Cache<String, Boolean> processedEvents;
+
+    /**
+     * Applies the events of a state machine one after the other
+     */
+    private final StateMachineEventSerializer eventSerializer;
+
+    /**
+     * The DAO for tracking the chunks of map states
+     */
+    private final MapStateChunksDAO mapStateChunksDAO;
+
+    /**
+     * Latencies of the tasks, from which their redrive intervals are derived
+     */
+    private final TaskLatencyStats taskLatencyStats;
+
+    /**
+     * Name of the meter marked for every duplicate event discarded
+     */
+    private static final String DUPLICATE_EVENTS_METRIC_NAME = "events.duplicatesDiscarded";
 
     /**
      * Constructor for this class
@@ -150,7 +202,11 @@ public class WorkFlowExecutionController {
                                        ExecutionNodeTaskDispatcher executionNodeTaskDispatcher,
                                        RedriverRegistry redriverRegistry, MetricsClient metricsClient,
                                        ClientElbPersistenceService clientElbPersistenceService,
-                                       ReplayEventPersistenceService replayEventPersistenceService) {
+                                       ReplayEventPersistenceService replayEventPersistenceService,
+                                       @Named("events.deduplicationCacheSize") int deduplicationCacheSize,
+                                       @Named("events.deduplicationWindowSeconds") int deduplicationWindowSeconds,
+                                       StateMachineEventSerializer eventSerializer, MapStateChunksDAO mapStateChunksDAO,
+                                       TaskLatencyStats taskLatencyStats) {
         this.eventsDAO = eventsDAO;
         this.stateMachinesDAO = stateMachinesDAO;
         this.statesDAO = statesDAO;
@@ -162,6 +218,11 @@ public class WorkFlowExecutionController {
         this.objectMapper = new ObjectMapper();
         this.clientElbPersistenceService = clientElbPersistenceService;
         this.replayEventPersistenceService = replayEventPersistenceService;
+        this.processedEvents = CacheBuilder.newBuilder().maximumSize(deduplicationCacheSize)
+                .expireAfterWrite(deduplicationWindowSeconds, TimeUnit.SECONDS).build();
+        this.eventSerializer = eventSerializer;
+        this.mapStateChunksDAO = mapStateChunksDAO;
+        this.taskLatencyStats = taskLatencyStats;
     }
 
     /**
@@ -186,8 +247,26 @@ public class WorkFlowExecutionController {
      * @param eventAndExecutionData
      */
     public void updateTaskStatusAndPostEvent(StateMachine stateMachine, EventAndExecutionData eventAndExecutionData) {
+        eventSerializer.execute(stateMachine.getId(), () -> {
+            doUpdateTaskStatusAndPostEvent(stateMachine, eventAndExecutionData);
+            return null;
+        });
+    }
+
+    private void doUpdateTaskStatusAndPostEvent(StateMachine stateMachine, EventAndExecutionData eventAndExecutionData) {
+        final long startNanos = System.nanoTime();
+        String idempotencyKey = getIdempotencyKey(stateMachine.getId(), eventAndExecutionData.getVersionedEventData());
+        if (isDuplicate(idempotencyKey, stateMachine.getId(), eventAndExecutionData.getVersionedEventData())) {
+            return;
+        }
         Event event = updateTaskStatusAndPersistEvent(stateMachine, eventAndExecutionData);
+        if (event == null) {
+            discardDuplicate(idempotencyKey, stateMachine.getId(), eventAndExecutionData.getVersionedEventData());
+            return;
+        }
+        metricsClient.recordStage(stateMachine.getName(), TaskLifecycleStage.EVENT_PERSISTED, System.nanoTime() - startNanos);
         processEvent(event, stateMachine.getId());
+        processedEvents.put(idempotencyKey, Boolean.TRUE);
     }
 
     /**
@@ -195,6 +274,7 @@ public class WorkFlowExecutionController {
      *
      * @param stateMachine
      * @param eventAndExecutionData
+     * @return the persisted event, null if the identical event was already persisted
      */
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
@@ -212,11 +292,14 @@ public class WorkFlowExecutionController {
      * @param eventAndExecutionData
      */
     public void updateTaskStatusAndHandlePathCancellation(String stateMachineId, EventAndExecutionData eventAndExecutionData) {
-        Set<State> executableStates = updateTaskStatusAndCancelPath(stateMachineId, eventAndExecutionData);
-        logger.info("Path cancellation is done for state machine: {} event: {} which has come from task: {}",
-                stateMachineId, eventAndExecutionData.getVersionedEventData().getName(), eventAndExecutionData.getExecutionUpdateData().getTaskId());
-        StateMachine stateMachine = stateMachinesDAO.findById(stateMachineId);
-        executeStates(stateMachine, executableStates, false);
+        eventSerializer.execute(stateMachineId, () -> {
+            Set<State> executableStates = updateTaskStatusAndCancelPath(stateMachineId, eventAndExecutionData);
+            logger.info("Path cancellation is done for state machine: {} event: {} which has come from task: {}",
+                    stateMachineId, eventAndExecutionData.getVersionedEventData().getName(), eventAndExecutionData.getExecutionUpdateData().getTaskId());
+            StateMachine stateMachine = stateMachinesDAO.findById(stateMachineId);
+            executeStates(stateMachine, executableStates, false);
+            return null;
+        });
     }
 
     /**
@@ -250,8 +333,8 @@ public class WorkFlowExecutionController {
         //create context and dependency graph
         Context context = new RAMContext(System.currentTimeMillis(), null, stateMachine);
 
-        // get all events of this state machine in map<eventName, eventStatus> with lock
-        Map<String, Event.EventStatus> eventStatusMap = eventsDAO.getAllEventsNameAndStatus(stateMachine.getId(), true);
+        // get all events of this state machine in map<eventName, eventStatus> with lock, unless events are serialized in memory
+        Map<String, Event.EventStatus> eventStatusMap = eventsDAO.getAllEventsNameAndStatus(stateMachine.getId(), !eventSerializer.isExclusive());
 
         // the events which need to marked as cancelled
         Queue<String> cancelledEvents = new LinkedList<>();
@@ -267,6 +350,7 @@ public class WorkFlowExecutionController {
 
             // mark the event as cancelled in DB in local map
             eventsDAO.markEventAsCancelled(stateMachine.getId(), eventName);
+            statesDAO.markDependencyMet(stateMachine.getId(), eventName);
             eventStatusMap.put(eventName, Event.EventStatus.cancelled);
 
             // fetch all states which are dependant on the current event
@@ -321,10 +405,13 @@ public class WorkFlowExecutionController {
      * @param versionedEventData
      */
     public void handlePathCancellation(String stateMachineId, VersionedEventData versionedEventData) {
-        Set<State> executableStates = cancelPath(stateMachineId, versionedEventData);
-        logger.info("Path cancellation is done for state machine: {} event: {}",
-                stateMachineId, versionedEventData.getName());
-        executeStates(stateMachinesDAO.findById(stateMachineId), executableStates, false);
+        eventSerializer.execute(stateMachineId, () -> {
+            Set<State> executableStates = cancelPath(stateMachineId, versionedEventData);
+            logger.info("Path cancellation is done for state machine: {} event: {}",
+                    stateMachineId, versionedEventData.getName());
+            executeStates(stateMachinesDAO.findById(stateMachineId), executableStates, false);
+            return null;
+        });
     }
 
     /**
@@ -423,8 +510,59 @@ public class WorkFlowExecutionController {
          * @param stateMachineInstanceId
          */
         public Set<State> postEvent (VersionedEventData versionedEventData, String stateMachineInstanceId){
+            return eventSerializer.execute(stateMachineInstanceId, () -> doPostEvent(versionedEventData, stateMachineInstanceId));
+        }
+
+        private Set<State> doPostEvent (VersionedEventData versionedEventData, String stateMachineInstanceId){
+            final long startNanos = System.nanoTime();
+            String idempotencyKey = getIdempotencyKey(stateMachineInstanceId, versionedEventData);
+            if (isDuplicate(idempotencyKey, stateMachineInstanceId, versionedEventData)) {
+                return Collections.emptySet();
+            }
             Event event = persistEvent(stateMachineInstanceId, versionedEventData);
-            return processEvent(event, stateMachineInstanceId);
+            if (event == null) {
+                discardDuplicate(idempotencyKey, stateMachineInstanceId, versionedEventData);
+                return Collections.emptySet();
+            }
+            final long persistedNanos = System.nanoTime();
+            StateMachine stateMachine = findStateMachine(event, stateMachineInstanceId);
+            metricsClient.recordStage(stateMachine.getName(), TaskLifecycleStage.EVENT_PERSISTED, persistedNanos - startNanos);
+            Set<State> executableStates = processEvent(event, stateMachine);
+            // recorded only once the event is processed, so that an event whose processing failed is processed again when re-posted
+            processedEvents.put(idempotencyKey, Boolean.TRUE);
+            return executableStates;
+        }
+
+        /**
+         * Returns the idempotency key of an event: (state machine id, event name, execution version, cancelled, hash of the event data)
+         */
+        private static String getIdempotencyKey (String stateMachineInstanceId, VersionedEventData versionedEventData){
+            String data = versionedEventData.getData();
+            return new StringBuilder(stateMachineInstanceId).append('/')
+                    .append(versionedEventData.getName()).append('/')
+                    .append(versionedEventData.getExecutionVersion()).append('/')
+                    .append(versionedEventData.getCancelled() != null && versionedEventData.getCancelled()).append('/')
+                    .append(data == null ? "null" : Hashing.murmur3_128().hashString(data, StandardCharsets.UTF_8).toString()).toString();
+        }
+
+        private boolean isDuplicate (String idempotencyKey, String stateMachineInstanceId, VersionedEventData versionedEventData){
+            if (processedEvents.getIfPresent(idempotencyKey) == null) {
+                return false;
+            }
+            metricsClient.markMeter(DUPLICATE_EVENTS_METRIC_NAME);
+            logger.debug("Discarding duplicate event: {} with execution version: {} for SMId: {}", versionedEventData.getName(),
+                    versionedEventData.getExecutionVersion(), stateMachineInstanceId);
+            return true;
+        }
+
+        /**
+         * Discards an event found already persisted as it is, and remembers it so that further duplicates are discarded without reading the DB
+         */
+        private void discardDuplicate (String idempotencyKey, String stateMachineInstanceId, VersionedEventData versionedEventData){
+            processedEvents.put(idempotencyKey, Boolean.TRUE);
+            metricsClient.markMeter(DUPLICATE_EVENTS_METRIC_NAME);
+            logger.debug("Discarding event: {} with execution version: {} for SMId: {} as it is already persisted", versionedEventData.getName(),
+                    versionedEventData.getExecutionVersion(), stateMachineInstanceId);
         }
 
         /**
@@ -432,7 +570,7 @@ public class WorkFlowExecutionController {
          *
          * @param stateMachineInstanceId
          * @param versionedEventData
-         * @return
+         * @return the persisted event, null if the identical event was already persisted, in which case it should not be processed again
          */
         @Transactional
         @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
@@ -443,11 +581,18 @@ public class WorkFlowExecutionController {
             if (event == null)
                 throw new IllegalEventException("Event with stateMachineId: " + stateMachineInstanceId + ", event name: "
                         + versionedEventData.getName() + " not found");
-            event.setStatus(versionedEventData.getCancelled() != null && versionedEventData.getCancelled() ?
-                    Event.EventStatus.cancelled : Event.EventStatus.triggered);
+            Event.EventStatus status = versionedEventData.getCancelled() != null && versionedEventData.getCancelled() ?
+                    Event.EventStatus.cancelled : Event.EventStatus.triggered;
+            if (event.getStatus() == status && Objects.equals(event.getEventData(), versionedEventData.getData())
+                    && Objects.equals(event.getEventSource(), versionedEventData.getEventSource())) {
+                // a re-posted event, already persisted and processed by whoever persisted it
+                return null;
+            }
+            event.setStatus(status);
             event.setEventData(versionedEventData.getData());
             event.setEventSource(versionedEventData.getEventSource());
             eventsDAO.updateEvent(event.getStateMachineInstanceId(), event);
+            statesDAO.markDependencyMet(stateMachineInstanceId, event.getName());
             logger.debug("successfully persisted event: {} with execution version: {} for SMId: {}",versionedEventData.getName(),versionedEventData.getExecutionVersion(), stateMachineInstanceId);
             return event;
         }
@@ -460,22 +605,46 @@ public class WorkFlowExecutionController {
          * @return
          */
         public Set<State> processEvent (Event event, String stateMachineInstanceId){
-            //create context and dependency graph
-            StateMachine stateMachine = null;
-            stateMachine = stateMachinesDAO.findById(stateMachineInstanceId);
+            return processEvent(event, findStateMachine(event, stateMachineInstanceId));
+        }
+
+        /**
+         * Checks and triggers the states which are dependant on events persisted together, e.g. events submitted in bulk. Events of different
+         * state machines are processed concurrently, each one after the events of its state machine submitted earlier.
+         *
+         * @param events persisted events
+         * @return futures of the states triggered by each event, in the order of the events
+         */
+        public List<CompletableFuture<Set<State>>> processEvents (List<Event> events){
+            return events.stream()
+                    .map(event -> eventSerializer.submit(event.getStateMachineInstanceId(), () -> processEvent(event, event.getStateMachineInstanceId())))
+                    .collect(Collectors.toList());
+        }
+
+        private StateMachine findStateMachine (Event event, String stateMachineInstanceId){
+            StateMachine stateMachine = stateMachinesDAO.findById(stateMachineInstanceId);
             if (stateMachine == null) {
                 logger.error("stateMachine with id not found while processing event {} ", stateMachineInstanceId, event.getName());
                 throw new RuntimeException("StateMachine with id " + stateMachineInstanceId + " not found while processing event " + event.getName());
             }
+            return stateMachine;
+        }
+
+        private Set<State> processEvent (Event event, StateMachine stateMachine){
+            //create context and dependency graph
+            final long startNanos = System.nanoTime();
             Context context = new RAMContext(System.currentTimeMillis(), null, stateMachine); //TODO: set context id, should we need it ?
 
             //get the states whose dependencies are met
             final Set<State> dependantStates = context.getDependantStates(event.getName());
             logger.debug("These states {} depend on event {}", dependantStates, event.getName());
             Set<State> executableStates = getExecutableStates(dependantStates, stateMachine.getId());
+            final long evaluatedNanos = System.nanoTime();
+            metricsClient.recordStage(stateMachine.getName(), TaskLifecycleStage.DEPENDENCIES_EVALUATED, evaluatedNanos - startNanos);
             logger.debug("These states {} are now unblocked after event {}", executableStates, event.getName());
             //start execution of the above states
             executeStates(stateMachine, executableStates, event, false);
+            metricsClient.recordStage(stateMachine.getName(), TaskLifecycleStage.NEXT_STATE_DISPATCH, System.nanoTime() - evaluatedNanos);
 
             return executableStates;
         }
@@ -509,14 +678,7 @@ public class WorkFlowExecutionController {
                     break;
             }
             // Check if executionVersion is really required in this metric
-            metricsClient.markMeter(new StringBuilder().
-                    append("stateMachine.").
-                    append(executionUpdateData.getStateMachineName()).
-                    append(".task.").
-                    append(executionUpdateData.getTaskName()).
-                    append(".status.").
-                    append(updateStatus.name()).
-                    toString());
+            metricsClient.markMeter(executionUpdateData.getStateMachineName(), executionUpdateData.getTaskName(), STATUS_METRIC_NAMES.get(updateStatus));
 
             updateExecutionStatus(machineId, stateId, taskExecutionVersion, updateStatus,
                     executionUpdateData.getRetrycount(),
@@ -525,6 +687,70 @@ public class WorkFlowExecutionController {
                     executionUpdateData.getDependentAuditEvents());
         }
 
+        /**
+         * Updates the status of a chunk of a map state. A completed chunk stores its output and frees a slot for the next pending chunk,
+         * the map state completes with its last chunk. A chunk which failed after exhausting its retries fails the map state with the status
+         * of the chunk, updates of chunks which are being retried by the execution node are ignored. Applied after the events of the state
+         * machine submitted earlier, as it updates the map state.
+         *
+         * @param stateMachineId      the state machine identifier
+         * @param executionUpdateData the status update of the chunk
+         * @param outputEvent         the output event of the chunk, if any
+         */
+        public void updateMapChunkStatus (String stateMachineId, ExecutionUpdateData executionUpdateData, VersionedEventData outputEvent){
+            eventSerializer.execute(stateMachineId, () -> {
+                doUpdateMapChunkStatus(stateMachineId, executionUpdateData, outputEvent);
+                return null;
+            });
+        }
+
+        private void doUpdateMapChunkStatus (String stateMachineId, ExecutionUpdateData executionUpdateData, VersionedEventData outputEvent){
+            final Long stateId = executionUpdateData.getTaskId();
+            final Long taskExecutionVersion = executionUpdateData.getTaskExecutionVersion();
+            final int chunkIndex = executionUpdateData.getMapChunk();
+            switch (executionUpdateData.getStatus()) {
+                case completed:
+                    String output = outputEvent != null && !Boolean.TRUE.equals(outputEvent.getCancelled()) ? outputEvent.getData() : null;
+                    if (mapStateChunksDAO.updateStatus(stateMachineId, stateId, taskExecutionVersion, chunkIndex, ChunkStatus.dispatched,
+                            ChunkStatus.completed, output) == 0) {
+                        logger.info("Discarding the completion of chunk: {} of map state: {} with execution version: {} for state machine: {}," +
+                                " the chunk is not being executed", chunkIndex, stateId, taskExecutionVersion, stateMachineId);
+                        return;
+                    }
+                    StateMachine stateMachine = retrieveStateMachine(stateMachineId);
+                    State state = statesDAO.findById(stateMachineId, stateId);
+                    if (stateMachine == null || state == null || !state.getExecutionVersion().equals(taskExecutionVersion)) {
+                        return;
+                    }
+                    // a failed chunk has failed the state, the remaining chunks are dispatched once the state is unsidelined
+                    if (mapStateChunksDAO.countChunks(stateMachineId, stateId, taskExecutionVersion, ChunkStatus.failed) == 0) {
+                        dispatchPendingMapChunks(stateMachine, state, 1, getRedriverInterval(state));
+                    }
+                    if (mapStateChunksDAO.countChunks(stateMachineId, stateId, taskExecutionVersion, ChunkStatus.pending, ChunkStatus.dispatched,
+                            ChunkStatus.failed) == 0) {
+                        completeMapState(stateMachine, state);
+                    }
+                    break;
+                case errored:
+                case sidelined:
+                    if (executionUpdateData.getStatus() == com.flipkart.flux.api.Status.errored && !executionUpdateData.isDeleteFromRedriver()) {
+                        return; // retried by the execution node
+                    }
+                    if (mapStateChunksDAO.updateStatus(stateMachineId, stateId, taskExecutionVersion, chunkIndex, ChunkStatus.dispatched,
+                            ChunkStatus.failed, null) > 0) {
+                        Status status = Status.valueOf(executionUpdateData.getStatus().name());
+                        metricsClient.markMeter(executionUpdateData.getStateMachineName(), executionUpdateData.getTaskName(), STATUS_METRIC_NAMES.get(status));
+                        updateExecutionStatus(stateMachineId, stateId, taskExecutionVersion, status, executionUpdateData.getRetrycount(),
+                                executionUpdateData.getCurrentRetryCount(), "Chunk: " + chunkIndex + " failed. " + executionUpdateData.getErrorMessage(),
+                                true, executionUpdateData.getDependentAuditEvents());
+                    }
+                    break;
+                default:
+                    // the map state is running from when its chunks are dispatched
+                    break;
+            }
+        }
+
         /**
          * Updates the execution status for the specified State machine's Task
          *
@@ -535,22 +761,26 @@ public class WorkFlowExecutionController {
          * @param retryCount           the configured retry count for the task
          * @param currentRetryCount    current retry count for the task
          * @param errorMessage         the error message in case task has failed
+         * @return whether the status was updated, i.e. false for stale and duplicate updates
          */
-        public void updateExecutionStatus (String stateMachineId, Long taskId, Long taskExecutionVersion, Status status,
+        public boolean updateExecutionStatus (String stateMachineId, Long taskId, Long taskExecutionVersion, Status status,
         long retryCount, long currentRetryCount, String errorMessage,
         boolean deleteFromRedriver, String dependentAuditEvents) {
-            if (taskExecutionVersion.equals(this.statesDAO.findById(stateMachineId, taskId).getExecutionVersion())) {
-                this.statesDAO.updateStatus(stateMachineId, taskId, status);
+            // a single conditional update rejects stale and duplicate updates, see Status#getAllowedPredecessors
+            if (this.statesDAO.updateStatus(stateMachineId, taskId, taskExecutionVersion, status) > 0) {
                 AuditRecord auditRecord = new AuditRecord(stateMachineId, taskId, currentRetryCount, status,
                         null, errorMessage, taskExecutionVersion, dependentAuditEvents);
                 this.auditDAO.create(stateMachineId, auditRecord);
                 if (deleteFromRedriver) {
                     this.redriverRegistry.deRegisterTask(stateMachineId, taskId, taskExecutionVersion);
+                    taskLatencyStats.completed(stateMachineId, taskId, taskExecutionVersion);
                 }
+                return true;
             } else {
-                logger.info("Input taskExecutionVersion: {} is invalid, update task execution status denied for taskId: {}," +
-                        " stateMachineId: {}. Marked to deRegister in redriver.", taskExecutionVersion, taskId, stateMachineId);
+                logger.info("Input taskExecutionVersion: {} is invalid or transition to status: {} is not allowed, update task execution status" +
+                        " denied for taskId: {}, stateMachineId: {}. Marked to deRegister in redriver.", taskExecutionVersion, status, taskId, stateMachineId);
                 this.redriverRegistry.deRegisterTask(stateMachineId, taskId, taskExecutionVersion);
+                return false;
             }
 
         }
@@ -619,10 +849,8 @@ public class WorkFlowExecutionController {
          * @param taskId         the Task identifier
          */
         public void incrementExecutionRetries (String stateMachineId, Long taskId, Long taskExecutionVersion){
-            if (taskExecutionVersion == this.statesDAO.findById(stateMachineId, taskId).getExecutionVersion()) {
-                this.statesDAO.incrementRetryCount(stateMachineId, taskId);
-            } else {
-                logger.info("Input taskExecutionVersion: {} is invalid, increment execution retries denied for taskId: {}," +
+            if (this.statesDAO.incrementRetryCount(stateMachineId, taskId, taskExecutionVersion) == 0) {
+                logger.info("Input taskExecutionVersion: {} is invalid or the task has terminated, increment execution retries denied for taskId: {}," +
                         " stateMachineId: {}.", taskExecutionVersion, taskId, stateMachineId);
             }
         }
@@ -650,6 +878,20 @@ public class WorkFlowExecutionController {
                     if (!(state.getStatus() == Status.completed || state.getStatus() == Status.cancelled ||
                             state.getStatus() == Status.invalid)) {
 
+                        // dispatch guard: an initialized state is dispatched by whoever moves it to running first, so that dependent
+                        // events arriving together or re-posted do not dispatch it twice. The redriver re-dispatches lost tasks
+                        if (!redriverTriggered && state.getStatus() == Status.initialized
+                                && statesDAO.markDispatched(state.getStateMachineId(), state.getId(), state.getExecutionVersion()) == 0) {
+                            logger.debug("State machine: {}, Task: {}, Task Execution Version: {} is already dispatched", state.getStateMachineId(),
+                                    state.getId(), state.getExecutionVersion());
+                            return;
+                        }
+
+                        if (state.getMapChunkSize() != null) {
+                            executeMapState(stateMachine, state, currentEvent, redriverTriggered);
+                            return;
+                        }
+
                         List<VersionedEventData> eventDatas;
                         // If the state is dependant on only one event, that would be the event which came now, in that case don't make a call to DB
                         if (currentEvent != null && state.getDependencies() != null && state.getDependencies().size() == 1
@@ -670,42 +912,24 @@ public class WorkFlowExecutionController {
 
                         // register the Task with the redriver
                         // Delay between retires is exponential (2, 4, 8, 16, 32.... seconds) as seen in AkkaTask.
-                        // Redriver interval is set as 2 x ( 2^(retryCount+1) x 1s + (retryCount+1) x timeout)
+                        // Redriver interval is set as 2 x ( 2^(retryCount+1) x 1s + (retryCount+1) x timeout), or derived from the observed
+                        // latencies of the task, see TaskLatencyStats, but no less than 2^(retryCount+1) x 1s + timeout, the time an attempt may take
                         long redriverInterval;
                         if (redriverTriggered && state.getStatus() == Status.initialized) {
                             redriverInterval = 2 * ((int) Math.pow(2, 7) * 1000);
                         } else {
-                            redriverInterval = 2 * ((int) Math.pow(2, state.getRetryCount() + 1) * 1000 + (state.getRetryCount() + 1) * state.getTimeout());
+                            redriverInterval = getRedriverInterval(state);
                         }
+                        final long registerStartNanos = System.nanoTime();
                         this.redriverRegistry.registerTask(state.getId(), state.getStateMachineId(), redriverInterval, state.getExecutionVersion());
-                        logger.info("Registered the state: {} with execution version: {} for SMId: {} in redriver",state.getId(),state.getExecutionVersion(),state.getStateMachineId());
-
-                        // Send the message to Akka Router
-                        String taskName = state.getTask();
-                        String routerName = getRouterName(taskName);
-                        /*
-                         *  sending message to remote Execution Node for execution
-                         *  Endpoint to be fetched from Cache or DB
-                         * */
-                        TaskExecutionMessage taskExecutionMessage = new TaskExecutionMessage(routerName, msg);
-
-                        String clientElbUrl = clientElbPersistenceService.findByIdClientElb(stateMachine.getClientElbId());
-                        String endPoint = clientElbUrl + "/api/execution";
-                        long startTime = System.currentTimeMillis();
-                        int statusCode = executionNodeTaskDispatcher.forwardExecutionMessage(endPoint, taskExecutionMessage);
-                        long finishTime = System.currentTimeMillis();
-                        if (statusCode == 202) {
-                            logger.info("Successfully forwarded the taskExecutionMsg for smId:{} taskId:{} and execution version: {} for" +
-                                            " remoteExecution to host {} took {}ms", msg.getStateMachineId(),
-                                    msg.getTaskId(),msg.getTaskExecutionVersion(), endPoint, finishTime - startTime);
-                        } else {
-                            logger.error("Failed to successfully send task for Execution smId:{} taskId:{}, execution version: {}" +
-                                            " should be retried by Redriver after {} ms.",
-                                    msg.getStateMachineId(), msg.getTaskId(), msg.getTaskExecutionVersion(), redriverInterval);
-                        }
+                        metricsClient.recordStage(stateMachine.getName(), TaskLifecycleStage.REDRIVER_REGISTERED, System.nanoTime() - registerStartNanos);
+                        logger.debug("Registered the state: {} with execution version: {} for SMId: {} in redriver",state.getId(),state.getExecutionVersion(),state.getStateMachineId());
+
+                        taskLatencyStats.dispatched(state.getTask(), state.getStateMachineId(), state.getId(), state.getExecutionVersion());
+                        forwardTaskAndEvents(stateMachine, msg, redriverInterval);
 
                     } else {
-                        logger.info("State machine: {}, Task: {}, Task Execution Version: {} execution request got discarded as the task is {}", state.getStateMachineId(), state.getId(), state.getExecutionVersion(),state.getStatus());
+                        logger.debug("State machine: {}, Task: {}, Task Execution Version: {} execution request got discarded as the task is {}", state.getStateMachineId(), state.getId(), state.getExecutionVersion(),state.getStatus());
                     }
                 }));
             } finally {
@@ -714,6 +938,196 @@ public class WorkFlowExecutionController {
 
         }
 
+        /**
+         * Sends the message to the router of its task on the execution node of the state machine's client ELB
+         */
+        private void forwardTaskAndEvents (StateMachine stateMachine, TaskAndEvents msg, long redriverInterval){
+            // Send the message to Akka Router
+            String taskName = msg.getTaskIdentifier();
+            String routerName = getRouterName(taskName);
+            /*
+             *  sending message to remote Execution Node for execution
+             *  Endpoint to be fetched from Cache or DB
+             * */
+            TaskExecutionMessage taskExecutionMessage = new TaskExecutionMessage(routerName, msg);
+
+            String clientElbUrl = clientElbPersistenceService.findByIdClientElb(stateMachine.getClientElbId());
+            String endPoint = clientElbUrl + "/api/execution";
+            long startTime = System.currentTimeMillis();
+            final long dispatchStartNanos = System.nanoTime();
+            int statusCode = executionNodeTaskDispatcher.forwardExecutionMessage(endPoint, taskExecutionMessage);
+            metricsClient.recordStage(stateMachine.getName(), TaskLifecycleStage.DISPATCHED, System.nanoTime() - dispatchStartNanos);
+            long finishTime = System.currentTimeMillis();
+            if (statusCode == 202) {
+                logger.debug("Successfully forwarded the taskExecutionMsg for smId:{} taskId:{} and execution version: {} for" +
+                                " remoteExecution to host {} took {}ms", msg.getStateMachineId(),
+                        msg.getTaskId(),msg.getTaskExecutionVersion(), endPoint, finishTime - startTime);
+            } else if (statusCode == ExecutionNodeTaskDispatcher.TOO_MANY_REQUESTS) {
+                logger.warn("Execution node {} is backing off, task for Execution smId:{} taskId:{}, execution version: {}" +
+                                " should be retried by Redriver after {} ms.",
+                        endPoint, msg.getStateMachineId(), msg.getTaskId(), msg.getTaskExecutionVersion(), redriverInterval);
+            } else {
+                logger.error("Failed to successfully send task for Execution smId:{} taskId:{}, execution version: {}" +
+                                " should be retried by Redriver after {} ms.",
+                        msg.getStateMachineId(), msg.getTaskId(), msg.getTaskExecutionVersion(), redriverInterval);
+            }
+        }
+
+        /**
+         * Executes a map state. The collection event of the state is split into chunks on the first dispatch of an execution, and up to
+         * the state's concurrency of the chunks are dispatched. The next chunks are dispatched as the chunks complete, see
+         * {@link #updateMapChunkStatus(String, ExecutionUpdateData, VersionedEventData)}. A redrive dispatches again the chunks whose
+         * results did not arrive and an unsideline retries the failed chunks.
+         */
+        private void executeMapState (StateMachine stateMachine, State state, Event currentEvent, boolean redriverTriggered){
+            final String stateMachineId = stateMachine.getId();
+            if (mapStateChunksDAO.countChunks(stateMachineId, state.getId(), state.getExecutionVersion(), ChunkStatus.values()) == 0) {
+                List<String> chunks;
+                try {
+                    chunks = splitIntoChunks(getMapStateInput(stateMachineId, state, currentEvent), state.getMapChunkSize());
+                } catch (IOException e) {
+                    logger.error("Input of map state: {} of state machine: {} is not a collection. Error: {}", state.getId(), stateMachineId, e.getMessage());
+                    updateExecutionStatus(stateMachineId, state.getId(), state.getExecutionVersion(), Status.errored, state.getRetryCount(),
+                            state.getAttemptedNumOfRetries(), "Input of map state is not a collection: " + e.getMessage(), true, null);
+                    return;
+                }
+                mapStateChunksDAO.createChunks(stateMachineId, state.getId(), state.getExecutionVersion(), chunks);
+                if (chunks.isEmpty()) {
+                    completeMapState(stateMachine, state);
+                    return;
+                }
+            } else if (!redriverTriggered) {
+                mapStateChunksDAO.updateStatus(stateMachineId, state.getId(), state.getExecutionVersion(), ChunkStatus.failed, ChunkStatus.pending);
+            }
+            // the state is redriven when the remaining chunks take longer than they would, executed concurrency at a time, if each took
+            // as long as a task's redriver interval
+            int remainingChunks = mapStateChunksDAO.countChunks(stateMachineId, state.getId(), state.getExecutionVersion(),
+                    ChunkStatus.pending, ChunkStatus.dispatched);
+            long redriverInterval = getRedriverInterval(state)
+                    * Math.max(1, (remainingChunks + state.getMapConcurrency() - 1) / state.getMapConcurrency());
+            this.redriverRegistry.registerTask(state.getId(), stateMachineId, redriverInterval, state.getExecutionVersion());
+
+            if (redriverTriggered) {
+                for (Integer chunkIndex : mapStateChunksDAO.findChunkIndexes(stateMachineId, state.getId(), state.getExecutionVersion(),
+                        ChunkStatus.dispatched, state.getMapConcurrency())) {
+                    dispatchMapChunk(stateMachine, state, chunkIndex, redriverInterval);
+                }
+            }
+            dispatchPendingMapChunks(stateMachine, state, state.getMapConcurrency() - mapStateChunksDAO.countChunks(stateMachineId,
+                    state.getId(), state.getExecutionVersion(), ChunkStatus.dispatched), redriverInterval);
+        }
+
+        /**
+         * Returns the redriver interval of the task of a state, which is also the time a chunk of a map state may take. Derived from the
+         * observed latencies of the task, see {@link TaskLatencyStats}, but no less than the time an attempt may take
+         */
+        private long getRedriverInterval (State state){
+            long retryDelay = (long) Math.pow(2, state.getRetryCount() + 1) * 1000;
+            return taskLatencyStats.getRedriveInterval(state.getTask(), retryDelay + state.getTimeout(),
+                    2 * (retryDelay + (state.getRetryCount() + 1) * state.getTimeout()));
+        }
+
+        /**
+         * Returns the collection event of a map state, i.e. its only dependency
+         */
+        private VersionedEventData getMapStateInput (String stateMachineId, State state, Event currentEvent){
+            if (currentEvent != null && currentEvent.getName().equals(state.getDependencies().get(0))) {
+                return new VersionedEventData(currentEvent.getName(), currentEvent.getType(), currentEvent.getEventData(),
+                        currentEvent.getEventSource(), currentEvent.getExecutionVersion());
+            }
+            return eventsDAO.findByEventNamesAndSMId(stateMachineId, state.getDependencies()).get(0);
+        }
+
+        /**
+         * Splits the items of a collection event, which is serialized as a JSON array, into chunks of the given size. Each chunk is
+         * returned as the serialized event data the task of the map state is executed with
+         */
+        List<String> splitIntoChunks (VersionedEventData input, int chunkSize) throws IOException {
+            List<String> chunks = new ArrayList<>();
+            if (input.getData() == null) {
+                return chunks;
+            }
+            JsonNode items = objectMapper.readTree(input.getData());
+            if (!items.isArray()) {
+                throw new IOException("Event: " + input.getName() + " is not a JSON array");
+            }
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                ArrayNode chunkItems = objectMapper.createArrayNode();
+                for (int i = from; i < Math.min(from + chunkSize, items.size()); i++) {
+                    chunkItems.add(items.get(i));
+                }
+                chunks.add(objectMapper.writeValueAsString(new VersionedEventData(input.getName(), input.getType(),
+                        objectMapper.writeValueAsString(chunkItems), input.getEventSource(), input.getExecutionVersion())));
+            }
+            return chunks;
+        }
+
+        /**
+         * Dispatches up to the given no. of pending chunks of a map state. A chunk is dispatched by whoever moves it to dispatched first
+         */
+        private void dispatchPendingMapChunks (StateMachine stateMachine, State state, int maxChunks, long redriverInterval){
+            if (maxChunks <= 0) {
+                return;
+            }
+            for (Integer chunkIndex : mapStateChunksDAO.findChunkIndexes(stateMachine.getId(), state.getId(), state.getExecutionVersion(),
+                    ChunkStatus.pending, maxChunks)) {
+                if (mapStateChunksDAO.updateStatus(stateMachine.getId(), state.getId(), state.getExecutionVersion(), chunkIndex,
+                        ChunkStatus.pending, ChunkStatus.dispatched, null) > 0) {
+                    dispatchMapChunk(stateMachine, state, chunkIndex, redriverInterval);
+                }
+            }
+        }
+
+        /**
+         * Sends a chunk of a map state for execution. Chunks are retried by the execution node, their retries are not counted against the state
+         */
+        private void dispatchMapChunk (StateMachine stateMachine, State state, int chunkIndex, long redriverInterval){
+            final VersionedEventData chunk;
+            try {
+                chunk = objectMapper.readValue(mapStateChunksDAO.findInput(stateMachine.getId(), state.getId(), state.getExecutionVersion(),
+                        chunkIndex), VersionedEventData.class);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read chunk: " + chunkIndex + " of map state: " + state.getId(), e);
+            }
+            final TaskAndEvents msg = new TaskAndEvents(state.getName(), state.getTask(), state.getId(),
+                    state.getExecutionVersion(), new VersionedEventData[]{chunk}, stateMachine.getId(), stateMachine.getName(),
+                    state.getOutputEvent(), state.getRetryCount(), 0L);
+            msg.setFirstTimeExecution(true);
+            msg.setMapChunk(chunkIndex);
+            forwardTaskAndEvents(stateMachine, msg, redriverInterval);
+        }
+
+        /**
+         * Completes a map state once all its chunks are completed, posting the concatenated outputs of the chunks as the state's output event
+         */
+        private void completeMapState (StateMachine stateMachine, State state){
+            VersionedEventData outputEvent = null;
+            try {
+                if (state.getOutputEvent() != null) {
+                    EventDefinition outputEventDefinition = objectMapper.readValue(state.getOutputEvent(), EventDefinition.class);
+                    ArrayNode outputs = objectMapper.createArrayNode();
+                    for (String output : mapStateChunksDAO.findOutputs(stateMachine.getId(), state.getId(), state.getExecutionVersion())) {
+                        if (output != null) {
+                            outputs.addAll((ArrayNode) objectMapper.readTree(output));
+                        }
+                    }
+                    outputEvent = new VersionedEventData(outputEventDefinition.getName(), outputEventDefinition.getType(),
+                            objectMapper.writeValueAsString(outputs), TaskExecutor.MANAGED_RUNTIME, state.getExecutionVersion());
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to aggregate the outputs of map state: " + state.getId(), e);
+            }
+            // the chunks which complete last may each find all the chunks completed, the state is completed once
+            if (updateExecutionStatus(stateMachine.getId(), state.getId(), state.getExecutionVersion(), Status.completed, state.getRetryCount(),
+                    state.getAttemptedNumOfRetries(), null, true, null)) {
+                metricsClient.markMeter(stateMachine.getName(), state.getName(), STATUS_METRIC_NAMES.get(Status.completed));
+                if (outputEvent != null) {
+                    postEvent(outputEvent, stateMachine.getId());
+                }
+                mapStateChunksDAO.deleteChunks(stateMachine.getId(), state.getId());
+            }
+        }
+
         private StateMachine retrieveStateMachine (String stateMachineInstanceId){
             return stateMachinesDAO.findById(stateMachineInstanceId);
         }
@@ -726,8 +1140,22 @@ public class WorkFlowExecutionController {
          * @return executableStates
          */
         private Set<State> getExecutableStates (Set < State > dependantStates, String stateMachineInstanceId){
-            // TODO : states can get triggered twice if we receive all their dependent events at roughly the same time.
+            // states whose dependent events are received at roughly the same time are returned for each event, the dispatch guard in
+            // executeStates makes sure they are dispatched once
             Set<State> executableStates = new HashSet<>();
+            // the states loaded after their dependencies were marked met carry the no. of dependencies still pending, only the states created
+            // before the counter was maintained need the events of the state machine to be read
+            Set<State> untrackedStates = new HashSet<>();
+            for (State state : dependantStates) {
+                if (state.getPendingDependencies() == null) {
+                    untrackedStates.add(state);
+                } else if (state.getPendingDependencies() <= 0) {
+                    executableStates.add(state);
+                }
+            }
+            if (untrackedStates.isEmpty()) {
+                return executableStates;
+            }
             Set<String> receivedEvents = new HashSet<>(eventsDAO.findTriggeredOrCancelledEventsNamesBySMId(stateMachineInstanceId));
 
             // Since replay event is optional, not required to check it's eventStatus. It's considered as dependency met.
@@ -737,7 +1165,7 @@ public class WorkFlowExecutionController {
             // 1. get the dependencies (events)
             // 2. check whether all events are in triggered state
             // 3. if all events are in triggered status, then add this state to executableStates
-            dependantStates.stream().filter(state1 -> state1.isDependencySatisfied(receivedEvents)).forEach(executableStates::add);
+            untrackedStates.stream().filter(state1 -> state1.isDependencySatisfied(receivedEvents)).forEach(executableStates::add);
             return executableStates;
         }
 
@@ -821,7 +1249,7 @@ public class WorkFlowExecutionController {
         }
 
         public void persistDiscardedEvent(String machineId, VersionedEventData versionedEventData) {
-            List<Event> allEvents = eventsDAO.findAllBySMIdAndName(machineId,versionedEventData.getName());
+            List<Event> allEvents = eventsDAO.findAllMetadataBySMIdAndName(machineId,versionedEventData.getName());
 
             if (allEvents.isEmpty()) {
                 logger.error("The event: {} for SMId: {} not Found",versionedEventData.getName(), machineId);
@@ -838,6 +1266,8 @@ public class WorkFlowExecutionController {
                     invalidEvent.get().getStatus(), machineId,
                     versionedEventData.getData(), versionedEventData.getEventSource(),
                     invalidEvent.get().getExecutionVersion());
+                // so that the data is stored in, or moved out of, the EventPayloads row the event already has
+                updatedEvent.setPayloadOffloaded(invalidEvent.get().isPayloadOffloaded());
                 eventsDAO.updateEvent(machineId,updatedEvent);
             }else {
                 logger.error("The discarded event: {} for SMId: {} not Found",versionedEventData.getName(), machineId);
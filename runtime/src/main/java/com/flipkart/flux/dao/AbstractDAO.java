@@ -15,9 +15,12 @@ package com.flipkart.flux.dao;
 
 import com.flipkart.flux.persistence.SessionFactoryContext;
 import org.hibernate.Criteria;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.Restrictions;
 
+import java.util.function.Consumer;
+
 /**
  * <code>AbstractDAO</code> class provides methods to perform CRUD operations on an object using Hibernate.
  *
@@ -25,6 +28,9 @@ import org.hibernate.criterion.Restrictions;
  */
 public abstract class AbstractDAO<T> {
 
+    /** Fetch size with which MySQL Connector/J streams the rows of a result set one at a time, instead of reading all of them upfront */
+    protected static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
     private SessionFactoryContext sessionFactoryContext;
 
     public AbstractDAO(SessionFactoryContext sessionFactoryContext) {
@@ -134,4 +140,23 @@ public abstract class AbstractDAO<T> {
     public void delete(T object) {
         currentSession().delete(object);
     }
+
+    /**
+     * Passes the entities of the given forward only results to the consumer one at a time, evicting each from the session once consumed
+     * so that the entities read are not held in memory. No other query may be run on the session until the results are consumed.
+     *
+     * @param results  results of a query with a single entity per row
+     * @param consumer
+     */
+    protected <E> void scroll(ScrollableResults results, Consumer<? super E> consumer) {
+        try {
+            while (results.next()) {
+                E entity = (E) results.get(0);
+                consumer.accept(entity);
+                currentSession().evict(entity);
+            }
+        } finally {
+            results.close();
+        }
+    }
 }
@@ -19,12 +19,15 @@ import com.flipkart.flux.domain.AuditRecord;
 import com.flipkart.flux.persistence.*;
 import com.google.inject.name.Named;
 import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <code>AuditDAOImpl</code> is an implementation of {@link AuditDAO} which uses Hibernate to perform operations.
@@ -46,6 +49,20 @@ public class AuditDAOImpl extends AbstractDAO<AuditRecord> implements AuditDAO {
         return records;
     }
 
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public void scrollBySMInstanceId(String stateMachineInstanceId, int offset, int limit, Consumer<? super AuditRecord> consumer) {
+        Criteria criteria = currentSession().createCriteria(AuditRecord.class).add(Restrictions.eq("stateMachineInstanceId", stateMachineInstanceId))
+                .addOrder(Order.asc("id"))
+                .setFirstResult(offset)
+                .setFetchSize(STREAMING_FETCH_SIZE);
+        if (limit > 0) {
+            criteria.setMaxResults(limit);
+        }
+        scroll(criteria.scroll(ScrollMode.FORWARD_ONLY), consumer);
+    }
+
     @Override
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
@@ -18,22 +18,29 @@ import com.flipkart.flux.constant.RuntimeConstants;
 import com.flipkart.flux.dao.iface.EventsDAO;
 import com.flipkart.flux.domain.Event;
 import com.flipkart.flux.domain.Event.EventStatus;
+import com.flipkart.flux.domain.EventPayload;
 import com.flipkart.flux.persistence.DataSourceType;
 import com.flipkart.flux.persistence.SelectDataSource;
 import com.flipkart.flux.persistence.SessionFactoryContext;
 import com.flipkart.flux.persistence.Storage;
 import com.google.inject.name.Named;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import org.hibernate.Criteria;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Projections;
@@ -52,15 +59,31 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
     private static final String COLUMN_STATUS = "status";
     private static final String COLUMN_NAME = "name";
 
+    /** Selects events without their data, for the read paths that need only names, statuses and versions */
+    private static final String SELECT_EVENT_METADATA = "select new com.flipkart.flux.domain.Event(e.name, e.type, e.status, "
+            + "e.stateMachineInstanceId, e.eventSource, e.executionVersion, e.payloadOffloaded, e.createdAt, e.updatedAt) from Event e "
+            + "where e.stateMachineInstanceId = :stateMachineInstanceId";
+
+    /** Selects events with the data of the offloaded ones, which is the second column of each row */
+    private static final String SELECT_EVENT_WITH_PAYLOAD = "select e, p.payload from Event e left join EventPayload p "
+            + "on p.stateMachineInstanceId = e.stateMachineInstanceId and p.name = e.name and p.executionVersion = e.executionVersion "
+            + "where e.stateMachineInstanceId = :stateMachineInstanceId";
+
+    /** Event data larger than this many bytes is stored in the EventPayloads table, 0 keeps all event data in the Events table */
+    private final int offloadThresholdBytes;
+
     @Inject
-    public EventsDAOImpl(@Named("fluxSessionFactoriesContext") SessionFactoryContext sessionFactoryContext) {
+    public EventsDAOImpl(@Named("fluxSessionFactoriesContext") SessionFactoryContext sessionFactoryContext,
+                         @Named("events.offloadThresholdBytes") int offloadThresholdBytes) {
         super(sessionFactoryContext);
+        this.offloadThresholdBytes = offloadThresholdBytes;
     }
 
     @Override
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public Event create(String stateMachineInstanceId, Event event) {
+        storePayload(currentSession(), event);
         return super.save(event);
     }
 
@@ -68,6 +91,7 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public void updateEvent(String stateMachineInstanceId, Event event) {
+        storePayload(currentSession(), event);
         super.update(event);
     }
 
@@ -80,10 +104,46 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public List<Event> findBySMInstanceId(String stateMachineInstanceId) {
-        return currentSession().createCriteria(Event.class)
+        List<Event> events = currentSession().createCriteria(Event.class)
                 .add(Restrictions.eq("stateMachineInstanceId", stateMachineInstanceId))
                 .add(Restrictions.ne("status", Event.EventStatus.invalid))
                 .list();
+        loadPayloads(stateMachineInstanceId, events);
+        return events;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public void scrollBySMInstanceId(String stateMachineInstanceId, Consumer<? super Event> consumer) {
+        // payloads are joined in, as no other query can be issued on the connection while the results are streamed
+        ScrollableResults results = currentSession().createQuery(SELECT_EVENT_WITH_PAYLOAD + " and e.status != :invalidStatus")
+                .setString("stateMachineInstanceId", stateMachineInstanceId)
+                .setParameter("invalidStatus", EventStatus.invalid)
+                .setFetchSize(STREAMING_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (results.next()) {
+                Event event = (Event) results.get(0);
+                if (event.isPayloadOffloaded() && event.getEventData() == null) {
+                    event.setEventData((String) results.get(1));
+                }
+                consumer.accept(event);
+                currentSession().evict(event);
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<Event> findMetadataBySMInstanceId(String stateMachineInstanceId) {
+        return currentSession().createQuery(SELECT_EVENT_METADATA + " and e.status != :invalidStatus")
+                .setString("stateMachineInstanceId", stateMachineInstanceId)
+                .setParameter("invalidStatus", EventStatus.invalid)
+                .list();
     }
 
     /**
@@ -100,7 +160,18 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
                 .add(Restrictions.eq("stateMachineInstanceId", stateMachineInstanceId))
                 .add(Restrictions.eq("name", eventName))
                 .add(Restrictions.ne("status", Event.EventStatus.invalid));
-        return (Event) criteria.uniqueResult();
+        return loadPayload((Event) criteria.uniqueResult());
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public Event findValidEventMetadataBySMIdAndName(String stateMachineInstanceId, String eventName) {
+        return (Event) currentSession().createQuery(SELECT_EVENT_METADATA + " and e.name = :eventName and e.status != :invalidStatus")
+                .setString("stateMachineInstanceId", stateMachineInstanceId)
+                .setString("eventName", eventName)
+                .setParameter("invalidStatus", EventStatus.invalid)
+                .uniqueResult();
     }
 
     /**
@@ -115,7 +186,19 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
         Criteria criteria = currentSession().createCriteria(Event.class)
             .add(Restrictions.eq("stateMachineInstanceId", stateMachineInstanceId))
             .add(Restrictions.eq("name", eventName));
-        return criteria.list();
+        List<Event> events = criteria.list();
+        loadPayloads(stateMachineInstanceId, events);
+        return events;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<Event> findAllMetadataBySMIdAndName(String stateMachineInstanceId, String eventName) {
+        return currentSession().createQuery(SELECT_EVENT_METADATA + " and e.name = :eventName")
+                .setString("stateMachineInstanceId", stateMachineInstanceId)
+                .setString("eventName", eventName)
+                .list();
     }
 
     @Override
@@ -128,7 +211,7 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
                 .add(Restrictions.eq("name", eventName))
                 .add(Restrictions.ne("status", EventStatus.invalid))
                 .add(Restrictions.eq("executionVersion", executionVersion));
-        return (Event) criteria.uniqueResult();
+        return loadPayload((Event) criteria.uniqueResult());
     }
 
     /**
@@ -144,7 +227,9 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
             .add(Restrictions.in("name", eventNames))
             .add(Restrictions.ne("status", EventStatus.invalid))
             .add(Restrictions.eq("executionVersion", executionVersion));
-        return criteria.list();
+        List<Event> events = criteria.list();
+        loadPayloads(stateMachineInstanceId, events);
+        return events;
     }
 
     /**
@@ -202,10 +287,24 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
         Object object = criteria.uniqueResult();
         Event castedObject = null;
         if(object != null)
-            castedObject = (Event) object;
+            castedObject = loadPayload((Event) object);
         return Optional.ofNullable(castedObject);
     }
 
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public Optional<Event> findValidReplayEventMetadataBySMIdAndName(String stateMachineInstanceId, String eventName) {
+        Event event = (Event) currentSession().createQuery(SELECT_EVENT_METADATA
+                + " and e.name = :eventName and lower(e.eventSource) like :replayEventSource and e.status != :invalidStatus")
+                .setString("stateMachineInstanceId", stateMachineInstanceId)
+                .setString("eventName", eventName)
+                .setString("replayEventSource", "%" + RuntimeConstants.REPLAY_EVENT.toLowerCase() + "%")
+                .setParameter("invalidStatus", EventStatus.invalid)
+                .uniqueResult();
+        return Optional.ofNullable(event);
+    }
+
     /**
      * Returns the list of the events that are in triggered state
      * @param stateMachineInstanceId State achine identifier
@@ -218,7 +317,9 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
         Criteria criteria = currentSession().createCriteria(Event.class).add(Restrictions.eq(
                 "stateMachineInstanceId", stateMachineInstanceId))
                 .add(Restrictions.eq("status", Event.EventStatus.triggered));
-        return criteria.list();
+        List<Event> events = criteria.list();
+        loadPayloads(stateMachineInstanceId, events);
+        return events;
     }
 
     @Override
@@ -229,7 +330,7 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
                 .add(Restrictions.eq("stateMachineInstanceId", stateMachineInstanceId))
                 .add(Restrictions.eq("name", eventName))
                 .add(Restrictions.eq("status", Event.EventStatus.triggered));
-        return (Event) criteria.uniqueResult();
+        return loadPayload((Event) criteria.uniqueResult());
     }
 
     @Override
@@ -250,6 +351,7 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
                 "and status != 'invalid' and name in (" + eventNamesString.toString()
                 + ") order by field(name, " + eventNamesString.toString() + ")").setParameter("SMID", stateMachineInstanceId);
         List<Event> readEvents = hqlQuery.list();
+        loadPayloads(stateMachineInstanceId, readEvents);
         LinkedList<VersionedEventData> readEventsDTOs = new LinkedList<>();
 
         for (Event event : readEvents) {
@@ -292,6 +394,7 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
 
     @Override
     public Event create_NonTransactional(Event event, Session session) {
+        storePayload(session, event);
         session.save(event);
         return event;
     }
@@ -318,7 +421,7 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
             .add(Restrictions.eq("stateMachineInstanceId", stateMachineInstanceId))
             .add(Restrictions.eq("name", eventName))
             .add(Restrictions.eq("executionVersion", executionVersion));
-        return (Event) criteria.uniqueResult();
+        return loadPayload((Event) criteria.uniqueResult());
     }
 
     @Override
@@ -338,6 +441,76 @@ public class EventsDAOImpl extends AbstractDAO<Event> implements EventsDAO {
             query.setString("status", Event.EventStatus.invalid.toString());
             query.setString("stateMachineInstanceId", stateMachineInstanceId);
             query.executeUpdate();
+            // payloads of the deleted events
+            currentSession().createSQLQuery("delete from EventPayloads where stateMachineInstanceId = :stateMachineInstanceId and name in ("
+                    + eventNamesString.toString() + ") and not exists (select 1 from Events e where e.stateMachineInstanceId = EventPayloads.stateMachineInstanceId"
+                    + " and e.name = EventPayloads.name and e.executionVersion = EventPayloads.executionVersion)")
+                    .setString("stateMachineInstanceId", stateMachineInstanceId)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * Moves the data of the event to the EventPayloads table if it is larger than the offload threshold. An event that was offloaded earlier
+     * and whose data is now small enough is moved back to the Events table.
+     */
+    private void storePayload(Session session, Event event) {
+        String eventData = event.getEventData();
+        boolean offload = offloadThresholdBytes > 0 && eventData != null
+                && eventData.length() > offloadThresholdBytes / 3 // cheap lower bound, a char takes at most 3 bytes in UTF-8
+                && eventData.getBytes(StandardCharsets.UTF_8).length > offloadThresholdBytes;
+        if (offload) {
+            session.merge(new EventPayload(event));
+            event.setPayloadOffloaded(true);
+        } else if (event.isPayloadOffloaded()) {
+            Object payload = session.get(EventPayload.class, new Event.EventPK(event.getStateMachineInstanceId(), event.getName(), event.getExecutionVersion()));
+            if (payload != null) {
+                session.delete(payload);
+            }
+            event.setPayloadOffloaded(false);
+        }
+    }
+
+    /**
+     * Reads the data of an offloaded event from the EventPayloads table
+     * @return the given event, which may be null
+     */
+    private Event loadPayload(Event event) {
+        if (event != null && event.isPayloadOffloaded() && event.getEventData() == null) {
+            EventPayload payload = (EventPayload) currentSession().get(EventPayload.class,
+                    new Event.EventPK(event.getStateMachineInstanceId(), event.getName(), event.getExecutionVersion()));
+            if (payload != null) {
+                event.setEventData(payload.getPayload());
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Reads the data of the offloaded events of a state machine from the EventPayloads table in a single query
+     */
+    private void loadPayloads(String stateMachineInstanceId, List<Event> events) {
+        Map<Event.EventPK, Event> offloadedEvents = new HashMap<>();
+        for (Event event : events) {
+            if (event.isPayloadOffloaded() && event.getEventData() == null) {
+                offloadedEvents.put(new Event.EventPK(event.getStateMachineInstanceId(), event.getName(), event.getExecutionVersion()), event);
+            }
+        }
+        if (offloadedEvents.size() == 1) {
+            loadPayload(offloadedEvents.values().iterator().next());
+        } else if (!offloadedEvents.isEmpty()) {
+            Set<String> names = new HashSet<>();
+            offloadedEvents.values().forEach(event -> names.add(event.getName()));
+            List<EventPayload> payloads = currentSession().createQuery("from EventPayload where stateMachineInstanceId = :stateMachineInstanceId and name in (:names)")
+                    .setString("stateMachineInstanceId", stateMachineInstanceId)
+                    .setParameterList("names", names)
+                    .list();
+            for (EventPayload payload : payloads) {
+                Event event = offloadedEvents.get(new Event.EventPK(payload.getStateMachineInstanceId(), payload.getName(), payload.getExecutionVersion()));
+                if (event != null) {
+                    event.setEventData(payload.getPayload());
+                }
+            }
         }
     }
 
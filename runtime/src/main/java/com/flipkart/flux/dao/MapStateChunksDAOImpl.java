@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.flipkart.flux.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import org.hibernate.Query;
+import org.hibernate.type.StringType;
+
+import com.flipkart.flux.dao.iface.MapStateChunksDAO;
+import com.flipkart.flux.persistence.DataSourceType;
+import com.flipkart.flux.persistence.SelectDataSource;
+import com.flipkart.flux.persistence.SessionFactoryContext;
+import com.flipkart.flux.persistence.Storage;
+import com.google.inject.name.Named;
+
+/**
+ * <code>MapStateChunksDAOImpl</code> is an implementation of {@link MapStateChunksDAO} which uses native queries on the MapStateChunks table.
+ */
+public class MapStateChunksDAOImpl extends AbstractDAO<Object> implements MapStateChunksDAO {
+
+    @Inject
+    public MapStateChunksDAOImpl(@Named("fluxSessionFactoriesContext") SessionFactoryContext sessionFactoryContext) {
+        super(sessionFactoryContext);
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int createChunks(String stateMachineId, Long stateId, Long executionVersion, List<String> chunkInputs) {
+        // chunks of earlier executions, a delayed dispatch of an earlier execution leaves the chunks of the later ones alone
+        currentSession().createSQLQuery("delete from MapStateChunks where stateMachineId = :stateMachineId and stateId = :stateId" +
+                " and executionVersion < :executionVersion")
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .executeUpdate();
+        // chunks created by a concurrent dispatch of the same execution are kept, the primary key includes the execution version
+        int created = 0;
+        for (int chunkIndex = 0; chunkIndex < chunkInputs.size(); chunkIndex++) {
+            created += currentSession().createSQLQuery("insert ignore into MapStateChunks (stateMachineId, stateId, chunkIndex, executionVersion," +
+                    " status, input) values (:stateMachineId, :stateId, :chunkIndex, :executionVersion, :status, :input)")
+                    .setString("stateMachineId", stateMachineId)
+                    .setLong("stateId", stateId)
+                    .setInteger("chunkIndex", chunkIndex)
+                    .setLong("executionVersion", executionVersion)
+                    .setString("status", ChunkStatus.pending.toString())
+                    .setString("input", chunkInputs.get(chunkIndex))
+                    .executeUpdate();
+        }
+        return created;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int countChunks(String stateMachineId, Long stateId, Long executionVersion, ChunkStatus... statuses) {
+        List<String> statusNames = new ArrayList<>(statuses.length);
+        for (ChunkStatus status : statuses) {
+            statusNames.add(status.toString());
+        }
+        Object count = currentSession().createSQLQuery("select count(*) from MapStateChunks where stateMachineId = :stateMachineId" +
+                " and stateId = :stateId and executionVersion = :executionVersion and status in (:statuses)")
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .setParameterList("statuses", statusNames, StringType.INSTANCE)
+                .uniqueResult();
+        return ((Number) count).intValue();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<Integer> findChunkIndexes(String stateMachineId, Long stateId, Long executionVersion, ChunkStatus status, int limit) {
+        List<?> indexes = currentSession().createSQLQuery("select chunkIndex from MapStateChunks where stateMachineId = :stateMachineId" +
+                " and stateId = :stateId and executionVersion = :executionVersion and status = :status order by chunkIndex")
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .setString("status", status.toString())
+                .setMaxResults(limit)
+                .list();
+        List<Integer> chunkIndexes = new ArrayList<>(indexes.size());
+        for (Object index : indexes) {
+            chunkIndexes.add(((Number) index).intValue());
+        }
+        return chunkIndexes;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public String findInput(String stateMachineId, Long stateId, Long executionVersion, int chunkIndex) {
+        return (String) currentSession().createSQLQuery("select input from MapStateChunks where stateMachineId = :stateMachineId" +
+                " and stateId = :stateId and executionVersion = :executionVersion and chunkIndex = :chunkIndex")
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .setInteger("chunkIndex", chunkIndex)
+                .uniqueResult();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int updateStatus(String stateMachineId, Long stateId, Long executionVersion, int chunkIndex, ChunkStatus expectedStatus,
+                            ChunkStatus status, String output) {
+        Query query = currentSession().createSQLQuery("update MapStateChunks set status = :status" + (output != null ? ", output = :output" : "") +
+                " where stateMachineId = :stateMachineId and stateId = :stateId and executionVersion = :executionVersion" +
+                " and chunkIndex = :chunkIndex and status = :expectedStatus")
+                .setString("status", status.toString())
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .setInteger("chunkIndex", chunkIndex)
+                .setString("expectedStatus", expectedStatus.toString());
+        if (output != null) {
+            query.setString("output", output);
+        }
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int updateStatus(String stateMachineId, Long stateId, Long executionVersion, ChunkStatus expectedStatus, ChunkStatus status) {
+        return currentSession().createSQLQuery("update MapStateChunks set status = :status where stateMachineId = :stateMachineId" +
+                " and stateId = :stateId and executionVersion = :executionVersion and status = :expectedStatus")
+                .setString("status", status.toString())
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .setString("expectedStatus", expectedStatus.toString())
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<String> findOutputs(String stateMachineId, Long stateId, Long executionVersion) {
+        List<?> outputs = currentSession().createSQLQuery("select output from MapStateChunks where stateMachineId = :stateMachineId" +
+                " and stateId = :stateId and executionVersion = :executionVersion order by chunkIndex")
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .setLong("executionVersion", executionVersion)
+                .list();
+        List<String> chunkOutputs = new ArrayList<>(outputs.size());
+        for (Object output : outputs) {
+            chunkOutputs.add((String) output);
+        }
+        return chunkOutputs;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int deleteChunks(String stateMachineId, Long stateId) {
+        return currentSession().createSQLQuery("delete from MapStateChunks where stateMachineId = :stateMachineId and stateId = :stateId")
+                .setString("stateMachineId", stateMachineId)
+                .setLong("stateId", stateId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.dao;
+
+import com.flipkart.flux.dao.iface.StateMachineArchiveDAO;
+import com.flipkart.flux.domain.AuditRecord;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.domain.State;
+import com.flipkart.flux.domain.StateMachine;
+import com.flipkart.flux.persistence.DataSourceType;
+import com.flipkart.flux.persistence.SelectDataSource;
+import com.flipkart.flux.persistence.SessionFactoryContext;
+import com.flipkart.flux.persistence.Storage;
+import com.flipkart.flux.shard.ShardId;
+import com.google.inject.name.Named;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * <code>StateMachineArchiveDAOImpl</code> is an implementation of {@link StateMachineArchiveDAO} which uses native queries, as the archive tables
+ * share the columns of the live tables.
+ * <p>
+ * The archive tables are range partitioned on UNIX_TIMESTAMP(createdAt) with one partition per calendar month (UTC), named after the first day of the
+ * next month, e.g. p20261101, and a trailing empty partition pMax.
+ */
+public class StateMachineArchiveDAOImpl extends AbstractDAO<StateMachine> implements StateMachineArchiveDAO {
+
+    private static final Logger logger = LogManager.getLogger(StateMachineArchiveDAOImpl.class);
+
+    static final String[] ARCHIVE_TABLES = {"StateMachinesArchive", "StatesArchive", "EventsArchive", "AuditRecordsArchive"};
+
+    private static final String MAX_PARTITION = "pMax";
+
+    @Inject
+    public StateMachineArchiveDAOImpl(@Named("fluxSessionFactoriesContext") SessionFactoryContext sessionFactoryContext) {
+        super(sessionFactoryContext);
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<String> findArchivableStateMachineIds(ShardId shardId, Timestamp createdBefore, int limit) {
+        return currentSession().createSQLQuery("select sm.id from StateMachines sm where sm.createdAt < :createdBefore and (sm.status = 'cancelled'" +
+                " or not exists (select 1 from States s where s.stateMachineId = sm.id and (s.status is null" +
+                " or s.status not in ('completed', 'cancelled', 'invalid')))) order by sm.createdAt")
+                .setTimestamp("createdBefore", createdBefore)
+                .setMaxResults(limit)
+                .list();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int archiveStateMachines(ShardId shardId, List<String> stateMachineIds) {
+        if (stateMachineIds.isEmpty()) {
+            return 0;
+        }
+        Session session = currentSession();
+        // lock the state machines, a concurrent archival of the same state machines finds them deleted once this transaction commits
+        List<String> ids = session.createSQLQuery("select id from StateMachines where id in (:ids) for update")
+                .setParameterList("ids", stateMachineIds).list();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        executeUpdate(session, "insert into StateMachinesArchive select * from StateMachines where id in (:ids)", ids);
+        executeUpdate(session, "insert into StatesArchive select * from States where stateMachineId in (:ids)", ids);
+        executeUpdate(session, "insert into EventsArchive select * from Events where stateMachineInstanceId in (:ids)", ids);
+        // offloaded event data is kept inline in the archive
+        executeUpdate(session, "update EventsArchive ea join EventPayloads ep on ep.stateMachineInstanceId = ea.stateMachineInstanceId" +
+                " and ep.name = ea.name and ep.executionVersion = ea.executionVersion and ea.payloadOffloaded = 1 set ea.eventData = ep.payload, ea.payloadOffloaded = 0" +
+                " where ea.stateMachineInstanceId in (:ids)", ids);
+        executeUpdate(session, "insert into AuditRecordsArchive (id, stateMachineInstanceId, stateId, retryAttempt, stateStatus, stateRollbackStatus," +
+                " errors, createdAt, taskExecutionVersion, eventDependencies) select id, stateMachineInstanceId, stateId, retryAttempt, stateStatus," +
+                " stateRollbackStatus, errors, coalesce(createdAt, current_timestamp(3)), taskExecutionVersion, eventDependencies" +
+                " from AuditRecords where stateMachineInstanceId in (:ids)", ids);
+        executeUpdate(session, "delete from AuditRecords where stateMachineInstanceId in (:ids)", ids);
+        // states, state dependencies, events, event payloads and traversal paths are deleted by the cascading foreign keys
+        executeUpdate(session, "delete from StateMachines where id in (:ids)", ids);
+        return ids.size();
+    }
+
+    private static void executeUpdate(Session session, String sql, List<String> ids) {
+        session.createSQLQuery(sql).setParameterList("ids", ids).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public void maintainPartitions(ShardId shardId, Timestamp partitionFrom, Timestamp partitionUpTo, Timestamp dropBefore) {
+        Session session = currentSession();
+        for (String table : ARCHIVE_TABLES) {
+            List<Object[]> partitions = session.createSQLQuery("select PARTITION_NAME, PARTITION_DESCRIPTION from information_schema.PARTITIONS" +
+                    " where TABLE_SCHEMA = database() and TABLE_NAME = :table order by PARTITION_ORDINAL_POSITION")
+                    .setString("table", table).list();
+            long lastBoundary = -1;
+            List<String> droppable = new ArrayList<>();
+            for (Object[] partition : partitions) {
+                String name = (String) partition[0];
+                if (!MAX_PARTITION.equals(name) && partition[1] != null) {
+                    long boundary = Long.parseLong(partition[1].toString());
+                    lastBoundary = Math.max(lastBoundary, boundary);
+                    if (dropBefore != null && boundary <= dropBefore.getTime() / 1000) {
+                        droppable.add(name);
+                    }
+                }
+            }
+            List<Long> boundaries = getMonthlyBoundaries(lastBoundary < 0 ? partitionFrom.getTime() / 1000 : lastBoundary, partitionUpTo.getTime() / 1000);
+            if (!boundaries.isEmpty()) {
+                StringBuilder sql = new StringBuilder("alter table ").append(table).append(" reorganize partition ").append(MAX_PARTITION).append(" into (");
+                for (Long boundary : boundaries) {
+                    sql.append("partition ").append(getPartitionName(boundary)).append(" values less than (").append(boundary).append("), ");
+                }
+                sql.append("partition ").append(MAX_PARTITION).append(" values less than maxvalue)");
+                session.createSQLQuery(sql.toString()).executeUpdate();
+                logger.info("Added {} partitions to archive table {}", boundaries.size(), table);
+            }
+            if (!droppable.isEmpty()) {
+                session.createSQLQuery("alter table " + table + " drop partition " + String.join(", ", droppable)).executeUpdate();
+                logger.info("Dropped partitions {} of archive table {}", droppable, table);
+            }
+        }
+    }
+
+    /**
+     * Returns the partition boundaries (epoch seconds of the first day of a month, UTC) to add after <code>lastBoundary</code> so that rows
+     * created up to <code>upTo</code> fall into a monthly partition. <code>lastBoundary</code> is rounded down to the start of its month.
+     */
+    static List<Long> getMonthlyBoundaries(long lastBoundary, long upTo) {
+        List<Long> boundaries = new ArrayList<>();
+        LocalDate month = Instant.ofEpochSecond(lastBoundary).atZone(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1);
+        long boundary = month.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        while (boundary <= upTo) {
+            month = month.plusMonths(1);
+            boundary = month.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+            boundaries.add(boundary);
+        }
+        return boundaries;
+    }
+
+    static String getPartitionName(long boundary) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return "p" + format.format(new Date(boundary * 1000));
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public StateMachine findArchivedStateMachine(String stateMachineId) {
+        Session session = currentSession();
+        StateMachine stateMachine = (StateMachine) session.createSQLQuery("select * from StateMachinesArchive where id = :stateMachineId")
+                .addEntity(StateMachine.class)
+                .setString("stateMachineId", stateMachineId)
+                .uniqueResult();
+        if (stateMachine == null) {
+            return null;
+        }
+        // the archived rows do not exist in the live tables, so the entities are detached before they could be flushed
+        session.evict(stateMachine);
+        List<State> states = session.createSQLQuery("select * from StatesArchive where stateMachineId = :stateMachineId")
+                .addEntity(State.class)
+                .setString("stateMachineId", stateMachineId)
+                .list();
+        states.forEach(session::evict);
+        stateMachine.getStates().clear();
+        stateMachine.getStates().addAll(states);
+        return stateMachine;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<Event> findArchivedEvents(String stateMachineId) {
+        Session session = currentSession();
+        List<Event> events = session.createSQLQuery("select * from EventsArchive where stateMachineInstanceId = :stateMachineId and status != 'invalid'")
+                .addEntity(Event.class)
+                .setString("stateMachineId", stateMachineId)
+                .list();
+        events.forEach(session::evict);
+        return events;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public List<AuditRecord> findArchivedAuditRecords(String stateMachineId) {
+        Session session = currentSession();
+        List<AuditRecord> auditRecords = session.createSQLQuery("select * from AuditRecordsArchive where stateMachineInstanceId = :stateMachineId")
+                .addEntity(AuditRecord.class)
+                .setString("stateMachineId", stateMachineId)
+                .list();
+        auditRecords.forEach(session::evict);
+        return auditRecords;
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public void scrollArchivedEvents(String stateMachineId, Consumer<? super Event> consumer) {
+        scroll(currentSession().createSQLQuery("select * from EventsArchive where stateMachineInstanceId = :stateMachineId and status != 'invalid'")
+                .addEntity(Event.class)
+                .setString("stateMachineId", stateMachineId)
+                .setFetchSize(STREAMING_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY), consumer);
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public void scrollArchivedAuditRecords(String stateMachineId, int offset, int limit, Consumer<? super AuditRecord> consumer) {
+        Query query = currentSession().createSQLQuery("select * from AuditRecordsArchive where stateMachineInstanceId = :stateMachineId order by id")
+                .addEntity(AuditRecord.class)
+                .setString("stateMachineId", stateMachineId)
+                .setFirstResult(offset)
+                .setFetchSize(STREAMING_FETCH_SIZE);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        scroll(query.scroll(ScrollMode.FORWARD_ONLY), consumer);
+    }
+}
@@ -27,8 +27,11 @@ import org.hibernate.criterion.Restrictions;
 
 import javax.inject.Inject;
 import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -50,7 +53,13 @@ public class StateMachinesDAOImpl extends AbstractDAO<StateMachine> implements S
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public StateMachine create(String stateMachineInstanceId, StateMachine stateMachine) {
-        return super.save(stateMachine);
+        StateMachine savedStateMachine = super.save(stateMachine);
+        // the dependency index references the states
+        currentSession().flush();
+        if (savedStateMachine.getStates() != null) {
+            StatesDAOImpl.insertDependencies(currentSession(), savedStateMachine.getStates());
+        }
+        return savedStateMachine;
     }
 
     @Override
@@ -84,6 +93,21 @@ public class StateMachinesDAOImpl extends AbstractDAO<StateMachine> implements S
     }
 
 
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public Map<String, StateMachineStatus> findStatusByIds(ShardId shardId, Collection<String> stateMachineIds) {
+        Map<String, StateMachineStatus> statuses = new HashMap<>();
+        if (stateMachineIds.isEmpty()) {
+            return statuses;
+        }
+        List<Object[]> rows = currentSession().createQuery("select sm.id, sm.status from StateMachine sm where sm.id in (:stateMachineIds)")
+                .setParameterList("stateMachineIds", stateMachineIds)
+                .list();
+        rows.forEach(row -> statuses.put((String) row[0], (StateMachineStatus) row[1]));
+        return statuses;
+    }
+
     @Override
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
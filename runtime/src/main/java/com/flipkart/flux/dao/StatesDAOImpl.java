@@ -25,12 +25,17 @@ import com.google.inject.name.Named;
 import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
 import org.hibernate.Session;
+import org.hibernate.type.StringType;
 
 /**
  * <code>StatesDAOImpl</code> is an implementation of {@link StatesDAO} which uses Hibernate to perform operations.
@@ -50,6 +55,10 @@ public class StatesDAOImpl extends AbstractDAO<State> implements StatesDAO {
 
     private static final String FOR_UPDATE = "for update";
 
+    /** Counts the dependencies of the state aliased s which are not met */
+    private static final String PENDING_DEPENDENCIES_COUNT = "(select count(*) from StateDependencies d" +
+            " where d.stateMachineId = s.stateMachineId and d.stateId = s.id and d.met = 0)";
+
     @Inject
     public StatesDAOImpl(@Named("fluxSessionFactoriesContext") SessionFactoryContext sessionFactoryContext) {
         super(sessionFactoryContext);
@@ -60,6 +69,55 @@ public class StatesDAOImpl extends AbstractDAO<State> implements StatesDAO {
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public void updateState(String stateMachineInstanceId, State state) {
         super.update(state);
+        Session session = currentSession();
+        // the rows of unchanged dependencies are kept, they record whether the dependency is met
+        if (state.getDependencies() == null || state.getDependencies().isEmpty()) {
+            session.createSQLQuery("delete from StateDependencies where stateMachineId = :stateMachineId and stateId = :stateId")
+                    .setString("stateMachineId", state.getStateMachineId())
+                    .setLong("stateId", state.getId())
+                    .executeUpdate();
+        } else {
+            session.createSQLQuery("delete from StateDependencies where stateMachineId = :stateMachineId and stateId = :stateId" +
+                    " and eventName not in (:eventNames)")
+                    .setString("stateMachineId", state.getStateMachineId())
+                    .setLong("stateId", state.getId())
+                    .setParameterList("eventNames", state.getDependencies(), StringType.INSTANCE)
+                    .executeUpdate();
+        }
+        insertDependencies(session, Collections.singletonList(state));
+        session.createSQLQuery("update States s set s.pendingDependencies = " + PENDING_DEPENDENCIES_COUNT +
+                " where s.stateMachineId = :stateMachineId and s.id = :stateId and s.pendingDependencies is not null")
+                .setString("stateMachineId", state.getStateMachineId())
+                .setLong("stateId", state.getId())
+                .executeUpdate();
+    }
+
+    /**
+     * Indexes the dependencies of the given states in StateDependencies, which is used to look up the states dependent on an event.
+     * The states must have been flushed.
+     */
+    static void insertDependencies(Session session, Collection<State> states) {
+        StringBuilder sql = new StringBuilder("insert ignore into StateDependencies (stateMachineId, eventName, stateId) values ");
+        List<Object[]> rows = new ArrayList<>();
+        for (State state : states) {
+            if (state.getDependencies() != null) {
+                for (String dependency : state.getDependencies()) {
+                    int i = rows.size();
+                    sql.append(i == 0 ? "" : ", ").append("(:stateMachineId").append(i).append(", :eventName").append(i).append(", :stateId").append(i).append(')');
+                    rows.add(new Object[]{state.getStateMachineId(), dependency, state.getId()});
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        SQLQuery query = session.createSQLQuery(sql.toString());
+        for (int i = 0; i < rows.size(); i++) {
+            query.setString("stateMachineId" + i, (String) rows.get(i)[0]);
+            query.setString("eventName" + i, (String) rows.get(i)[1]);
+            query.setLong("stateId" + i, (Long) rows.get(i)[2]);
+        }
+        query.executeUpdate();
     }
 
     @Override
@@ -112,6 +170,92 @@ public class StatesDAOImpl extends AbstractDAO<State> implements StatesDAO {
         query.executeUpdate();
     }
 
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int updateStatus(String stateMachineId, Long stateId, Long executionVersion, Status status) {
+        Query query = currentSession().createQuery("update State set status = :status where id = :stateId and stateMachineId = :stateMachineId" +
+                " and executionVersion = :executionVersion and " + getStatusInClause(status.getAllowedPredecessors()));
+        query.setString("status", status.toString());
+        query.setLong("stateId", stateId);
+        query.setString("stateMachineId", stateMachineId);
+        query.setLong("executionVersion", executionVersion);
+        query.setParameterList("predecessors", getStatusNames(status.getAllowedPredecessors()), StringType.INSTANCE);
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int markDispatched(String stateMachineId, Long stateId, Long executionVersion) {
+        Query query = currentSession().createQuery("update State set status = :status where id = :stateId and stateMachineId = :stateMachineId" +
+                " and executionVersion = :executionVersion and " + getStatusInClause(EnumSet.of(Status.initialized)));
+        query.setString("status", Status.running.toString());
+        query.setLong("stateId", stateId);
+        query.setString("stateMachineId", stateMachineId);
+        query.setLong("executionVersion", executionVersion);
+        query.setParameterList("predecessors", getStatusNames(EnumSet.of(Status.initialized)), StringType.INSTANCE);
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public int incrementRetryCount(String stateMachineId, Long stateId, Long executionVersion) {
+        // retries are counted while the task is still being executed, i.e. the state can move to running
+        Set<Status> nonTerminal = Status.running.getAllowedPredecessors();
+        Query query = currentSession().createQuery("update State set attemptedNoOfRetries = attemptedNoOfRetries + 1 where id = :stateId" +
+                " and stateMachineId = :stateMachineId and executionVersion = :executionVersion and " + getStatusInClause(nonTerminal));
+        query.setLong("stateId", stateId);
+        query.setString("stateMachineId", stateMachineId);
+        query.setLong("executionVersion", executionVersion);
+        query.setParameterList("predecessors", getStatusNames(nonTerminal), StringType.INSTANCE);
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+    public void markDependencyMet(String stateMachineId, String eventName) {
+        // a state has one row per event, so its counter is decremented once, and only by the update which flips the row
+        currentSession().createSQLQuery("update StateDependencies d join States s on s.stateMachineId = d.stateMachineId and s.id = d.stateId" +
+                " set d.met = 1, s.pendingDependencies = s.pendingDependencies - 1" +
+                " where d.stateMachineId = :stateMachineId and d.eventName = :eventName and d.met = 0")
+                .setString("stateMachineId", stateMachineId)
+                .setString("eventName", eventName)
+                .executeUpdate();
+    }
+
+    @Override
+    public void resetDependencies_NonTransactional(String stateMachineId, List<String> eventNames, Session session) {
+        if (eventNames.isEmpty()) {
+            return;
+        }
+        session.createSQLQuery("update StateDependencies set met = 0 where stateMachineId = :stateMachineId and eventName in (:eventNames)")
+                .setString("stateMachineId", stateMachineId)
+                .setParameterList("eventNames", eventNames, StringType.INSTANCE)
+                .executeUpdate();
+        session.createSQLQuery("update States s set s.pendingDependencies = " + PENDING_DEPENDENCIES_COUNT +
+                " where s.stateMachineId = :stateMachineId and s.pendingDependencies is not null and s.id in" +
+                " (select stateId from StateDependencies where stateMachineId = :stateMachineId and eventName in (:eventNames))")
+                .setString("stateMachineId", stateMachineId)
+                .setParameterList("eventNames", eventNames, StringType.INSTANCE)
+                .executeUpdate();
+    }
+
+    /** States created before statuses were maintained have a null status, which is treated as initialized */
+    private static String getStatusInClause(Set<Status> statuses) {
+        return statuses.contains(Status.initialized) ? "(status in (:predecessors) or status is null)" : "status in (:predecessors)";
+    }
+
+    private static List<String> getStatusNames(Set<Status> statuses) {
+        List<String> names = new ArrayList<>(statuses.size());
+        for (Status status : statuses) {
+            names.add(status.toString());
+        }
+        return names;
+    }
+
     @Override
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
@@ -195,22 +339,24 @@ public class StatesDAOImpl extends AbstractDAO<State> implements StatesDAO {
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public List<State> findStatesByDependentEvent(String stateMachineId, String eventName) {
-        Query query = currentSession().createQuery(
-                "select state from State state where stateMachineId = :stateMachineId and" +
-                        " dependencies like :eventName");
-        query.setString("stateMachineId", stateMachineId);
-        query.setString("eventName", "%" + eventName + "%");
-        return query.list();
+        return currentSession().createSQLQuery("select s.* from StateDependencies d join States s on s.stateMachineId = d.stateMachineId" +
+                " and s.id = d.stateId where d.stateMachineId = :stateMachineId and d.eventName = :eventName")
+                .addEntity(State.class)
+                .setString("stateMachineId", stateMachineId)
+                .setString("eventName", eventName)
+                .list();
     }
 
     @Override
     @Transactional
     @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
     public Long findStateIdByEventName(String stateMachineId, String eventName) {
-        SQLQuery query = currentSession().createSQLQuery(
-                "select id from States where `stateMachineId`= '" + stateMachineId + "' and dependencies like" +
-                        " '%" + eventName + "%'");
-        return ((BigInteger) query.uniqueResult()).longValue();
+        SQLQuery query = currentSession().createSQLQuery("select stateId from StateDependencies where stateMachineId = :stateMachineId" +
+                " and eventName = :eventName");
+        query.setString("stateMachineId", stateMachineId);
+        query.setString("eventName", eventName);
+        BigInteger stateId = (BigInteger) query.uniqueResult();
+        return stateId != null ? stateId.longValue() : null;
     }
 
     @Override
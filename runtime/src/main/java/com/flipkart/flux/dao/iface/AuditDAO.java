@@ -17,6 +17,7 @@ import com.flipkart.flux.domain.AuditRecord;
 import org.hibernate.Session;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <code>AuditDAO</code> interface provides methods to perform CR operations on {@link AuditRecord}
@@ -30,6 +31,12 @@ public interface AuditDAO {
      */
     List<AuditRecord> findBySMInstanceId(String stateMachineInstanceId);
 
+    /**
+     * Passes a page of the audit logs of a particular state machine, in the order they were created, to the consumer one at a time as
+     * they are read from the DB. A limit of 0 passes all the audit logs from the offset
+     */
+    void scrollBySMInstanceId(String stateMachineInstanceId, int offset, int limit, Consumer<? super AuditRecord> consumer);
+
     /**
      * Creates Audit record and returns the saved object
      */
@@ -18,6 +18,7 @@ import com.flipkart.flux.domain.Event;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.hibernate.Session;
 
 /**
@@ -41,9 +42,22 @@ public interface EventsDAO {
      */
     List<Event> findBySMInstanceId(String stateMachineInstanceId);
 
+    /**
+     * Passes the events of a particular state machine instance to the consumer one at a time as they are read from the DB
+     */
+    void scrollBySMInstanceId(String stateMachineInstanceId, Consumer<? super Event> consumer);
+
+    /**
+     * Retrieves the metadata of all the events which belong to a particular state machine instance, i.e the events without their data
+     */
+    List<Event> findMetadataBySMInstanceId(String stateMachineInstanceId);
+
     /** Retrieves valid[pending/triggered/cancelled] Event by state machine instance id and event name */
     Event findValidEventBySMIdAndName(String stateMachineInstanceId, String eventName);
 
+    /** Same as {@link #findValidEventBySMIdAndName(String, String)}, but without the event data */
+    Event findValidEventMetadataBySMIdAndName(String stateMachineInstanceId, String eventName);
+
     /**
      * Retrieves all the events with the given name irrespective of its status
      * @param stateMachineInstanceId
@@ -52,6 +66,9 @@ public interface EventsDAO {
      */
     List<Event> findAllBySMIdAndName(String stateMachineInstanceId, String eventName);
 
+    /** Same as {@link #findAllBySMIdAndName(String, String)}, but without the event data */
+    List<Event> findAllMetadataBySMIdAndName(String stateMachineInstanceId, String eventName);
+
     /** Retrieves Event by state machine instance id, event execution version and event name */
     Event findValidEventsByStateMachineIdAndExecutionVersionAndName(String stateMachineInstanceId, String eventName, Long executionVersion);
 
@@ -79,6 +96,9 @@ public interface EventsDAO {
      */
     Optional<Event> findValidReplayEventBySMIdAndName(String stateMachineInstanceId, String eventName);
 
+    /** Same as {@link #findValidReplayEventBySMIdAndName(String, String)}, but without the event data */
+    Optional<Event> findValidReplayEventMetadataBySMIdAndName(String stateMachineInstanceId, String eventName);
+
     /** Retrieves list of events which are in triggered state and belongs to provided state machine */
     /**
      * Retrieves list of events which are in triggered state and belongs to provided state machine
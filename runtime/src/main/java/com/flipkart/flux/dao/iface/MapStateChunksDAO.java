@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.flipkart.flux.dao.iface;
+
+import java.util.List;
+
+/**
+ * <code>MapStateChunksDAO</code> interface provides methods to track the chunks of the collection event of a map state, see
+ * {@link com.flipkart.flux.domain.State#getMapChunkSize()}. Chunks are tracked per execution version of the state.
+ */
+public interface MapStateChunksDAO {
+
+    /**
+     * Status of a chunk. A chunk is dispatched at most once at a time and may be dispatched again by the redriver
+     */
+    enum ChunkStatus {
+        pending, dispatched, completed, failed
+    }
+
+    /**
+     * Creates the chunks of the given execution of the state with the given inputs, removing the chunks of its earlier executions.
+     * Returns the no. of chunks created, i.e. 0 if they were created already
+     */
+    int createChunks(String stateMachineId, Long stateId, Long executionVersion, List<String> chunkInputs);
+
+    /**
+     * Returns the no. of chunks of the given execution of the state which are in one of the given statuses
+     */
+    int countChunks(String stateMachineId, Long stateId, Long executionVersion, ChunkStatus... statuses);
+
+    /**
+     * Returns the indexes of up to limit chunks in the given status, in order
+     */
+    List<Integer> findChunkIndexes(String stateMachineId, Long stateId, Long executionVersion, ChunkStatus status, int limit);
+
+    /**
+     * Retrieves the input, i.e. the serialized items, of a chunk
+     */
+    String findInput(String stateMachineId, Long stateId, Long executionVersion, int chunkIndex);
+
+    /**
+     * Moves the chunk to the given status, and stores its output if not null, if the chunk is in the expected status.
+     * Returns the no. of chunks updated, i.e. 0 for stale or duplicate updates
+     */
+    int updateStatus(String stateMachineId, Long stateId, Long executionVersion, int chunkIndex, ChunkStatus expectedStatus,
+                     ChunkStatus status, String output);
+
+    /**
+     * Moves all the chunks in the expected status to the given status, returns the no. of chunks updated
+     */
+    int updateStatus(String stateMachineId, Long stateId, Long executionVersion, ChunkStatus expectedStatus, ChunkStatus status);
+
+    /**
+     * Retrieves the outputs of the chunks, in order
+     */
+    List<String> findOutputs(String stateMachineId, Long stateId, Long executionVersion);
+
+    /**
+     * Deletes all the chunks of the state, returns the no. of chunks deleted
+     */
+    int deleteChunks(String stateMachineId, Long stateId);
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.dao.iface;
+
+import com.flipkart.flux.domain.AuditRecord;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.domain.StateMachine;
+import com.flipkart.flux.shard.ShardId;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <code>StateMachineArchiveDAO</code> interface provides methods to move terminal {@link StateMachine}s along with their states, events and
+ * audit records from the live tables to the archive tables, and to read them back from there.
+ */
+public interface StateMachineArchiveDAO {
+
+    /**
+     * Retrieves the ids of the terminal state machines of the shard created before the given time, oldest first. A state machine is terminal
+     * if it is cancelled or all its states are completed, cancelled or invalid.
+     */
+    List<String> findArchivableStateMachineIds(ShardId shardId, Timestamp createdBefore, int limit);
+
+    /**
+     * Moves the given state machines of the shard to the archive tables and deletes them from the live tables.
+     * State machines which were archived concurrently are skipped.
+     * @return the no. of state machines archived
+     */
+    int archiveStateMachines(ShardId shardId, List<String> stateMachineIds);
+
+    /**
+     * Adds the monthly partitions of the archive tables needed to hold rows created before <code>partitionUpTo</code>, starting at
+     * <code>partitionFrom</code> if the tables have no partitions yet, and drops the partitions holding only rows created before
+     * <code>dropBefore</code>. A null <code>dropBefore</code> keeps all partitions.
+     */
+    void maintainPartitions(ShardId shardId, Timestamp partitionFrom, Timestamp partitionUpTo, Timestamp dropBefore);
+
+    /**
+     * Retrieves an archived state machine along with its states, null if the state machine is not archived
+     */
+    StateMachine findArchivedStateMachine(String stateMachineId);
+
+    /**
+     * Retrieves the archived events of a state machine
+     */
+    List<Event> findArchivedEvents(String stateMachineId);
+
+    /**
+     * Retrieves the archived audit records of a state machine
+     */
+    List<AuditRecord> findArchivedAuditRecords(String stateMachineId);
+
+    /**
+     * Passes the archived events of a state machine to the consumer one at a time as they are read from the DB
+     */
+    void scrollArchivedEvents(String stateMachineId, Consumer<? super Event> consumer);
+
+    /**
+     * Passes a page of the archived audit records of a state machine to the consumer one at a time as they are read from the DB.
+     * A limit of 0 passes all the audit records from the offset
+     */
+    void scrollArchivedAuditRecords(String stateMachineId, int offset, int limit, Consumer<? super AuditRecord> consumer);
+}
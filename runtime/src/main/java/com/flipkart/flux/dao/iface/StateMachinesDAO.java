@@ -17,6 +17,8 @@ import com.flipkart.flux.domain.StateMachine;
 import com.flipkart.flux.domain.StateMachineStatus;
 import com.flipkart.flux.shard.ShardId;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import org.hibernate.Session;
 
@@ -61,6 +63,15 @@ public interface StateMachinesDAO {
      */
     Set<StateMachine> findByNameAndVersion(ShardId shardId, String stateMachineName, Long Version);
 
+    /**
+     * Retrieves the statuses of the given state machines, which should all belong to the given shard, without loading their states.
+     * State machines which are not found are left out
+     * @param shardId
+     * @param stateMachineIds
+     * @return state machine id to its status
+     */
+    Map<String, StateMachineStatus> findStatusByIds(ShardId shardId, Collection<String> stateMachineIds);
+
     /**
      * Updates status of a state machine
      * @param stateMachineId
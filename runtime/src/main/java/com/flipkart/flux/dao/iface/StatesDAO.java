@@ -37,6 +37,31 @@ public interface StatesDAO {
      */
     void updateStatus(String stateMachineInstanceId, Long stateId, Status status);
 
+    /**
+     * Updates status of a state only if it is at the given execution version and its current status is one of the
+     * {@link Status#getAllowedPredecessors()} of the new status.
+     * @return the no. of states updated, 0 if the update is stale or the transition is not allowed
+     */
+    int updateStatus(String stateMachineInstanceId, Long stateId, Long executionVersion, Status status);
+
+    /**
+     * Moves an initialized state at the given execution version to running when its task is dispatched.
+     * @return 1 for the only caller that may dispatch the task, 0 if it has been dispatched already
+     */
+    int markDispatched(String stateMachineInstanceId, Long stateId, Long executionVersion);
+
+    /**
+     * Marks the dependencies on the given event as met, decrementing the pending dependencies of each dependant state once
+     * however often the event is triggered or cancelled.
+     */
+    void markDependencyMet(String stateMachineInstanceId, String eventName);
+
+    /**
+     * Marks the dependencies on the given events as pending again and recomputes the pending dependencies of the dependant states,
+     * used when the events are recreated by a replay.
+     */
+    void resetDependencies_NonTransactional(String stateMachineInstanceId, List<String> eventNames, Session session);
+
     /**
      * Updates the status for all the given states
      *
@@ -58,6 +83,12 @@ public interface StatesDAO {
      */
     void incrementRetryCount(String stateMachineInstanceId, Long stateId);
 
+    /**
+     * Increments the attempted no.of retries of a state by 1 only if it is at the given execution version and has not reached a terminal status.
+     * @return the no. of states updated
+     */
+    int incrementRetryCount(String stateMachineInstanceId, Long stateId, Long executionVersion);
+
     /**
      * Update the execution Version for specified stateId belonging to State Machine.
      */
@@ -103,11 +134,11 @@ public interface StatesDAO {
     List findStatesByStatus(ShardId shardId, String stateMachineName, Timestamp fromTime, Timestamp toTime, String taskName, List<Status> statuses);
 
     /**
-     * Retrieves all states for a particular state-machine-id and like input dependent-event-name.
+     * Retrieves all states for a particular state-machine-id which depend on the input event-name.
      */
     List<State> findStatesByDependentEvent(String stateMachineId, String eventName);
     /**
-     * Retrieves state-id for a particular state-machine-id and like input replay dependent-event-name.
+     * Retrieves state-id for a particular state-machine-id which depends on the input replay event-name, null if no state depends on it.
      */
     Long findStateIdByEventName(String stateMachineId, String eventName);
 
@@ -32,6 +32,7 @@ import com.flipkart.flux.api.core.FluxError;
 import com.flipkart.flux.client.intercept.MethodId;
 import com.flipkart.flux.client.model.Task;
 import com.flipkart.flux.client.runtime.Stoppable;
+import com.flipkart.flux.registry.InFlightExecutions;
 import com.flipkart.polyguice.config.YamlConfiguration;
 
 /**
@@ -84,6 +85,11 @@ public class DeploymentUnit {
      */
     private Object stoppableInstance;
 
+    /**
+     * Executions in progress on this deployment unit, which is closed only after they complete
+     */
+    private final InFlightExecutions inFlightExecutions = new InFlightExecutions();
+
     /**
      * Configuration of this deployment unit which is specified in flux_config.yml file
      */
@@ -93,6 +99,14 @@ public class DeploymentUnit {
      * Constructor
      */
     public DeploymentUnit(String name, Integer version, DeploymentUnitClassLoader deploymentUnitClassLoader, YamlConfiguration configuration) {
+        this(name, version, deploymentUnitClassLoader, configuration, null);
+    }
+
+    /**
+     * Constructor, the task methods are resolved from the given index when it is up to date instead of scanning the workflow classes
+     */
+    public DeploymentUnit(String name, Integer version, DeploymentUnitClassLoader deploymentUnitClassLoader, YamlConfiguration configuration,
+                          TaskMethodIndex taskMethodIndex) {
         this.name = name;
         this.version = version;
         this.deploymentUnitClassLoader = deploymentUnitClassLoader;
@@ -100,7 +114,15 @@ public class DeploymentUnit {
         this.taskMethods = new HashMap<>();
 
         // populate all methods annotated with {@link Task}
-        populateTaskMethods();
+        Map<String, Method> indexedTaskMethods = taskMethodIndex == null ? null : taskMethodIndex.read(deploymentUnitClassLoader);
+        if (indexedTaskMethods != null) {
+            taskMethods.putAll(indexedTaskMethods);
+        } else {
+            populateTaskMethods();
+            if (taskMethodIndex != null) {
+                taskMethodIndex.write(taskMethods);
+            }
+        }
 
         // load ClassLoaderInjector class from app class loader to deployment unit's class loader.
         loadClassLoaderInjector();
@@ -269,4 +291,8 @@ public class DeploymentUnit {
     public Integer getVersion() {
         return this.version;
     }
+
+    public InFlightExecutions getInFlightExecutions() {
+        return inFlightExecutions;
+    }
 }
@@ -8,12 +8,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,9 +34,11 @@ import com.flipkart.flux.deploymentunit.iface.DeploymentUnitsManager;
 import com.flipkart.flux.deploymentunit.iface.ExecutableLoader;
 import com.flipkart.flux.exception.DuplicateDeploymentUnitException;
 import com.flipkart.flux.registry.TaskExecutableImpl;
+import com.flipkart.flux.registry.TaskNotFoundException;
 import com.flipkart.polyguice.core.Initializable;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 
 /**
  * <code>DeploymentUnitsManagerImpl</code> is an implementation of {@link DeploymentUnitsManager} and handles load/unload/list operations on {@link DeploymentUnit}s
@@ -64,9 +70,27 @@ public class DeploymentUnitsManagerImpl implements DeploymentUnitsManager, Initi
     private ExecutableRegistry executableRegistry;
 
     /**
-     * Cached thread pool to load deploymentUnits in parallel.
+     * Max no. of deploymentUnits loaded in parallel on bootup
      */
-    private ExecutorService executorService = Executors.newCachedThreadPool();
+    @Inject
+    @Named("deploymentUnitLoadParallelism")
+    private int loadParallelism;
+
+    /**
+     * Max time in milliseconds to wait for the executions in progress on a replaced or unloaded deploymentUnit, before closing it
+     */
+    @Inject
+    @Named("deploymentUnitDrainTimeoutMs")
+    private int drainTimeoutMs;
+
+    /**
+     * Closes replaced and unloaded deploymentUnits once they drain
+     */
+    private final ScheduledExecutorService drainScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deployment-unit-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Map to hold all loaded deploymentUnits.
@@ -76,7 +100,6 @@ public class DeploymentUnitsManagerImpl implements DeploymentUnitsManager, Initi
     @Override
     public DeploymentUnit load(String name, Integer version) throws Exception {
         logger.info("LOADING deployment Unit: {}/{}", name, version);
-        Path deploymentUnitDir = Paths.get(name, version.toString());
 
         // get latest
         DeploymentUnit latestUnit = getLatestFromMap(name);
@@ -90,24 +113,57 @@ public class DeploymentUnitsManagerImpl implements DeploymentUnitsManager, Initi
             }
         }
 
-        // load deployment unit.
-        DeploymentUnit loadedUnit = deploymentUnitUtil.getDeploymentUnit(deploymentUnitDir);
+        return loadAndRegister(name, version, null);
+    }
 
-        addToMap(loadedUnit);
+    @Override
+    public DeploymentUnit reload(String name, Integer version) throws Exception {
+        DeploymentUnit replacedUnit = getFromMap(name, version);
+        if (replacedUnit == null) {
+            return load(name, version);
+        }
+        logger.info("RELOADING deployment Unit: {}/{}", name, version);
+
+        DeploymentUnit latestUnit = getLatestFromMap(name);
+        if (latestUnit.getVersion() > version) {
+            // executions of the tasks shared with the latest version go to it, dont allow to replace an older version, for now.
+            throw new FluxError(FluxError.ErrorType.runtime, "Cannot reload the deploymentUnit of an older version." +
+                    " Latest version: " + latestUnit.getVersion(), null);
+        }
+
+        return loadAndRegister(name, version, replacedUnit);
+    }
+
+    /**
+     * Loads a deploymentUnit and registers its executables, so that new executions of its tasks go to it. The deploymentUnit it replaces,
+     * if any, is retired after that.
+     */
+    private DeploymentUnit loadAndRegister(String name, Integer version, DeploymentUnit replacedUnit) throws Exception {
+        // load deployment unit.
+        DeploymentUnit loadedUnit = deploymentUnitUtil.getDeploymentUnit(Paths.get(name, version.toString()));
 
         // load executables from it. If unsuccessful undo all the changes
+        Map<String, Executable> loadedExes;
         try {
-            Map<String, Executable> loadedExes = executableLoader.loadExecutables(loadedUnit);
-
-            /* register all loaded executables */
-            for (String taskId : loadedExes.keySet()) {
-                executableRegistry.registerTask(taskId, loadedExes.get(taskId));
-            }
+            loadedExes = executableLoader.loadExecutables(loadedUnit);
         } catch (FluxError fe) {
-            unload(loadedUnit.getName(), loadedUnit.getVersion());
+            loadedUnit.close();
             throw fe;
         }
 
+        if (replacedUnit != null) {
+            removeFromMap(name, version);
+        }
+        addToMap(loadedUnit);
+
+        /* register all loaded executables */
+        for (String taskId : loadedExes.keySet()) {
+            executableRegistry.registerTask(taskId, loadedExes.get(taskId));
+        }
+
+        if (replacedUnit != null) {
+            retire(replacedUnit);
+        }
         return loadedUnit;
     }
 
@@ -120,25 +176,59 @@ public class DeploymentUnitsManagerImpl implements DeploymentUnitsManager, Initi
             return;
         }
 
-        //close the deploymentUnit
-        foundUnit.close();
-
         // remove it from map
         removeFromMap(name, version);
 
+        retire(foundUnit);
+    }
+
+    /**
+     * Unregisters the executables of a deploymentUnit which are not served by another deploymentUnit, and closes it once the executions
+     * in progress on it complete, or the drain timeout expires.
+     */
+    private void retire(DeploymentUnit unit) {
         // remove all executables from registry
-        for (String taskId : foundUnit.getTaskMethods().keySet()) {
-            Executable exe = executableRegistry.getTask(taskId);
+        for (String taskId : unit.getTaskMethods().keySet()) {
+            Executable exe;
+            try {
+                exe = executableRegistry.getTask(taskId);
+            } catch (TaskNotFoundException e) {
+                continue;
+            }
 
             if (exe instanceof TaskExecutableImpl) {
                 // if the executable belongs to this classLoader, remove it
-                if (((TaskExecutableImpl) exe).getDeploymentUnitClassLoader() == foundUnit.getDeploymentUnitClassLoader()) {
+                if (((TaskExecutableImpl) exe).getDeploymentUnitClassLoader() == unit.getDeploymentUnitClassLoader()) {
                     executableRegistry.unregisterTask(taskId);
                 }
             } else {
                 logger.warn("Executable here must be of type TaskExecutableImpl. Found " + exe);
             }
         }
+
+        //close the deploymentUnit, once
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Runnable close = () -> {
+            if (closed.compareAndSet(false, true)) {
+                unit.close();
+                logger.info("Closed deploymentUnit: {}/{}", unit.getName(), unit.getVersion());
+            }
+        };
+        CompletableFuture<Void> drained = unit.getInFlightExecutions().drain();
+        if (drained.isDone()) {
+            close.run();
+            return;
+        }
+        logger.info("Closing deploymentUnit: {}/{} once its {} executions in progress complete", unit.getName(), unit.getVersion(),
+                unit.getInFlightExecutions().getCount());
+        drained.thenRunAsync(close, drainScheduler);
+        drainScheduler.schedule(() -> {
+            if (!closed.get()) {
+                logger.warn("Timed out draining deploymentUnit: {}/{}, closing it with {} executions in progress", unit.getName(), unit.getVersion(),
+                        unit.getInFlightExecutions().getCount());
+                close.run();
+            }
+        }, drainTimeoutMs, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -148,9 +238,12 @@ public class DeploymentUnitsManagerImpl implements DeploymentUnitsManager, Initi
 
     /**
      * Loads all deployment units listed by {@code deploymentUnitUtil} on Flux bootup.
+     * Deployment units are loaded in parallel on a bounded pool, and the executables of a deployment unit are loaded as soon as all
+     * the versions of that deployment unit are loaded, without waiting for the other deployment units.
      */
     @Override
     public void initialize() {
+        long start = System.currentTimeMillis();
         // get all deployment units list
         List<Path> paths = Collections.EMPTY_LIST;
         try {
@@ -163,58 +256,73 @@ public class DeploymentUnitsManagerImpl implements DeploymentUnitsManager, Initi
             return;
         }
 
-        // load all of them
-        List<Future<DeploymentUnit>> unitFutures = paths.stream().
-                map(path -> executorService.submit(() -> deploymentUnitUtil.getDeploymentUnit(path))).collect(Collectors.toList());
-
-        for (int index = 0; index < unitFutures.size(); ++index) {
-            try {
-                DeploymentUnit deploymentUnit = unitFutures.get(index).get();
-                addToMap(deploymentUnit);
-            } catch (ExecutionException ee) {
-                logger.error("Unexpected error occurred while loading deploymentUnit: {}", paths.get(index), ee);
-            } catch (InterruptedException ie) {
-                logger.error("DeploymentUnit loading got interrupted: {}", paths.get(index), ie);
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(loadParallelism, paths.size())));
+        try {
+            // versions of a deployment unit reside in the directories of its name
+            Map<String, List<Path>> pathsByName = paths.stream().collect(Collectors.groupingBy(
+                    path -> path.getParent() != null ? path.getParent().toString() : path.toString()));
+
+            List<CompletableFuture<Void>> unitsFutures = pathsByName.values().stream().map(unitPaths -> {
+                List<CompletableFuture<DeploymentUnit>> loadFutures = unitPaths.stream().map(path -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        DeploymentUnit deploymentUnit = deploymentUnitUtil.getDeploymentUnit(path);
+                        addToMap(deploymentUnit);
+                        return deploymentUnit;
+                    } catch (Exception e) {
+                        logger.error("Unexpected error occurred while loading deploymentUnit: {}", path, e);
+                        return null;
+                    }
+                }, executorService)).collect(Collectors.toList());
+
+                // after loading all versions, create executables from them
+                return CompletableFuture.allOf(loadFutures.toArray(new CompletableFuture[loadFutures.size()])).thenRunAsync(() ->
+                        loadFutures.stream().map(CompletableFuture::join).filter(Objects::nonNull).map(DeploymentUnit::getName).distinct()
+                                .forEach(this::loadExecutables), executorService);
+            }).collect(Collectors.toList());
+
+            for (CompletableFuture<Void> unitsFuture : unitsFutures) {
+                try {
+                    unitsFuture.get();
+                } catch (InterruptedException e) {
+                    logger.error("Loading executables interrupted.", e);
+                } catch (ExecutionException e) {
+                    logger.error("Unexpected error occurred while loading executables.", e);
+                }
             }
+        } finally {
+            executorService.shutdown();
         }
+        logger.info("Loaded {} deploymentUnits in {} ms", paths.size(), System.currentTimeMillis() - start);
+    }
 
-        // after loading, iterate and create executables from them.
-        List<Future> unitsFutures = deploymentUnitMap.keySet().stream().
-                map(name -> executorService.submit(() -> {
-                    List<DeploymentUnit> units = deploymentUnitMap.get(name);
-
-                    Map<String, Executable> executableMap = new ConcurrentHashMap<String, Executable>();
-                    Boolean loadFailed = false;
-                    for (DeploymentUnit unit : units) {
-                        if (!loadFailed) {
-                            try {
-                                Map<String, Executable> loadedExecutables = executableLoader.loadExecutables(unit);
-                                executableMap.putAll(loadedExecutables);
-                            } catch (FluxError fe) {
-                                /* error occurred. skip loading rest of the versions */
-                                logger.error("Unexpected error occurred while loading executables from deploymentUnit: {}/{}", unit.getName(), unit.getVersion(), fe);
-                                loadFailed = true;
-                            }
-                        } else {
-                            unload(unit.getName(), unit.getVersion());
-                        }
-                    }
-
-                    /* register all loaded executables */
-                    for (String taskId : executableMap.keySet()) {
-                        executableRegistry.registerTask(taskId, executableMap.get(taskId));
-                    }
-                })).collect(Collectors.toList());
+    /**
+     * Loads and registers the executables of all the loaded versions of a deployment unit. Stops at the first version whose executables
+     * fail to load and unloads the versions after it
+     */
+    private void loadExecutables(String name) {
+        List<DeploymentUnit> units = deploymentUnitMap.get(name);
 
-        for (Future unitsFuture : unitsFutures) {
-            try {
-                unitsFuture.get();
-            } catch (InterruptedException e) {
-                logger.error("Loading executables interrupted.", e);
-            } catch (ExecutionException e) {
-                logger.error("Unexpected error occurred while loading executables.", e);
+        Map<String, Executable> executableMap = new ConcurrentHashMap<String, Executable>();
+        Boolean loadFailed = false;
+        for (DeploymentUnit unit : units) {
+            if (!loadFailed) {
+                try {
+                    Map<String, Executable> loadedExecutables = executableLoader.loadExecutables(unit);
+                    executableMap.putAll(loadedExecutables);
+                } catch (FluxError fe) {
+                    /* error occurred. skip loading rest of the versions */
+                    logger.error("Unexpected error occurred while loading executables from deploymentUnit: {}/{}", unit.getName(), unit.getVersion(), fe);
+                    loadFailed = true;
+                }
+            } else {
+                unload(unit.getName(), unit.getVersion());
             }
         }
+
+        /* register all loaded executables */
+        for (String taskId : executableMap.keySet()) {
+            executableRegistry.registerTask(taskId, executableMap.get(taskId));
+        }
     }
 
     /**
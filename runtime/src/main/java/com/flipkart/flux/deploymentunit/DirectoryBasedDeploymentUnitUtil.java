@@ -78,7 +78,22 @@ public class DirectoryBasedDeploymentUnitUtil implements DeploymentUnitUtil {
         DeploymentUnitClassLoader deploymentUnitClassLoader = ClassLoaderProvider.getClassLoader(path);
         YamlConfiguration configuration = getProperties(deploymentUnitClassLoader);
 
-        return new DeploymentUnit(deploymentUnitName, version, deploymentUnitClassLoader, configuration);
+        return new DeploymentUnit(deploymentUnitName, version, deploymentUnitClassLoader, configuration, getTaskMethodIndex(path));
+    }
+
+    /**
+     * Returns the task method index of the deployment unit, keyed by the checksum of its jars and config file.
+     * Returns null if they could not be read, in which case the workflow classes are scanned
+     */
+    private TaskMethodIndex getTaskMethodIndex(Path path) {
+        try {
+            List<Path> files = Stream.concat(listFiles(path.resolve("main")), listFiles(path.resolve("lib"))).collect(Collectors.toList());
+            files.add(path.resolve(CONFIG_FILE));
+            return TaskMethodIndex.forDeploymentUnit(path, files);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to checksum deploymentUnit: {}, its task methods are not indexed. Message: {}", path, e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -91,6 +106,18 @@ public class DirectoryBasedDeploymentUnitUtil implements DeploymentUnitUtil {
         return new YamlConfiguration(classLoader.getResource(CONFIG_FILE));
     }
 
+    /**
+     * Helper method to list the regular files of a directory, if it exists.
+     */
+    private Stream<Path> listFiles(Path path) {
+        try {
+            return Files.list(path).filter(e -> Files.isRegularFile(e));
+        }
+        catch (IOException ioe) {
+            return Stream.empty();
+        }
+    }
+
     /**
      * Helper method to list sub-directories.
      * @param path
@@ -19,6 +19,7 @@ import com.flipkart.flux.client.model.Task;
 import com.flipkart.flux.client.registry.Executable;
 import com.flipkart.flux.constant.RuntimeConstants;
 import com.flipkart.flux.deploymentunit.iface.ExecutableLoader;
+import com.flipkart.flux.impl.task.ExecutionIsolation;
 import com.flipkart.flux.registry.TaskExecutableImpl;
 
 /**
@@ -60,10 +61,13 @@ public class ExecutableLoaderImpl implements ExecutableLoader {
                 Annotation taskAnnotation = method.getAnnotationsByType(taskClass)[0];
                 Class<? extends Annotation> annotationType = taskAnnotation.annotationType();
                 long timeout = RuntimeConstants.defaultTaskTimeout;
+                String executionIsolation = null;
                 for (Method annotationMethod : annotationType.getDeclaredMethods()) {
                     Object value = annotationMethod.invoke(taskAnnotation, (Object[]) null);
                     if (annotationMethod.getName().equals("timeout")) { //todo: find a way to get Task.timeout() name
                         timeout = (Long) value;
+                    } else if (annotationMethod.getName().equals("executionIsolation")) {
+                        executionIsolation = (String) value;
                     }
                 }
 
@@ -73,8 +77,13 @@ public class ExecutableLoaderImpl implements ExecutableLoader {
                 Integer taskExecConcurrency = Optional.ofNullable((Integer) taskConfigs.getProperty(methodId.getPrefix() + ".executionConcurrency"))
                         .orElse(defaultTaskExecutionConcurrency);
 
+                /* get isolation config for this task, task config takes precedence over the annotation */
+                ExecutionIsolation taskExecIsolation = getExecutionIsolation(taskId,
+                        Optional.ofNullable(taskConfigs.getString(methodId.getPrefix() + ".executionIsolation")).orElse(executionIsolation));
+
                 Object singletonMethodOwner = getInstanceMethod.invoke(injectorClassInstance, method.getDeclaringClass());
-                registry.put(taskId, new TaskExecutableImpl(singletonMethodOwner, method, timeout, taskExecConcurrency, classLoader, objectMapperInstance));
+                registry.put(taskId, new TaskExecutableImpl(singletonMethodOwner, method, timeout, taskExecConcurrency, taskExecIsolation, classLoader, objectMapperInstance,
+                        deploymentUnit.getInFlightExecutions()));
             }
 
             return registry;
@@ -83,4 +92,17 @@ public class ExecutableLoaderImpl implements ExecutableLoader {
             throw new FluxError(FluxError.ErrorType.runtime, "Unable to populate Executable Registry for deployment unit: " + deploymentUnit.getName(), e);
         }
     }
+
+    /**
+     * Resolves the execution isolation of a task. A misspelt isolation falls back to {@link ExecutionIsolation#THREAD} so that it
+     * does not fail the load of the whole deployment unit.
+     */
+    private ExecutionIsolation getExecutionIsolation(String taskId, String executionIsolation) {
+        try {
+            return ExecutionIsolation.fromValue(executionIsolation, ExecutionIsolation.THREAD);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unknown executionIsolation: {} for task: {}, falling back to {}", executionIsolation, taskId, ExecutionIsolation.THREAD);
+            return ExecutionIsolation.THREAD;
+        }
+    }
 }
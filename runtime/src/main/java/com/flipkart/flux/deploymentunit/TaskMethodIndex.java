@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.deploymentunit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <code>TaskMethodIndex</code> caches the {@link com.flipkart.flux.client.model.Task} methods found in a deployment unit, so that
+ * reloading an unchanged deployment unit resolves its task methods directly instead of scanning every method of its workflow classes.
+ * The index is stored in the deployment unit's directory, along with the checksum of the jars and config it was built from, and is
+ * ignored once they change.
+ */
+public class TaskMethodIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(TaskMethodIndex.class);
+
+    /** Name of the index file in the deployment unit directory */
+    static final String INDEX_FILE = "task_index.properties";
+
+    /** Key of the checksum in the index file, task identifiers never start with an underscore */
+    private static final String CHECKSUM_KEY = "_checksum";
+
+    private static final String SEPARATOR = "#";
+    private static final String PARAMETER_SEPARATOR = ",";
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = Stream.of(boolean.class, byte.class, char.class, short.class, int.class,
+            long.class, float.class, double.class).collect(Collectors.toMap(Class::getName, type -> type));
+
+    private final Path indexFile;
+    private final String checksum;
+
+    TaskMethodIndex(Path indexFile, String checksum) {
+        this.indexFile = indexFile;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Creates the index of the deployment unit in the given directory, checksumming the given jars and files of the deployment unit
+     */
+    public static TaskMethodIndex forDeploymentUnit(Path deploymentUnitDir, List<Path> files) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        for (Path file : files.stream().sorted().collect(Collectors.toList())) {
+            crc.update(file.getFileName().toString().getBytes("UTF-8"));
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+        return new TaskMethodIndex(deploymentUnitDir.resolve(INDEX_FILE), Long.toHexString(crc.getValue()));
+    }
+
+    /**
+     * Resolves the indexed task methods in the given class loader.
+     * @return task identifier to task method, or null if there is no index for the current jars or it could not be read
+     */
+    public Map<String, Method> read(ClassLoader classLoader) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try (InputStream inputStream = Files.newInputStream(indexFile)) {
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            if (!checksum.equals(properties.getProperty(CHECKSUM_KEY))) {
+                LOGGER.info("Task method index: {} is stale, deployment unit has changed", indexFile);
+                return null;
+            }
+            Map<String, Method> taskMethods = new HashMap<>();
+            for (String taskIdentifier : properties.stringPropertyNames()) {
+                if (!taskIdentifier.equals(CHECKSUM_KEY)) {
+                    taskMethods.put(taskIdentifier, resolve(properties.getProperty(taskIdentifier), classLoader));
+                }
+            }
+            return taskMethods;
+        } catch (Exception e) {
+            LOGGER.warn("Unable to read task method index: {}, scanning the workflow classes. Message: {}", indexFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given task methods as the index of the current jars. Failures are only logged, as the index is an optimisation
+     */
+    public void write(Map<String, Method> taskMethods) {
+        Properties properties = new Properties();
+        properties.setProperty(CHECKSUM_KEY, checksum);
+        taskMethods.forEach((taskIdentifier, method) -> properties.setProperty(taskIdentifier, describe(method)));
+        try (OutputStream outputStream = Files.newOutputStream(indexFile)) {
+            properties.store(outputStream, "Flux task method index, generated on deployment unit load");
+        } catch (Exception e) {
+            LOGGER.warn("Unable to write task method index: {}. Message: {}", indexFile, e.getMessage());
+        }
+    }
+
+    static String describe(Method method) {
+        return method.getDeclaringClass().getName() + SEPARATOR + method.getName() + SEPARATOR
+                + Stream.of(method.getParameterTypes()).map(Class::getName).collect(Collectors.joining(PARAMETER_SEPARATOR));
+    }
+
+    static Method resolve(String description, ClassLoader classLoader) throws ClassNotFoundException, NoSuchMethodException {
+        String[] parts = description.split(SEPARATOR, -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed task method description: " + description);
+        }
+        Class<?>[] parameterTypes = parts[2].isEmpty() ? new Class<?>[0] : new Class<?>[parts[2].split(PARAMETER_SEPARATOR).length];
+        String[] parameterTypeNames = parts[2].split(PARAMETER_SEPARATOR);
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = loadClass(parameterTypeNames[i], classLoader);
+        }
+        return loadClass(parts[0], classLoader).getMethod(parts[1], parameterTypes);
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?> primitiveType = PRIMITIVE_TYPES.get(name);
+        return primitiveType != null ? primitiveType : Class.forName(name, false, classLoader);
+    }
+}
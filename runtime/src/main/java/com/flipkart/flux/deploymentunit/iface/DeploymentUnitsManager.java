@@ -21,7 +21,19 @@ public interface DeploymentUnitsManager {
     DeploymentUnit load(String name, Integer version) throws Exception;
 
     /**
-     * Unload a deploymentUnit.
+     * Loads a deploymentUnit again, replacing the loaded deploymentUnit of the same name and version. New executions go to the
+     * reloaded deploymentUnit, the replaced one is closed once the executions in progress on it complete.
+     *
+     * @param name    Name of the deploymentUnit.
+     * @param version Version.
+     * @return {@link DeploymentUnit} Loaded deploymentUnit.
+     * @throws Exception Throws exception in case of any IOException and any fatal exceptions occurred during loading.
+     */
+    DeploymentUnit reload(String name, Integer version) throws Exception;
+
+    /**
+     * Unload a deploymentUnit. Its tasks stop receiving new executions right away, and it is closed once the executions in progress on
+     * it complete.
      *
      * @param name    Name of the deploymentUnit.
      * @param version Version.
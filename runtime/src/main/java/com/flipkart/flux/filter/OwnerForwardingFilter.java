@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.jersey.message.internal.ReaderWriter;
+
+import com.flipkart.flux.cluster.OwnershipMap;
+
+/**
+ * <code>OwnerForwardingFilter</code> is a Jersey filter which forwards the requests to the resource methods marked {@link ForwardToOwner}
+ * to the orchestrator node owning the state machine, as per the {@link OwnershipMap}, and responds with the owner's response.
+ * Requests are handled locally if this node owns the state machine, the owner is not known or could not be connected to, and when they were
+ * already forwarded by another node. Requests which failed once sent to the owner are failed with 503, or 504 if the owner timed out, as the
+ * owner may have applied them.
+ */
+@ForwardToOwner
+@Singleton
+public class OwnerForwardingFilter implements ContainerRequestFilter {
+
+    private static final Logger logger = LogManager.getLogger(OwnerForwardingFilter.class);
+
+    /** Header marking forwarded requests, so that nodes with different views of the cluster do not forward them back and forth */
+    public static final String FORWARDED_HEADER = "X-Flux-Forwarded";
+
+    /** Path params holding the state machine id in the resource methods */
+    private static final String[] STATE_MACHINE_ID_PARAMS = {"machineId", "stateMachineId"};
+
+    private final OwnershipMap ownershipMap;
+    private final CloseableHttpClient closeableHttpClient;
+
+    @Inject
+    public OwnerForwardingFilter(OwnershipMap ownershipMap, @Named("connector.max.connections") Integer maxConnections,
+                                 @Named("connector.max.connections.per.route") Integer maxConnectionsPerRoute,
+                                 @Named("connector.connection.timeout") Integer connectionTimeout, @Named("connector.socket.timeout") Integer socketTimeOut) {
+        this.ownershipMap = ownershipMap;
+        RequestConfig clientConfig = RequestConfig.custom()
+                .setConnectTimeout(connectionTimeout)
+                .setSocketTimeout(socketTimeOut)
+                .setConnectionRequestTimeout(socketTimeOut)
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        closeableHttpClient = HttpClientBuilder.create().setDefaultRequestConfig(clientConfig).setConnectionManager(connectionManager).build();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> HttpClientUtils.closeQuietly(closeableHttpClient)));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (!ownershipMap.isEnabled() || requestContext.getHeaderString(FORWARDED_HEADER) != null) {
+            return;
+        }
+        String stateMachineId = getStateMachineId(requestContext.getUriInfo().getPathParameters());
+        String owner = stateMachineId == null ? null : ownershipMap.getRemoteOwner(stateMachineId);
+        if (owner == null) {
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReaderWriter.writeTo(requestContext.getEntityStream(), out);
+        byte[] requestEntity = out.toByteArray();
+        URI ownerUri = URI.create(owner);
+        URI requestUri = UriBuilder.fromUri(requestContext.getUriInfo().getRequestUri())
+                .scheme(ownerUri.getScheme()).host(ownerUri.getHost()).port(ownerUri.getPort()).build();
+
+        RequestBuilder requestBuilder = RequestBuilder.create(requestContext.getMethod()).setUri(requestUri).setHeader(FORWARDED_HEADER, "true");
+        if (requestEntity.length > 0) {
+            requestBuilder.setEntity(new ByteArrayEntity(requestEntity));
+        }
+        if (requestContext.getHeaderString(HttpHeaders.CONTENT_TYPE) != null) {
+            requestBuilder.setHeader(HttpHeaders.CONTENT_TYPE, requestContext.getHeaderString(HttpHeaders.CONTENT_TYPE));
+        }
+        if (requestContext.getHeaderString(HttpHeaders.ACCEPT) != null) {
+            requestBuilder.setHeader(HttpHeaders.ACCEPT, requestContext.getHeaderString(HttpHeaders.ACCEPT));
+        }
+
+        CloseableHttpResponse httpResponse = null;
+        try {
+            httpResponse = closeableHttpClient.execute(requestBuilder.build());
+            Response.ResponseBuilder responseBuilder = Response.status(httpResponse.getStatusLine().getStatusCode());
+            HttpEntity entity = httpResponse.getEntity();
+            if (entity != null) {
+                responseBuilder.entity(EntityUtils.toByteArray(entity));
+                if (entity.getContentType() != null) {
+                    responseBuilder.type(entity.getContentType().getValue());
+                }
+            }
+            logger.debug("Forwarded request: {} of smId: {} to its owner: {}", requestContext.getUriInfo().getPath(), stateMachineId, owner);
+            requestContext.abortWith(responseBuilder.build());
+        } catch (ConnectException | ConnectTimeoutException e) {
+            // the request did not reach the owner, HttpHostConnectException is a ConnectException
+            logger.warn("Unable to connect to the owner: {} of smId: {}, handling request: {} locally. Message: {}",
+                    owner, stateMachineId, requestContext.getUriInfo().getPath(), e.getMessage());
+            requestContext.setEntityStream(new ByteArrayInputStream(requestEntity));
+        } catch (IOException e) {
+            Response.Status status = e instanceof SocketTimeoutException ? Response.Status.GATEWAY_TIMEOUT : Response.Status.SERVICE_UNAVAILABLE;
+            logger.error("Forwarding request: {} of smId: {} to its owner: {} failed, responding with {}. Message: {}",
+                    requestContext.getUriInfo().getPath(), stateMachineId, owner, status.getStatusCode(), e.getMessage());
+            requestContext.abortWith(Response.status(status)
+                    .entity("Forwarding the request to the owner of state machine: " + stateMachineId + " failed, retry the request").build());
+        } finally {
+            HttpClientUtils.closeQuietly(httpResponse);
+        }
+    }
+
+    private static String getStateMachineId(MultivaluedMap<String, String> pathParameters) {
+        for (String param : STATE_MACHINE_ID_PARAMS) {
+            if (pathParameters.containsKey(param)) {
+                return pathParameters.getFirst(param);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.guice.module;
+
+import com.flipkart.flux.client.runtime.FluxRuntimeConnector;
+import com.flipkart.flux.client.runtime.LocalFluxRuntimeConnector;
+import com.flipkart.flux.taskDispatcher.ExecutionNodeTaskDispatcher;
+import com.flipkart.flux.taskDispatcher.LocalExecutionNodeTaskDispatcher;
+import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+
+/**
+ * <code>CombinedRuntimeModule</code> is a Guice {@link AbstractModule} implementation used when the orchestrator and the execution node run in
+ * the same JVM. It overrides the http transports between the two with in-process ones.
+ */
+public class CombinedRuntimeModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        bind(ExecutionNodeTaskDispatcher.class).to(LocalExecutionNodeTaskDispatcher.class).in(Singleton.class);
+        bind(FluxRuntimeConnector.class).to(LocalFluxRuntimeConnector.class).in(Singleton.class);
+    }
+}
@@ -32,12 +32,15 @@ import com.codahale.metrics.jetty9.InstrumentedHandler;
 import com.codahale.metrics.jmx.JmxReporter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+import com.flipkart.flux.client.runtime.WireFormat;
 import com.flipkart.flux.filter.CORSFilter;
 import com.flipkart.flux.filter.RequestLoggingFilter;
 import com.flipkart.flux.metrics.MetricsClientImpl;
 import com.flipkart.flux.metrics.iface.MetricsClient;
 import com.flipkart.flux.resource.DeploymentUnitResource;
 import com.flipkart.flux.resource.ExecutionApiResource;
+import com.flipkart.flux.resource.RouterResource;
 import com.flipkart.flux.resource.StatusResource;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
@@ -71,6 +74,8 @@ public class ExecutionContainerModule extends AbstractModule {
         JacksonJaxbJsonProvider provider = new JacksonJaxbJsonProvider();
         provider.setMapper(objectMapper);
         resourceConfig.register(provider);
+        // execution messages, status updates and task output events may also be exchanged as Smile, see WireFormat
+        resourceConfig.register(new JacksonSmileProvider(WireFormat.newSmileObjectMapper()));
         QueuedThreadPool threadPool = new QueuedThreadPool();
         threadPool.setMaxThreads(maxWorkerThreads);
         Server server = new Server(threadPool);
@@ -94,7 +99,8 @@ public class ExecutionContainerModule extends AbstractModule {
     @Provides
     @Singleton
     public ResourceConfig getAPIResourceConfig(ExecutionApiResource executionApiResource, DeploymentUnitResource deploymentUnitResource,
-                                               StatusResource statusResource, MetricRegistry metricRegistry) {
+                                               StatusResource statusResource, RouterResource routerResource,
+                                               MetricRegistry metricRegistry) {
         ResourceConfig resourceConfig = new ResourceConfig();
 
         resourceConfig.register(new InstrumentedResourceMethodApplicationListener(metricRegistry));
@@ -103,6 +109,7 @@ public class ExecutionContainerModule extends AbstractModule {
         resourceConfig.register(executionApiResource);
         resourceConfig.register(deploymentUnitResource);
         resourceConfig.register(statusResource);
+        resourceConfig.register(routerResource);
 
         resourceConfig.register(CORSFilter.class);
         resourceConfig.register(RequestLoggingFilter.class);
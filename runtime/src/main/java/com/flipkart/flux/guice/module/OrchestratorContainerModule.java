@@ -36,7 +36,10 @@ import com.codahale.metrics.jetty9.InstrumentedHandler;
 import com.codahale.metrics.jmx.JmxReporter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+import com.flipkart.flux.client.runtime.WireFormat;
 import com.flipkart.flux.filter.CORSFilter;
+import com.flipkart.flux.filter.OwnerForwardingFilter;
 import com.flipkart.flux.resource.ClientElbResource;
 import com.flipkart.flux.resource.StateMachineResource;
 import com.flipkart.flux.resource.StatusResource;
@@ -74,6 +77,8 @@ public class OrchestratorContainerModule extends AbstractModule {
         JacksonJaxbJsonProvider provider = new JacksonJaxbJsonProvider();
         provider.setMapper(objectMapper);
         resourceConfig.register(provider);
+        // execution messages, status updates and task output events may also be exchanged as Smile, see WireFormat
+        resourceConfig.register(new JacksonSmileProvider(WireFormat.newSmileObjectMapper()));
         QueuedThreadPool threadPool = new QueuedThreadPool();
         threadPool.setMaxThreads(maxWorkerThreads);
         Server server = new Server(threadPool);
@@ -98,7 +103,7 @@ public class OrchestratorContainerModule extends AbstractModule {
     @Provides
     public ResourceConfig getAPIResourceConfig(StateMachineResource stateMachineResource,
                                                StatusResource statusResource, ClientElbResource clientElbResource,
-                                               MetricRegistry metricRegistry) {
+                                               OwnerForwardingFilter ownerForwardingFilter, MetricRegistry metricRegistry) {
         ResourceConfig resourceConfig = new ResourceConfig();
 
         //Register codahale metrics and publish to jmx
@@ -111,6 +116,7 @@ public class OrchestratorContainerModule extends AbstractModule {
         resourceConfig.register(clientElbResource);
 
         resourceConfig.register(CORSFilter.class);
+        resourceConfig.register(ownerForwardingFilter);
         jmxReporter.start();
         return resourceConfig;
     }
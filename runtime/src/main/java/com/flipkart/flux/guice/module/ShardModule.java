@@ -13,6 +13,7 @@
 
 package com.flipkart.flux.guice.module;
 
+import com.codahale.metrics.Gauge;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flipkart.flux.api.core.FluxError;
@@ -22,6 +23,7 @@ import com.flipkart.flux.dao.*;
 import com.flipkart.flux.dao.iface.*;
 import com.flipkart.flux.domain.*;
 import com.flipkart.flux.guice.interceptor.TransactionInterceptor;
+import com.flipkart.flux.metrics.iface.MetricsClient;
 import com.flipkart.flux.persistence.SessionFactoryContext;
 import com.flipkart.flux.persistence.impl.SessionFactoryContextImpl;
 import com.flipkart.flux.redriver.dao.MessageDao;
@@ -29,8 +31,10 @@ import com.flipkart.flux.redriver.model.ScheduledMessage;
 import com.flipkart.flux.shard.ShardId;
 import com.flipkart.flux.shard.ShardPairModel;
 import com.flipkart.flux.type.BlobType;
+import com.flipkart.flux.type.CompressedStringType;
 import com.flipkart.flux.type.ListJsonType;
 import com.flipkart.flux.type.StoreFQNType;
+import com.flipkart.flux.type.StringListType;
 import com.flipkart.polyguice.config.YamlConfiguration;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
@@ -56,6 +60,13 @@ public class ShardModule extends AbstractModule {
     public static final String FLUX_HIBERNATE_SHARD_CONFIG_NAME_SPACE = "shard.Pair.Model.List";
     public static final String FLUX_HIBERNATE_CONFIG_NAME_SPACE = "flux.Hibernate";
     public static final String FLUX_READ_ONLY_HIBERNATE_CONFIG_NAME_SPACE = "fluxReadOnly.Hibernate";
+    public static final String EVENTS_COMPRESSION_THRESHOLD_CONFIG_NAME = "events.compressionThresholdBytes";
+    public static final int DEFAULT_EVENTS_COMPRESSION_THRESHOLD_BYTES = 4096;
+    public static final String STARTUP_QUORUM_CONFIG_NAME = "shards.startupQuorum";
+    public static final String SESSION_FACTORY_BUILD_THREADS_CONFIG_NAME = "shards.sessionFactoryBuildThreads";
+    public static final String SESSION_FACTORY_RETRY_INTERVAL_CONFIG_NAME = "shards.sessionFactoryRetryIntervalms";
+    public static final int DEFAULT_SESSION_FACTORY_RETRY_INTERVAL_MS = 30000;
+    public static final String UNAVAILABLE_SHARDS_METRIC_NAME = "shards.unavailable";
 
     /**
      * Performs concrete bindings for interfaces
@@ -71,6 +82,8 @@ public class ShardModule extends AbstractModule {
         bind(StatesDAO.class).to(StatesDAOImpl.class).in(Singleton.class);
         bind(ClientElbDAO.class).to(ClientElbDAOImpl.class).in(Singleton.class);
         bind(StateTraversalPathDAO.class).to(StateTraversalPathDAOImpl.class).in(Singleton.class);
+        bind(StateMachineArchiveDAO.class).to(StateMachineArchiveDAOImpl.class).in(Singleton.class);
+        bind(MapStateChunksDAO.class).to(MapStateChunksDAOImpl.class).in(Singleton.class);
 
         //bind Transactional Interceptor to intercept methods which are annotated with javax.transaction.Transactional
         Provider<SessionFactoryContext> provider = getProvider(Key.get(SessionFactoryContext.class,
@@ -189,49 +202,36 @@ public class ShardModule extends AbstractModule {
         return getConfiguration(yamlConfiguration, FLUX_READ_ONLY_HIBERNATE_CONFIG_NAME_SPACE, host);
     }
 
+    /**
+     * Builds the RW and RO session factories of the shard pairs, returns once those of a quorum of shard pairs are built.
+     * The no. of shard pairs whose session factories are not built yet is reported by the shards.unavailable gauge.
+     */
     @Provides
     @Singleton
-    @Named("fluxROSessionFactoriesMap")
-    public Map<ShardId, SessionFactory> getFluxROSessionFactoryMap(
+    public ShardSessionFactoriesBuilder getShardSessionFactoriesBuilder(
             @Named("fluxShardIdToShardPairMap") Map<ShardId, ShardPairModel> fluxShardIdToShardPairMap,
-            YamlConfiguration yamlConfiguration) {
-        Map fluxROSessionFactories = new HashMap<ShardId, SessionFactory>();
-        fluxShardIdToShardPairMap.entrySet().forEach(shardKeyToShardIdMapping -> {
-            ShardId shardId = shardKeyToShardIdMapping.getKey();
-            ShardPairModel shardPairModel = fluxShardIdToShardPairMap.get(shardId);
-            Configuration conf = getROConfiguration(yamlConfiguration, shardPairModel.getSlaveIp());
-            if (!fluxROSessionFactories.containsKey(shardId))
-                fluxROSessionFactories.put(shardId, conf.buildSessionFactory());
-        });
+            YamlConfiguration yamlConfiguration, MetricsClient metricsClient) {
+        ShardSessionFactoriesBuilder builder = new ShardSessionFactoriesBuilder(fluxShardIdToShardPairMap,
+                host -> getRWConfiguration(yamlConfiguration, host), host -> getROConfiguration(yamlConfiguration, host),
+                yamlConfiguration.getInt(STARTUP_QUORUM_CONFIG_NAME, 0), yamlConfiguration.getInt(SESSION_FACTORY_BUILD_THREADS_CONFIG_NAME, 0),
+                yamlConfiguration.getInt(SESSION_FACTORY_RETRY_INTERVAL_CONFIG_NAME, DEFAULT_SESSION_FACTORY_RETRY_INTERVAL_MS));
+        metricsClient.registerGauge(UNAVAILABLE_SHARDS_METRIC_NAME, (Gauge<Integer>) builder::getNoOfUnavailableShards);
+        builder.build();
+        return builder;
+    }
 
-        if (fluxROSessionFactories.size() != (fluxShardIdToShardPairMap.size())) {
-            throw new RuntimeException("No. of RW Session Factories should be " + fluxShardIdToShardPairMap.size() +
-                    " currently it is " + Integer.toString(fluxROSessionFactories.size()));
-        }
-        return fluxROSessionFactories;
+    @Provides
+    @Singleton
+    @Named("fluxROSessionFactoriesMap")
+    public Map<ShardId, SessionFactory> getFluxROSessionFactoryMap(ShardSessionFactoriesBuilder shardSessionFactoriesBuilder) {
+        return shardSessionFactoriesBuilder.getROSessionFactories();
     }
 
     @Provides
     @Singleton
     @Named("fluxRWSessionFactoriesMap")
-    public Map<ShardId, SessionFactory> getFluxRWSessionFactoryMap(
-            @Named("fluxShardIdToShardPairMap") Map<ShardId, ShardPairModel> fluxShardIdToShardPairMap,
-            YamlConfiguration yamlConfiguration) {
-        Map fluxRWSessionFactories = new HashMap<ShardId, SessionFactory>();
-        fluxShardIdToShardPairMap.entrySet().forEach(shardKeyToShardIdMapping -> {
-            ShardId shardId = shardKeyToShardIdMapping.getKey();
-            ShardPairModel shardPairModel = fluxShardIdToShardPairMap.get(shardId);
-            Configuration conf = getRWConfiguration(yamlConfiguration, shardPairModel.getMasterIp());
-            if (!fluxRWSessionFactories.containsKey(shardId))
-                fluxRWSessionFactories.putIfAbsent(shardId, conf.buildSessionFactory());
-        });
-
-
-        if (fluxRWSessionFactories.size() != (fluxShardIdToShardPairMap.size())) {
-            throw new RuntimeException("No. of RW Session Factories should be " + fluxShardIdToShardPairMap.size() +
-                    ", currently it is " + Integer.toString(fluxRWSessionFactories.size()));
-        }
-        return fluxRWSessionFactories;
+    public Map<ShardId, SessionFactory> getFluxRWSessionFactoryMap(ShardSessionFactoriesBuilder shardSessionFactoriesBuilder) {
+        return shardSessionFactoriesBuilder.getRWSessionFactories();
     }
 
     @Provides
@@ -252,16 +252,20 @@ public class ShardModule extends AbstractModule {
      * Adds annotated classes and custom types to passed Hibernate configuration.
      */
 
-    private void addAnnotatedClassesAndTypes(Configuration configuration) {
+    private void addAnnotatedClassesAndTypes(Configuration configuration, YamlConfiguration yamlConfiguration) {
         //register hibernate custom types
         configuration.registerTypeOverride(new BlobType(), new String[]{"BlobType"});
         configuration.registerTypeOverride(new StoreFQNType(), new String[]{"StoreFQNOnly"});
         configuration.registerTypeOverride(new ListJsonType(Object.class), new String[]{"ListJsonType"});
         configuration.registerTypeOverride(new ListJsonType(Long.class), new String[]{"LongListJsonType"});
+        configuration.registerTypeOverride(new StringListType(), new String[]{"StringListType"});
+        configuration.registerTypeOverride(new CompressedStringType(yamlConfiguration.getInt(EVENTS_COMPRESSION_THRESHOLD_CONFIG_NAME,
+                DEFAULT_EVENTS_COMPRESSION_THRESHOLD_BYTES)), new String[]{"CompressedStringType"});
 
         //add annotated classes to configuration
         configuration.addAnnotatedClass(AuditRecord.class);
         configuration.addAnnotatedClass(Event.class);
+        configuration.addAnnotatedClass(EventPayload.class);
         configuration.addAnnotatedClass(State.class);
         configuration.addAnnotatedClass(StateMachine.class);
         configuration.addAnnotatedClass(ClientElb.class);
@@ -271,7 +275,7 @@ public class ShardModule extends AbstractModule {
 
     private Configuration getConfiguration(YamlConfiguration yamlConfiguration, String prefix, String host) {
         Configuration configuration = new Configuration();
-        addAnnotatedClassesAndTypes(configuration);
+        addAnnotatedClassesAndTypes(configuration, yamlConfiguration);
         org.apache.commons.configuration.Configuration hibernateConfig = yamlConfiguration.subset(prefix);
         Iterator<String> propertyKeys = hibernateConfig.getKeys();
         Properties configProperties = new Properties();
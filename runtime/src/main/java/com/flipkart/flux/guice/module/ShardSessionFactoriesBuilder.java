@@ -0,0 +1,190 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.guice.module;
+
+import com.flipkart.flux.shard.ShardId;
+import com.flipkart.flux.shard.ShardPairModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <code>ShardSessionFactoriesBuilder</code> builds the RW and RO session factories of the shard pairs in parallel, as each one spends most of its
+ * time binding the mappings and acquiring its initial connections. A shard pair is available once both its session factories are built.
+ * {@link #build()} returns once a quorum of shard pairs (all of them by default) is available, the session factories of the remaining shard pairs
+ * are added to the maps as they get built, and until then transactions on those shards fail. Shard pairs whose session factories fail to build
+ * are retried at the configured interval, and are counted by {@link #getNoOfUnavailableShards()} till they are available.
+ */
+public class ShardSessionFactoriesBuilder {
+
+    private static final Logger logger = LogManager.getLogger(ShardSessionFactoriesBuilder.class);
+
+    private final Map<ShardId, ShardPairModel> shardPairs;
+    private final Function<String, Configuration> rwConfigurations;
+    private final Function<String, Configuration> roConfigurations;
+    private final int quorum;
+    private final int buildThreads;
+    private final long retryIntervalMs;
+
+    private final Map<ShardId, SessionFactory> rwSessionFactories = new ConcurrentHashMap<>();
+    private final Map<ShardId, SessionFactory> roSessionFactories = new ConcurrentHashMap<>();
+
+    /** Completed once the session factories of the shard pair are built */
+    private final Map<ShardId, CompletableFuture<Void>> shardPairBuilds = new ConcurrentHashMap<>();
+
+    /** Outcome of the first attempt to build each shard pair, true if it was built */
+    private final BlockingQueue<Boolean> firstAttempts = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger unavailable;
+
+    private ScheduledExecutorService executorService;
+
+    /**
+     * @param shardPairs       shard pairs by shard id
+     * @param rwConfigurations hibernate configuration of the master of a shard, by its host
+     * @param roConfigurations hibernate configuration of the slave of a shard, by its host
+     * @param quorum           no. of shard pairs to be available before {@link #build()} returns, all of them if 0 or more than the no. of shards
+     * @param buildThreads     no. of threads building the session factories, a thread per shard pair if 0 or more than the no. of shards
+     * @param retryIntervalMs  interval at which shard pairs whose session factories failed to build are retried
+     */
+    public ShardSessionFactoriesBuilder(Map<ShardId, ShardPairModel> shardPairs, Function<String, Configuration> rwConfigurations,
+                                        Function<String, Configuration> roConfigurations, int quorum, int buildThreads, long retryIntervalMs) {
+        this.shardPairs = shardPairs;
+        this.rwConfigurations = rwConfigurations;
+        this.roConfigurations = roConfigurations;
+        this.quorum = quorum <= 0 || quorum > shardPairs.size() ? shardPairs.size() : quorum;
+        this.buildThreads = buildThreads <= 0 || buildThreads > shardPairs.size() ? shardPairs.size() : buildThreads;
+        this.retryIntervalMs = retryIntervalMs;
+        this.unavailable = new AtomicInteger(shardPairs.size());
+    }
+
+    /**
+     * Starts building the session factories of all the shard pairs, and waits till a quorum of them is available
+     *
+     * @throws RuntimeException if the first attempts to build the shard pairs failed for so many of them that the quorum cannot be reached
+     */
+    public void build() {
+        final long start = System.currentTimeMillis();
+        final int noOfShards = shardPairs.size();
+        executorService = Executors.newScheduledThreadPool(Math.max(buildThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "flux-session-factory-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        shardPairs.forEach((shardId, shardPair) -> {
+            shardPairBuilds.put(shardId, new CompletableFuture<>());
+            executorService.execute(() -> buildShardPair(shardId, shardPair, true));
+        });
+
+        int ready = 0;
+        int failed = 0;
+        try {
+            while (ready < quorum) {
+                if (firstAttempts.take()) {
+                    ready++;
+                } else if (noOfShards - ++failed < quorum) {
+                    executorService.shutdownNow();
+                    throw new RuntimeException("Unable to build session factories of " + quorum + " out of " + noOfShards + " shards");
+                }
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building session factories", e);
+        }
+        if (ready < noOfShards) {
+            logger.info("Built session factories of a quorum of {} out of {} shards in {} ms, the remaining shards are warming up",
+                    quorum, noOfShards, System.currentTimeMillis() - start);
+        } else {
+            logger.info("Built session factories of all {} shards in {} ms", noOfShards, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Builds the RW and RO session factories of a shard pair, and schedules a retry if either of them fails to build
+     */
+    private void buildShardPair(ShardId shardId, ShardPairModel shardPair, boolean firstAttempt) {
+        long shardStart = System.currentTimeMillis();
+        SessionFactory rwSessionFactory = null;
+        try {
+            rwSessionFactory = rwConfigurations.apply(shardPair.getMasterIp()).buildSessionFactory();
+            SessionFactory roSessionFactory = roConfigurations.apply(shardPair.getSlaveIp()).buildSessionFactory();
+            rwSessionFactories.put(shardId, rwSessionFactory);
+            roSessionFactories.put(shardId, roSessionFactory);
+            if (unavailable.decrementAndGet() == 0) {
+                // lets the builder threads exit
+                executorService.shutdown();
+            }
+            logger.info("Built session factories of shard: {}, master: {}, slave: {} in {} ms", shardId, shardPair.getMasterIp(),
+                    shardPair.getSlaveIp(), System.currentTimeMillis() - shardStart);
+            shardPairBuilds.get(shardId).complete(null);
+            if (firstAttempt) {
+                firstAttempts.add(Boolean.TRUE);
+            }
+        } catch (Exception e) {
+            if (rwSessionFactory != null) {
+                rwSessionFactory.close();
+            }
+            logger.error("Building session factories of shard: {}, master: {}, slave: {} failed, retrying in {} ms. Message: {}", shardId,
+                    shardPair.getMasterIp(), shardPair.getSlaveIp(), retryIntervalMs, e.getMessage(), e);
+            if (firstAttempt) {
+                firstAttempts.add(Boolean.FALSE);
+            }
+            if (!executorService.isShutdown()) {
+                executorService.schedule(() -> buildShardPair(shardId, shardPair, false), retryIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Returns the RW session factories of the available shard pairs, to which the remaining ones are added as they get built
+     */
+    public Map<ShardId, SessionFactory> getRWSessionFactories() {
+        return rwSessionFactories;
+    }
+
+    /**
+     * Returns the RO session factories of the available shard pairs, to which the remaining ones are added as they get built
+     */
+    public Map<ShardId, SessionFactory> getROSessionFactories() {
+        return roSessionFactories;
+    }
+
+    /**
+     * Returns the builds of the shard pairs, each completed once the session factories of the shard pair are built
+     */
+    public Map<ShardId, CompletableFuture<Void>> getShardPairBuilds() {
+        return Collections.unmodifiableMap(shardPairBuilds);
+    }
+
+    /**
+     * Returns the no. of shard pairs whose session factories are not built yet
+     */
+    public int getNoOfUnavailableShards() {
+        return unavailable.get();
+    }
+}
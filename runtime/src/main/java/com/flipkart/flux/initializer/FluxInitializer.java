@@ -25,6 +25,7 @@ import com.flipkart.flux.MigrationUtil.MigrationsRunner;
 import com.flipkart.flux.client.FluxClientComponentModule;
 import com.flipkart.flux.client.FluxClientInterceptorModule;
 import com.flipkart.flux.guice.module.AkkaModule;
+import com.flipkart.flux.guice.module.CombinedRuntimeModule;
 import com.flipkart.flux.guice.module.ConfigModule;
 import com.flipkart.flux.guice.module.ContainerModule;
 import com.flipkart.flux.guice.module.DeploymentUnitModule;
@@ -34,6 +35,7 @@ import com.flipkart.flux.guice.module.OrchestrationTaskModule;
 import com.flipkart.flux.guice.module.OrchestratorContainerModule;
 import com.flipkart.flux.guice.module.ShardModule;
 import com.flipkart.polyguice.core.support.Polyguice;
+import com.google.inject.util.Modules;
 
 /**
  * <code>FluxInitializer</code> initializes the Flux runtime using the various Guice modules via Polyguice
@@ -161,14 +163,13 @@ public class FluxInitializer {
                         new FluxClientComponentModule());
                 break;
             default:
-                // we bring up the combined orchestration + execution runtime
+                // we bring up the combined orchestration + execution runtime, which talk to each other in-process
                 fluxRuntimeContainer.modules(
                         configModule,
                         new ContainerModule(),
                         new ShardModule(),
-                        new OrchestrationTaskModule(),
+                        Modules.override(new OrchestrationTaskModule(), new FluxClientComponentModule()).with(new CombinedRuntimeModule()),
                         new OrchestratorContainerModule(),
-                        new FluxClientComponentModule(),
                         new ExecutionContainerModule(),
                         new DeploymentUnitModule(),
                         new AkkaModule(),
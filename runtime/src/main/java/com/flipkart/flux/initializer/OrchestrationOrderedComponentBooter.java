@@ -21,6 +21,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jetty.server.Server;
 
+import com.flipkart.flux.archival.StateMachineArchivalService;
 import com.flipkart.polyguice.core.Initializable;
 
 /**
@@ -35,12 +36,15 @@ public class OrchestrationOrderedComponentBooter implements Initializable {
     private static final Logger logger = LogManager.getLogger(OrchestrationOrderedComponentBooter.class);
     private final Server apiServer;
     private final Server dashboardServer;
+    private final StateMachineArchivalService stateMachineArchivalService;
 
     @Inject
     public OrchestrationOrderedComponentBooter(@Named("APIJettyServer") Server apiServer,
-                                               @Named("DashboardJettyServer") Server dashboardServer) {
+                                               @Named("DashboardJettyServer") Server dashboardServer,
+                                               StateMachineArchivalService stateMachineArchivalService) {
         this.apiServer = apiServer;
         this.dashboardServer = dashboardServer;
+        this.stateMachineArchivalService = stateMachineArchivalService;
     }
 
     @Override
@@ -61,6 +65,8 @@ public class OrchestrationOrderedComponentBooter implements Initializable {
                 dashboardServer.start();
             }
             logger.info("Dashboard server has started. Say Hello!");
+            /* Start archiving terminal state machines, if enabled */
+            stateMachineArchivalService.start();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.representation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+
+import com.flipkart.flux.api.CorrelatedEventData;
+import com.flipkart.flux.api.EventData;
+import com.flipkart.flux.api.EventSubmissionResult;
+import com.flipkart.flux.api.VersionedEventData;
+import com.flipkart.flux.constant.RuntimeConstants;
+import com.flipkart.flux.controller.WorkFlowExecutionController;
+import com.flipkart.flux.dao.iface.EventsDAO;
+import com.flipkart.flux.dao.iface.StateMachinesDAO;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.domain.StateMachineStatus;
+import com.flipkart.flux.exception.IllegalEventException;
+import com.flipkart.flux.persistence.DataSourceType;
+import com.flipkart.flux.persistence.SelectDataSource;
+import com.flipkart.flux.persistence.Storage;
+import com.flipkart.flux.shard.ShardId;
+
+/**
+ * <code>BulkEventPersistenceService</code> persists events submitted in bulk against state machines of one shard, in a single transaction
+ * on that shard. Events which cannot be applied, e.g. as their state machine is not found, are rejected individually without failing the others.
+ */
+@Singleton
+public class BulkEventPersistenceService {
+
+  private StateMachinesDAO stateMachinesDAO;
+  private EventsDAO eventsDAO;
+  private WorkFlowExecutionController workFlowExecutionController;
+
+  @Inject
+  public BulkEventPersistenceService(StateMachinesDAO stateMachinesDAO, EventsDAO eventsDAO,
+      WorkFlowExecutionController workFlowExecutionController) {
+    this.stateMachinesDAO = stateMachinesDAO;
+    this.eventsDAO = eventsDAO;
+    this.workFlowExecutionController = workFlowExecutionController;
+  }
+
+  /**
+   * Persists the given events, whose state machines should all belong to the given shard, in one transaction.
+   *
+   * @param persistedEvents filled with the persisted event at the index of each accepted event, for the caller to process once committed
+   * @return results of the events, in the order of the events
+   */
+  @Transactional
+  @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
+  public List<EventSubmissionResult> persistEvents(ShardId shardId, List<CorrelatedEventData> events, Event[] persistedEvents) {
+    Map<String, StateMachineStatus> statuses = stateMachinesDAO.findStatusByIds(shardId,
+        events.stream().map(CorrelatedEventData::getCorrelationId).collect(Collectors.toSet()));
+    List<EventSubmissionResult> results = new ArrayList<>(events.size());
+    for (int i = 0; i < events.size(); i++) {
+      String stateMachineId = events.get(i).getCorrelationId();
+      EventData eventData = events.get(i).getEventData();
+      StateMachineStatus status = statuses.get(stateMachineId);
+      if (status == null) {
+        results.add(reject(stateMachineId, eventData, Response.Status.NOT_FOUND,
+            "StateMachine not found with id: " + stateMachineId + ", rejecting the event"));
+        continue;
+      }
+      if (status == StateMachineStatus.cancelled) {
+        results.add(reject(stateMachineId, eventData, Response.Status.ACCEPTED,
+            "State machine with Id: " + stateMachineId + " is in 'cancelled' state. Discarding the event."));
+        continue;
+      }
+      Event event = eventsDAO.findValidEventMetadataBySMIdAndName(stateMachineId, eventData.getName());
+      if (event == null) {
+        results.add(reject(stateMachineId, eventData, Response.Status.NOT_FOUND,
+            "Event with stateMachineId: " + stateMachineId + ", event name: " + eventData.getName() + " not found"));
+        continue;
+      }
+      if (event.getEventSource() != null && event.getEventSource().toLowerCase().contains(RuntimeConstants.REPLAY_EVENT.toLowerCase())) {
+        results.add(reject(stateMachineId, eventData, Response.Status.FORBIDDEN,
+            "Input event is a Replay Event. Replay Event update not allowed via this api."));
+        continue;
+      }
+      try {
+        // joins this transaction, as the session of this thread is reused
+        persistedEvents[i] = workFlowExecutionController.persistEvent(stateMachineId, new VersionedEventData(eventData.getName(),
+            eventData.getType(), eventData.getData(), eventData.getEventSource(), eventData.getCancelled(), event.getExecutionVersion()));
+      } catch (IllegalEventException e) {
+        results.add(reject(stateMachineId, eventData, Response.Status.NOT_FOUND, e.getMessage()));
+        continue;
+      }
+      results.add(new EventSubmissionResult(stateMachineId, eventData.getName(), Response.Status.ACCEPTED.getStatusCode(), null));
+    }
+    return results;
+  }
+
+  private static EventSubmissionResult reject(String stateMachineId, EventData eventData, Response.Status status, String message) {
+    return new EventSubmissionResult(stateMachineId, eventData.getName(), status.getStatusCode(), message);
+  }
+}
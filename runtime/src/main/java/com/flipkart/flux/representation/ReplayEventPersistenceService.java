@@ -117,6 +117,7 @@ public class ReplayEventPersistenceService {
           session);
     }
 
+    List<String> dependantEventNames = new ArrayList<>();
     for (String outputEvent : dependantEvents) {
         String eventName;
         String eventType;
@@ -139,7 +140,10 @@ public class ReplayEventPersistenceService {
         Event event = new Event(eventName, eventType, Event.EventStatus.pending,
                 stateMachineId, null, null, smExecutionVersion);
         eventsDAO.create_NonTransactional(event, session);
+        dependantEventNames.add(eventName);
     }
+    // the recreated events are pending, so are the dependencies of the states waiting for them
+    statesDAO.resetDependencies_NonTransactional(stateMachineId, dependantEventNames, session);
 
     //Mark replay event as invalid and persist replay event
     eventsDAO.markEventAsInvalid_NonTransactional(stateMachineId, replayEventData.getName(), session);
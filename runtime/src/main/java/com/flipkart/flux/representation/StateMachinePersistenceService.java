@@ -43,6 +43,7 @@ import com.flipkart.flux.constant.RuntimeConstants;
 import com.flipkart.flux.dao.iface.AuditDAO;
 import com.flipkart.flux.dao.iface.StateMachinesDAO;
 import com.flipkart.flux.dao.iface.StateTraversalPathDAO;
+import com.flipkart.flux.dao.iface.StatesDAO;
 import com.flipkart.flux.domain.AuditRecord;
 import com.flipkart.flux.domain.Context;
 import com.flipkart.flux.domain.Event;
@@ -69,18 +70,21 @@ public class StateMachinePersistenceService {
     private AuditDAO auditDAO;
     private StateTraversalPathDAO stateTraversalPathDAO;
 
+    private StatesDAO statesDAO;
+
     private EventPersistenceService eventPersistenceService;
     private Integer maxRetryCount;
     private static Logger logger = LogManager.getLogger(StateMachinePersistenceService.class);
 
     @Inject
     public StateMachinePersistenceService(StateMachinesDAO stateMachinesDAO, AuditDAO auditDAO,
-                                          StateTraversalPathDAO stateTraversalPathDAO,
+                                          StateTraversalPathDAO stateTraversalPathDAO, StatesDAO statesDAO,
                                           EventPersistenceService eventPersistenceService,
                                           @Named("task.maxTaskRetryCount") Integer maxRetryCount) {
         this.stateMachinesDAO = stateMachinesDAO;
         this.auditDAO = auditDAO;
         this.stateTraversalPathDAO = stateTraversalPathDAO;
+        this.statesDAO = statesDAO;
         this.eventPersistenceService = eventPersistenceService;
         this.maxRetryCount = maxRetryCount;
         objectMapper = new ObjectMapper();
@@ -169,6 +173,13 @@ public class StateMachinePersistenceService {
             event.setStateMachineInstanceId(stateMachine.getId());
             eventPersistenceService.persistEvent(event);
         }
+        // events submitted along with the state machine are met dependencies, and so are replay events which are optional
+        for (Event event : allEvents) {
+            if (event.getStatus() == Event.EventStatus.triggered || (event.getEventSource() != null
+                    && event.getEventSource().toLowerCase().contains(REPLAY_EVENT.toLowerCase()))) {
+                statesDAO.markDependencyMet(stateMachine.getId(), event.getName());
+            }
+        }
 
         //create audit records for all the states
         for (State state : stateMachine.getStates()) {
@@ -286,6 +297,18 @@ public class StateMachinePersistenceService {
                     stateDefinition.getMaxReplayableRetries() != null ? (short) stateDefinition.getMaxReplayableRetries() :  RuntimeConstants.MAX_REPLAYABLE_RETRIES,
                     (short) 0,
                     stateDefinition.isReplayable());
+            // decremented as the events are marked met, see createStateMachine
+            state.setPendingDependencies(events.size());
+            if (stateDefinition.getMapChunkSize() != null) {
+                // a map state executes its task per chunk of its only dependency, the collection event
+                if (events.size() != 1 || stateDefinition.getMapChunkSize() <= 0 || stateDefinition.getMapConcurrency() == null
+                        || stateDefinition.getMapConcurrency() <= 0) {
+                    throw new IllegalRepresentationException("Map state: " + stateDefinition.getName() + " needs a single dependency," +
+                            " a positive chunk size and a positive concurrency");
+                }
+                state.setMapChunkSize(stateDefinition.getMapChunkSize());
+                state.setMapConcurrency(stateDefinition.getMapConcurrency());
+            }
 
             return state;
         } catch (Exception e) {
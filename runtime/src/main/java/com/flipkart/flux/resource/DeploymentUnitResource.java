@@ -82,7 +82,7 @@ public class DeploymentUnitResource {
 
         DeploymentUnit loadedUnit;
         try {
-            loadedUnit = deploymentUnitManager.load(name, version);
+            loadedUnit = loadOrReload(name, version, replaceOld);
             logger.info("Successfully loaded deploymentUnit: " + loadedUnit.getName() + "/" + loadedUnit.getVersion());
         } catch (DuplicateDeploymentUnitException e) {
             logger.error("Received request to load Deployment unit with name: " + name + " and version: " + version + ", which is already loaded. Discarding it.");
@@ -158,6 +158,21 @@ public class DeploymentUnitResource {
         return buildResponse(Response.Status.OK, "successfully unloaded deploymentUnit: " + name + "/" + version);
     }
 
+    /**
+     * Loads the deploymentUnit. With replace, a version that is loaded already is hot swapped: new executions go to the reloaded
+     * deploymentUnit, while executions in progress on the replaced one complete on it.
+     */
+    private DeploymentUnit loadOrReload(String name, Integer version, boolean replace) throws Exception {
+        try {
+            return deploymentUnitManager.load(name, version);
+        } catch (DuplicateDeploymentUnitException e) {
+            if (!replace) {
+                throw e;
+            }
+            return deploymentUnitManager.reload(name, version);
+        }
+    }
+
     /**
      * Returns a list of previously loaded deploymentUnits which can be safely removed.
      *
@@ -13,12 +13,15 @@
 
 package com.flipkart.flux.resource;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -27,9 +30,15 @@ import org.apache.logging.log4j.Logger;
 
 import com.codahale.metrics.annotation.Timed;
 import com.flipkart.flux.api.core.TaskExecutionMessage;
+import com.flipkart.flux.client.runtime.PayloadLogger;
+import com.flipkart.flux.client.runtime.WireFormat;
 import com.flipkart.flux.impl.message.TaskAndEvents;
+import com.flipkart.flux.impl.task.registry.RouterAutoscaler;
 import com.flipkart.flux.impl.task.registry.RouterRegistry;
+import com.flipkart.flux.metrics.BoundedCounter;
+import com.flipkart.flux.metrics.TaskLifecycleStage;
 import com.flipkart.flux.metrics.iface.MetricsClient;
+import com.flipkart.flux.taskDispatcher.ExecutionNodeTaskDispatcher;
 
 import akka.actor.ActorRef;
 
@@ -38,37 +47,66 @@ import akka.actor.ActorRef;
 @Named
 public class ExecutionApiResource {
     private static final Logger logger = LogManager.getLogger(ExecutionApiResource.class);
+    private static final PayloadLogger PAYLOAD_LOGGER = PayloadLogger.forEndpoint("execution");
 
     private RouterRegistry routerRegistry;
     private MetricsClient metricsClient;
 
+    /** Max no. of messages that may be queued per actor of a router, non positive values disable the bound */
+    private final int mailboxCapacity;
+
+    /** Seconds after which the sender may retry a rejected message, returned in the Retry-After header */
+    private final int retryAfterSeconds;
+
+    /** Cached queueSize counters of the routers */
+    private final ConcurrentHashMap<String, BoundedCounter> routerQueueSizes = new ConcurrentHashMap<>();
+
     @Inject
-    public ExecutionApiResource(RouterRegistry routerRegistry, MetricsClient metricsClient) {
+    public ExecutionApiResource(RouterRegistry routerRegistry, MetricsClient metricsClient,
+                                @Named("routers.default.mailboxCapacity") int mailboxCapacity,
+                                @Named("routers.default.retryAfterSeconds") int retryAfterSeconds) {
         this.routerRegistry = routerRegistry;
         this.metricsClient = metricsClient;
+        this.mailboxCapacity = mailboxCapacity;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
 
     @POST
     @Timed
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, WireFormat.SMILE_MEDIA_TYPE})
     public Response receiveTaskAndExecutionData(TaskExecutionMessage taskExecutionMessage) {
+        final long receivedNanos = System.nanoTime();
         TaskAndEvents msg = taskExecutionMessage.getAkkaMessage();
         String routerName = taskExecutionMessage.getRouterName();
-        logger.info("Received taskExecutionMessage for stateMachine {} taskId {} taskName {} tastExecutionVersion: {}",
+        logger.debug("Received taskExecutionMessage for stateMachine {} taskId {} taskName {} tastExecutionVersion: {}",
                 msg.getStateMachineId(), msg.getTaskId(), msg.getTaskName(), msg.getTaskExecutionVersion());
+        PAYLOAD_LOGGER.log(msg.getStateMachineId(), msg);
         try {
             ActorRef router = routerRegistry.getRouter(routerName);
-            if (router != null) {
-                logger.info("Sending msg to router: {} to execute state machine: {} task: {} with execution version: {}",
+            Integer routerSize = router != null ? routerRegistry.getRouterSizes().get(routerName) : null;
+            if (routerSize != null && routerSize == 0) {
+                logger.warn("Rejecting msg to router: {} for state machine: {} task: {} as the router has no actors",
+                        routerName, msg.getStateMachineId(), msg.getTaskId());
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Akka router for this executionMessage has no actors").build();
+            } else if (router != null) {
+                Response rejection = reserveCapacity(routerName, routerSize);
+                if (rejection != null) {
+                    logger.warn("Rejecting msg to router: {} for state machine: {} task: {} as the router is at capacity",
+                            routerName, msg.getStateMachineId(), msg.getTaskId());
+                    return rejection;
+                }
+                logger.debug("Sending msg to router: {} to execute state machine: {} task: {} with execution version: {}",
                     router.path(), msg.getStateMachineId(), msg.getTaskId(), msg.getTaskExecutionVersion());
-                router.tell(msg, ActorRef.noSender());
-                metricsClient.incCounter(new StringBuilder().
-                        append("stateMachine.").
-                        append(msg.getStateMachineName()).
-                        append(".task.").
-                        append(msg.getTaskName()).
-                        append(".queueSize").toString());
+                msg.setEnqueueTimeNanos(System.nanoTime());
+                try {
+                    router.tell(msg, ActorRef.noSender());
+                } catch (RuntimeException e) {
+                    getRouterQueueSize(routerName).dec();
+                    throw e;
+                }
+                metricsClient.incCounter(msg.getStateMachineName(), msg.getTaskName(), "queueSize");
+                metricsClient.recordStage(msg.getStateMachineName(), TaskLifecycleStage.ACCEPTED, System.nanoTime() - receivedNanos);
             } else {
                 logger.error("Corresponding router {} for the execution message not found", taskExecutionMessage.getRouterName());
                 return Response.status(Response.Status.NOT_FOUND).entity("Akka router for this executionMessage not found").build();
@@ -80,4 +118,33 @@ public class ExecutionApiResource {
         return Response.accepted().build();
     }
 
+    /**
+     * Reserves room for one more message in the router's queueSize counter, which the router's actors decrement as they pick up messages.
+     * The router's mailboxes are bounded to mailboxCapacity messages per actor, the check and the increment are a single atomic step.
+     * @return 429 with a Retry-After hint if the router's mailboxes are full, null if the message can be accepted
+     */
+    private Response reserveCapacity(String routerName, Integer routerSize) {
+        BoundedCounter queueSize = getRouterQueueSize(routerName);
+        if (mailboxCapacity <= 0 || routerSize == null) {
+            queueSize.inc();
+            return null;
+        }
+        if (!queueSize.tryInc((long) mailboxCapacity * routerSize)) {
+            metricsClient.markMeter("router." + routerName + ".rejected");
+            return Response.status(ExecutionNodeTaskDispatcher.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                    .entity("Akka router for this executionMessage is at capacity").build();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached queueSize counter of the router. Router names are bounded by the tasks of the loaded deployment units.
+     */
+    private BoundedCounter getRouterQueueSize(String routerName) {
+        BoundedCounter queueSize = routerQueueSizes.get(routerName);
+        if (queueSize == null) {
+            queueSize = routerQueueSizes.computeIfAbsent(routerName, name -> RouterAutoscaler.getQueueSize(metricsClient, name));
+        }
+        return queueSize;
+    }
 }
\ No newline at end of file
@@ -37,9 +37,12 @@ public class FsmGraphEdge {
     /* Gives the source of the event */
     @JsonProperty
     private String source;
-    /*Gives event data details*/
+    /*Gives event data details, as <data>#<executionVersion>. The data is left empty, it is fetched from the eventdata api when shown */
     @JsonProperty
     private String eventData;
+    /* Full name of the event, used to fetch its data */
+    @JsonProperty
+    private String eventName;
     /* Event last updated at timestamp*/
     @JsonProperty
     private Timestamp updatedAt;
@@ -62,6 +65,11 @@ public class FsmGraphEdge {
         this.updatedAt = updatedAt;
     }
 
+    @JsonIgnore
+    public void setEventName(String eventName) {
+        this.eventName = eventName;
+    }
+
     @JsonIgnore
     public void addOutgoingVertex(Long vertexId) {
         this.incidentOn.add(vertexId);
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.resource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.flipkart.flux.impl.task.registry.RouterRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Management APIs to view and resize the task routers of an execution node
+ */
+@Path("/api/routers")
+@Named
+@Singleton
+public class RouterResource {
+
+    private static final Logger logger = LogManager.getLogger(RouterResource.class);
+
+    /**
+     * Router registry holding the routers of this node.
+     */
+    private RouterRegistry routerRegistry;
+
+    @Inject
+    public RouterResource(RouterRegistry routerRegistry) {
+        this.routerRegistry = routerRegistry;
+    }
+
+    /**
+     * Returns the current no. of actors of every router on this node.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRouterSizes() {
+        return Response.status(Response.Status.OK).entity(new HashMap<>(routerRegistry.getRouterSizes())).build();
+    }
+
+    /**
+     * Resizes an existing router to the given no. of actors.
+     *
+     * @param routerName Name of the router.
+     * @param size       New no. of actors, can be 0.
+     * @return message for success or failure.
+     */
+    @POST
+    @Path("/{routerName}/resize")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response resizeRouter(@PathParam("routerName") String routerName, @QueryParam("size") Integer size) {
+        if (size == null || size < 0) {
+            return buildResponse(Response.Status.BAD_REQUEST, "router size is invalid");
+        }
+        if (routerRegistry.getRouter(routerName) == null) {
+            return buildResponse(Response.Status.NOT_FOUND, "router not found: " + routerName);
+        }
+        routerRegistry.createOrResize(routerName, size);
+        logger.info("Resized router: {} to {} actors", routerName, size);
+        return buildResponse(Response.Status.OK, "Successfully resized router: " + routerName + " to " + size);
+    }
+
+    private Response buildResponse(Response.Status status, String msg) {
+        Map<String, String> response = new HashMap<>();
+        response.put("msg", msg);
+        return Response.status(status).entity(response).build();
+    }
+}
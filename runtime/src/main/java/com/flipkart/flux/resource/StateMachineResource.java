@@ -16,22 +16,32 @@ package com.flipkart.flux.resource;
 import static com.flipkart.flux.constant.RuntimeConstants.DEFAULT_ELB_ID;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.transaction.Transactional;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -42,25 +52,36 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.exception.ConstraintViolationException;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.flux.api.CorrelatedEventData;
 import com.flipkart.flux.api.EventAndExecutionData;
 import com.flipkart.flux.api.EventData;
 import com.flipkart.flux.api.EventDefinition;
+import com.flipkart.flux.api.EventSubmissionResult;
 import com.flipkart.flux.api.ExecutionUpdateData;
+import com.flipkart.flux.api.OwnershipTable;
 import com.flipkart.flux.api.StateMachineDefinition;
 import com.flipkart.flux.api.VersionedEventData;
 import com.flipkart.flux.client.runtime.EventProxyConnector;
+import com.flipkart.flux.cluster.OwnershipMap;
 import com.flipkart.flux.constant.RuntimeConstants;
 import com.flipkart.flux.controller.WorkFlowExecutionController;
 import com.flipkart.flux.dao.ParallelScatterGatherQueryHelper;
 import com.flipkart.flux.dao.iface.AuditDAO;
 import com.flipkart.flux.dao.iface.EventsDAO;
+import com.flipkart.flux.dao.iface.StateMachineArchiveDAO;
 import com.flipkart.flux.dao.iface.StateMachinesDAO;
 import com.flipkart.flux.dao.iface.StateTraversalPathDAO;
 import com.flipkart.flux.dao.iface.StatesDAO;
@@ -77,13 +98,17 @@ import com.flipkart.flux.exception.IllegalEventException;
 import com.flipkart.flux.exception.ReplayEventException;
 import com.flipkart.flux.exception.ReplayableRetryExhaustException;
 import com.flipkart.flux.exception.TraversalPathException;
+import com.flipkart.flux.filter.ForwardToOwner;
 import com.flipkart.flux.impl.RAMContext;
 import com.flipkart.flux.metrics.iface.MetricsClient;
+import com.flipkart.flux.persistence.CryptHashGenerator;
 import com.flipkart.flux.persistence.DataSourceType;
 import com.flipkart.flux.persistence.SelectDataSource;
 import com.flipkart.flux.persistence.Storage;
+import com.flipkart.flux.representation.BulkEventPersistenceService;
 import com.flipkart.flux.representation.IllegalRepresentationException;
 import com.flipkart.flux.representation.StateMachinePersistenceService;
+import com.flipkart.flux.shard.ShardId;
 import com.flipkart.flux.task.eventscheduler.EventSchedulerRegistry;
 import com.flipkart.flux.utils.LoggingUtils;
 import com.google.gson.Gson;
@@ -108,6 +133,15 @@ public class StateMachineResource {
   private static final String TRIGGER = " ";
 
   private static final String CORRELATION_ID = "correlationId";
+
+  /**
+   * Parts of a state machine that can be included in the info response, and the audit records field of the fsm graph data
+   */
+  private static final String STATES = "states";
+  private static final String EVENTS = "events";
+  private static final String AUDIT_RECORDS = "auditrecords";
+  private static final String AUDIT_DATA = "auditData";
+
   /**
    * Logger instance for this class
    */
@@ -128,6 +162,9 @@ public class StateMachineResource {
 
   private ObjectMapper objectMapper;
 
+  /** Writes the elements of streamed responses without flushing the response after each of them */
+  private ObjectWriter streamingWriter;
+
   private MetricsClient metricsClient;
 
   private ParallelScatterGatherQueryHelper parallelScatterGatherQueryHelper;
@@ -138,6 +175,20 @@ public class StateMachineResource {
 
   private StateTraversalPathDAO stateTraversalPathDAO;
 
+  private StateMachineArchiveDAO stateMachineArchiveDAO;
+
+  private BulkEventPersistenceService bulkEventPersistenceService;
+
+  private Map<String, ShardId> shardKeyToShardIdMap;
+
+  /** Max no. of events accepted by one bulk submission */
+  private int bulkSubmissionMaxSize;
+
+  /** Applies the events of a bulk submission, one task per shard */
+  private ExecutorService bulkSubmissionExecutor;
+
+  private OwnershipMap ownershipMap;
+
   @Inject
   public StateMachineResource(EventsDAO eventsDAO,
       StateMachinePersistenceService stateMachinePersistenceService,
@@ -148,7 +199,13 @@ public class StateMachineResource {
       EventProxyConnector eventProxyConnector,
       @Named("eventProxyForMigration.enabled") String eventProxyEnabled,
       StateTraversalPath stateTraversalPath,
-      StateTraversalPathDAO stateTraversalPathDAO) {
+      StateTraversalPathDAO stateTraversalPathDAO,
+      StateMachineArchiveDAO stateMachineArchiveDAO,
+      BulkEventPersistenceService bulkEventPersistenceService,
+      @Named("fluxShardKeyToShardIdMap") Map<String, ShardId> shardKeyToShardIdMap,
+      @Named("events.bulkSubmissionMaxSize") int bulkSubmissionMaxSize,
+      @Named("events.bulkSubmissionParallelism") int bulkSubmissionParallelism,
+      OwnershipMap ownershipMap) {
     this.eventsDAO = eventsDAO;
     this.stateMachinePersistenceService = stateMachinePersistenceService;
     this.stateMachinesDAO = stateMachinesDAO;
@@ -157,11 +214,18 @@ public class StateMachineResource {
     this.eventSchedulerRegistry = eventSchedulerRegistry;
     this.workFlowExecutionController = workFlowExecutionController;
     this.objectMapper = new ObjectMapper();
+    this.streamingWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     this.metricsClient = metricsClient;
     this.parallelScatterGatherQueryHelper = parallelScatterGatherQueryHelper;
     this.eventProxyConnector = eventProxyConnector;
     this.eventProxyEnabled = eventProxyEnabled;
     this.stateTraversalPathDAO = stateTraversalPathDAO;
+    this.stateMachineArchiveDAO = stateMachineArchiveDAO;
+    this.bulkEventPersistenceService = bulkEventPersistenceService;
+    this.shardKeyToShardIdMap = shardKeyToShardIdMap;
+    this.bulkSubmissionMaxSize = bulkSubmissionMaxSize;
+    this.bulkSubmissionExecutor = Executors.newFixedThreadPool(bulkSubmissionParallelism);
+    this.ownershipMap = ownershipMap;
   }
 
   /**
@@ -276,6 +340,7 @@ public class StateMachineResource {
    * @param eventData Json representation of event
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/context/events")
   @Timed
   public Response submitEvent(@PathParam("machineId") String machineId,
@@ -303,7 +368,7 @@ public class StateMachineResource {
         return Response.status(Response.Status.BAD_REQUEST.getStatusCode()).entity(
             "Event cancellation not allowed here. Please modify isCancelled param to false and retry.").build();
       }
-      if(eventsDAO.findValidReplayEventBySMIdAndName(machineId,
+      if(eventsDAO.findValidReplayEventMetadataBySMIdAndName(machineId,
           eventData.getName()).isPresent()) {
         return Response.status(Response.Status.FORBIDDEN.getStatusCode()).entity(
             "Input event is a Replay Event. Replay Event update not allowed via this api.").build();
@@ -352,7 +417,7 @@ public class StateMachineResource {
       if (triggerTime == null) {
         logger.info("Received event: {} for state machine: {}", eventData.getName(), machineId);
         try {
-          Event event = eventsDAO.findValidEventBySMIdAndName(machineId, eventData.getName());
+          Event event = eventsDAO.findValidEventMetadataBySMIdAndName(machineId, eventData.getName());
           VersionedEventData versionedEventData = new VersionedEventData(eventData.getName(),
               eventData.getType(), eventData.getData(), eventData.getEventSource(),
               eventData.getCancelled(), event.getExecutionVersion());
@@ -388,6 +453,111 @@ public class StateMachineResource {
     }
   }
 
+  /**
+   * Used to post events against many state machines in one request. The events are grouped by the shard of their state machines, the events
+   * of a shard are persisted in one transaction and the states they unblock are then dispatched together. Events are accepted or rejected
+   * individually, the result of each event carries the status it would have got from {@link #submitEvent(String, String, Long, EventData)}.
+   * Scheduled events, cancellations and forwarding to the old cluster are not supported in bulk.
+   *
+   * @param events events along with the correlation ids of the state machines they are submitted against
+   * @return results of the events, in the order of the events
+   */
+  @POST
+  @Path("/events/bulk")
+  @Produces(MediaType.APPLICATION_JSON)
+  @Timed
+  public Response submitEvents(List<CorrelatedEventData> events) {
+    if (events == null || events.isEmpty()) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("No events to submit.").build();
+    }
+    if (events.size() > bulkSubmissionMaxSize) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(
+          "At most " + bulkSubmissionMaxSize + " events can be submitted in one request, received " + events.size()).build();
+    }
+    logger.info("Received {} events in bulk", events.size());
+    final EventSubmissionResult[] results = new EventSubmissionResult[events.size()];
+    final Map<ShardId, List<Integer>> eventsByShard = new HashMap<>();
+    for (int i = 0; i < events.size(); i++) {
+      results[i] = validateBulkEvent(events.get(i));
+      if (results[i] == null) {
+        final String shardKey = CryptHashGenerator.getUniformCryptHash(events.get(i).getCorrelationId());
+        eventsByShard.computeIfAbsent(shardKeyToShardIdMap.get(shardKey), shardId -> new ArrayList<>()).add(i);
+      }
+    }
+    CompletableFuture.allOf(eventsByShard.entrySet().stream()
+        .map(shardEvents -> CompletableFuture.runAsync(
+            () -> submitShardEvents(shardEvents.getKey(), events, shardEvents.getValue(), results), bulkSubmissionExecutor))
+        .toArray(CompletableFuture[]::new)).join();
+    return Response.status(Response.Status.OK).entity(Arrays.asList(results)).build();
+  }
+
+  /**
+   * Checks an event submitted in bulk for what {@link #submitEvent(String, String, Long, EventData)} rejects without a DB lookup.
+   *
+   * @return the rejection of the event, null if it is valid
+   */
+  private EventSubmissionResult validateBulkEvent(CorrelatedEventData correlatedEventData) {
+    final EventData eventData = correlatedEventData.getEventData();
+    final String eventName = eventData != null ? eventData.getName() : null;
+    String message = null;
+    Response.Status status = Response.Status.BAD_REQUEST;
+    if (correlatedEventData.getCorrelationId() == null) {
+      message = "Correlation id cannot be null.";
+    } else if (eventData == null || eventData.getData() == null || eventData.getName() == null) {
+      message = "Event Data|Name cannot be null.";
+    } else if (isEventSourceContainsReplayable(eventData.getEventSource())) {
+      status = Response.Status.FORBIDDEN;
+      message = "EventSource cannot contain " + RuntimeConstants.REPLAY_EVENT
+          + " as it is for internal use only. Modify Event Source and retry.";
+    } else if (eventData.getCancelled() != null && eventData.getCancelled()) {
+      message = "Event cancellation not allowed here. Please modify isCancelled param to false and retry.";
+    }
+    return message == null ? null
+        : new EventSubmissionResult(correlatedEventData.getCorrelationId(), eventName, status.getStatusCode(), message);
+  }
+
+  /**
+   * Persists the events of a bulk submission which belong to one shard and dispatches the states they unblock, recording the result of each
+   */
+  private void submitShardEvents(ShardId shardId, List<CorrelatedEventData> events, List<Integer> indices,
+      EventSubmissionResult[] results) {
+    final List<CorrelatedEventData> shardEvents = indices.stream().map(events::get).collect(Collectors.toList());
+    final Event[] persistedEvents = new Event[shardEvents.size()];
+    try {
+      final List<EventSubmissionResult> shardResults = bulkEventPersistenceService.persistEvents(shardId, shardEvents, persistedEvents);
+      for (int i = 0; i < indices.size(); i++) {
+        results[indices.get(i)] = shardResults.get(i);
+      }
+    } catch (Exception e) {
+      logger.error("Persisting {} events in bulk on shard: {} failed. Message: {}", shardEvents.size(), shardId, e.getMessage(), e);
+      for (int i = 0; i < indices.size(); i++) {
+        results[indices.get(i)] = new EventSubmissionResult(shardEvents.get(i).getCorrelationId(),
+            shardEvents.get(i).getEventData().getName(), Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), e.getMessage());
+      }
+      return;
+    }
+    final List<Integer> persistedIndices = new ArrayList<>();
+    final List<Event> persisted = new ArrayList<>();
+    for (int i = 0; i < persistedEvents.length; i++) {
+      if (persistedEvents[i] != null) {
+        persistedIndices.add(indices.get(i));
+        persisted.add(persistedEvents[i]);
+      }
+    }
+    final List<CompletableFuture<Set<State>>> processed = workFlowExecutionController.processEvents(persisted);
+    for (int i = 0; i < processed.size(); i++) {
+      try {
+        processed.get(i).join();
+      } catch (CompletionException e) {
+        final EventSubmissionResult result = results[persistedIndices.get(i)];
+        logger.error("Processing event: {} of state machine: {} failed. Message: {}", result.getEventName(), result.getCorrelationId(),
+            e.getCause().getMessage(), e.getCause());
+        results[persistedIndices.get(i)] = new EventSubmissionResult(result.getCorrelationId(), result.getEventName(),
+            Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), e.getCause().getMessage());
+      }
+    }
+  }
+
   /**
    * Used to post Data corresponding to a replay event. This data is independently posted (manually,
    * for example)
@@ -396,6 +566,7 @@ public class StateMachineResource {
    * @param eventData Json representation of event
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/context/replayevent")
   @Timed
   public Response submitReplayEvent(@PathParam("machineId") String machineId,
@@ -468,7 +639,7 @@ public class StateMachineResource {
             .build();
       }
       try {
-        Optional<Event> replayEvent = eventsDAO.findValidReplayEventBySMIdAndName(machineId,
+        Optional<Event> replayEvent = eventsDAO.findValidReplayEventMetadataBySMIdAndName(machineId,
             eventData.getName());
         if (replayEvent.isPresent()) {
           logger.info("Found replay event: {} with execution version: {} for SMId: {} ",
@@ -525,6 +696,7 @@ public class StateMachineResource {
    * @param eventAndExecutionData Json representation of event and execution updation data
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/context/eventandstatus")
   @Timed
   public Response submitEvent(@PathParam("machineId") String machineId,
@@ -555,7 +727,10 @@ public class StateMachineResource {
               versionedEventData.getExecutionVersion(),
               executionUpdateData.getTaskId(), executionUpdateData.getTaskExecutionVersion(),
               machineId);
-          if (versionedEventData.getCancelled() != null && versionedEventData.getCancelled()) {
+          if (executionUpdateData.getMapChunk() != null) {
+            // the output of a chunk of a map state is part of the state's output event
+            workFlowExecutionController.updateMapChunkStatus(machineId, executionUpdateData, versionedEventData);
+          } else if (versionedEventData.getCancelled() != null && versionedEventData.getCancelled()) {
             workFlowExecutionController
                 .updateTaskStatusAndHandlePathCancellation(machineId, eventAndExecutionData);
           } else {
@@ -599,6 +774,7 @@ public class StateMachineResource {
    * @return Response with execution status code
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/context/eventupdate")
   @Timed
   public Response updateEvent(@PathParam("machineId") String machineId,
@@ -637,13 +813,13 @@ public class StateMachineResource {
             "Event cancellation not allowed here. Please modify isCancelled param to false and retry.").build();
       }
 
-      if(eventsDAO.findValidReplayEventBySMIdAndName(machineId,
+      if(eventsDAO.findValidReplayEventMetadataBySMIdAndName(machineId,
           eventData.getName()).isPresent()) {
         return Response.status(Response.Status.FORBIDDEN.getStatusCode()).entity(
             "Input event is a Replay Event. Replay Event update not allowed via this api.").build();
       }
 
-      Event event = eventsDAO.findValidEventBySMIdAndName(machineId, eventData.getName());
+      Event event = eventsDAO.findValidEventMetadataBySMIdAndName(machineId, eventData.getName());
       if (event == null) {
         logger.error("Event with input event Name {} doesn't exist or is invalid.",
             eventData.getName());
@@ -708,6 +884,7 @@ public class StateMachineResource {
    * @return
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/context/internaleventupdate")
   @Timed
   public Response updateInternalEvent(@PathParam("machineId") String machineId,
@@ -743,13 +920,13 @@ public class StateMachineResource {
             "Event cancellation not allowed here. Please modify isCancelled param to false and retry.").build();
       }
 
-      if(eventsDAO.findValidReplayEventBySMIdAndName(machineId,
+      if(eventsDAO.findValidReplayEventMetadataBySMIdAndName(machineId,
           eventData.getName()).isPresent()) {
         return Response.status(Response.Status.FORBIDDEN.getStatusCode()).entity(
             "Input event is a Replay Event. Replay Event update is not allowed.").build();
       }
 
-      Event event = eventsDAO.findValidEventBySMIdAndName(machineId, eventData.getName());
+      Event event = eventsDAO.findValidEventMetadataBySMIdAndName(machineId, eventData.getName());
       if (event == null) {
         logger.error("Event with input event Name {} doesn't exist.", eventData.getName());
         return Response.status(Response.Status.NOT_FOUND.getStatusCode()).entity(
@@ -815,6 +992,7 @@ public class StateMachineResource {
    * @return Response with execution status code
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/{stateId}/{taskExecutionVersion}/status")
   @Timed
   public Response updateStatus(@PathParam("machineId") String machineId,
@@ -822,8 +1000,12 @@ public class StateMachineResource {
       @PathParam("taskExecutionVersion") Long taskExecutionVersion,
       ExecutionUpdateData executionUpdateData
   ) throws Exception {
-    this.workFlowExecutionController
-        .updateTaskStatus(machineId, stateId, taskExecutionVersion, executionUpdateData);
+    if (executionUpdateData.getMapChunk() != null) {
+      this.workFlowExecutionController.updateMapChunkStatus(machineId, executionUpdateData, null);
+    } else {
+      this.workFlowExecutionController
+          .updateTaskStatus(machineId, stateId, taskExecutionVersion, executionUpdateData);
+    }
     return Response.status(Response.Status.ACCEPTED).build();
   }
 
@@ -836,6 +1018,7 @@ public class StateMachineResource {
    * @return Response with execution status code
    */
   @POST
+  @ForwardToOwner
   @Path("/{machineId}/{stateId}/{taskExecutionVersion}/retries/inc")
   @Transactional
   @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
@@ -855,6 +1038,7 @@ public class StateMachineResource {
    */
   @POST
   @Produces(MediaType.APPLICATION_JSON)
+  @ForwardToOwner
   @Path("/redrivetask/{machineId}/taskId/{taskId}/taskExecutionVersion/{taskExecutionVersion}")
   @Timed
   public Response redriveTask(@PathParam("machineId") String machineId,
@@ -865,15 +1049,33 @@ public class StateMachineResource {
   }
 
   /**
-   * Provides json data to build fsm status graph.
+   * Provides json data to build fsm status graph. The graph is written first and the audit records are streamed after it
+   * from a DB cursor, so that the dashboard can render the graph before the audit records arrive.
    *
+   * @param auditOffset no. of audit records to skip
+   * @param auditLimit max no. of audit records to return, all of them if not positive
    * @return json representation of fsm
    */
   @GET
   @Path("/{machineId}/fsmdata")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response getFsmGraphData(@PathParam("machineId") String machineId) throws IOException {
-    return Response.status(200).entity(getGraphData(machineId)).build();
+  public Response getFsmGraphData(@PathParam("machineId") String machineId,
+      @QueryParam("auditOffset") @DefaultValue("0") int auditOffset,
+      @QueryParam("auditLimit") @DefaultValue("0") int auditLimit) throws IOException {
+    final FsmGraph fsmGraph = getGraphData(machineId);
+    final StreamingOutput fsmGraphData = outputStream -> {
+      final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+      generator.writeStartObject();
+      final ObjectNode graph = objectMapper.valueToTree(fsmGraph);
+      graph.remove(AUDIT_DATA);
+      writeFields(generator, graph);
+      generator.writeArrayFieldStart(AUDIT_DATA);
+      streamJson(generator, consumer -> auditDAO.scrollBySMInstanceId(machineId, auditOffset, auditLimit, consumer));
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.flush();
+    };
+    return Response.status(200).entity(fsmGraphData).build();
   }
 
   /**
@@ -953,6 +1155,7 @@ public class StateMachineResource {
    * This api unsidelines a single state and triggers its execution.
    */
   @PUT
+  @ForwardToOwner
   @Path("/{stateMachineId}/{stateId}/unsideline")
   @Produces(MediaType.APPLICATION_JSON)
   @Transactional
@@ -968,6 +1171,7 @@ public class StateMachineResource {
    * This api is for resetting the retry count for replayable states
    */
   @PUT
+  @ForwardToOwner
   @Path("/{stateMachineId}/{stateId}/resetreplayretries")
   @Produces(MediaType.APPLICATION_JSON)
   public Response resetAttemptedNoOfRetries(@PathParam("stateMachineId") String stateMachineId,
@@ -991,7 +1195,7 @@ public class StateMachineResource {
             if (s.getReplayable()) {
               List<String> dependencies = s.getDependencies();
               dependencies.forEach(e ->{
-                Optional<Event> event = eventsDAO.findValidReplayEventBySMIdAndName(stateMachineId, e);
+                Optional<Event> event = eventsDAO.findValidReplayEventMetadataBySMIdAndName(stateMachineId, e);
                 event.ifPresent(replayEvent -> eventNames.add(replayEvent.getName()));
               });
             }
@@ -1017,6 +1221,7 @@ public class StateMachineResource {
   }
 
   @PUT
+  @ForwardToOwner
   @Path("/{stateMachineId}/cancel")
   @Produces(MediaType.APPLICATION_JSON)
   @Transactional
@@ -1037,31 +1242,115 @@ public class StateMachineResource {
     return Response.status(Response.Status.ACCEPTED).build();
   }
 
+  /**
+   * Returns the state machine along with its events and audit records. The response is streamed, events and audit records are written
+   * as they are read from DB cursors instead of being loaded up front.
+   *
+   * @param include comma separated parts of the state machine to return, any of {@value #STATES}, {@value #EVENTS} and {@value #AUDIT_RECORDS}.
+   *                All of them if not specified, the state machine's own fields are always returned
+   * @param auditOffset no. of audit records to skip
+   * @param auditLimit max no. of audit records to return, all of them if not positive
+   */
   @GET
   @Path("/{stateMachineId}/info")
   @Produces(MediaType.APPLICATION_JSON)
   @Transactional
   @SelectDataSource(type = DataSourceType.READ_WRITE, storage = Storage.SHARDED)
   public Response getStateMachine(@PathParam("stateMachineId") String stateMachineId,
-      @QueryParam("searchField") String searchField) {
+      @QueryParam("searchField") String searchField,
+      @QueryParam("include") String include,
+      @QueryParam("auditOffset") @DefaultValue("0") int auditOffset,
+      @QueryParam("auditLimit") @DefaultValue("0") int auditLimit) {
     StateMachine stateMachine = null;
     stateMachine = stateMachinesDAO.findById(stateMachineId);
+    boolean archived = false;
+
+    if (stateMachine == null) {
+      // terminal state machines are moved to the archive tables after a while
+      stateMachine = stateMachineArchiveDAO.findArchivedStateMachine(stateMachineId);
+      archived = true;
+    }
 
     if (stateMachine == null) {
       return Response.status(Response.Status.NOT_FOUND)
           .entity("State machine with id: " + stateMachineId + " not found").build();
     }
 
-    List<Event> events = eventsDAO.findBySMInstanceId(stateMachine.getId());
-    List<AuditRecord> auditRecords = auditDAO.findBySMInstanceId(stateMachine.getId());
-
-    Map<String, Object> stateMachineInfo = objectMapper.convertValue(stateMachine, Map.class);
-    stateMachineInfo.put("events", events);
-    stateMachineInfo.put("auditrecords", auditRecords);
+    final Set<String> includes = include == null || include.trim().isEmpty()
+        ? new HashSet<>(Arrays.asList(STATES, EVENTS, AUDIT_RECORDS))
+        : Arrays.stream(include.split(",")).map(String::trim).collect(Collectors.toSet());
+    final StateMachine machine = stateMachine;
+    final boolean isArchived = archived;
+
+    // events and audit records are read after this method returns, in transactions of their own on the state machine's shard
+    final StreamingOutput stateMachineInfo = outputStream -> {
+      final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+      generator.writeStartObject();
+      final ObjectNode fields = objectMapper.valueToTree(machine);
+      fields.remove(STATES);
+      writeFields(generator, fields);
+      if (includes.contains(STATES)) {
+        generator.writeArrayFieldStart(STATES);
+        for (State state : machine.getStates()) {
+          streamingWriter.writeValue(generator, state);
+        }
+        generator.writeEndArray();
+      }
+      if (includes.contains(EVENTS)) {
+        generator.writeArrayFieldStart(EVENTS);
+        if (isArchived) {
+          streamJson(generator, consumer -> stateMachineArchiveDAO.scrollArchivedEvents(machine.getId(), consumer));
+        } else {
+          streamJson(generator, consumer -> eventsDAO.scrollBySMInstanceId(machine.getId(), consumer));
+        }
+        generator.writeEndArray();
+      }
+      if (includes.contains(AUDIT_RECORDS)) {
+        generator.writeArrayFieldStart(AUDIT_RECORDS);
+        if (isArchived) {
+          streamJson(generator, consumer -> stateMachineArchiveDAO.scrollArchivedAuditRecords(machine.getId(), auditOffset, auditLimit, consumer));
+        } else {
+          streamJson(generator, consumer -> auditDAO.scrollBySMInstanceId(machine.getId(), auditOffset, auditLimit, consumer));
+        }
+        generator.writeEndArray();
+      }
+      generator.writeBooleanField("archived", isArchived);
+      generator.writeEndObject();
+      generator.flush();
+    };
 
     return Response.status(Response.Status.OK).entity(stateMachineInfo).build();
   }
 
+  /**
+   * Writes the fields of the given json object to the object being generated
+   */
+  private void writeFields(JsonGenerator generator, ObjectNode fields) throws IOException {
+    final Iterator<Map.Entry<String, JsonNode>> iterator = fields.fields();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, JsonNode> field = iterator.next();
+      generator.writeFieldName(field.getKey());
+      streamingWriter.writeValue(generator, field.getValue());
+    }
+  }
+
+  /**
+   * Writes every entity handed out by the given DAO scroll to the array being generated, as it is read
+   */
+  private void streamJson(JsonGenerator generator, Consumer<Consumer<Object>> scroll) throws IOException {
+    try {
+      scroll.accept(entity -> {
+        try {
+          streamingWriter.writeValue(generator, entity);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
   /**
    * Retrieves fsm graph data based on FSM Id or correlation id
    */
@@ -1092,7 +1381,7 @@ public class StateMachineResource {
     fsmGraph.setFsmName(stateMachine.getName());
     fsmGraph.setFsmStatus(stateMachine.getStatus());
 
-    Map<String, Event> stateMachineEvents = eventsDAO.findBySMInstanceId(stateMachine.getId())
+    Map<String, Event> stateMachineEvents = eventsDAO.findMetadataBySMInstanceId(stateMachine.getId())
         .stream().collect(
             Collectors.toMap(Event::getName, (event -> event)));
     Set<String> allOutputEventNames = new HashSet<>();
@@ -1106,11 +1395,12 @@ public class StateMachineResource {
         EventDefinition eventDefinition = objectMapper
             .readValue(state.getOutputEvent(), EventDefinition.class);
         final Event outputEvent = stateMachineEvents.get(eventDefinition.getName());
-        fsmGraph.addVertex(vertex,
-            new FsmGraphEdge(getEventDisplayName(outputEvent.getName()),
-                outputEvent.getStatus().name(), outputEvent.getEventSource(),
-                outputEvent.getEventData()+"#"+outputEvent.getExecutionVersion(),
-                outputEvent.getUpdatedAt()));
+        final FsmGraphEdge outputEdge = new FsmGraphEdge(getEventDisplayName(outputEvent.getName()),
+            outputEvent.getStatus().name(), outputEvent.getEventSource(),
+            "#" + outputEvent.getExecutionVersion(),
+            outputEvent.getUpdatedAt());
+        outputEdge.setEventName(outputEvent.getName());
+        fsmGraph.addVertex(vertex, outputEdge);
         final Set<State> dependantStates = ramContext.getDependantStates(outputEvent.getName());
         dependantStates.forEach((aState) -> fsmGraph.addOutgoingEdge(vertex, aState.getId()));
         allOutputEventNames
@@ -1140,15 +1430,15 @@ public class StateMachineResource {
       final FsmGraphEdge initEdge = new FsmGraphEdge(
           this.getEventDisplayName(workflowTriggeredEventName),
           correspondingEvent.getStatus().name(), correspondingEvent.getEventSource(),
-          correspondingEvent.getEventData()+"#"+correspondingEvent.getExecutionVersion(),
+          "#" + correspondingEvent.getExecutionVersion(),
           correspondingEvent.getUpdatedAt());
+      initEdge.setEventName(workflowTriggeredEventName);
       final Set<State> dependantStates = ramContext.getDependantStates(workflowTriggeredEventName);
       dependantStates.forEach((state) -> initEdge.addOutgoingVertex(state.getId()));
       fsmGraph.addInitStateEdge(initEdge);
     });
 
-    fsmGraph.setAuditData(auditDAO.findBySMInstanceId(stateMachine.getId()));
-
+    // audit data is streamed by the caller
     return fsmGraph;
   }
 
@@ -1217,6 +1507,17 @@ public class StateMachineResource {
         .getName() : null;
   }
 
+  /**
+   * Returns the orchestrator nodes owning the buckets of state machine ids, used by clients to send the requests of a state machine to its owner.
+   * The table is empty if ownership is disabled or the cluster membership is not known yet
+   */
+  @GET
+  @Path("/ownership")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getOwnershipTable() {
+    return Response.status(Response.Status.OK).entity(ownershipMap.getOwnershipTable()).build();
+  }
+
   @GET
   @Path("/{machineId}/{eventName}/{taskExecutionVersion}/eventdata")
   @Produces(MediaType.APPLICATION_JSON)
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.taskDispatcher;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.flipkart.flux.api.core.TaskExecutionMessage;
+import com.flipkart.flux.resource.ExecutionApiResource;
+
+/**
+ * <code>LocalExecutionNodeTaskDispatcher</code> is the {@link ExecutionNodeTaskDispatcher} used when the execution node runs in the same JVM as the
+ * orchestrator, i.e. in the COMBINED role. Messages to an endpoint of this node are handed to the {@link ExecutionApiResource} as they are, without
+ * serializing them or a loopback http call. Messages to other endpoints, e.g. the ELBs of remote execution clusters, are forwarded over http.
+ */
+@Singleton
+public class LocalExecutionNodeTaskDispatcher implements ExecutionNodeTaskDispatcher {
+
+    private static final Logger logger = LogManager.getLogger(LocalExecutionNodeTaskDispatcher.class);
+
+    private final ExecutionNodeTaskDispatcher remoteDispatcher;
+
+    /** Looked up on use, as the executor's components are created after the orchestrator's */
+    private final Provider<ExecutionApiResource> executionApiResource;
+
+    /** Port of the execution api of this node */
+    private final int executionApiPort;
+
+    /** Endpoint -> whether it is served by this node. Endpoints are bounded by the client ELBs */
+    private final ConcurrentHashMap<String, Boolean> localEndpoints = new ConcurrentHashMap<>();
+
+    @Inject
+    public LocalExecutionNodeTaskDispatcher(ExecutionNodeTaskDispatcherImpl remoteDispatcher, Provider<ExecutionApiResource> executionApiResource,
+                                            @Named("Execution.Node.Api.service.port") int executionApiPort) {
+        this.remoteDispatcher = remoteDispatcher;
+        this.executionApiResource = executionApiResource;
+        this.executionApiPort = executionApiPort;
+    }
+
+    @Override
+    public int forwardExecutionMessage(String endpoint, TaskExecutionMessage taskExecutionMessage) {
+        if (!localEndpoints.computeIfAbsent(endpoint, this::isLocal)) {
+            return remoteDispatcher.forwardExecutionMessage(endpoint, taskExecutionMessage);
+        }
+        return executionApiResource.get().receiveTaskAndExecutionData(taskExecutionMessage).getStatus();
+    }
+
+    /**
+     * Checks if the endpoint is the execution api of this node, i.e. its port is the execution api port and its host resolves to an address of this node
+     */
+    boolean isLocal(String endpoint) {
+        try {
+            URI uri = URI.create(endpoint);
+            if (uri.getHost() == null || uri.getPort() != executionApiPort) {
+                return false;
+            }
+            InetAddress address = InetAddress.getByName(uri.getHost());
+            boolean local = address.isLoopbackAddress() || address.isAnyLocalAddress() || NetworkInterface.getByInetAddress(address) != null;
+            logger.info("Execution endpoint: {} is {}", endpoint, local ? "served by this node, tasks are dispatched in-process" : "remote");
+            return local;
+        } catch (Exception e) {
+            logger.warn("Unable to resolve execution endpoint: {}, dispatching over http. Message: {}", endpoint, e.getMessage());
+            return false;
+        }
+    }
+}
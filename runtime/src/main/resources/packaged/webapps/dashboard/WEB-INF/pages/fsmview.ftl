@@ -245,6 +245,7 @@
     <script type="text/javascript">
 
         var eventNameDataMap=new Object();
+        var currentFsmId = null;
         var stateInfoMap= new Object();
         var eventNames = [];
         var graph = new joint.dia.Graph;
@@ -625,6 +626,7 @@
                         layout(data.fsmGraphData, data.initStateEdges);
                         createAuditTable(data.fsmGraphData, data.auditData);
                         displayFsmInfo(data.stateMachineId, data.fsmVersion, data.fsmName);
+                        currentFsmId = data.stateMachineId;
                         // document.getElementById("fsm-unsideline-btn").style.display = 'block';
                         document.getElementById("fsm-state-info-btn").style.display = 'block';
                         document.getElementById("fsm-event-details-btn").style.display='block';
@@ -669,6 +671,7 @@
             for(var i=0;i<data.initStateEdges.length;i++){
                 eventNameDataMap[data.initStateEdges[i].label] = {
                   eventData: data.initStateEdges[i].eventData &&  data.initStateEdges[i].eventData.split("#")[0],
+                  eventName: data.initStateEdges[i].eventName,
                   executionVersion: data.initStateEdges[i].eventData && data.initStateEdges[i].eventData.split("#")[1],
                   status: data.initStateEdges[i].status,
                   updatedAt: data.initStateEdges[i].updatedAt};
@@ -679,6 +682,7 @@
                 if(data.fsmGraphData[stateIdentifier].label != "") {
                   eventNameDataMap[data.fsmGraphData[stateIdentifier].label] = {
                       eventData: data.fsmGraphData[stateIdentifier]["eventData"] && data.fsmGraphData[stateIdentifier]["eventData"].split("#")[0],
+                      eventName: data.fsmGraphData[stateIdentifier]["eventName"],
                       executionVersion: data.fsmGraphData[stateIdentifier]["eventData"] && data.fsmGraphData[stateIdentifier]["eventData"].split("#")[1],
                       status: data.fsmGraphData[stateIdentifier]["status"],
                       updatedAt: data.fsmGraphData[stateIdentifier]["updatedAt"]
@@ -742,7 +746,21 @@
             $('#event-data-select').on('change', function(){
                 clearEventInfoModalParams();
                 var selectedEventName = $(this).find("option:selected").val();
-                $("#event-data-txt-box").append(eventNameDataMap[selectedEventName].eventData);
+                var selectedEvent = eventNameDataMap[selectedEventName];
+                if (!selectedEvent.eventData && selectedEvent.eventName && selectedEvent.executionVersion) {
+                    // event data is not part of fsmdata, fetch it when the event is selected
+                    $.ajax({
+                        url: '${flux_api_url}/api/machines/' + currentFsmId + '/' + selectedEvent.eventName + '/'
+                            + selectedEvent.executionVersion + '/eventdata',
+                        type: 'GET',
+                        success: function (data, status, jqXHR) {
+                            selectedEvent.eventData = data.eventData;
+                            $("#event-data-txt-box").empty().append(selectedEvent.eventData);
+                        }
+                    });
+                } else {
+                    $("#event-data-txt-box").append(selectedEvent.eventData);
+                }
                 $("#event-execution-version-label").append(eventNameDataMap[selectedEventName].executionVersion);
                 $("#event-status-label").append(eventNameDataMap[selectedEventName].status);
                 $("#event-updated-at-label").append(getFormattedDate(new Date(eventNameDataMap[selectedEventName].updatedAt)));
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.client.runtime;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.flux.api.ExecutionUpdateData;
+import com.flipkart.flux.client.config.FluxClientConfiguration;
+import com.flipkart.flux.cluster.OwnershipMap;
+import com.flipkart.flux.resource.StateMachineResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalFluxRuntimeConnectorTest {
+
+    private static final String OWNER = "http://node2:9998/api/machines";
+
+    @Mock
+    StateMachineResource stateMachineResource;
+
+    @Mock
+    OwnershipMap ownershipMap;
+
+    @Mock
+    FluxRuntimeConnector ownerConnector;
+
+    private LocalFluxRuntimeConnector localFluxRuntimeConnector;
+
+    private String createdOwnerConnector;
+
+    @Before
+    public void setUp() throws Exception {
+        localFluxRuntimeConnector = new LocalFluxRuntimeConnector(() -> stateMachineResource, new ObjectMapper(), ownershipMap,
+                new FluxClientConfiguration()) {
+            @Override
+            FluxRuntimeConnector createOwnerConnector(String ownerEndpoint) {
+                createdOwnerConnector = ownerEndpoint;
+                return ownerConnector;
+            }
+        };
+        when(stateMachineResource.updateStatus(anyString(), anyLong(), anyLong(), any(ExecutionUpdateData.class)))
+                .thenReturn(Response.status(Response.Status.ACCEPTED).build());
+    }
+
+    @Test
+    public void testUpdateExecutionStatus_shouldPostToRemoteOwner() throws Exception {
+        ExecutionUpdateData executionUpdateData = getExecutionUpdateData();
+        when(ownershipMap.isEnabled()).thenReturn(true);
+        when(ownershipMap.getRemoteOwner("standard-machine")).thenReturn(OWNER);
+
+        localFluxRuntimeConnector.updateExecutionStatus(executionUpdateData);
+
+        assertThat(createdOwnerConnector).isEqualTo(OWNER);
+        verify(ownerConnector).updateExecutionStatus(executionUpdateData);
+        verifyZeroInteractions(stateMachineResource);
+    }
+
+    @Test
+    public void testUpdateExecutionStatus_shouldInvokeResourceForStateMachinesOwnedByThisNode() throws Exception {
+        ExecutionUpdateData executionUpdateData = getExecutionUpdateData();
+        when(ownershipMap.isEnabled()).thenReturn(true);
+        when(ownershipMap.getRemoteOwner("standard-machine")).thenReturn(null);
+
+        localFluxRuntimeConnector.updateExecutionStatus(executionUpdateData);
+
+        verify(stateMachineResource).updateStatus("standard-machine", executionUpdateData.getTaskId(),
+                executionUpdateData.getTaskExecutionVersion(), executionUpdateData);
+        verifyZeroInteractions(ownerConnector);
+    }
+
+    @Test
+    public void testUpdateExecutionStatus_shouldInvokeResourceWhenOwnershipIsDisabled() throws Exception {
+        ExecutionUpdateData executionUpdateData = getExecutionUpdateData();
+        when(ownershipMap.isEnabled()).thenReturn(false);
+
+        localFluxRuntimeConnector.updateExecutionStatus(executionUpdateData);
+
+        verify(ownershipMap, never()).getRemoteOwner(anyString());
+        verify(stateMachineResource).updateStatus("standard-machine", executionUpdateData.getTaskId(),
+                executionUpdateData.getTaskExecutionVersion(), executionUpdateData);
+        assertThat(createdOwnerConnector).isNull();
+    }
+
+    private static ExecutionUpdateData getExecutionUpdateData() {
+        return new ExecutionUpdateData("standard-machine", "standard-machine", "someTask", 1L,
+                com.flipkart.flux.api.Status.completed, 3, 0, null, false, null, 0L);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.cluster;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.flipkart.flux.api.OwnershipTable;
+import com.flipkart.flux.persistence.CryptHashGenerator;
+
+import akka.actor.Address;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OwnershipMapTest {
+
+    private static final String NODE1 = "http://node1:9998/api/machines";
+    private static final String NODE2 = "http://node2:9998/api/machines";
+    private static final String NODE3 = "http://node3:9998/api/machines";
+
+    @Test
+    public void testMembersChanged_shouldAssignAllBucketsToMembers() throws Exception {
+        OwnershipMap ownershipMap = new OwnershipMap(null, true, 9998);
+        assertThat(ownershipMap.getOwnershipTable().getOwners()).isEmpty();
+
+        ownershipMap.membersChanged(NODE1, Arrays.asList(NODE1, NODE2, NODE3));
+
+        Map<String, String> owners = ownershipMap.getOwnershipTable().getOwners();
+        assertThat(owners).hasSize(256);
+        assertThat(owners.values()).contains(NODE1, NODE2, NODE3);
+    }
+
+    @Test
+    public void testGetRemoteOwner_shouldReturnNullForStateMachinesOwnedByThisNode() throws Exception {
+        OwnershipMap ownershipMap = new OwnershipMap(null, true, 9998);
+        ownershipMap.membersChanged(NODE1, Arrays.asList(NODE1, NODE2));
+        OwnershipTable ownershipTable = ownershipMap.getOwnershipTable();
+
+        for (int i = 0; i < 100; i++) {
+            String stateMachineId = UUID.randomUUID().toString();
+            String owner = ownershipTable.getOwner(stateMachineId);
+            assertThat(ownershipMap.getRemoteOwner(stateMachineId)).isEqualTo(owner.equals(NODE1) ? null : owner);
+        }
+    }
+
+    @Test
+    public void testMembersChanged_shouldOnlyMoveBucketsOfDepartedMember() throws Exception {
+        OwnershipMap ownershipMap = new OwnershipMap(null, true, 9998);
+        ownershipMap.membersChanged(NODE1, Arrays.asList(NODE1, NODE2, NODE3));
+        Map<String, String> before = ownershipMap.getOwnershipTable().getOwners();
+
+        ownershipMap.membersChanged(NODE1, Arrays.asList(NODE3, NODE1));
+        Map<String, String> after = ownershipMap.getOwnershipTable().getOwners();
+
+        assertThat(after).hasSize(256);
+        assertThat(after.values()).doesNotContain(NODE2);
+        before.forEach((bucket, owner) -> {
+            if (!owner.equals(NODE2)) {
+                assertThat(after.get(bucket)).isEqualTo(owner);
+            }
+        });
+    }
+
+    @Test
+    public void testOwnershipTable_shouldBucketStateMachinesAsShardKeys() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String stateMachineId = UUID.randomUUID().toString();
+            assertThat(OwnershipTable.getBucket(stateMachineId)).isEqualTo(CryptHashGenerator.getUniformCryptHash(stateMachineId));
+        }
+    }
+
+    @Test
+    public void testGetEndpoint_shouldUseHostOfMemberWithApiPort() throws Exception {
+        OwnershipMap ownershipMap = new OwnershipMap(null, true, 9998);
+        assertThat(ownershipMap.getEndpoint(new Address("akka.tcp", "FluxOrchestrationSystem", "node1", 2551))).isEqualTo(NODE1);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.controller;
+
+import com.flipkart.flux.exception.IllegalEventException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class StateMachineEventSerializerTest {
+
+    @Test
+    public void testExecute_shouldNotRunEventsOfAStateMachineConcurrently() throws Exception {
+        StateMachineEventSerializer serializer = new StateMachineEventSerializer(4, false);
+        AtomicInteger running = new AtomicInteger();
+        List<Integer> maxRunning = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(16);
+        for (int i = 0; i < 16; i++) {
+            callers.submit(() -> {
+                serializer.execute("sm1", () -> {
+                    maxRunning.add(running.incrementAndGet());
+                    Thread.sleep(5);
+                    return running.decrementAndGet();
+                });
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        callers.shutdown();
+
+        assertThat(maxRunning).hasSize(16).containsOnly(1);
+    }
+
+    @Test(expected = IllegalEventException.class)
+    public void testExecute_shouldRethrowExceptionOfEvent() throws Exception {
+        new StateMachineEventSerializer(4, false).execute("sm1", () -> {
+            throw new IllegalEventException("event not found");
+        });
+    }
+
+    @Test
+    public void testSubmit_shouldRunEventsOfAStateMachineInOrderWithoutWaiting() throws Exception {
+        StateMachineEventSerializer serializer = new StateMachineEventSerializer(4, false);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstEventStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Integer> first = serializer.submit("sm1", () -> {
+            firstEventStarted.countDown();
+            release.await();
+            order.add(1);
+            return 1;
+        });
+        CompletableFuture<Integer> second = serializer.submit("sm1", () -> {
+            order.add(2);
+            return 2;
+        });
+        CompletableFuture<Integer> failed = serializer.submit("sm2", () -> {
+            throw new IllegalEventException("event not found");
+        });
+        assertThat(firstEventStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.isDone()).isFalse();
+        release.countDown();
+
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(first.get()).isEqualTo(1);
+        assertThat(order).containsExactly(1, 2);
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            fail("Exception of the event should complete its future");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalEventException.class);
+        }
+    }
+
+    @Test
+    public void testExecute_shouldRunNestedEventsOfSameStateMachineInline() throws Exception {
+        StateMachineEventSerializer serializer = new StateMachineEventSerializer(4, true);
+
+        assertThat(serializer.execute("sm1", () -> serializer.execute("sm1", () -> "done"))).isEqualTo("done");
+        assertThat(serializer.isExclusive()).isTrue();
+        assertThat(new StateMachineEventSerializer(0, true).isExclusive()).isFalse();
+    }
+}
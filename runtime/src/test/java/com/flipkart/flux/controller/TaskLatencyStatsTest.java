@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.controller;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskLatencyStatsTest {
+
+    private static final String TASK_TYPE = "com.flipkart.flux.SomeWorkflow_someTask";
+
+    /** Time an attempt of a task with a 100ms timeout may take */
+    private static final long MIN_INTERVAL = 2100;
+
+    @Test
+    public void testGetRedriveInterval_shouldUseDefaultWithoutEnoughLatencies() throws Exception {
+        TaskLatencyStats taskLatencyStats = new TaskLatencyStats(true, 1000, 60000, 10);
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, MIN_INTERVAL, 32800)).isEqualTo(32800);
+
+        for (int i = 0; i < 9; i++) {
+            taskLatencyStats.record(TASK_TYPE, 100);
+        }
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, MIN_INTERVAL, 32800)).isEqualTo(32800);
+    }
+
+    @Test
+    public void testGetRedriveInterval_shouldDeriveFromP99WithinBounds() throws Exception {
+        TaskLatencyStats taskLatencyStats = new TaskLatencyStats(true, 1000, 60000, 10);
+        for (int i = 0; i < 100; i++) {
+            taskLatencyStats.record(TASK_TYPE, 2000);
+        }
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, MIN_INTERVAL, 32800)).isEqualTo(4000);
+
+        taskLatencyStats.record("fastTask", 1);
+        for (int i = 0; i < 10; i++) {
+            taskLatencyStats.record("fastTask", 10);
+            taskLatencyStats.record("slowTask", 100000);
+        }
+        assertThat(taskLatencyStats.getRedriveInterval("fastTask", 0, 32800)).isEqualTo(1000);
+        assertThat(taskLatencyStats.getRedriveInterval("slowTask", MIN_INTERVAL, 32800)).isEqualTo(60000);
+    }
+
+    @Test
+    public void testGetRedriveInterval_shouldNotBeLessThanAnAttemptOfTheTask() throws Exception {
+        TaskLatencyStats taskLatencyStats = new TaskLatencyStats(true, 1000, 60000, 10);
+        for (int i = 0; i < 100; i++) {
+            taskLatencyStats.record(TASK_TYPE, 2000);
+        }
+        // the p99 is below the 10s timeout of the task, an attempt of which may take 2^1 x 1s + 10s
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, 12000, 44000)).isEqualTo(12000);
+    }
+
+    @Test
+    public void testCompleted_shouldRecordLatencyOfDispatchedTask() throws Exception {
+        TaskLatencyStats taskLatencyStats = new TaskLatencyStats(true, 1000, 60000, 1);
+        taskLatencyStats.dispatched(TASK_TYPE, "smId", 1L, 0L);
+        taskLatencyStats.completed("smId", 1L, 1L); // a different execution of the task
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, MIN_INTERVAL, 32800)).isEqualTo(32800);
+
+        taskLatencyStats.completed("smId", 1L, 0L);
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, MIN_INTERVAL, 32800)).isEqualTo(MIN_INTERVAL);
+    }
+
+    @Test
+    public void testGetRedriveInterval_shouldUseDefaultWhenDisabled() throws Exception {
+        TaskLatencyStats taskLatencyStats = new TaskLatencyStats(false, 1000, 60000, 1);
+        taskLatencyStats.dispatched(TASK_TYPE, "smId", 1L, 0L);
+        taskLatencyStats.completed("smId", 1L, 0L);
+        assertThat(taskLatencyStats.getRedriveInterval(TASK_TYPE, MIN_INTERVAL, 8400)).isEqualTo(8400);
+    }
+}
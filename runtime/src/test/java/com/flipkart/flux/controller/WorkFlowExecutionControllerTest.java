@@ -15,11 +15,17 @@
 package com.flipkart.flux.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyObject;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import akka.actor.ActorSystem;
@@ -35,6 +41,8 @@ import com.flipkart.flux.api.core.TaskExecutionMessage;
 import com.flipkart.flux.constant.RuntimeConstants;
 import com.flipkart.flux.dao.iface.AuditDAO;
 import com.flipkart.flux.dao.iface.EventsDAO;
+import com.flipkart.flux.dao.iface.MapStateChunksDAO;
+import com.flipkart.flux.dao.iface.MapStateChunksDAO.ChunkStatus;
 import com.flipkart.flux.dao.iface.StateMachinesDAO;
 import com.flipkart.flux.dao.iface.StateTraversalPathDAO;
 import com.flipkart.flux.dao.iface.StatesDAO;
@@ -68,6 +76,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -108,6 +117,9 @@ public class WorkFlowExecutionControllerTest {
     @Mock
     private ReplayEventPersistenceService replayEventPersistenceService;
 
+    @Mock
+    private MapStateChunksDAO mapStateChunksDAO;
+
     private WorkFlowExecutionController workFlowExecutionController;
     private ObjectMapper objectMapper;
 
@@ -116,8 +128,10 @@ public class WorkFlowExecutionControllerTest {
         Thread.sleep(1000);
         workFlowExecutionController = new WorkFlowExecutionController(eventsDAO, stateMachinesDAO, statesDAO, auditDAO,
                 stateTraversalPathDAO, executionNodeTaskDispatcher, redriverRegistry, metricsClient,
-                clientElbPersistenceService, replayEventPersistenceService);
+                clientElbPersistenceService, replayEventPersistenceService, 100, 60, new StateMachineEventSerializer(0, false), mapStateChunksDAO,
+                new TaskLatencyStats(false, 1000, 3600000, 50));
         when(stateMachinesDAO.findById(anyString())).thenReturn(TestUtils.getStandardTestMachineWithId());
+        when(statesDAO.markDispatched(anyString(), anyLong(), anyLong())).thenReturn(1);
         when(clientElbPersistenceService.findByIdClientElb(anyString())).thenReturn("http://localhost:9997");
         actorSystem = ActorSystem.create("testActorSystem", ConfigFactory.load("testAkkaActorSystem"));
         mockActor = TestActorRef.create(actorSystem, Props.create(MockActorRef.class));
@@ -238,12 +252,148 @@ public class WorkFlowExecutionControllerTest {
 
         state.setStatus(Status.errored);
 
-        //post the event again, this should send msg to router again for execution
-        workFlowExecutionController.postEvent(testEventData, "standard-machine");
+        //post the event again with different data, this should send msg to router again for execution
+        workFlowExecutionController.postEvent(new VersionedEventData("event0", "java.lang.String", "43", "runtime"), "standard-machine");
         verify(executionNodeTaskDispatcher, times(2)).forwardExecutionMessage(anyString(), anyObject());
         verifyNoMoreInteractions(executionNodeTaskDispatcher);
     }
 
+    @Test
+    public void testEventPost_shouldDiscardDuplicateEvent() throws Exception {
+        final VersionedEventData testEventData = new VersionedEventData("event0", "java.lang.String",
+                "42", "runtime");
+
+        when(eventsDAO.findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event0",
+                0L)).thenReturn(new Event("event0", "java.lang.String",
+                Event.EventStatus.pending, "1", null, null));
+        when(eventsDAO.findTriggeredOrCancelledEventsNamesBySMId("standard-machine")).thenReturn(Collections.singletonList("event0"));
+        when(executionNodeTaskDispatcher.forwardExecutionMessage(anyString(), anyObject())).thenReturn(Response.Status.ACCEPTED.getStatusCode());
+        workFlowExecutionController.postEvent(testEventData, "standard-machine");
+        workFlowExecutionController.postEvent(new VersionedEventData("event0", "java.lang.String", "42", "runtime"), "standard-machine");
+
+        verify(eventsDAO, times(1)).findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event0", 0L);
+        verify(executionNodeTaskDispatcher, times(1)).forwardExecutionMessage(anyString(), anyObject());
+    }
+
+    @Test
+    public void testEventPost_shouldDiscardEventAlreadyPersisted() throws Exception {
+        // e.g. re-posted after a restart, or to another orchestrator, where the event is not cached as processed
+        when(eventsDAO.findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event0",
+                0L)).thenReturn(new Event("event0", "java.lang.String",
+                Event.EventStatus.triggered, "standard-machine", "42", "runtime"));
+        Set<State> executableStates = workFlowExecutionController.postEvent(new VersionedEventData("event0", "java.lang.String",
+                "42", "runtime"), "standard-machine");
+        workFlowExecutionController.postEvent(new VersionedEventData("event0", "java.lang.String", "42", "runtime"), "standard-machine");
+
+        assertThat(executableStates).isEmpty();
+        verify(eventsDAO, times(1)).findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event0", 0L);
+        verify(eventsDAO, never()).updateEvent(anyString(), any(Event.class));
+        verify(statesDAO, never()).markDependencyMet(anyString(), anyString());
+        verify(statesDAO, never()).markDispatched(anyString(), anyLong(), anyLong());
+        verifyZeroInteractions(executionNodeTaskDispatcher, redriverRegistry);
+    }
+
+    @Test
+    public void testEventPost_shouldNotDispatchStateDispatchedAlready() throws Exception {
+        final VersionedEventData testEventData = new VersionedEventData("event0", "java.lang.String",
+                "42", "runtime");
+
+        when(eventsDAO.findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event0",
+                0L)).thenReturn(new Event("event0", "java.lang.String",
+                Event.EventStatus.pending, "1", null, null));
+        when(eventsDAO.findTriggeredOrCancelledEventsNamesBySMId("standard-machine")).thenReturn(Collections.singletonList("event0"));
+        when(statesDAO.markDispatched(anyString(), anyLong(), anyLong())).thenReturn(0);
+        workFlowExecutionController.postEvent(testEventData, "standard-machine");
+
+        verify(statesDAO).markDispatched("standard-machine", 4L, 0L);
+        verifyZeroInteractions(executionNodeTaskDispatcher, redriverRegistry);
+    }
+
+    @Test
+    public void testEventPost_shouldEvaluateJoinUsingPendingDependencies() throws Exception {
+        StateMachine stateMachine = TestUtils.getStandardTestMachineWithId();
+        State state3 = stateMachine.getStates().stream().filter((s) -> s.getId() == 3L).findFirst().orElse(null);
+        state3.setPendingDependencies(1);
+        when(stateMachinesDAO.findById(anyString())).thenReturn(stateMachine);
+        when(eventsDAO.findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event3",
+                0L)).thenReturn(new Event("event3", "java.lang.Integer",
+                Event.EventStatus.pending, "standard-machine", null, null));
+
+        workFlowExecutionController.postEvent(new VersionedEventData("event3", "java.lang.Integer", "42", "runtime"), "standard-machine");
+        verify(statesDAO).markDependencyMet("standard-machine", "event3");
+        verify(statesDAO, never()).markDispatched(anyString(), anyLong(), anyLong());
+
+        // the other dependency has been met
+        state3.setPendingDependencies(0);
+        workFlowExecutionController.postEvent(new VersionedEventData("event3", "java.lang.Integer", "43", "runtime"), "standard-machine");
+        verify(statesDAO).markDispatched("standard-machine", 3L, 0L);
+        verify(eventsDAO, never()).findTriggeredOrCancelledEventsNamesBySMId(anyString());
+        verify(eventsDAO, never()).findAllValidReplayEventsNamesBySMId(anyString());
+    }
+
+    @Test
+    public void testEventPost_shouldDispatchMapStateInChunksUpToConcurrency() throws Exception {
+        StateMachine stateMachine = TestUtils.getStandardTestMachineWithId();
+        State state4 = stateMachine.getStates().stream().filter((s) -> s.getId() == 4L).findFirst().orElse(null);
+        state4.setMapChunkSize(2);
+        state4.setMapConcurrency(2);
+        when(stateMachinesDAO.findById(anyString())).thenReturn(stateMachine);
+        final VersionedEventData collectionEventData = new VersionedEventData("event0", "java.lang.String", "[\"a\",\"b\",\"c\",\"d\",\"e\"]", "runtime");
+        when(eventsDAO.findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event0",
+                0L)).thenReturn(new Event("event0", "java.lang.String", Event.EventStatus.pending, "standard-machine", null, null));
+        when(eventsDAO.findTriggeredOrCancelledEventsNamesBySMId("standard-machine")).thenReturn(Collections.singletonList("event0"));
+        final List<String> chunks = workFlowExecutionController.splitIntoChunks(collectionEventData, 2);
+        when(mapStateChunksDAO.findChunkIndexes("standard-machine", 4L, 0L, ChunkStatus.pending, 2)).thenReturn(Arrays.asList(0, 1));
+        when(mapStateChunksDAO.updateStatus(eq("standard-machine"), eq(4L), eq(0L), anyInt(), eq(ChunkStatus.pending), eq(ChunkStatus.dispatched),
+                eq((String) null))).thenReturn(1);
+        when(mapStateChunksDAO.findInput("standard-machine", 4L, 0L, 0)).thenReturn(chunks.get(0));
+        when(mapStateChunksDAO.findInput("standard-machine", 4L, 0L, 1)).thenReturn(chunks.get(1));
+        when(executionNodeTaskDispatcher.forwardExecutionMessage(anyString(), anyObject())).thenReturn(Response.Status.ACCEPTED.getStatusCode());
+
+        workFlowExecutionController.postEvent(collectionEventData, "standard-machine");
+
+        assertThat(chunks).hasSize(3);
+        verify(mapStateChunksDAO).createChunks("standard-machine", 4L, 0L, chunks);
+        ArgumentCaptor<TaskExecutionMessage> messages = ArgumentCaptor.forClass(TaskExecutionMessage.class);
+        verify(executionNodeTaskDispatcher, times(2)).forwardExecutionMessage(anyString(), messages.capture());
+        assertThat(messages.getAllValues().get(0).getAkkaMessage().getMapChunk()).isEqualTo(0);
+        assertThat(messages.getAllValues().get(0).getAkkaMessage().getEvents()[0].getData()).isEqualTo("[\"a\",\"b\"]");
+        assertThat(messages.getAllValues().get(1).getAkkaMessage().getMapChunk()).isEqualTo(1);
+        assertThat(messages.getAllValues().get(1).getAkkaMessage().getEvents()[0].getData()).isEqualTo("[\"c\",\"d\"]");
+    }
+
+    @Test
+    public void testMapChunkCompletion_shouldCompleteMapStateWithConcatenatedOutputs() throws Exception {
+        StateMachine stateMachine = TestUtils.getStandardTestMachineWithId();
+        State state4 = stateMachine.getStates().stream().filter((s) -> s.getId() == 4L).findFirst().orElse(null);
+        state4.setMapChunkSize(2);
+        state4.setMapConcurrency(2);
+        state4.setStatus(Status.running);
+        when(stateMachinesDAO.findById(anyString())).thenReturn(stateMachine);
+        when(statesDAO.findById("standard-machine", 4L)).thenReturn(state4);
+        when(mapStateChunksDAO.updateStatus("standard-machine", 4L, 0L, 1, ChunkStatus.dispatched, ChunkStatus.completed, "[3]")).thenReturn(1);
+        when(mapStateChunksDAO.findOutputs("standard-machine", 4L, 0L)).thenReturn(Arrays.asList("[1,2]", "[3]"));
+        when(statesDAO.updateStatus("standard-machine", 4L, 0L, Status.completed)).thenReturn(1);
+        Event event3 = new Event("event3", "java.lang.Integer", Event.EventStatus.pending, "standard-machine", null, null);
+        when(eventsDAO.findValidEventsByStateMachineIdAndExecutionVersionAndName("standard-machine", "event3", 0L)).thenReturn(event3);
+        ExecutionUpdateData chunkCompletion = new ExecutionUpdateData("standard-machine", "test_state_machine", "test_state4", 4L,
+                com.flipkart.flux.api.Status.completed, 3L, 0L, null, true, null, 0L);
+        chunkCompletion.setMapChunk(1);
+
+        workFlowExecutionController.updateMapChunkStatus("standard-machine", chunkCompletion,
+                new VersionedEventData("event3", "java.lang.Integer", "[3]", "managedRuntime", 0L));
+
+        verify(statesDAO).updateStatus("standard-machine", 4L, 0L, Status.completed);
+        assertThat(event3.getEventData()).isEqualTo("[1,2,3]");
+        assertThat(event3.getStatus()).isEqualTo(Event.EventStatus.triggered);
+        verify(mapStateChunksDAO).deleteChunks("standard-machine", 4L);
+
+        // a duplicate completion of the chunk is discarded
+        workFlowExecutionController.updateMapChunkStatus("standard-machine", chunkCompletion,
+                new VersionedEventData("event3", "java.lang.Integer", "[4]", "managedRuntime", 0L));
+        verify(statesDAO, times(1)).updateStatus("standard-machine", 4L, 0L, Status.completed);
+    }
+
     @Test
     public void testEventPost_shouldNotSendExecuteTaskIfItIsCancelled() throws Exception {
         final VersionedEventData testEventData = new VersionedEventData("event0", "java.lang.String",
@@ -358,34 +508,47 @@ public class WorkFlowExecutionControllerTest {
 
     @Test
     public void testUpdateTaskStatusBehaviourWhenTaskStatusIsUpdatedToRunning() {
-        when(statesDAO.findById("random-state-machine", 1L)).thenReturn(
-                new State(1L, "random-state", null, null, null, null,
-                        new ArrayList<>(), 0L, 1000L, null, Status.initialized,
-                        null, 0L, "random-state-machine", 1L));
+        when(statesDAO.updateStatus("random-state-machine", 1L, 0L, Status.running)).thenReturn(1);
         workFlowExecutionController.updateTaskStatus("random-state-machine", 1L, 0L,
                 new ExecutionUpdateData("random-state-machine", "someStateMachine",
                         "someTask", 1L, com.flipkart.flux.api.Status.running,
                         0, 1, "", false, ""));
-        verify(statesDAO).updateStatus("random-state-machine", 1L, Status.running);
+        verify(statesDAO).updateStatus("random-state-machine", 1L, 0L, Status.running);
         verify(auditDAO).create("random-state-machine", new AuditRecord("random-state-machine", 1L, 1L, Status.running, null, ""));
         verifyNoMoreInteractions(redriverRegistry);
     }
 
     @Test
     public void testUpdateTaskStatusBehaviourWhenTaskStatusIsUpdatedToCompleted() {
-        when(statesDAO.findById("random-state-machine", 1L)).thenReturn(
-                new State(1L, "random-state", null, null, null, null,
-                        new ArrayList<>(), 0L, 1000L, null, Status.initialized,
-                        null, 0L, "random-state-machine", 1L));
+        when(statesDAO.updateStatus("random-state-machine", 1L, 0L, Status.completed)).thenReturn(1);
         workFlowExecutionController.updateTaskStatus("random-state-machine", 1L, 0L,
                 new ExecutionUpdateData("random-state-machine", "someStateMachine",
                         "someTask", 1L, com.flipkart.flux.api.Status.completed,
                         0, 1, "", true, ""));
-        verify(statesDAO).updateStatus("random-state-machine", 1L, Status.completed);
+        verify(statesDAO).updateStatus("random-state-machine", 1L, 0L, Status.completed);
         verify(auditDAO).create("random-state-machine", new AuditRecord("random-state-machine", 1L, 1L, Status.completed, null, ""));
         verify(redriverRegistry).deRegisterTask("random-state-machine", 1L, 0L);
     }
 
+    @Test
+    public void testUpdateTaskStatusBehaviourWhenUpdateIsStaleOrDuplicate() {
+        when(statesDAO.updateStatus("random-state-machine", 1L, 0L, Status.completed)).thenReturn(0);
+        workFlowExecutionController.updateTaskStatus("random-state-machine", 1L, 0L,
+                new ExecutionUpdateData("random-state-machine", "someStateMachine",
+                        "someTask", 1L, com.flipkart.flux.api.Status.completed,
+                        0, 1, "", true, ""));
+        verify(auditDAO, never()).create(anyString(), anyObject());
+        verify(redriverRegistry).deRegisterTask("random-state-machine", 1L, 0L);
+    }
+
+    @Test
+    public void testIncrementExecutionRetries_shouldUseConditionalUpdate() {
+        when(statesDAO.incrementRetryCount("random-state-machine", 1L, 2L)).thenReturn(0);
+        workFlowExecutionController.incrementExecutionRetries("random-state-machine", 1L, 2L);
+        verify(statesDAO).incrementRetryCount("random-state-machine", 1L, 2L);
+        verify(statesDAO, never()).findById("random-state-machine", 1L);
+    }
+
     @Test(expected = TraversalPathException.class)
     public void testPostReplayEventWithNoTraversalPathExists() throws IllegalEventException, IOException {
 
@@ -399,4 +399,26 @@ public class EventsDAOTest {
         assertThat(eventsDAO.findBySmIdAndNameAndVersion(standardTestMachine.getId(),event2.getName(),1l)).isEqualTo(event2);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindEventMetadata_shouldNotReadEventData() throws Exception{
+        final StateMachine standardTestMachine = TestUtils.getStandardTestMachine();
+        stateMachinesDAO.create(standardTestMachine.getId(),standardTestMachine);
+
+        final Event event1 = new Event("event1","someType",EventStatus.triggered,standardTestMachine.getId(),
+            "{\"key\":\"value\"}","someSource",0l);
+        eventsDAO.create(standardTestMachine.getId(),event1);
+        final Event event2 = new Event("event2", "someType", EventStatus.invalid,
+            standardTestMachine.getId(), "{}", null,1l);
+        eventsDAO.create(event2.getStateMachineInstanceId(), event2);
+
+        Event event = eventsDAO.findValidEventMetadataBySMIdAndName(standardTestMachine.getId(), "event1");
+        assertThat(event.getEventData()).isNull();
+        assertThat(event.getStatus()).isEqualTo(EventStatus.triggered);
+        assertThat(event.getEventSource()).isEqualTo("someSource");
+        assertThat(event.getExecutionVersion()).isEqualTo(0l);
+        assertThat(eventsDAO.findValidEventMetadataBySMIdAndName(standardTestMachine.getId(), "event2")).isNull();
+        assertThat(eventsDAO.findAllMetadataBySMIdAndName(standardTestMachine.getId(), "event2")).hasSize(1);
+        assertThat(eventsDAO.findMetadataBySMInstanceId(standardTestMachine.getId())).extracting("name").containsOnly("event1");
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.dao;
+
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StateMachineArchiveDAOImplTest {
+
+    @Test
+    public void testGetMonthlyBoundaries_shouldCoverUpToFromStartOfMonth() throws Exception {
+        long from = epochSecond(2026, 8, 17);
+        long upTo = epochSecond(2026, 10, 1);
+
+        assertThat(StateMachineArchiveDAOImpl.getMonthlyBoundaries(from, upTo))
+                .containsExactly(epochSecond(2026, 9, 1), epochSecond(2026, 10, 1), epochSecond(2026, 11, 1));
+    }
+
+    @Test
+    public void testGetMonthlyBoundaries_shouldAddNothingWhenLastBoundaryIsAhead() throws Exception {
+        assertThat(StateMachineArchiveDAOImpl.getMonthlyBoundaries(epochSecond(2026, 11, 1), epochSecond(2026, 10, 19))).isEmpty();
+    }
+
+    @Test
+    public void testGetPartitionName_shouldUseUtcDate() throws Exception {
+        assertThat(StateMachineArchiveDAOImpl.getPartitionName(epochSecond(2027, 1, 1))).isEqualTo("p20270101");
+    }
+
+    private static long epochSecond(int year, int month, int day) {
+        return ZonedDateTime.of(year, month, day, 0, 0, 0, 0, ZoneOffset.UTC).toEpochSecond();
+    }
+}
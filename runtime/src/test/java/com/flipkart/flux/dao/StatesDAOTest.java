@@ -28,6 +28,7 @@ import com.flipkart.flux.module.RuntimeTestModule;
 import com.flipkart.flux.rule.DbClearWithTestSMRule;
 import com.flipkart.flux.runner.GuiceJunit4Runner;
 import com.flipkart.flux.runner.Modules;
+import com.flipkart.flux.util.TestUtils;
 
 /**
  * <code>StatesDAOTest</code> class tests the functionality of {@link StatesDAO} using JUnit tests.
@@ -83,6 +84,33 @@ public class StatesDAOTest {
         assertThat(state1.getAttemptedNumOfRetries() + 1).isEqualTo(state2.getAttemptedNumOfRetries());
     }
 
+    @Test
+    public void testConditionalUpdateStatus_shouldRejectStaleAndDisallowedTransitions() throws Exception {
+        StateMachine stateMachine = dbClearWithTestSMRule.getStateMachine();
+        Long executionVersion = statesDAO.findById(stateMachine.getId(), 1L).getExecutionVersion();
+        assertThat(statesDAO.updateStatus(stateMachine.getId(), 1L, executionVersion + 1, Status.running)).isEqualTo(0);
+        assertThat(statesDAO.updateStatus(stateMachine.getId(), 1L, executionVersion, Status.completed)).isEqualTo(1);
+        assertThat(statesDAO.updateStatus(stateMachine.getId(), 1L, executionVersion, Status.running)).isEqualTo(0);
+        assertThat(statesDAO.incrementRetryCount(stateMachine.getId(), 1L, executionVersion)).isEqualTo(0);
+        assertThat(statesDAO.findById(stateMachine.getId(), 1L).getStatus()).isEqualTo(Status.completed);
+    }
+
+    @Test
+    public void testMarkDependencyMet_shouldDecrementPendingDependenciesOncePerEvent() throws Exception {
+        StateMachine stateMachine = TestUtils.getStandardTestMachine();
+        for (State state : stateMachine.getStates()) {
+            state.setPendingDependencies(state.getDependencies().size());
+        }
+        stateMachinesDAO.create(stateMachine.getId(), stateMachine);
+        // state 3 depends on event2 and event3
+        statesDAO.markDependencyMet(stateMachine.getId(), "event2");
+        statesDAO.markDependencyMet(stateMachine.getId(), "event2");
+        assertThat(statesDAO.findById(stateMachine.getId(), 3L).getPendingDependencies()).isEqualTo(1);
+        statesDAO.markDependencyMet(stateMachine.getId(), "event3");
+        assertThat(statesDAO.findById(stateMachine.getId(), 3L).getPendingDependencies()).isEqualTo(0);
+        assertThat(statesDAO.findById(stateMachine.getId(), 2L).getPendingDependencies()).isEqualTo(1);
+    }
+
     @Test
     public void testUpdateExecutionVersion() throws Exception {
         StateMachine stateMachine = dbClearWithTestSMRule.getStateMachine();
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.deploymentunit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskMethodIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path deploymentUnitDir;
+    private Path jar;
+
+    @Before
+    public void setUp() throws Exception {
+        deploymentUnitDir = temporaryFolder.getRoot().toPath();
+        jar = Files.write(deploymentUnitDir.resolve("workflow.jar"), new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testIndex_shouldResolveWrittenTaskMethods() throws Exception {
+        Map<String, Method> taskMethods = new HashMap<>();
+        taskMethods.put("task1", TestWorkflow2.class.getMethod("testTask"));
+        taskMethods.put("task2", IndexedTasks.class.getMethod("process", int.class, String[].class, String.class));
+
+        TaskMethodIndex.forDeploymentUnit(deploymentUnitDir, Collections.singletonList(jar)).write(taskMethods);
+
+        assertThat(TaskMethodIndex.forDeploymentUnit(deploymentUnitDir, Collections.singletonList(jar)).read(getClass().getClassLoader()))
+                .isEqualTo(taskMethods);
+    }
+
+    @Test
+    public void testIndex_shouldBeIgnoredOnceJarsChange() throws Exception {
+        TaskMethodIndex.forDeploymentUnit(deploymentUnitDir, Collections.singletonList(jar))
+                .write(Collections.singletonMap("task1", TestWorkflow2.class.getMethod("testTask")));
+
+        Files.write(jar, new byte[]{1, 2, 4});
+
+        assertThat(TaskMethodIndex.forDeploymentUnit(deploymentUnitDir, Collections.singletonList(jar)).read(getClass().getClassLoader())).isNull();
+    }
+
+    public static class IndexedTasks {
+        public void process(int count, String[] names, String name) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.flipkart.flux.cluster.OwnershipMap;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OwnerForwardingFilterTest {
+
+    @Mock
+    private OwnershipMap ownershipMap;
+
+    @Mock
+    private ContainerRequestContext requestContext;
+
+    @Mock
+    private UriInfo uriInfo;
+
+    private OwnerForwardingFilter ownerForwardingFilter;
+
+    @Before
+    public void setUp() throws Exception {
+        ownerForwardingFilter = new OwnerForwardingFilter(ownershipMap, 2, 2, 500, 500);
+        MultivaluedMap<String, String> pathParameters = new MultivaluedHashMap<>();
+        pathParameters.putSingle("machineId", "sm1");
+        when(ownershipMap.isEnabled()).thenReturn(true);
+        when(requestContext.getUriInfo()).thenReturn(uriInfo);
+        when(requestContext.getMethod()).thenReturn("POST");
+        when(requestContext.getEntityStream()).thenReturn(new ByteArrayInputStream("{}".getBytes()));
+        when(uriInfo.getPathParameters()).thenReturn(pathParameters);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:9998/api/machines/sm1/context/events"));
+        when(uriInfo.getPath()).thenReturn("machines/sm1/context/events");
+    }
+
+    @Test
+    public void testFilter_shouldHandleLocallyWhenOwnerCannotBeConnectedTo() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        when(ownershipMap.getRemoteOwner("sm1")).thenReturn("http://localhost:" + port);
+
+        ownerForwardingFilter.filter(requestContext);
+
+        verify(requestContext, never()).abortWith(any(Response.class));
+        verify(requestContext).setEntityStream(any(InputStream.class));
+    }
+
+    @Test
+    public void testFilter_shouldFailWithGatewayTimeoutWhenOwnerDoesNotRespond() throws Exception {
+        // connections are accepted by the backlog of the socket but never answered
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            when(ownershipMap.getRemoteOwner("sm1")).thenReturn("http://localhost:" + serverSocket.getLocalPort());
+
+            ownerForwardingFilter.filter(requestContext);
+        }
+
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(requestContext).abortWith(response.capture());
+        assertThat(response.getValue().getStatus()).isEqualTo(Response.Status.GATEWAY_TIMEOUT.getStatusCode());
+        verify(requestContext, never()).setEntityStream(any(InputStream.class));
+    }
+}
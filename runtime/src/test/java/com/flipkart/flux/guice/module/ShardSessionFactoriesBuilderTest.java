@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.guice.module;
+
+import com.flipkart.flux.shard.ShardId;
+import com.flipkart.flux.shard.ShardPairModel;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ShardSessionFactoriesBuilderTest {
+
+    private static final ShardId SHARD_1 = new ShardId(1);
+    private static final ShardId SHARD_2 = new ShardId(2);
+    private static final ShardId SHARD_3 = new ShardId(3);
+
+    private Map<ShardId, ShardPairModel> shardPairs;
+
+    /** Stubbed hibernate configurations by host */
+    private Map<String, Configuration> configurations;
+
+    /** Session factories built by the stubbed configurations by host */
+    private Map<String, SessionFactory> sessionFactories;
+
+    @Before
+    public void setUp() throws Exception {
+        shardPairs = new HashMap<>();
+        configurations = new HashMap<>();
+        sessionFactories = new HashMap<>();
+        for (ShardId shardId : new ShardId[]{SHARD_1, SHARD_2, SHARD_3}) {
+            String master = "master" + shardId.toString();
+            String slave = "slave" + shardId.toString();
+            shardPairs.put(shardId, new ShardPairModel(shardId, master, slave, null, null));
+            stubConfiguration(master);
+            stubConfiguration(slave);
+        }
+    }
+
+    @Test
+    public void testBuild_shouldBuildSessionFactoriesOfAllShardPairs() throws Exception {
+        ShardSessionFactoriesBuilder builder = newBuilder(0, 10);
+        builder.build();
+
+        assertThat(builder.getRWSessionFactories()).hasSize(3);
+        assertThat(builder.getROSessionFactories()).hasSize(3);
+        assertThat(builder.getRWSessionFactories().get(SHARD_2)).isSameAs(sessionFactories.get("master" + SHARD_2));
+        assertThat(builder.getROSessionFactories().get(SHARD_2)).isSameAs(sessionFactories.get("slave" + SHARD_2));
+        assertThat(builder.getNoOfUnavailableShards()).isEqualTo(0);
+        for (ShardId shardId : shardPairs.keySet()) {
+            assertThat(builder.getShardPairBuilds().get(shardId).isDone()).isTrue();
+        }
+    }
+
+    @Test
+    public void testBuild_shouldReturnOnQuorumOfShardPairsAndReportTheUnavailableOnes() throws Exception {
+        when(configurations.get("slave" + SHARD_3).buildSessionFactory()).thenThrow(new HibernateException("Unable to connect"));
+        ShardSessionFactoriesBuilder builder = newBuilder(2, 60000);
+        builder.build();
+        builder.getShardPairBuilds().get(SHARD_1).get(5, TimeUnit.SECONDS);
+        builder.getShardPairBuilds().get(SHARD_2).get(5, TimeUnit.SECONDS);
+
+        // a shard pair is available only once both its session factories are built
+        assertThat(builder.getRWSessionFactories().keySet()).containsOnly(SHARD_1, SHARD_2);
+        assertThat(builder.getROSessionFactories().keySet()).containsOnly(SHARD_1, SHARD_2);
+        assertThat(builder.getNoOfUnavailableShards()).isEqualTo(1);
+        assertThat(builder.getShardPairBuilds().get(SHARD_3).isDone()).isFalse();
+        // the RW session factory built before the RO one failed is not left open
+        verify(sessionFactories.get("master" + SHARD_3), timeout(5000)).close();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testBuild_shouldFailWhenQuorumCannotBeReached() throws Exception {
+        when(configurations.get("master" + SHARD_2).buildSessionFactory()).thenThrow(new HibernateException("Unable to connect"));
+        newBuilder(3, 60000).build();
+    }
+
+    @Test
+    public void testBuild_shouldRetryShardPairsWhichFailedToBuild() throws Exception {
+        when(configurations.get("slave" + SHARD_3).buildSessionFactory()).thenThrow(new HibernateException("Unable to connect"))
+                .thenReturn(sessionFactories.get("slave" + SHARD_3));
+        ShardSessionFactoriesBuilder builder = newBuilder(2, 10);
+        builder.build();
+
+        builder.getShardPairBuilds().get(SHARD_3).get(5, TimeUnit.SECONDS);
+        assertThat(builder.getRWSessionFactories().keySet()).containsOnly(SHARD_1, SHARD_2, SHARD_3);
+        assertThat(builder.getROSessionFactories().get(SHARD_3)).isSameAs(sessionFactories.get("slave" + SHARD_3));
+        assertThat(builder.getNoOfUnavailableShards()).isEqualTo(0);
+    }
+
+    private ShardSessionFactoriesBuilder newBuilder(int quorum, long retryIntervalMs) {
+        return new ShardSessionFactoriesBuilder(shardPairs, configurations::get, configurations::get, quorum, 0, retryIntervalMs);
+    }
+
+    private void stubConfiguration(String host) {
+        Configuration configuration = mock(Configuration.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(configuration.buildSessionFactory()).thenReturn(sessionFactory);
+        configurations.put(host, configuration);
+        sessionFactories.put(host, sessionFactory);
+    }
+}
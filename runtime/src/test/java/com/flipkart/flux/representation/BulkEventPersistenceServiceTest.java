@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.representation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.flipkart.flux.api.CorrelatedEventData;
+import com.flipkart.flux.api.EventData;
+import com.flipkart.flux.api.EventSubmissionResult;
+import com.flipkart.flux.api.VersionedEventData;
+import com.flipkart.flux.constant.RuntimeConstants;
+import com.flipkart.flux.controller.WorkFlowExecutionController;
+import com.flipkart.flux.dao.iface.EventsDAO;
+import com.flipkart.flux.dao.iface.StateMachinesDAO;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.domain.StateMachineStatus;
+import com.flipkart.flux.exception.IllegalEventException;
+import com.flipkart.flux.shard.ShardId;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkEventPersistenceServiceTest {
+
+    @Mock
+    private StateMachinesDAO stateMachinesDAO;
+
+    @Mock
+    private EventsDAO eventsDAO;
+
+    @Mock
+    private WorkFlowExecutionController workFlowExecutionController;
+
+    private BulkEventPersistenceService bulkEventPersistenceService;
+
+    private final ShardId shardId = new ShardId(1);
+
+    @Before
+    public void setUp() throws Exception {
+        bulkEventPersistenceService = new BulkEventPersistenceService(stateMachinesDAO, eventsDAO, workFlowExecutionController);
+    }
+
+    @Test
+    public void testPersistEvents_shouldRejectEventsIndividuallyAndKeepTheirOrder() throws Exception {
+        Map<String, StateMachineStatus> statuses = new HashMap<>();
+        statuses.put("sm1", StateMachineStatus.active);
+        statuses.put("sm2", StateMachineStatus.cancelled);
+        statuses.put("sm3", StateMachineStatus.active);
+        statuses.put("sm4", StateMachineStatus.active);
+        when(stateMachinesDAO.findStatusByIds(eq(shardId), anyCollection())).thenReturn(statuses);
+        when(eventsDAO.findValidEventMetadataBySMIdAndName("sm1", "event1")).thenReturn(event("sm1", "event1", "someSource"));
+        when(eventsDAO.findValidEventMetadataBySMIdAndName("sm4", "event1"))
+                .thenReturn(event("sm4", "event1", RuntimeConstants.REPLAY_EVENT));
+        Event persisted = event("sm1", "event1", "someSource");
+        when(workFlowExecutionController.persistEvent(eq("sm1"), any(VersionedEventData.class))).thenReturn(persisted);
+
+        List<CorrelatedEventData> events = Arrays.asList(correlatedEvent("sm1"), correlatedEvent("unknownSm"), correlatedEvent("sm2"),
+                correlatedEvent("sm3"), correlatedEvent("sm4"));
+        Event[] persistedEvents = new Event[events.size()];
+        List<EventSubmissionResult> results = bulkEventPersistenceService.persistEvents(shardId, events, persistedEvents);
+
+        assertThat(results).extracting("correlationId").containsExactly("sm1", "unknownSm", "sm2", "sm3", "sm4");
+        assertThat(results).extracting("status").containsExactly(Response.Status.ACCEPTED.getStatusCode(),
+                Response.Status.NOT_FOUND.getStatusCode(), Response.Status.ACCEPTED.getStatusCode(),
+                Response.Status.NOT_FOUND.getStatusCode(), Response.Status.FORBIDDEN.getStatusCode());
+        assertThat(results.get(0).getMessage()).isNull();
+        assertThat(results.get(2).getMessage()).contains("cancelled");
+        assertThat(persistedEvents).containsExactly(persisted, null, null, null, null);
+        verify(workFlowExecutionController, never()).persistEvent(eq("sm2"), any(VersionedEventData.class));
+        verify(workFlowExecutionController, never()).persistEvent(eq("sm4"), any(VersionedEventData.class));
+    }
+
+    @Test
+    public void testPersistEvents_shouldRejectEventWhichCannotBePersisted() throws Exception {
+        when(stateMachinesDAO.findStatusByIds(eq(shardId), anyCollection()))
+                .thenReturn(Collections.singletonMap("sm1", StateMachineStatus.active));
+        when(eventsDAO.findValidEventMetadataBySMIdAndName("sm1", "event1")).thenReturn(event("sm1", "event1", "someSource"));
+        when(workFlowExecutionController.persistEvent(eq("sm1"), any(VersionedEventData.class)))
+                .thenThrow(new IllegalEventException("Event already triggered"));
+
+        Event[] persistedEvents = new Event[1];
+        List<EventSubmissionResult> results = bulkEventPersistenceService.persistEvents(shardId,
+                Arrays.asList(correlatedEvent("sm1")), persistedEvents);
+
+        assertThat(results).extracting("status").containsExactly(Response.Status.NOT_FOUND.getStatusCode());
+        assertThat(results.get(0).getMessage()).isEqualTo("Event already triggered");
+        assertThat(persistedEvents[0]).isNull();
+    }
+
+    private static CorrelatedEventData correlatedEvent(String stateMachineId) {
+        return new CorrelatedEventData(stateMachineId, new EventData("event1", "someType", "{}", "someSource"));
+    }
+
+    private static Event event(String stateMachineId, String name, String eventSource) {
+        return new Event(name, "someType", Event.EventStatus.pending, stateMachineId, null, eventSource, 0L);
+    }
+}
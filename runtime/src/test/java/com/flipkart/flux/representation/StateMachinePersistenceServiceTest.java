@@ -28,6 +28,7 @@ import com.flipkart.flux.constant.RuntimeConstants;
 import com.flipkart.flux.dao.iface.AuditDAO;
 import com.flipkart.flux.dao.iface.StateMachinesDAO;
 import com.flipkart.flux.dao.iface.StateTraversalPathDAO;
+import com.flipkart.flux.dao.iface.StatesDAO;
 import com.flipkart.flux.domain.Context;
 import com.flipkart.flux.domain.Event;
 import com.flipkart.flux.domain.State;
@@ -71,6 +72,9 @@ public class StateMachinePersistenceServiceTest {
     @Mock
     StateTraversalPathDAO stateTraversalPathDAO;
 
+    @Mock
+    StatesDAO statesDAO;
+
     @Mock
     EventPersistenceService eventPersistenceService;
 
@@ -87,7 +91,7 @@ public class StateMachinePersistenceServiceTest {
     public void maxTaskRetryCountShouldBeTakenIfRetryCountIsHigher() throws Exception{
         Integer maxTaskRetryCount = 10;
         StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(
-                stateMachinesDAO, auditDAO, stateTraversalPathDAO, eventPersistenceService, maxTaskRetryCount);
+                stateMachinesDAO, auditDAO, stateTraversalPathDAO, statesDAO, eventPersistenceService, maxTaskRetryCount);
         StateDefinition stateDefinition = new StateDefinition(1L, "state1", "desc",
                 null, "task1", null, 13L, 1000L, Collections.emptyList(),
                 null);
@@ -109,7 +113,7 @@ public class StateMachinePersistenceServiceTest {
     public void retryCountShouldBeTakenIfItIsLessthanMaxAllowed() throws Exception{
         Integer maxTaskRetryCount = 10;
         StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(
-                stateMachinesDAO, auditDAO, stateTraversalPathDAO, eventPersistenceService, maxTaskRetryCount);
+                stateMachinesDAO, auditDAO, stateTraversalPathDAO, statesDAO, eventPersistenceService, maxTaskRetryCount);
         StateDefinition stateDefinition = new StateDefinition(1L, "state1", "desc",
                 null, "task1", null, 3L, 1000L, Collections.emptyList(),
                 null);
@@ -142,7 +146,7 @@ public class StateMachinePersistenceServiceTest {
         when(eventPersistenceService.convertEventDefinitionToEvent(eventDefinition1)).thenReturn(event1);
         when(eventPersistenceService.convertEventDefinitionToEvent(eventDefinition2)).thenReturn(event2);
 
-        StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(stateMachinesDAO, auditDAO, stateTraversalPathDAO, eventPersistenceService, maxTaskRetryCount);
+        StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(stateMachinesDAO, auditDAO, stateTraversalPathDAO, statesDAO, eventPersistenceService, maxTaskRetryCount);
         stateMachinePersistenceService.createStateMachine(stateMachineDefinition.getCorrelationId(), stateMachineDefinition);
         State state = new State(1L, "test_state2", "desc2", "com.flipkart.flux.dao.DummyOnEntryHook",
                 "com.flipkart.flux.dao.TestWorkflow_testTask_java.lang.String_java.lang.String_version1", "com.flipkart.flux.dao.DummyOnExitHook",
@@ -167,7 +171,7 @@ public class StateMachinePersistenceServiceTest {
         when(eventPersistenceService.convertEventDefinitionToEvent(eventDefinition1)).thenReturn(event1);
         when(eventPersistenceService.convertEventDefinitionToEvent(eventDefinition2)).thenReturn(event2);
 
-        StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(stateMachinesDAO, auditDAO, stateTraversalPathDAO, eventPersistenceService, maxTaskRetryCount);
+        StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(stateMachinesDAO, auditDAO, stateTraversalPathDAO, statesDAO, eventPersistenceService, maxTaskRetryCount);
         stateMachinePersistenceService.createStateMachine(stateMachineDefinition.getCorrelationId(), stateMachineDefinition);
         State state = new State(1L, "test_state2", "desc2", "com.flipkart.flux.dao.DummyOnEntryHook",
                 "com.flipkart.flux.dao.TestWorkflow_testTask_java.lang.String_java.lang.String_version1", "com.flipkart.flux.dao.DummyOnExitHook",
@@ -193,7 +197,7 @@ public class StateMachinePersistenceServiceTest {
         when(eventPersistenceService.convertEventDefinitionToEvent(eventDefinition2)).thenReturn(event2);
 
         StateMachinePersistenceService stateMachinePersistenceService
-            = new StateMachinePersistenceService(stateMachinesDAO, auditDAO, stateTraversalPathDAO,
+            = new StateMachinePersistenceService(stateMachinesDAO, auditDAO, stateTraversalPathDAO, statesDAO,
             eventPersistenceService, maxTaskRetryCount);
         StateMachine stateMachine = stateMachinePersistenceService.createStateMachine(
             stateMachineDefinition.getCorrelationId(), stateMachineDefinition);
@@ -367,7 +371,7 @@ public class StateMachinePersistenceServiceTest {
     public void verifyReplayStateTraversalPath() throws Exception{
         Integer maxTaskRetryCount = 10;
         StateMachinePersistenceService stateMachinePersistenceService = new StateMachinePersistenceService(
-                stateMachinesDAO, auditDAO, stateTraversalPathDAO, eventPersistenceService, maxTaskRetryCount);
+                stateMachinesDAO, auditDAO, stateTraversalPathDAO, statesDAO, eventPersistenceService, maxTaskRetryCount);
         StateMachineDefinition stateMachineDefinition = createStateMachineDefinitionWithReplayableStates();
         StateMachine stateMachine = stateMachinePersistenceService.createStateMachine(
                 "sample-state-machine-id-2", stateMachineDefinition);
@@ -1,10 +1,17 @@
 package com.flipkart.flux.resource;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -15,8 +22,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.flipkart.flux.MockActorRef;
 import com.flipkart.flux.api.core.TaskExecutionMessage;
+import com.flipkart.flux.impl.task.registry.RouterAutoscaler;
 import com.flipkart.flux.impl.task.registry.RouterRegistry;
+import com.flipkart.flux.metrics.BoundedCounter;
 import com.flipkart.flux.metrics.iface.MetricsClient;
+import com.flipkart.flux.taskDispatcher.ExecutionNodeTaskDispatcher;
 import com.flipkart.flux.util.TestUtils;
 import com.typesafe.config.ConfigFactory;
 
@@ -57,7 +67,7 @@ public class ExecutionApiResourceTest {
 
     @Before
     public void beforeEachTest(){
-        executionApiResource = new ExecutionApiResource(routerRegistry, metricsClient);
+        executionApiResource = new ExecutionApiResource(routerRegistry, metricsClient, 2, 3);
     }
 
     @AfterClass
@@ -70,10 +80,46 @@ public class ExecutionApiResourceTest {
     public void receiveExecutionMessage_shouldLookupRouterAndSendMessage() throws Exception {
         TaskExecutionMessage msg = TestUtils.getStandardTaskExecutionMessage();
         when(routerRegistry.getRouter(msg.getRouterName())).thenReturn(mockActor);
-        executionApiResource.receiveTaskAndExecutionData(msg);
+        when(routerRegistry.getRouterSizes()).thenReturn(Collections.singletonMap(msg.getRouterName(), 1));
+        BoundedCounter queueSize = new BoundedCounter();
+        when(metricsClient.getBoundedCounter(RouterAutoscaler.getQueueSizeMetricName(msg.getRouterName()))).thenReturn(queueSize);
+        Response response = executionApiResource.receiveTaskAndExecutionData(msg);
+        assertThat(response.getStatus()).isEqualTo(Response.Status.ACCEPTED.getStatusCode());
+        assertThat(queueSize.getCount()).isEqualTo(1);
         verify(routerRegistry, times(1)).getRouter(msg.getRouterName());
+        verify(routerRegistry, times(1)).getRouterSizes();
+        verify(metricsClient, times(1)).incCounter(msg.getAkkaMessage().getStateMachineName(), msg.getAkkaMessage().getTaskName(), "queueSize");
         mockActor.underlyingActor().assertMessageReceived(msg.getAkkaMessage(), 1);
         verifyNoMoreInteractions(routerRegistry);
     }
 
+    @Test
+    public void receiveExecutionMessage_shouldRejectWithRetryAfterWhenRouterIsAtCapacity() throws Exception {
+        TaskExecutionMessage msg = TestUtils.getStandardTaskExecutionMessage();
+        when(routerRegistry.getRouter(msg.getRouterName())).thenReturn(mockActor);
+        when(routerRegistry.getRouterSizes()).thenReturn(Collections.singletonMap(msg.getRouterName(), 1));
+        BoundedCounter queueSize = new BoundedCounter();
+        queueSize.inc(2);
+        when(metricsClient.getBoundedCounter(RouterAutoscaler.getQueueSizeMetricName(msg.getRouterName()))).thenReturn(queueSize);
+        Response response = executionApiResource.receiveTaskAndExecutionData(msg);
+        assertThat(response.getStatus()).isEqualTo(ExecutionNodeTaskDispatcher.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaderString(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(queueSize.getCount()).isEqualTo(2);
+        verify(metricsClient, never()).incCounter(msg.getAkkaMessage().getStateMachineName(), msg.getAkkaMessage().getTaskName(), "queueSize");
+    }
+
+    @Test
+    public void receiveExecutionMessage_shouldRejectAsUnavailableWhenRouterHasNoActors() throws Exception {
+        TaskExecutionMessage msg = TestUtils.getStandardTaskExecutionMessage();
+        when(routerRegistry.getRouter(msg.getRouterName())).thenReturn(mockActor);
+        when(routerRegistry.getRouterSizes()).thenReturn(Collections.singletonMap(msg.getRouterName(), 0));
+        BoundedCounter queueSize = new BoundedCounter();
+        when(metricsClient.getBoundedCounter(RouterAutoscaler.getQueueSizeMetricName(msg.getRouterName()))).thenReturn(queueSize);
+        Response response = executionApiResource.receiveTaskAndExecutionData(msg);
+        assertThat(response.getStatus()).isEqualTo(Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+        assertThat(response.getHeaderString(HttpHeaders.RETRY_AFTER)).isNull();
+        assertThat(queueSize.getCount()).isEqualTo(0);
+        verify(metricsClient, never()).incCounter(msg.getAkkaMessage().getStateMachineName(), msg.getAkkaMessage().getTaskName(), "queueSize");
+    }
+
 }
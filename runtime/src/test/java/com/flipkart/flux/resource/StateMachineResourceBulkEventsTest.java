@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.flipkart.flux.api.CorrelatedEventData;
+import com.flipkart.flux.api.EventData;
+import com.flipkart.flux.api.EventSubmissionResult;
+import com.flipkart.flux.controller.WorkFlowExecutionController;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.persistence.CryptHashGenerator;
+import com.flipkart.flux.representation.BulkEventPersistenceService;
+import com.flipkart.flux.shard.ShardId;
+
+/**
+ * Tests the bulk event submission of {@link StateMachineResource}, with the events persisted by a mocked {@link BulkEventPersistenceService}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StateMachineResourceBulkEventsTest {
+
+    private static final ShardId SHARD_1 = new ShardId(1);
+    private static final ShardId SHARD_2 = new ShardId(2);
+
+    @Mock
+    private BulkEventPersistenceService bulkEventPersistenceService;
+
+    @Mock
+    private WorkFlowExecutionController workFlowExecutionController;
+
+    private StateMachineResource stateMachineResource;
+
+    @Before
+    public void setUp() throws Exception {
+        Map<String, ShardId> shardKeyToShardIdMap = new HashMap<>();
+        shardKeyToShardIdMap.put(CryptHashGenerator.getUniformCryptHash("sm1"), SHARD_1);
+        shardKeyToShardIdMap.put(CryptHashGenerator.getUniformCryptHash("sm3"), SHARD_1);
+        shardKeyToShardIdMap.put(CryptHashGenerator.getUniformCryptHash("sm2"), SHARD_2);
+        stateMachineResource = new StateMachineResource(null, null, null, null, null, workFlowExecutionController, null, null, null,
+                null, "no", null, null, null, bulkEventPersistenceService, shardKeyToShardIdMap, 4, 2, null);
+    }
+
+    @Test
+    public void testSubmitEvents_shouldReturnResultsInOrderOfEventsAcrossShards() throws Exception {
+        when(bulkEventPersistenceService.persistEvents(eq(SHARD_1), anyList(), any(Event[].class))).thenAnswer(invocation -> {
+            List<CorrelatedEventData> events = (List<CorrelatedEventData>) invocation.getArguments()[1];
+            List<EventSubmissionResult> results = new ArrayList<>();
+            events.forEach(event -> results.add(new EventSubmissionResult(event.getCorrelationId(), event.getEventData().getName(),
+                    Response.Status.ACCEPTED.getStatusCode(), null)));
+            return results;
+        });
+        when(bulkEventPersistenceService.persistEvents(eq(SHARD_2), anyList(), any(Event[].class)))
+                .thenThrow(new RuntimeException("Shard 2 is unavailable"));
+        when(workFlowExecutionController.processEvents(anyList())).thenReturn(Collections.emptyList());
+
+        Response response = stateMachineResource.submitEvents(Arrays.asList(correlatedEvent("sm1"), correlatedEvent("sm2"),
+                new CorrelatedEventData("sm1", new EventData("event2", "someType", null, "someSource")), correlatedEvent("sm3")));
+
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        List<EventSubmissionResult> results = (List<EventSubmissionResult>) response.getEntity();
+        assertThat(results).extracting("correlationId").containsExactly("sm1", "sm2", "sm1", "sm3");
+        // only the events of the failed shard are failed, the event without data is rejected before it reaches its shard
+        assertThat(results).extracting("status").containsExactly(Response.Status.ACCEPTED.getStatusCode(),
+                Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), Response.Status.BAD_REQUEST.getStatusCode(),
+                Response.Status.ACCEPTED.getStatusCode());
+        assertThat(results.get(1).getMessage()).isEqualTo("Shard 2 is unavailable");
+    }
+
+    @Test
+    public void testSubmitEvents_shouldRejectSubmissionLargerThanMaxSize() throws Exception {
+        Response response = stateMachineResource.submitEvents(Arrays.asList(correlatedEvent("sm1"), correlatedEvent("sm2"),
+                correlatedEvent("sm3"), correlatedEvent("sm1"), correlatedEvent("sm2")));
+
+        assertThat(response.getStatus()).isEqualTo(Response.Status.BAD_REQUEST.getStatusCode());
+        assertThat((String) response.getEntity()).contains("At most 4 events");
+        verifyZeroInteractions(bulkEventPersistenceService);
+    }
+
+    private static CorrelatedEventData correlatedEvent(String stateMachineId) {
+        return new CorrelatedEventData(stateMachineId, new EventData("event1", "someType", "{}", "someSource"));
+    }
+}
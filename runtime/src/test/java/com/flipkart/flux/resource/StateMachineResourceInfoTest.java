@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.flux.dao.iface.AuditDAO;
+import com.flipkart.flux.dao.iface.EventsDAO;
+import com.flipkart.flux.dao.iface.StateMachineArchiveDAO;
+import com.flipkart.flux.dao.iface.StateMachinesDAO;
+import com.flipkart.flux.domain.AuditRecord;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.domain.StateMachine;
+import com.flipkart.flux.domain.Status;
+import com.flipkart.flux.util.TestUtils;
+
+/**
+ * Tests the streamed state machine info and fsm graph data of {@link StateMachineResource} against the representations
+ * they were built as before being streamed, i.e the state machine converted to a map and the {@link FsmGraph}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StateMachineResourceInfoTest {
+
+    @Mock
+    private EventsDAO eventsDAO;
+
+    @Mock
+    private AuditDAO auditDAO;
+
+    @Mock
+    private StateMachinesDAO stateMachinesDAO;
+
+    @Mock
+    private StateMachineArchiveDAO stateMachineArchiveDAO;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StateMachineResource stateMachineResource;
+
+    private StateMachine stateMachine;
+
+    private List<Event> events;
+
+    private List<AuditRecord> auditRecords;
+
+    @Before
+    public void setUp() throws Exception {
+        stateMachineResource = new StateMachineResource(eventsDAO, null, auditDAO, stateMachinesDAO, null, null, null, null, null,
+                null, "no", null, null, stateMachineArchiveDAO, null, null, 4, 1, null);
+        stateMachine = TestUtils.getStandardTestMachineWithId();
+        events = new ArrayList<>();
+        for (String eventName : Arrays.asList("event0", "event1", "event2", "event3")) {
+            events.add(new Event(eventName, "java.lang.String", Event.EventStatus.pending, stateMachine.getId(), null, null));
+        }
+        auditRecords = Arrays.asList(
+                new AuditRecord(stateMachine.getId(), 1L, 0L, Status.running, null, null),
+                new AuditRecord(stateMachine.getId(), 1L, 0L, Status.completed, null, null));
+        doAnswer(invocation -> {
+            events.forEach((Consumer<Event>) invocation.getArguments()[1]);
+            return null;
+        }).when(eventsDAO).scrollBySMInstanceId(eq(stateMachine.getId()), any(Consumer.class));
+        doAnswer(invocation -> {
+            auditRecords.forEach((Consumer<AuditRecord>) invocation.getArguments()[3]);
+            return null;
+        }).when(auditDAO).scrollBySMInstanceId(eq(stateMachine.getId()), anyInt(), anyInt(), any(Consumer.class));
+    }
+
+    @Test
+    public void testGetStateMachine_shouldStreamStateMachineWithEventsAndAuditRecords() throws Exception {
+        when(stateMachinesDAO.findById(stateMachine.getId())).thenReturn(stateMachine);
+
+        final JsonNode info = readEntity(stateMachineResource.getStateMachine(stateMachine.getId(), null, null, 0, 0));
+
+        final Map<String, Object> expected = objectMapper.convertValue(stateMachine, Map.class);
+        expected.put("events", events);
+        expected.put("auditrecords", auditRecords);
+        expected.put("archived", false);
+        assertThat(info).isEqualTo(toJson(expected));
+        verify(auditDAO).scrollBySMInstanceId(eq(stateMachine.getId()), eq(0), eq(0), any(Consumer.class));
+        verifyZeroInteractions(stateMachineArchiveDAO);
+    }
+
+    @Test
+    public void testGetStateMachine_shouldStreamOnlyIncludedParts() throws Exception {
+        when(stateMachinesDAO.findById(stateMachine.getId())).thenReturn(stateMachine);
+
+        final JsonNode info = readEntity(stateMachineResource.getStateMachine(stateMachine.getId(), null, "events", 0, 0));
+
+        final Map<String, Object> expected = objectMapper.convertValue(stateMachine, Map.class);
+        expected.remove("states");
+        expected.put("events", events);
+        expected.put("archived", false);
+        assertThat(info).isEqualTo(toJson(expected));
+        verifyZeroInteractions(auditDAO);
+    }
+
+    @Test
+    public void testGetStateMachine_shouldPageAuditRecords() throws Exception {
+        when(stateMachinesDAO.findById(stateMachine.getId())).thenReturn(stateMachine);
+        doAnswer(invocation -> {
+            ((Consumer<AuditRecord>) invocation.getArguments()[3]).accept(auditRecords.get(1));
+            return null;
+        }).when(auditDAO).scrollBySMInstanceId(eq(stateMachine.getId()), eq(1), eq(1), any(Consumer.class));
+
+        final JsonNode info = readEntity(stateMachineResource.getStateMachine(stateMachine.getId(), null, "auditrecords", 1, 1));
+
+        assertThat(info.get("auditrecords")).isEqualTo(toJson(auditRecords.subList(1, 2)));
+        assertThat(info.has("states")).isFalse();
+        assertThat(info.has("events")).isFalse();
+        verify(auditDAO).scrollBySMInstanceId(eq(stateMachine.getId()), eq(1), eq(1), any(Consumer.class));
+        verifyZeroInteractions(eventsDAO);
+    }
+
+    @Test
+    public void testGetStateMachine_shouldStreamArchivedStateMachineFromArchive() throws Exception {
+        when(stateMachineArchiveDAO.findArchivedStateMachine(stateMachine.getId())).thenReturn(stateMachine);
+        doAnswer(invocation -> {
+            events.forEach((Consumer<Event>) invocation.getArguments()[1]);
+            return null;
+        }).when(stateMachineArchiveDAO).scrollArchivedEvents(eq(stateMachine.getId()), any(Consumer.class));
+        doAnswer(invocation -> {
+            auditRecords.forEach((Consumer<AuditRecord>) invocation.getArguments()[3]);
+            return null;
+        }).when(stateMachineArchiveDAO).scrollArchivedAuditRecords(eq(stateMachine.getId()), eq(0), eq(5), any(Consumer.class));
+
+        final JsonNode info = readEntity(stateMachineResource.getStateMachine(stateMachine.getId(), null, null, 0, 5));
+
+        final Map<String, Object> expected = objectMapper.convertValue(stateMachine, Map.class);
+        expected.put("events", events);
+        expected.put("auditrecords", auditRecords);
+        expected.put("archived", true);
+        assertThat(info).isEqualTo(toJson(expected));
+        verifyZeroInteractions(eventsDAO, auditDAO);
+    }
+
+    @Test
+    public void testGetStateMachine_shouldReturnNotFoundForUnknownStateMachine() throws Exception {
+        final Response response = stateMachineResource.getStateMachine("unknown", null, null, 0, 0);
+
+        assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+    }
+
+    @Test
+    public void testGetFsmGraphData_shouldStreamGraphWithPagedAuditData() throws Exception {
+        when(stateMachinesDAO.findById(stateMachine.getId())).thenReturn(stateMachine);
+        when(eventsDAO.findMetadataBySMInstanceId(stateMachine.getId())).thenReturn(events);
+
+        final JsonNode graph = readEntity(stateMachineResource.getFsmGraphData(stateMachine.getId(), 2, 10));
+
+        final FsmGraph expected = new FsmGraph();
+        expected.setAuditData(auditRecords);
+        final Set<String> expectedFields = new HashSet<>();
+        objectMapper.valueToTree(expected).fieldNames().forEachRemaining(expectedFields::add);
+        final Set<String> fields = new HashSet<>();
+        graph.fieldNames().forEachRemaining(fields::add);
+        assertThat(fields).isEqualTo(expectedFields);
+        assertThat(graph.get("stateMachineId").asText()).isEqualTo(stateMachine.getId());
+        assertThat(graph.get("fsmName").asText()).isEqualTo(stateMachine.getName());
+        assertThat(graph.get("fsmGraphData").size()).isEqualTo(stateMachine.getStates().size());
+        assertThat(graph.get("auditData")).isEqualTo(toJson(auditRecords));
+        verify(auditDAO).scrollBySMInstanceId(eq(stateMachine.getId()), eq(2), eq(10), any(Consumer.class));
+    }
+
+    private JsonNode readEntity(Response response) throws Exception {
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(outputStream);
+        return objectMapper.readTree(outputStream.toByteArray());
+    }
+
+    /** Serializes the given value the way the resource used to return it, and reads it back as the client would */
+    private JsonNode toJson(Object value) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(value));
+    }
+}
@@ -16,6 +16,7 @@ package com.flipkart.flux.resource;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flipkart.flux.FluxRuntimeRole;
 import com.flipkart.flux.InjectFromRole;
@@ -30,6 +31,7 @@ import com.flipkart.flux.dao.iface.StateMachinesDAO;
 import com.flipkart.flux.dao.iface.StateTraversalPathDAO;
 import com.flipkart.flux.dao.iface.StatesDAO;
 import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.domain.EventPayload;
 import com.flipkart.flux.domain.State;
 import com.flipkart.flux.domain.StateMachine;
 import com.flipkart.flux.domain.StateMachineStatus;
@@ -46,6 +48,8 @@ import com.flipkart.flux.initializer.ExecutionOrderedComponentBooter;
 import com.flipkart.flux.initializer.OrchestrationOrderedComponentBooter;
 import com.flipkart.flux.module.DeploymentUnitTestModule;
 import com.flipkart.flux.module.RuntimeTestModule;
+import com.flipkart.flux.persistence.CryptHashGenerator;
+import com.flipkart.flux.persistence.SessionFactoryContext;
 import com.flipkart.flux.representation.StateMachinePersistenceService;
 import com.flipkart.flux.rule.DbClearRule;
 import com.flipkart.flux.runner.GuiceJunit4Runner;
@@ -62,6 +66,8 @@ import java.util.Set;
 import javax.ws.rs.core.Response;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpStatus;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -108,6 +114,8 @@ public class StateMachineResourceTest {
   private EventsDAO eventsDAO;
   @InjectFromRole(value = FluxRuntimeRole.ORCHESTRATION)
   private EventSchedulerDao eventSchedulerDao;
+  @InjectFromRole(value = FluxRuntimeRole.ORCHESTRATION, name = "fluxSessionFactoriesContext")
+  private SessionFactoryContext sessionFactoryContext;
   @Mock
   private StateTraversalPathDAO stateTraversalPathDAO;
   private ObjectMapper objectMapper;
@@ -769,6 +777,42 @@ public class StateMachineResourceTest {
     //TODO - we need a better assert here, but since we're using database IDs in the implementation, we cannot simply validate it with a static json
   }
 
+  @Test
+  public void testGetStateMachineInfo_shouldIncludeOffloadedEventData() throws Exception {
+    final StateMachine stateMachine = stateMachinePersistenceService
+        .createStateMachine(standardStateMachine, objectMapper.readValue(
+            this.getClass().getClassLoader().getResource("state_machine_definition.json"),
+            StateMachineDefinition.class));
+    final String eventData = "{\"offloaded\":\"payload\"}";
+    // offloading is disabled in the test config, so the event data is moved to the EventPayloads table directly
+    final Session session = sessionFactoryContext
+        .getRWSessionFactory(CryptHashGenerator.getUniformCryptHash(stateMachine.getId())).openSession();
+    try {
+      final Transaction transaction = session.beginTransaction();
+      final Event event = (Event) session.get(Event.class, new Event.EventPK(stateMachine.getId(), "event0", 0L));
+      event.setEventData(eventData);
+      event.setPayloadOffloaded(true);
+      session.save(new EventPayload(event));
+      transaction.commit();
+    } finally {
+      session.close();
+    }
+
+    final HttpResponse<String> infoResponse = Unirest
+        .get(STATE_MACHINE_RESOURCE_URL + SLASH + stateMachine.getId() + "/info")
+        .queryString("include", "events").asString();
+    assertThat(infoResponse.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+    final JsonNode events = objectMapper.readTree(infoResponse.getBody()).get("events");
+    JsonNode offloadedEvent = null;
+    for (JsonNode event : events) {
+      if ("event0".equals(event.get("name").asText())) {
+        offloadedEvent = event;
+      }
+    }
+    assertThat(offloadedEvent).isNotNull();
+    assertThat(offloadedEvent.get("eventData").asText()).isEqualTo(eventData);
+  }
+
   @Test
   public void testGetErroredStates() throws Exception {
     final StateMachine sm = stateMachinePersistenceService.createStateMachine(standardStateMachine,
@@ -43,7 +43,7 @@ public class DbClearRule extends ExternalResource {
     /**
      * List of entity tables which need to be cleared from flux db
      */
-    private static Class[] fluxTables = {StateMachine.class, State.class, AuditRecord.class, Event.class,
+    private static Class[] fluxTables = {StateMachine.class, State.class, AuditRecord.class, Event.class, EventPayload.class,
             StateTraversalPath.class};
 
     /**
@@ -0,0 +1,56 @@
+package com.flipkart.flux.taskDispatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.flipkart.flux.api.core.TaskExecutionMessage;
+import com.flipkart.flux.resource.ExecutionApiResource;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalExecutionNodeTaskDispatcherTest {
+
+    @Mock
+    ExecutionNodeTaskDispatcherImpl remoteDispatcher;
+
+    @Mock
+    ExecutionApiResource executionApiResource;
+
+    LocalExecutionNodeTaskDispatcher localExecutionNodeTaskDispatcher;
+
+    @Before
+    public void setUp() {
+        localExecutionNodeTaskDispatcher = new LocalExecutionNodeTaskDispatcher(remoteDispatcher, () -> executionApiResource, 9997);
+    }
+
+    @Test
+    public void testForwardExecutionMessage_shouldHandMessagesToLocalEndpointToExecutionApi() {
+        TaskExecutionMessage message = new TaskExecutionMessage();
+        when(executionApiResource.receiveTaskAndExecutionData(message)).thenReturn(Response.accepted().build());
+
+        assertThat(localExecutionNodeTaskDispatcher.forwardExecutionMessage("http://localhost:9997/api/execution", message))
+                .isEqualTo(Response.Status.ACCEPTED.getStatusCode());
+        verify(executionApiResource).receiveTaskAndExecutionData(message);
+        verifyZeroInteractions(remoteDispatcher);
+    }
+
+    @Test
+    public void testForwardExecutionMessage_shouldForwardMessagesToOtherEndpointsOverHttp() {
+        TaskExecutionMessage message = new TaskExecutionMessage();
+        when(remoteDispatcher.forwardExecutionMessage("http://localhost:8080/api/execution", message)).thenReturn(Response.Status.ACCEPTED.getStatusCode());
+
+        assertThat(localExecutionNodeTaskDispatcher.forwardExecutionMessage("http://localhost:8080/api/execution", message))
+                .isEqualTo(Response.Status.ACCEPTED.getStatusCode());
+        assertThat(localExecutionNodeTaskDispatcher.isLocal("http://flux-executor.invalid:9997/api/execution")).isFalse();
+        verifyZeroInteractions(executionApiResource);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.type;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressedStringTypeTest {
+
+    private final CompressedStringType compressedStringType = new CompressedStringType(64);
+
+    @Test
+    public void testEncode_shouldCompressLargeValues() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 100; i++) {
+            json.append("{\"name\":\"item\",\"value\":").append(i).append("},");
+        }
+        String value = json.append("{}]}").toString();
+
+        byte[] encoded = compressedStringType.encode(value);
+
+        assertThat(encoded[0]).isEqualTo(CompressedStringType.LZ4_MARKER);
+        assertThat(encoded.length).isLessThan(value.length());
+        assertThat(compressedStringType.decode(encoded)).isEqualTo(value);
+    }
+
+    @Test
+    public void testEncode_shouldStoreSmallValuesAsIs() throws Exception {
+        String value = "{\"name\":\"événement\"}";
+
+        byte[] encoded = compressedStringType.encode(value);
+
+        assertThat(encoded).isEqualTo(value.getBytes(StandardCharsets.UTF_8));
+        assertThat(compressedStringType.decode(encoded)).isEqualTo(value);
+    }
+
+    @Test
+    public void testDecode_shouldReadUncompressedRows() throws Exception {
+        String value = "{\"amount\":100}";
+
+        assertThat(compressedStringType.decode(value.getBytes(StandardCharsets.UTF_8))).isEqualTo(value);
+        assertThat(compressedStringType.decode(new byte[0])).isEqualTo("");
+    }
+
+    @Test
+    public void testEncode_shouldEscapeValuesStartingWithMarker() throws Exception {
+        String value = "\u0001abc";
+
+        byte[] encoded = compressedStringType.encode(value);
+
+        assertThat(encoded[0]).isEqualTo(CompressedStringType.RAW_MARKER);
+        assertThat(compressedStringType.decode(encoded)).isEqualTo(value);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.type;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringListTypeTest {
+
+    @Test
+    public void testEncodeDecode_shouldRoundTrip() throws Exception {
+        String encoded = StringListType.encode(Arrays.asList("com.flipkart.Event1_event1", "event2"));
+
+        assertThat(encoded).isEqualTo("com.flipkart.Event1_event1" + StringListType.SEPARATOR + "event2");
+        assertThat(StringListType.decode(encoded)).containsExactly("com.flipkart.Event1_event1", "event2");
+        assertThat(StringListType.decode(StringListType.encode(Collections.singletonList("event1")))).containsExactly("event1");
+    }
+
+    @Test
+    public void testDecode_shouldReadEmptyAndNullValuesAsEmptyList() throws Exception {
+        assertThat(StringListType.decode(StringListType.encode(Collections.emptyList()))).isEmpty();
+        assertThat(StringListType.decode(null)).isEmpty();
+    }
+
+    @Test
+    public void testDecode_shouldReadJsonValues() throws Exception {
+        assertThat(StringListType.decode("[\"event1\",\"event2\"]")).containsExactly("event1", "event2");
+        assertThat(StringListType.decode("[]")).isEmpty();
+    }
+}
@@ -16,7 +16,9 @@ package com.flipkart.flux.impl.message;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.flipkart.flux.api.VersionedEventData;
 import com.flipkart.flux.api.core.Task;
 import com.flipkart.flux.domain.Event;
@@ -56,6 +58,12 @@ public class TaskAndEvents implements Serializable {
     /* Execution Version for this task */
     private Long taskExecutionVersion;
 
+    /* Index of the chunk of a map state's collection event carried by this message, null if the message executes a state's task */
+    private Integer mapChunk;
+
+    /* System.nanoTime() at which this message was queued for an actor on the execution node, not sent over the wire. 0 if unknown */
+    private transient long enqueueTimeNanos;
+
     /** constructors*/
     public TaskAndEvents() {}
     public TaskAndEvents(String taskName, String taskIdentifier, Long taskId, VersionedEventData[] events,
@@ -145,6 +153,24 @@ public class TaskAndEvents implements Serializable {
         this.taskExecutionVersion = taskExecutionVersion;
     }
 
+    public Integer getMapChunk() {
+        return mapChunk;
+    }
+
+    public void setMapChunk(Integer mapChunk) {
+        this.mapChunk = mapChunk;
+    }
+
+    @JsonIgnore
+    public long getEnqueueTimeNanos() {
+        return enqueueTimeNanos;
+    }
+
+    @JsonIgnore
+    public void setEnqueueTimeNanos(long enqueueTimeNanos) {
+        this.enqueueTimeNanos = enqueueTimeNanos;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -158,6 +184,7 @@ public class TaskAndEvents implements Serializable {
         if (!Arrays.equals(events, that.events)) return false;
         if (!stateMachineId.equals(that.stateMachineId)) return false;
         if (!taskExecutionVersion.equals(that.taskExecutionVersion)) return false;
+        if (!Objects.equals(mapChunk, that.mapChunk)) return false;
         return !(outputEvent != null ? !outputEvent.equals(that.outputEvent) : that.outputEvent != null);
 
     }
@@ -169,6 +196,7 @@ public class TaskAndEvents implements Serializable {
         result = 31 * result + taskId.hashCode();
         result = 31 * result + stateMachineId.hashCode();
         result = 31 * result + taskExecutionVersion.hashCode();
+        result = 31 * result + Objects.hashCode(mapChunk);
         result = 31 * result + (outputEvent != null ? outputEvent.hashCode() : 0);
         return result;
     }
@@ -183,6 +211,7 @@ public class TaskAndEvents implements Serializable {
             ", stateMachineName=" + stateMachineName +
             ", outputEvent='" + outputEvent + '\'' +
             ", taskExecutionVersion='" + taskExecutionVersion +
+            (mapChunk != null ? ", mapChunk=" + mapChunk : "") +
             '}';
     }
 }
\ No newline at end of file
@@ -98,7 +98,7 @@ public class RedriverRegistryImpl implements RedriverRegistry, Initializable {
     public void registerTask(Long taskId, String stateMachineId, long redriveDelay, Long executionVersion) {
         try {
             LoggingUtils.registerStateMachineIdForLogging(stateMachineId.toString());
-            logger.info("Register task : {} for redriver with time : {}", taskId, redriveDelay);
+            logger.debug("Register task : {} for redriver with time : {}", taskId, redriveDelay);
             redriverMessageService.saveMessage(new ScheduledMessage(taskId, stateMachineId, System.currentTimeMillis() + redriveDelay, executionVersion));
         } finally {
             LoggingUtils.deRegisterStateMachineIdForLogging();
@@ -113,7 +113,7 @@ public class RedriverRegistryImpl implements RedriverRegistry, Initializable {
     public void deRegisterTask(String stateMachineId, Long taskId, Long executionVersion) {
         try {
             LoggingUtils.registerStateMachineIdForLogging(stateMachineId.toString());
-            logger.info("DeRegister task : {} with smId : {} redriver", taskId, stateMachineId);
+            logger.debug("DeRegister task : {} with smId : {} redriver", taskId, stateMachineId);
             redriverMessageService.scheduleForRemoval(stateMachineId, taskId, executionVersion);
         } finally {
             LoggingUtils.deRegisterStateMachineIdForLogging();
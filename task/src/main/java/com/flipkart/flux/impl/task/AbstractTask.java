@@ -46,5 +46,13 @@ public abstract class AbstractTask implements Task {
 	 * @return execution timeout
 	 */
 	public abstract int getExecutionTimeout();
+
+	/**
+	 * Returns the isolation mode used when executing this Task. Defaults to {@link ExecutionIsolation#THREAD} i.e. a dedicated thread pool per Task type.
+	 * @return the execution isolation mode
+	 */
+	public ExecutionIsolation getExecutionIsolation() {
+		return ExecutionIsolation.THREAD;
+	}
 	
 }
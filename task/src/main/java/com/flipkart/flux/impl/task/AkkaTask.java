@@ -21,10 +21,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flipkart.flux.api.AuditEvent;
@@ -39,6 +41,8 @@ import com.flipkart.flux.client.runtime.FluxRuntimeConnector;
 import com.flipkart.flux.client.runtime.RuntimeCommunicationException;
 import com.flipkart.flux.domain.Event;
 import com.flipkart.flux.impl.message.TaskAndEvents;
+import com.flipkart.flux.impl.task.registry.RouterAutoscaler;
+import com.flipkart.flux.metrics.TaskLifecycleStage;
 import com.flipkart.flux.metrics.iface.MetricsClient;
 import com.netflix.hystrix.HystrixCommand;
 import com.netflix.hystrix.exception.HystrixRuntimeException;
@@ -85,6 +89,11 @@ public class AkkaTask extends UntypedActor {
     @Inject
     private static MetricsClient metricsClient;
 
+    /**
+     * queueSize counter of the router this actor is a routee of, looked up on first use
+     */
+    private Counter routerQueueSize;
+
     /**
      * Router instance for the Hook actors
      */
@@ -106,31 +115,35 @@ public class AkkaTask extends UntypedActor {
         if (TaskAndEvents.class.isAssignableFrom(message.getClass())) {
             try {
                 TaskAndEvents taskAndEvent = (TaskAndEvents) message;
-                logger.info("Received message in Akka task : {}", message);
-                StringBuilder metricPrefix  = new StringBuilder().
-                        append("stateMachine.").
-                        append(taskAndEvent.getStateMachineName()).
-                        append(".task.").
-                        append(taskAndEvent.getTaskName());
-                metricsClient.decCounter(new StringBuilder(metricPrefix).append(".queueSize").toString());
+                metricsClient.decCounter(taskAndEvent.getStateMachineName(), taskAndEvent.getTaskName(), "queueSize");
+                getRouterQueueSize().dec();
+                if (taskAndEvent.getEnqueueTimeNanos() > 0) {
+                    metricsClient.recordStage(taskAndEvent.getStateMachineName(), TaskLifecycleStage.DEQUEUED, System.nanoTime() - taskAndEvent.getEnqueueTimeNanos());
+                }
                 Map<String, Object> mdc = new HashMap<String, Object>();
                 mdc.put(STATE_MACHINE_ID, "smId:"+taskAndEvent.getStateMachineId());
                 mdc.put(TASK_ID, taskAndEvent.getTaskId());
                 logger.setMDC(mdc);
-                logger.info("Akka task processing state machine: {} task: {}", taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId());
-                logger.debug("Actor {} received directive {}", this.getSelf(), taskAndEvent);
+                logger.debug("Akka task processing state machine: {} task: {}", taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId());
+                logger.debug("Actor {} received directive of state machine: {} task: {} with execution version: {}", this.getSelf(),
+                        taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId(), taskAndEvent.getTaskExecutionVersion());
                 if (!taskAndEvent.getIsFirstTimeExecution()) {
                     taskAndEvent.setCurrentRetryCount(taskAndEvent.getCurrentRetryCount() + 1); // increment the retry count
-                    // update the Flux runtime incrementing the retry count for the Task
-                    fluxRuntimeConnector.incrementExecutionRetries(taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId(),
-                            taskAndEvent.getTaskExecutionVersion());
+                    // update the Flux runtime incrementing the retry count for the Task. Retries of a map state's chunks are per chunk and
+                    // are not counted against the state
+                    if (taskAndEvent.getMapChunk() == null) {
+                        fluxRuntimeConnector.incrementExecutionRetries(taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId(),
+                                taskAndEvent.getTaskExecutionVersion());
+                    }
                 }
-                final Timer timer = metricsClient.getTimer(new StringBuilder(metricPrefix).append(".executionTime").toString());
+                final Timer timer = metricsClient.getTimer(taskAndEvent.getStateMachineName(), taskAndEvent.getTaskName(), "executionTime");
                 AbstractTask task = AkkaTask.taskRegistry.retrieveTask(taskAndEvent.getTaskIdentifier());
                 if (task != null) {
                     try {
-                        // update the Flux runtime with status of the Task as running
-                        updateExecutionStatus(taskAndEvent, Status.running, null, false);
+                        // update the Flux runtime with status of the Task as running, a map state is running from when its chunks are dispatched
+                        if (taskAndEvent.getMapChunk() == null) {
+                            updateExecutionStatus(taskAndEvent, Status.running, null, false);
+                        }
                     } catch (RuntimeCommunicationException e) {
                         logger.error("Error occurred while updating task: {} status to running. Error: {}", taskAndEvent.getTaskId(), e.getMessage());
                         throw new FluxError(FluxError.ErrorType.retriable, e.getMessage(), e, false,
@@ -148,9 +161,15 @@ public class AkkaTask extends UntypedActor {
                     final Timer.Context context = timer.time();
                     try {
                         long startTime = System.currentTimeMillis();
-                        outputEvent = taskExecutor.execute();
+                        final long submitNanos = System.nanoTime();
+                        try {
+                            outputEvent = taskExecutor.execute();
+                        } finally {
+                            recordHystrixStages(taskAndEvent, taskExecutor, submitNanos);
+                        }
                         long endTime = System.currentTimeMillis();
                         context.close();
+                        final long callbackStartNanos = System.nanoTime();
                         if (outputEvent != null) {
                             // after successful task execution, post the generated output event for further processing, also update status as part of same call
                             fluxRuntimeConnector.submitEventAndUpdateStatus(
@@ -159,20 +178,23 @@ public class AkkaTask extends UntypedActor {
                                             outputEvent.getStatus() == Event.EventStatus.cancelled,
                                             outputEvent.getExecutionVersion()),
                                     outputEvent.getStateMachineInstanceId(),
-                                    new ExecutionUpdateData(taskAndEvent.getStateMachineId(), taskAndEvent.getStateMachineName(), taskAndEvent.getTaskName(), taskAndEvent.getTaskId(), Status.completed, taskAndEvent.getRetryCount(),
+                                    withMapChunk(new ExecutionUpdateData(taskAndEvent.getStateMachineId(), taskAndEvent.getStateMachineName(), taskAndEvent.getTaskName(), taskAndEvent.getTaskId(), Status.completed, taskAndEvent.getRetryCount(),
                                             taskAndEvent.getCurrentRetryCount(), null, true,
-                                            getDependentEvents(taskAndEvent), taskAndEvent.getTaskExecutionVersion()));
+                                            getDependentEvents(taskAndEvent), taskAndEvent.getTaskExecutionVersion()), taskAndEvent));
                         } else {
                             // update the Flux runtime with status of the Task as completed
                             updateExecutionStatus(taskAndEvent, Status.completed, null, true);
                         }
-                        logger.info("State machine: {} task: {} execution time: {}ms event/status submission time: {}ms", taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId(), (endTime - startTime), (System.currentTimeMillis() - endTime));
+                        metricsClient.recordStage(taskAndEvent.getStateMachineName(), TaskLifecycleStage.STATUS_CALLBACK, System.nanoTime() - callbackStartNanos);
+                        logger.debug("State machine: {} task: {} execution time: {}ms event/status submission time: {}ms", taskAndEvent.getStateMachineId(), taskAndEvent.getTaskId(), (endTime - startTime), (System.currentTimeMillis() - endTime));
 
                     } catch (HystrixRuntimeException hre) {
                         context.close();
                         FailureType ft = hre.getFailureType();
-                        // we signal a timeout for any of Timeout, ThreadPool Rejection or Short-Circuit - all of these may go through with time and retry
-                        if (ft.equals(FailureType.REJECTED_THREAD_EXECUTION) || ft.equals(FailureType.SHORTCIRCUIT) || ft.equals(FailureType.TIMEOUT)) {
+                        // we signal a timeout for any of Timeout, ThreadPool/Semaphore Rejection or Short-Circuit - all of these may go through with time and retry.
+                        // A TimeoutException cause is raised by virtual thread isolated executions that did not complete within the execution timeout
+                        if (ft.equals(FailureType.REJECTED_THREAD_EXECUTION) || ft.equals(FailureType.REJECTED_SEMAPHORE_EXECUTION)
+                                || ft.equals(FailureType.SHORTCIRCUIT) || ft.equals(FailureType.TIMEOUT) || hre.getCause() instanceof TimeoutException) {
                             // update flux runtime with task outcome as timeout
                             updateExecutionStatus(taskAndEvent, Status.errored, ft.toString().toLowerCase(), false);
 
@@ -238,22 +260,21 @@ public class AkkaTask extends UntypedActor {
                         // mark first time execution flag of a task to false and schedule the task execution for a later time.
                         // As we set first time execution flag to false, when the actor processes the message again, it will increment the retry count
                         ((TaskAndEvents) message).setFirstTimeExecution(false);
+                        final FiniteDuration retryDelay = FiniteDuration.create((int) Math.pow(2, fe.getExecutionContextMeta().getAttemptedNoOfRetries() + 1), TimeUnit.SECONDS);
+                        // the wait in the mailbox is measured from when the retry becomes due
+                        ((TaskAndEvents) message).setEnqueueTimeNanos(System.nanoTime() + retryDelay.toNanos());
                         getContext().system().scheduler().scheduleOnce(
-                                FiniteDuration.create((int) Math.pow(2, fe.getExecutionContextMeta().getAttemptedNoOfRetries() + 1), TimeUnit.SECONDS),
+                                retryDelay,
                                 getSelf(),
                                 message,
                                 getContext().system().dispatcher(), null);
-                        metricsClient.incCounter(new StringBuilder().
-                                append("stateMachine.").
-                                append(fe.getExecutionContextMeta().getStateMachineName()).
-                                append(".task.").
-                                append(fe.getExecutionContextMeta().getTaskName()).
-                                append(".queueSize").toString());
+                        metricsClient.incCounter(fe.getExecutionContextMeta().getStateMachineName(), fe.getExecutionContextMeta().getTaskName(), "queueSize");
+                        getRouterQueueSize().inc();
                     } else {
                         logger.warning("Aborting retries for Task Id : {}. Retry count exceeded : {}", fe.getExecutionContextMeta().getTaskId(),
                                 fe.getExecutionContextMeta().getAttemptedNoOfRetries());
                         // update the Flux runtime to mark the Task as sidelined
-                        fluxRuntimeConnector.updateExecutionStatus(new ExecutionUpdateData(
+                        fluxRuntimeConnector.updateExecutionStatus(withMapChunk(new ExecutionUpdateData(
                                 fe.getExecutionContextMeta().getStateMachineId(),
                                 fe.getExecutionContextMeta().getStateMachineName(),
                                 fe.getExecutionContextMeta().getTaskName(),
@@ -263,7 +284,7 @@ public class AkkaTask extends UntypedActor {
                                 true,
                                 fe.getExecutionContextMeta().getDependentAuditEvents(),
                                 fe.getExecutionContextMeta().getTaskExecutionVersion()
-                                ));
+                                ), (TaskAndEvents) message));
                     }
                 }
             }
@@ -286,6 +307,28 @@ public class AkkaTask extends UntypedActor {
         }
     }
 
+    /**
+     * Records the time taken by Hystrix to start executing the task and the time the execution took. Executions that were rejected or
+     * short-circuited never started and are not recorded
+     */
+    private void recordHystrixStages(TaskAndEvents taskAndEvent, TaskExecutor taskExecutor, long submitNanos) {
+        long runStartNanos = taskExecutor.getRunStartNanos();
+        if (runStartNanos > 0) {
+            metricsClient.recordStage(taskAndEvent.getStateMachineName(), TaskLifecycleStage.HYSTRIX_START, runStartNanos - submitNanos);
+            metricsClient.recordStage(taskAndEvent.getStateMachineName(), TaskLifecycleStage.HYSTRIX_END, System.nanoTime() - runStartNanos);
+        }
+    }
+
+    /**
+     * Returns the queueSize counter of this actor's router. Routees are children of their router, so the router name is the parent's name
+     */
+    private Counter getRouterQueueSize() {
+        if (routerQueueSize == null) {
+            routerQueueSize = RouterAutoscaler.getQueueSize(metricsClient, getContext().parent().path().name());
+        }
+        return routerQueueSize;
+    }
+
     /**
      * Helper method to JSON serialize the output event
      */
@@ -298,11 +341,19 @@ public class AkkaTask extends UntypedActor {
      * Helper method to update execution status through flux runtime connector
      */
     private void updateExecutionStatus(TaskAndEvents taskAndEvent, Status status, String errorMsg, boolean deleteFromRedriver) {
-        fluxRuntimeConnector.updateExecutionStatus(new ExecutionUpdateData(
+        fluxRuntimeConnector.updateExecutionStatus(withMapChunk(new ExecutionUpdateData(
                 taskAndEvent.getStateMachineId(), taskAndEvent.getStateMachineName(), taskAndEvent.getTaskName(),
                 taskAndEvent.getTaskId(), status, taskAndEvent.getRetryCount(),
                 taskAndEvent.getCurrentRetryCount(), errorMsg, deleteFromRedriver, getDependentEvents(taskAndEvent),
-                taskAndEvent.getTaskExecutionVersion()));
+                taskAndEvent.getTaskExecutionVersion()), taskAndEvent));
+    }
+
+    /**
+     * Helper method to mark the updates of a map state's chunk with the chunk index, so that the runtime tracks the chunk instead of the state
+     */
+    private ExecutionUpdateData withMapChunk(ExecutionUpdateData executionUpdateData, TaskAndEvents taskAndEvent) {
+        executionUpdateData.setMapChunk(taskAndEvent.getMapChunk());
+        return executionUpdateData;
     }
 
     private String getDependentEvents(TaskAndEvents taskAndEvents) {
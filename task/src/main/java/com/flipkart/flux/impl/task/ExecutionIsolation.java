@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.flux.impl.task;
+
+/**
+ * <code>ExecutionIsolation</code> defines how a {@link TaskExecutor} isolates execution of a Task from the calling Akka actor thread.
+ * <ul>
+ * <li>THREAD - a dedicated Hystrix thread pool per Task type (the default)</li>
+ * <li>SEMAPHORE - execution on the calling actor thread, concurrency bounded by a Hystrix semaphore and guarded by the Hystrix timeout watchdog</li>
+ * <li>VIRTUAL_THREAD - execution on a thread-per-execution executor (virtual threads when the JVM supports them), bounded by a Hystrix semaphore</li>
+ * </ul>
+ */
+public enum ExecutionIsolation {
+
+    THREAD, SEMAPHORE, VIRTUAL_THREAD;
+
+    /**
+     * Resolves the isolation mode from a configured value, ignoring case and treating '-' as '_'
+     * @param value the configured value, may be null or empty
+     * @param defaultValue returned when the value is null or empty
+     * @return the resolved ExecutionIsolation
+     * @throws IllegalArgumentException if the value does not name a known isolation mode
+     */
+    public static ExecutionIsolation fromValue(String value, ExecutionIsolation defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return ExecutionIsolation.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.logging.log4j.Logger;
 import com.flipkart.flux.api.VersionedEventData;
 import com.flipkart.flux.api.core.FluxError;
 import com.flipkart.flux.client.registry.Executable;
+import com.flipkart.flux.registry.InFlightExecutions;
 import com.flipkart.flux.registry.TaskExecutableImpl;
 import com.flipkart.flux.utils.Pair;
 
@@ -62,9 +63,25 @@ public class LocalJvmTask extends AbstractTask {
         return (int)toInvoke.getTimeout(); // TODO - fix this. Let all timeouts be in int
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-	@Override
+    @Override
+    public ExecutionIsolation getExecutionIsolation() {
+        return ((TaskExecutableImpl)toInvoke).getExecutionIsolation();
+    }
+
+    @Override
     public Pair<Object, FluxError> execute(VersionedEventData[] events) {
+        // the deployment unit is closed only after the executions in progress on it complete
+        InFlightExecutions inFlightExecutions = ((TaskExecutableImpl) toInvoke).getInFlightExecutions();
+        inFlightExecutions.acquire();
+        try {
+            return executeTask(events);
+        } finally {
+            inFlightExecutions.release();
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+	private Pair<Object, FluxError> executeTask(VersionedEventData[] events) {
         Object[] parameters = new Object[events.length];
         Class<?>[] parameterTypes = toInvoke.getParameterTypes();
         try {
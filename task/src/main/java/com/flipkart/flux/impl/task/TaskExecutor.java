@@ -27,6 +27,14 @@ import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
 import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolProperties;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * <code>TaskExecutor</code> wraps {@link Task} execution with Hystrix.
  *
@@ -35,6 +43,12 @@ import com.netflix.hystrix.HystrixThreadPoolProperties;
 public class TaskExecutor extends HystrixCommand<Event> {
 
     public static final String MANAGED_RUNTIME = "managedRuntime";
+
+    /**
+     * Time by which the Hystrix timeout of virtual thread isolated executions trails the execution timeout, so that the wait on the virtual thread
+     * times out, and interrupts the Task, before Hystrix does
+     */
+    static final int VIRTUAL_THREAD_HYSTRIX_TIMEOUT_MARGIN = 1000;
     /**
      * The task to execute
      */
@@ -60,24 +74,57 @@ public class TaskExecutor extends HystrixCommand<Event> {
      */
     private Long executionVersion;
 
+    /**
+     * Isolation mode and timeout with which the task is executed
+     */
+    private final ExecutionIsolation executionIsolation;
+    private final int executionTimeout;
+
+    /**
+     * System.nanoTime() at which execution of the task started, 0 if not started. Written by the Hystrix execution thread
+     */
+    private volatile long runStartNanos;
+
     /**
      * Constructor for this class
      */
     public TaskExecutor(AbstractTask task, VersionedEventData[] events, String stateMachineId, String outputEventName,
                         Long executionVersion) {
-        super(Setter
-                .withGroupKey(HystrixCommandGroupKey.Factory.asKey(task.getTaskGroupName()))
-                .andCommandKey(HystrixCommandKey.Factory.asKey(task.getName()))
-                .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(task.getName() + "-TP")) // creating a new thread pool per task by appending "-TP" to the task name
-                .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter().withCoreSize(task.getExecutionConcurrency()))
-                .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                        .withExecutionIsolationStrategy(ExecutionIsolationStrategy.THREAD)
-                        .withExecutionTimeoutInMilliseconds(task.getExecutionTimeout())));
+        super(createSetter(task));
         this.task = task;
         this.events = events;
         this.stateMachineId = stateMachineId;
         this.outputEventName = outputEventName;
         this.executionVersion = executionVersion;
+        this.executionIsolation = task.getExecutionIsolation();
+        this.executionTimeout = task.getExecutionTimeout();
+    }
+
+    /**
+     * Creates the Hystrix Setter for the specified task based on its {@link ExecutionIsolation}. Thread isolation uses a dedicated thread pool per task
+     * while semaphore and virtual thread isolation bound concurrency using a Hystrix semaphore. The Hystrix timeout is enabled for all modes so that
+     * timed out executions are reported with {@link com.netflix.hystrix.exception.HystrixRuntimeException.FailureType#TIMEOUT}. Virtual thread
+     * isolated executions time out on their own wait instead, see {@link #executeOnVirtualThread()}, and the Hystrix timeout is only a backstop
+     * set strictly above it.
+     */
+    private static Setter createSetter(AbstractTask task) {
+        Setter setter = Setter
+                .withGroupKey(HystrixCommandGroupKey.Factory.asKey(task.getTaskGroupName()))
+                .andCommandKey(HystrixCommandKey.Factory.asKey(task.getName()));
+        if (task.getExecutionIsolation() == ExecutionIsolation.THREAD) {
+            return setter
+                    .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(task.getName() + "-TP")) // creating a new thread pool per task by appending "-TP" to the task name
+                    .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter().withCoreSize(task.getExecutionConcurrency()))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(ExecutionIsolationStrategy.THREAD)
+                            .withExecutionTimeoutInMilliseconds(task.getExecutionTimeout()));
+        }
+        return setter.andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                .withExecutionIsolationSemaphoreMaxConcurrentRequests(task.getExecutionConcurrency())
+                .withExecutionTimeoutEnabled(true)
+                .withExecutionTimeoutInMilliseconds(task.getExecutionIsolation() == ExecutionIsolation.VIRTUAL_THREAD ?
+                        task.getExecutionTimeout() + VIRTUAL_THREAD_HYSTRIX_TIMEOUT_MARGIN : task.getExecutionTimeout()));
     }
 
     /**
@@ -86,8 +133,10 @@ public class TaskExecutor extends HystrixCommand<Event> {
      * @see com.netflix.hystrix.HystrixCommand#run()
      */
     protected Event run() throws Exception {
+        runStartNanos = System.nanoTime();
         try {
-            Pair<Object, FluxError> result = this.task.execute(events);
+            Pair<Object, FluxError> result = executionIsolation == ExecutionIsolation.VIRTUAL_THREAD ?
+                    executeOnVirtualThread() : this.task.execute(events);
             if (result.getValue() != null) {
                 throw result.getValue();
             }
@@ -115,4 +164,54 @@ public class TaskExecutor extends HystrixCommand<Event> {
         }
         return null;
     }
+
+    public long getRunStartNanos() {
+        return runStartNanos;
+    }
+
+    /**
+     * Executes the Task on a thread from {@link VirtualThreadExecutor} and waits for it for the execution timeout. The executing thread is interrupted
+     * if the Task does not complete in time and a {@link TimeoutException} is thrown. The Hystrix timeout cannot interrupt the Task here as the
+     * command runs on the calling thread, hence this wait owns the execution timeout.
+     */
+    private Pair<Object, FluxError> executeOnVirtualThread() throws Exception {
+        Future<Pair<Object, FluxError>> future = VirtualThreadExecutor.INSTANCE.submit(() -> task.execute(events));
+        try {
+            return future.get(executionTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Holder of the executor shared by all Tasks executed with {@link ExecutionIsolation#VIRTUAL_THREAD}. Uses a virtual thread per task executor when
+     * the JVM provides one (looked up reflectively as Flux is compiled for Java 8) and falls back to a cached pool of daemon threads otherwise.
+     */
+    static final class VirtualThreadExecutor {
+
+        static final ExecutorService INSTANCE = create();
+
+        private static ExecutorService create() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Exception e) {
+                final AtomicInteger threadCount = new AtomicInteger();
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "flux-task-executor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
 }
\ No newline at end of file
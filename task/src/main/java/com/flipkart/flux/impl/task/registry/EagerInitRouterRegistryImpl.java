@@ -15,9 +15,16 @@
 package com.flipkart.flux.impl.task.registry;
 
 import akka.actor.*;
+import akka.routing.AdjustPoolSize;
+import akka.routing.BalancingPool;
+import akka.routing.Pool;
 import akka.routing.RoundRobinPool;
+import akka.routing.SmallestMailboxPool;
 import com.flipkart.flux.impl.boot.ActorSystemManager;
 import com.flipkart.flux.impl.task.AkkaTask;
+import com.flipkart.flux.metrics.BoundedCounter;
+import com.flipkart.flux.metrics.iface.MetricsClient;
+import com.flipkart.polyguice.core.Disposable;
 import com.flipkart.polyguice.core.Initializable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,20 +33,27 @@ import scala.concurrent.duration.Duration;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static akka.actor.SupervisorStrategy.escalate;
 import static akka.actor.SupervisorStrategy.restart;
 
 /**
- * Eagerly creates and maintains references to all the required routers of the system
+ * Eagerly creates and maintains references to all the required routers of the system. Routers may be resized at runtime and,
+ * if enabled, are autoscaled by a {@link RouterAutoscaler} based on the no. of messages queued for them.
  * @see RouterRegistry
  * @author yogesh.nachnani
  * @author shyam.akirala
  */
 @Singleton
-public class EagerInitRouterRegistryImpl implements RouterRegistry, Initializable {
+public class EagerInitRouterRegistryImpl implements RouterRegistry, Initializable, Disposable {
+
+    /** Supported router pool types */
+    static final String ROUND_ROBIN_POOL = "roundRobin";
+    static final String SMALLEST_MAILBOX_POOL = "smallestMailbox";
+    static final String BALANCING_POOL = "balancing";
 
     /** Logger instance of this class */
     private static final Logger logger = LogManager.getLogger(EagerInitRouterRegistryImpl.class);
@@ -51,7 +65,22 @@ public class EagerInitRouterRegistryImpl implements RouterRegistry, Initializabl
     private Map<String, Integer> routerConfigMap;
 
     /** Local Map of initialized Router instances*/
-    private final HashMap<String, ActorRef> routerMap;
+    private final Map<String, ActorRef> routerMap;
+
+    /** Current no. of routees of each router */
+    private final Map<String, Integer> routerSizes;
+
+    /** No. of routees each router was last created or resized to, excluding autoscaling */
+    private final Map<String, Integer> routerBaseSizes;
+
+    /** Type of pool used for the routers, one of roundRobin, smallestMailbox or balancing */
+    private final String poolType;
+
+    /** Metrics client holding the queueSize counters of the routers */
+    private final MetricsClient metricsClient;
+
+    /** Autoscaler for the routers, null if autoscaling is disabled */
+    private final RouterAutoscaler routerAutoscaler;
 
     /** The global max retries for creating Task Actors*/
     private int maxTaskActorCreateRetries;
@@ -59,11 +88,23 @@ public class EagerInitRouterRegistryImpl implements RouterRegistry, Initializabl
     @Inject
     public EagerInitRouterRegistryImpl(ActorSystemManager actorSystemManager,
                                        @Named("runtime.actorsystem.maxTaskActorCreateRetries") int maxTaskActorCreateRetries,
-                                       @Named("routerConfigMap")Map<String, Integer> routerConfigMap) {
-        this.routerMap = new HashMap<>();
+                                       @Named("routerConfigMap")Map<String, Integer> routerConfigMap,
+                                       @Named("routers.default.poolType") String poolType,
+                                       @Named("routers.autoscale.enabled") boolean autoscaleEnabled,
+                                       @Named("routers.autoscale.minInstancesPerNode") int minInstancesPerNode,
+                                       @Named("routers.autoscale.maxInstancesPerNode") int maxInstancesPerNode,
+                                       @Named("routers.autoscale.backlogPerInstance") int backlogPerInstance,
+                                       @Named("routers.autoscale.intervalms") int autoscaleIntervalMs,
+                                       MetricsClient metricsClient) {
+        this.routerMap = new ConcurrentHashMap<>();
+        this.routerSizes = new ConcurrentHashMap<>();
+        this.routerBaseSizes = new ConcurrentHashMap<>();
         this.actorSystemManager = actorSystemManager;
         this.maxTaskActorCreateRetries = maxTaskActorCreateRetries;
         this.routerConfigMap = routerConfigMap;
+        this.poolType = poolType;
+        this.metricsClient = metricsClient;
+        this.routerAutoscaler = autoscaleEnabled ? new RouterAutoscaler(this, metricsClient, minInstancesPerNode, maxInstancesPerNode, backlogPerInstance, autoscaleIntervalMs) : null;
     }
 
     /**
@@ -77,29 +118,100 @@ public class EagerInitRouterRegistryImpl implements RouterRegistry, Initializabl
     }
 
     /**
-     * Iterates over given list of configured router names and creates a cluster singleton router for each
+     * Iterates over given list of configured router names and creates a cluster singleton router for each.
+     * Also starts the listener which takes dead lettered task messages off the queueSize counters of the routers.
      */
     @Override
     public void initialize() {
+        actorSystemManager.retrieveActorSystem().actorOf(Props.create(RouterDeadLetterListener.class, metricsClient), "routerDeadLetterListener");
         for (Map.Entry<String, Integer> routerConfig : routerConfigMap.entrySet()) {
             String routerName = routerConfig.getKey();
             Integer size = routerConfig.getValue();
             createOrResize(routerName, size);
         }
+        if (routerAutoscaler != null) {
+            routerAutoscaler.start();
+        }
     }
 
     @Override
-    public void createOrResize(String routerName, int newSize) {
+    public void dispose() {
+        if (routerAutoscaler != null) {
+            routerAutoscaler.stop();
+        }
+    }
+
+    /**
+     * Creates the router if absent, else resizes the router's pool of routees by the difference between the new and current sizes.
+     * Routees removed on a shrink stop receiving new messages and are stopped once they process the messages already queued for them.
+     */
+    @Override
+    public synchronized void createOrResize(String routerName, int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Router size cannot be negative. Router: " + routerName + " size: " + newSize);
+        }
+        routerBaseSizes.put(routerName, newSize);
         if(!routerMap.containsKey(routerName)) {
             final ActorSystem actorSystem = actorSystemManager.retrieveActorSystem();
             //create a local router with configured no.of task actors and keep the router reference in routerMap
-            ActorRef router = actorSystem.actorOf(new RoundRobinPool(newSize).withSupervisorStrategy(getTasksuperviseStrategy())
-                    .props(Props.create(AkkaTask.class)), routerName);
+            ActorRef router = actorSystem.actorOf(createPool(newSize).props(Props.create(AkkaTask.class)), routerName);
             routerMap.put(routerName, router);
-            logger.info("Created router: {} with no.of actors: {}", routerName, newSize);
+            routerSizes.put(routerName, newSize);
+            logger.info("Created {} router: {} with no.of actors: {}", poolType, routerName, newSize);
         } else {
-            // TODO ask the router to resize its pool of routees.
-            logger.warn("Currently router resize is NOT SUPPORTED. To change size Flux process has to be relaunched. Received resize request for router: {}, newSize: {}", routerName, newSize);
+            resize(routerName, newSize);
+        }
+    }
+
+    @Override
+    public synchronized void autoscale(String routerName, int newSize) {
+        Integer baseSize = routerBaseSizes.get(routerName);
+        if (baseSize == null || baseSize == 0 || newSize <= 0) {
+            return; // routers of unloaded deployment units are not brought back by autoscaling
+        }
+        resize(routerName, newSize);
+    }
+
+    /**
+     * Resizes the router's pool of routees by the difference between the new and current sizes. A router brought back from 0 starts with
+     * an empty queueSize counter, as the routees which held the messages counted for it were stopped when it was resized to 0.
+     */
+    private void resize(String routerName, int newSize) {
+        int currentSize = routerSizes.get(routerName);
+        if (currentSize != newSize) {
+            if (currentSize == 0) {
+                BoundedCounter queueSize = RouterAutoscaler.getQueueSize(metricsClient, routerName);
+                queueSize.dec(queueSize.getCount());
+            }
+            routerMap.get(routerName).tell(new AdjustPoolSize(newSize - currentSize), ActorRef.noSender());
+            routerSizes.put(routerName, newSize);
+            logger.info("Resized router: {} from {} to {} actors", routerName, currentSize, newSize);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getRouterSizes() {
+        return Collections.unmodifiableMap(routerSizes);
+    }
+
+    @Override
+    public Map<String, Integer> getRouterBaseSizes() {
+        return Collections.unmodifiableMap(routerBaseSizes);
+    }
+
+    /**
+     * Creates the router pool of the configured type
+     */
+    private Pool createPool(int size) {
+        switch (poolType) {
+            case SMALLEST_MAILBOX_POOL:
+                return new SmallestMailboxPool(size).withSupervisorStrategy(getTasksuperviseStrategy());
+            case BALANCING_POOL:
+                return new BalancingPool(size).withSupervisorStrategy(getTasksuperviseStrategy());
+            case ROUND_ROBIN_POOL:
+                return new RoundRobinPool(size).withSupervisorStrategy(getTasksuperviseStrategy());
+            default:
+                throw new IllegalArgumentException("Unsupported router pool type: " + poolType);
         }
     }
     
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.flux.impl.task.registry;
+
+import com.flipkart.flux.metrics.BoundedCounter;
+import com.flipkart.flux.metrics.iface.MetricsClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>RouterAutoscaler</code> periodically resizes the routers of a {@link RouterRegistry} based on the backlog of task messages
+ * that are queued in each router's mailboxes but not yet picked up by a Task actor. The backlog is read from the per router queueSize
+ * counter (see {@link #getQueueSizeMetricName(String)}) that is incremented when a message is handed to a router and decremented when
+ * an actor starts processing it.
+ * <p>
+ * A router is grown to hold at most <code>backlogPerInstance</code> queued messages per routee and shrunk gradually, never below its base size,
+ * i.e. the size it was last created or resized to outside of autoscaling, once the backlog drains. Sizes are always bounded by the configured min and max instances per node.
+ */
+public class RouterAutoscaler {
+
+    /** Logger instance of this class */
+    private static final Logger logger = LogManager.getLogger(RouterAutoscaler.class);
+
+    private final RouterRegistry routerRegistry;
+    private final MetricsClient metricsClient;
+
+    private final int minInstances;
+    private final int maxInstances;
+    private final int backlogPerInstance;
+    private final long intervalMs;
+
+    private ScheduledExecutorService scheduledExecutorService;
+
+    public RouterAutoscaler(RouterRegistry routerRegistry, MetricsClient metricsClient,
+                            int minInstances, int maxInstances, int backlogPerInstance, long intervalMs) {
+        this.routerRegistry = routerRegistry;
+        this.metricsClient = metricsClient;
+        this.minInstances = minInstances;
+        this.maxInstances = maxInstances;
+        this.backlogPerInstance = Math.max(1, backlogPerInstance);
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Returns the name of the counter tracking the no. of messages queued for the specified router
+     */
+    public static String getQueueSizeMetricName(String routerName) {
+        return "router." + routerName + ".queueSize";
+    }
+
+    /**
+     * Returns the counter tracking the no. of messages queued for the specified router. Execution nodes bound the messages queued for a router,
+     * so the counter is a {@link BoundedCounter}
+     */
+    public static BoundedCounter getQueueSize(MetricsClient metricsClient, String routerName) {
+        return metricsClient.getBoundedCounter(getQueueSizeMetricName(routerName));
+    }
+
+    /**
+     * Starts evaluating the router sizes at the configured interval
+     */
+    public void start() {
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flux-router-autoscaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                scale();
+            } catch (Throwable e) {
+                logger.error("Error while autoscaling routers", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Started router autoscaler with min: {} max: {} backlogPerInstance: {} interval: {}ms", minInstances, maxInstances, backlogPerInstance, intervalMs);
+    }
+
+    public void stop() {
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Evaluates every router once and resizes the ones whose size does not match their backlog
+     */
+    void scale() {
+        Map<String, Integer> baseSizes = routerRegistry.getRouterBaseSizes();
+        for (Map.Entry<String, Integer> router : routerRegistry.getRouterSizes().entrySet()) {
+            int currentSize = router.getValue();
+            if (currentSize == 0) {
+                continue; // routers shrunk to 0 belong to unloaded deployment units
+            }
+            long backlog = Math.max(0, getQueueSize(metricsClient, router.getKey()).getCount());
+            int newSize = computeSize(baseSizes.getOrDefault(router.getKey(), currentSize), currentSize, backlog);
+            if (newSize != currentSize) {
+                logger.info("Autoscaling router: {} from {} to {} actors, queued messages: {}", router.getKey(), currentSize, newSize, backlog);
+                routerRegistry.autoscale(router.getKey(), newSize);
+            }
+        }
+    }
+
+    /**
+     * Computes the size a router should have for the given backlog. Grows in one step and shrinks by half of the surplus per evaluation.
+     */
+    int computeSize(int baseSize, int currentSize, long backlog) {
+        long required = (backlog + backlogPerInstance - 1) / backlogPerInstance;
+        int desired = bound(Math.max(baseSize, required));
+        if (desired >= currentSize) {
+            return desired;
+        }
+        return bound(Math.max(desired, currentSize - (currentSize - desired + 1) / 2));
+    }
+
+    private int bound(long size) {
+        return (int) Math.min(maxInstances, Math.max(minInstances, size));
+    }
+}
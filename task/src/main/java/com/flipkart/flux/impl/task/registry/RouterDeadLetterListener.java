@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.flipkart.flux.impl.task.registry;
+
+import akka.actor.ActorPath;
+import akka.actor.DeadLetter;
+import akka.actor.UntypedActor;
+import com.flipkart.flux.impl.message.TaskAndEvents;
+import com.flipkart.flux.metrics.iface.MetricsClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An Akka Actor that listens to dead letters and takes the task messages among them off the queueSize counters of their routers.
+ * Task messages become dead letters when the routee they were queued or scheduled for retry on is stopped, e.g. by a shrink of its router.
+ * Such messages are never picked up by a {@link com.flipkart.flux.impl.task.AkkaTask} and would otherwise stay counted forever.
+ */
+public class RouterDeadLetterListener extends UntypedActor {
+
+    /** Logger instance of this class */
+    private static final Logger logger = LogManager.getLogger(RouterDeadLetterListener.class);
+
+    /** Path element under which the routers are created */
+    private static final String USER_GUARDIAN = "user";
+
+    /** Metrics client holding the queueSize counters */
+    private final MetricsClient metricsClient;
+
+    /**
+     * Constructor
+     * @param metricsClient metrics client holding the queueSize counters
+     */
+    public RouterDeadLetterListener(MetricsClient metricsClient) {
+        this.metricsClient = metricsClient;
+    }
+
+    /**
+     * Overridden super class method. Sets up subscription for dead letters
+     * @see akka.actor.UntypedActor#preStart()
+     */
+    public void preStart() {
+        getContext().system().eventStream().subscribe(getSelf(), DeadLetter.class);
+    }
+
+    /**
+     * Overridden super class method. Un-subscribes from dead letters
+     * @see akka.actor.UntypedActor#postStop()
+     */
+    public void postStop() {
+        getContext().system().eventStream().unsubscribe(getSelf());
+    }
+
+    /**
+     * Overridden super class method. Decrements the queueSize counters of the router and the task of a dead lettered task message
+     * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+     */
+    public void onReceive(Object message) {
+        if (message instanceof DeadLetter) {
+            DeadLetter deadLetter = (DeadLetter) message;
+            if (deadLetter.message() instanceof TaskAndEvents) {
+                TaskAndEvents taskAndEvents = (TaskAndEvents) deadLetter.message();
+                String routerName = getRouterName(deadLetter.recipient().path());
+                logger.warn("Task message for state machine: {} task: {} of router: {} was not delivered", taskAndEvents.getStateMachineId(),
+                        taskAndEvents.getTaskId(), routerName);
+                RouterAutoscaler.getQueueSize(metricsClient, routerName).dec();
+                metricsClient.decCounter(taskAndEvents.getStateMachineName(), taskAndEvents.getTaskName(), "queueSize");
+            }
+        } else {
+            unhandled(message);
+        }
+    }
+
+    /**
+     * Returns the name of the router of the specified recipient, which is either the router itself or one of its routees
+     */
+    static String getRouterName(ActorPath recipient) {
+        return USER_GUARDIAN.equals(recipient.parent().name()) ? recipient.name() : recipient.parent().name();
+    }
+}
@@ -16,6 +16,8 @@ package com.flipkart.flux.impl.task.registry;
 
 import akka.actor.ActorRef;
 
+import java.util.Map;
+
 /**
  * Interface that allows for akka router lookups
  * @author yogesh.nachnani
@@ -27,8 +29,30 @@ public interface RouterRegistry {
 
     /**
      * Creates a router if it does not exists. If it exists it would be resized to the given name. Router can be resized to 0.
+     * The size also becomes the router's base size, which autoscaling does not shrink it below.
      * @param name Name of the router.
      * @param newSize New number of the routees that this router will have.
      */
     void createOrResize(String name, int newSize);
+
+    /**
+     * Resizes an existing router without changing its base size. Used by the {@link RouterAutoscaler}, routers which do not exist or
+     * have been resized to 0 are left as they are.
+     * @param name Name of the router.
+     * @param newSize New number of the routees that this router will have.
+     */
+    void autoscale(String name, int newSize);
+
+    /**
+     * Returns the current number of routees of every router created by this registry.
+     * @return map of router name to number of routees
+     */
+    Map<String, Integer> getRouterSizes();
+
+    /**
+     * Returns the base size of every router created by this registry, i.e. the size it was last created or resized to by
+     * {@link #createOrResize(String, int)}.
+     * @return map of router name to base number of routees
+     */
+    Map<String, Integer> getRouterBaseSizes();
 }
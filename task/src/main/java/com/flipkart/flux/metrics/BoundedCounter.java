@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Counter;
+
+/**
+ * <code>BoundedCounter</code> is a {@link Counter} which can be incremented atomically only while it is below a bound, so that concurrent
+ * callers checking the count against the bound before incrementing it cannot together go past the bound.
+ */
+public class BoundedCounter extends Counter {
+
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Increments the counter by one if it is below the given bound
+     * @return false if the counter was at or above the bound and was not incremented
+     */
+    public boolean tryInc(long bound) {
+        long current;
+        do {
+            current = count.get();
+            if (current >= bound) {
+                return false;
+            }
+        } while (!count.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    @Override
+    public void inc(long n) {
+        count.addAndGet(n);
+    }
+
+    @Override
+    public void dec(long n) {
+        count.addAndGet(-n);
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+}
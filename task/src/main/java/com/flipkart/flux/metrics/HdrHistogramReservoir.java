@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>HdrHistogramReservoir</code> is a {@link Reservoir} backed by an HdrHistogram {@link Recorder}. Unlike sampling reservoirs it keeps every recorded
+ * value, so tail percentiles of latencies are accurate, and recording is wait-free.
+ * <p>
+ * Snapshots describe the values recorded in the last completed interval. An interval is closed when a snapshot is requested at least
+ * <code>intervalMillis</code> after the previous one was closed, so reporters reading several attributes of a snapshot in quick succession (e.g. JMX)
+ * see consistent values.
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+    /** Default length of an interval */
+    private static final long DEFAULT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /** Values are tracked with 2 significant digits of precision, i.e. within 1% */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final long intervalMillis;
+
+    /** Histogram of the last completed interval */
+    private Histogram intervalHistogram;
+    private long intervalStartMillis;
+    private Snapshot snapshot;
+
+    public HdrHistogramReservoir() {
+        this(DEFAULT_INTERVAL_MILLIS);
+    }
+
+    public HdrHistogramReservoir(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        this.intervalHistogram = recorder.getIntervalHistogram();
+        this.intervalStartMillis = System.currentTimeMillis();
+        this.snapshot = new HdrHistogramSnapshot(intervalHistogram.copy());
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(long value) {
+        recorder.recordValue(Math.max(0, value));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        long now = System.currentTimeMillis();
+        if (now - intervalStartMillis >= intervalMillis) {
+            intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+            intervalStartMillis = now;
+            snapshot = new HdrHistogramSnapshot(intervalHistogram.copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Snapshot over a copy of an interval histogram
+     */
+    static class HdrHistogramSnapshot extends Snapshot {
+
+        private final Histogram histogram;
+
+        HdrHistogramSnapshot(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            return histogram.getValueAtPercentile(quantile * 100.0);
+        }
+
+        @Override
+        public long[] getValues() {
+            long[] values = new long[size()];
+            int index = 0;
+            for (HistogramIterationValue value : histogram.recordedValues()) {
+                for (long i = 0; i < value.getCountAtValueIteratedTo() && index < values.length; i++) {
+                    values[index++] = value.getValueIteratedTo();
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(Integer.MAX_VALUE, histogram.getTotalCount());
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getMaxValue();
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getMean();
+        }
+
+        @Override
+        public long getMin() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getMinValue();
+        }
+
+        @Override
+        public double getStdDev() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getStdDeviation();
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
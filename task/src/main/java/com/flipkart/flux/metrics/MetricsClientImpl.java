@@ -13,11 +13,18 @@
 
 package com.flipkart.flux.metrics;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.flipkart.flux.metrics.iface.MetricsClient;
 import com.google.inject.Inject;
 
+import javax.inject.Named;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  * <code>MetricsClientImpl</code> implements <a href="http://metrics.dropwizard.io">Metrics</a> library {@link MetricsClient} and publishes metrics using {@link MetricRegistry}.
  * @author kaushal.hooda
@@ -29,9 +36,27 @@ public class MetricsClientImpl implements MetricsClient {
      */
     private final MetricRegistry metricRegistry;
 
+    /**
+     * Cached handles of the per state machine task metrics.
+     */
+    private final TaskMetricCache<Meter> meters;
+    private final TaskMetricCache<Counter> counters;
+    private final TaskMetricCache<Timer> timers;
+
+    /**
+     * Cached life cycle stage timers per state machine name, indexed by stage ordinal.
+     */
+    private final ConcurrentHashMap<String, Timer[]> stageTimers = new ConcurrentHashMap<>();
+    private final int maxStateMachineNames;
+
     @Inject
-    MetricsClientImpl(MetricRegistry metricRegistry){
+    MetricsClientImpl(MetricRegistry metricRegistry, @Named("metrics.maxStateMachineNames") int maxStateMachineNames,
+                      @Named("metrics.maxTaskNamesPerStateMachine") int maxTaskNamesPerStateMachine){
         this.metricRegistry = metricRegistry;
+        this.maxStateMachineNames = maxStateMachineNames;
+        this.meters = new TaskMetricCache<>(metricRegistry::meter, maxStateMachineNames, maxTaskNamesPerStateMachine);
+        this.counters = new TaskMetricCache<>(metricRegistry::counter, maxStateMachineNames, maxTaskNamesPerStateMachine);
+        this.timers = new TaskMetricCache<>(metricRegistry::timer, maxStateMachineNames, maxTaskNamesPerStateMachine);
     }
 
     /**
@@ -58,4 +83,69 @@ public class MetricsClientImpl implements MetricsClient {
     public Timer getTimer(String key){
         return metricRegistry.timer(key);
     }
+
+    @Override
+    public Meter getMeter(String key) {
+        return metricRegistry.meter(key);
+    }
+
+    @Override
+    public Counter getCounter(String key) {
+        return metricRegistry.counter(key);
+    }
+
+    @Override
+    public BoundedCounter getBoundedCounter(String key) {
+        return (BoundedCounter) metricRegistry.counter(key, BoundedCounter::new);
+    }
+
+    @Override
+    public void markMeter(String stateMachineName, String taskName, String metric) {
+        meters.get(stateMachineName, taskName, metric).mark();
+    }
+
+    @Override
+    public void incCounter(String stateMachineName, String taskName, String metric) {
+        counters.get(stateMachineName, taskName, metric).inc();
+    }
+
+    @Override
+    public void decCounter(String stateMachineName, String taskName, String metric) {
+        counters.get(stateMachineName, taskName, metric).dec();
+    }
+
+    @Override
+    public Timer getTimer(String stateMachineName, String taskName, String metric) {
+        return timers.get(stateMachineName, taskName, metric);
+    }
+
+    @Override
+    public <T> void registerGauge(String key, Gauge<T> gauge) {
+        metricRegistry.gauge(key, () -> gauge);
+    }
+
+    @Override
+    public void recordStage(String stateMachineName, TaskLifecycleStage stage, long durationNanos) {
+        stateMachineName = String.valueOf(stateMachineName);
+        Timer[] timersOfStateMachine = stageTimers.get(stateMachineName);
+        if (timersOfStateMachine == null) {
+            timersOfStateMachine = createStageTimers(stageTimers.size() < maxStateMachineNames ? stateMachineName : TaskMetricCache.OVERFLOW_NAME);
+        }
+        timersOfStateMachine[stage.ordinal()].update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates the HdrHistogram backed stage timers of a state machine
+     */
+    private Timer[] createStageTimers(String stateMachineName) {
+        return stageTimers.computeIfAbsent(stateMachineName, name -> {
+            TaskLifecycleStage[] stages = TaskLifecycleStage.values();
+            Timer[] stageTimersOfStateMachine = new Timer[stages.length];
+            for (TaskLifecycleStage stage : stages) {
+                stageTimersOfStateMachine[stage.ordinal()] = metricRegistry.timer("stateMachine." + name + ".stage." + stage.getMetricName(),
+                        () -> new Timer(new HdrHistogramReservoir()));
+            }
+            return stageTimersOfStateMachine;
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.metrics;
+
+/**
+ * <code>TaskLifecycleStage</code> enumerates the hops of a task's life cycle whose latencies are recorded per state machine.
+ * Each stage is reported as the timer stateMachine.&lt;stateMachineName&gt;.stage.&lt;metricName&gt;
+ */
+public enum TaskLifecycleStage {
+
+    /** Orchestrator: persisting a received event (and the task status update accompanying it) */
+    EVENT_PERSISTED("eventPersisted"),
+    /** Orchestrator: evaluating which dependant states are now executable */
+    DEPENDENCIES_EVALUATED("dependenciesEvaluated"),
+    /** Orchestrator: registering a task with the redriver */
+    REDRIVER_REGISTERED("redriverRegistered"),
+    /** Orchestrator: forwarding a task to an execution node */
+    DISPATCHED("dispatched"),
+    /** Orchestrator: dispatching all the states an event unblocked, once they are evaluated */
+    NEXT_STATE_DISPATCH("nextStateDispatch"),
+    /** Execution node: accepting a task into a router */
+    ACCEPTED("accepted"),
+    /** Execution node: time a task waited in the router's mailboxes before an actor dequeued it */
+    DEQUEUED("dequeued"),
+    /** Execution node: from handing a task to Hystrix to the start of its execution */
+    HYSTRIX_START("hystrixStart"),
+    /** Execution node: execution of the task, ending when Hystrix returns */
+    HYSTRIX_END("hystrixEnd"),
+    /** Execution node: posting the task's status and output event back to the orchestrator */
+    STATUS_CALLBACK("statusCallback");
+
+    private final String metricName;
+
+    TaskLifecycleStage(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.metrics;
+
+import com.codahale.metrics.Metric;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <code>TaskMetricCache</code> caches metric handles keyed on (state machine name, task name, metric) so that a metric of the form
+ * stateMachine.&lt;stateMachineName&gt;.task.&lt;taskName&gt;.&lt;metric&gt; can be looked up without composing its name on every call.
+ * <p>
+ * The no. of distinct state machine names and task names per state machine is bounded. Names beyond the bounds share the {@link #OVERFLOW_NAME}
+ * bucket, so that an unbounded no. of workflow names cannot grow the metric registry without limit.
+ *
+ * @param <T> the type of metric cached
+ */
+class TaskMetricCache<T extends Metric> {
+
+    /** Name under which the metrics of state machines and tasks beyond the configured limits are reported */
+    static final String OVERFLOW_NAME = "_other";
+
+    /** state machine name -> task name -> metric -> handle */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, T>>> handles = new ConcurrentHashMap<>();
+
+    /** Creates the handle given the full metric name, usually a MetricRegistry lookup */
+    private final Function<String, T> metricFactory;
+
+    private final int maxStateMachineNames;
+    private final int maxTaskNamesPerStateMachine;
+
+    TaskMetricCache(Function<String, T> metricFactory, int maxStateMachineNames, int maxTaskNamesPerStateMachine) {
+        this.metricFactory = metricFactory;
+        this.maxStateMachineNames = maxStateMachineNames;
+        this.maxTaskNamesPerStateMachine = maxTaskNamesPerStateMachine;
+    }
+
+    /**
+     * Returns the handle for the metric, creating it on first use. Lookups of existing handles do not allocate.
+     */
+    T get(String stateMachineName, String taskName, String metric) {
+        stateMachineName = String.valueOf(stateMachineName); // null names are reported as "null", as when names were composed with a StringBuilder
+        taskName = String.valueOf(taskName);
+        ConcurrentHashMap<String, ConcurrentHashMap<String, T>> tasks = handles.get(stateMachineName);
+        if (tasks == null) {
+            tasks = handles.size() < maxStateMachineNames ? addIfAbsent(handles, stateMachineName) : addIfAbsent(handles, OVERFLOW_NAME);
+        }
+        ConcurrentHashMap<String, T> metrics = tasks.get(taskName);
+        if (metrics == null) {
+            metrics = tasks.size() < maxTaskNamesPerStateMachine ? addIfAbsent(tasks, taskName) : addIfAbsent(tasks, OVERFLOW_NAME);
+        }
+        T handle = metrics.get(metric);
+        if (handle == null) {
+            handle = createHandle(metrics, tasks, stateMachineName, taskName, metric);
+        }
+        return handle;
+    }
+
+    private T createHandle(ConcurrentHashMap<String, T> metrics, ConcurrentHashMap<String, ConcurrentHashMap<String, T>> tasks,
+                           String stateMachineName, String taskName, String metric) {
+        // resolve the names the maps were actually registered under, these differ when the name overflowed
+        String registeredStateMachineName = handles.get(stateMachineName) == tasks ? stateMachineName : OVERFLOW_NAME;
+        String registeredTaskName = tasks.get(taskName) == metrics ? taskName : OVERFLOW_NAME;
+        return metrics.computeIfAbsent(metric, m -> metricFactory.apply(new StringBuilder().
+                append("stateMachine.").
+                append(registeredStateMachineName).
+                append(".task.").
+                append(registeredTaskName).
+                append('.').
+                append(m).toString()));
+    }
+
+    private static <V> ConcurrentHashMap<String, V> addIfAbsent(ConcurrentHashMap<String, ConcurrentHashMap<String, V>> map, String key) {
+        return map.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+}
@@ -13,7 +13,12 @@
 
 package com.flipkart.flux.metrics.iface;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
+import com.flipkart.flux.metrics.BoundedCounter;
+import com.flipkart.flux.metrics.TaskLifecycleStage;
 
 
 /**
@@ -45,5 +50,52 @@ public interface MetricsClient {
      * Provides a timer with name, creates if absent
      */
     public Timer getTimer(String key);
+
+    /**
+     * Provides a meter with name, creates if absent. Callers marking a fixed meter on a hot path can hold on to the returned handle
+     */
+    public Meter getMeter(String key);
+
+    /**
+     * Provides a counter with name, creates if absent
+     */
+    public Counter getCounter(String key);
+
+    /**
+     * Provides a {@link BoundedCounter} with name, creates if absent. Counters which are bounded must always be looked up using this method
+     */
+    public BoundedCounter getBoundedCounter(String key);
+
+    /**
+     * Marks the meter stateMachine.&lt;stateMachineName&gt;.task.&lt;taskName&gt;.&lt;metric&gt;. The meter handle is cached, so no metric name is composed per call.
+     * State machine and task names beyond the configured limits are reported under a common name.
+     */
+    public void markMeter(String stateMachineName, String taskName, String metric);
+
+    /**
+     * Increments the counter stateMachine.&lt;stateMachineName&gt;.task.&lt;taskName&gt;.&lt;metric&gt; using a cached handle.
+     */
+    public void incCounter(String stateMachineName, String taskName, String metric);
+
+    /**
+     * Decrements the counter stateMachine.&lt;stateMachineName&gt;.task.&lt;taskName&gt;.&lt;metric&gt; using a cached handle.
+     */
+    public void decCounter(String stateMachineName, String taskName, String metric);
+
+    /**
+     * Provides the timer stateMachine.&lt;stateMachineName&gt;.task.&lt;taskName&gt;.&lt;metric&gt; using a cached handle, creates if absent
+     */
+    public Timer getTimer(String stateMachineName, String taskName, String metric);
+
+    /**
+     * Records the latency of a task life cycle stage in the HdrHistogram backed timer stateMachine.&lt;stateMachineName&gt;.stage.&lt;stage&gt;
+     * @param durationNanos duration of the stage in nano seconds
+     */
+    public void recordStage(String stateMachineName, TaskLifecycleStage stage, long durationNanos);
+
+    /**
+     * Registers a gauge with name, unless a gauge is already registered with the name
+     */
+    public <T> void registerGauge(String key, Gauge<T> gauge);
     
 }
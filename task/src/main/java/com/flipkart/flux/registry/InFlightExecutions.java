@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.registry;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <code>InFlightExecutions</code> counts the executions of the tasks of a deployment unit that are in progress, so that a deployment unit
+ * that is being replaced or unloaded is closed only after the executions that started on it complete.
+ * Executions may start while the deployment unit drains, as tasks looked up before it got unregistered can still execute on it.
+ */
+public class InFlightExecutions {
+
+    /** No. of executions in progress */
+    private int count;
+
+    /** Completed once the count drops to zero after {@link #drain()} is called, null until then */
+    private CompletableFuture<Void> drained;
+
+    /**
+     * Marks the start of an execution
+     */
+    public synchronized void acquire() {
+        count++;
+    }
+
+    /**
+     * Marks the end of an execution started with {@link #acquire()}
+     */
+    public synchronized void release() {
+        count--;
+        if (count == 0 && drained != null) {
+            drained.complete(null);
+        }
+    }
+
+    /**
+     * Returns a future that completes once there are no executions in progress, right away if there are none
+     */
+    public synchronized CompletableFuture<Void> drain() {
+        if (drained == null) {
+            drained = new CompletableFuture<>();
+            if (count == 0) {
+                drained.complete(null);
+            }
+        }
+        return drained;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+}
@@ -15,6 +15,7 @@ package com.flipkart.flux.registry;
 
 import com.flipkart.flux.client.intercept.MethodId;
 import com.flipkart.flux.client.registry.Executable;
+import com.flipkart.flux.impl.task.ExecutionIsolation;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -42,19 +43,37 @@ public class TaskExecutableImpl implements Executable {
     /** max allowed no. of concurrently running instances of this task per node */
     private final int executionConcurrency;
 
+    /** isolation mode used while executing this task */
+    private final ExecutionIsolation executionIsolation;
+
     /** Singleton ObjectMapper instance of the deployment unit */
     private final Object objectMapperInstance;
 
     /** Class loader of the deployment unit to which 'toInvoke' belongs */
     private final URLClassLoader deploymentUnitClassLoader;
 
+    /** Executions in progress on the deployment unit to which 'toInvoke' belongs */
+    private final InFlightExecutions inFlightExecutions;
+
     public TaskExecutableImpl(Object singletonMethodOwner, Method toInvoke, long timeout, int executionConcurrency, URLClassLoader classLoader, Object objectMapperInstance) {
+        this(singletonMethodOwner, toInvoke, timeout, executionConcurrency, ExecutionIsolation.THREAD, classLoader, objectMapperInstance);
+    }
+
+    public TaskExecutableImpl(Object singletonMethodOwner, Method toInvoke, long timeout, int executionConcurrency, ExecutionIsolation executionIsolation,
+                              URLClassLoader classLoader, Object objectMapperInstance) {
+        this(singletonMethodOwner, toInvoke, timeout, executionConcurrency, executionIsolation, classLoader, objectMapperInstance, new InFlightExecutions());
+    }
+
+    public TaskExecutableImpl(Object singletonMethodOwner, Method toInvoke, long timeout, int executionConcurrency, ExecutionIsolation executionIsolation,
+                              URLClassLoader classLoader, Object objectMapperInstance, InFlightExecutions inFlightExecutions) {
         this.singletonMethodOwner = singletonMethodOwner;
         this.toInvoke = toInvoke;
         this.timeout = timeout;
         this.executionConcurrency = executionConcurrency;
+        this.executionIsolation = executionIsolation;
         this.deploymentUnitClassLoader = classLoader;
         this.objectMapperInstance = objectMapperInstance;
+        this.inFlightExecutions = inFlightExecutions;
     }
 
     @Override
@@ -98,6 +117,10 @@ public class TaskExecutableImpl implements Executable {
         return executionConcurrency;
     }
 
+    public ExecutionIsolation getExecutionIsolation() {
+        return executionIsolation;
+    }
+
     @Override
     public Object execute(Object[] parameters) {
         try {
@@ -119,4 +142,8 @@ public class TaskExecutableImpl implements Executable {
     public Object getObjectMapperInstance() {
         return objectMapperInstance;
     }
+
+    public InFlightExecutions getInFlightExecutions() {
+        return inFlightExecutions;
+    }
 }
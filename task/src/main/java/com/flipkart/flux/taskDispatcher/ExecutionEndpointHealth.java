@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.taskDispatcher;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+/**
+ * <code>ExecutionEndpointHealth</code> guards the forwards to one execution endpoint, i.e. a client ELB, with a bulkhead and a circuit breaker,
+ * so that an execution cluster which is down or slow holds up neither the orchestrator's threads nor the forwards to other endpoints.
+ * <ul>
+ *     <li>The bulkhead bounds the forwards in progress to the endpoint, forwards beyond it are rejected instead of waiting for a connection.</li>
+ *     <li>The circuit opens after <code>failureThreshold</code> consecutive failed forwards, forwards are then rejected for <code>openDurationMillis</code>
+ *     and left to the redriver. A single probe forward is let through after that, which closes the circuit on success and opens it again on failure.</li>
+ * </ul>
+ */
+public class ExecutionEndpointHealth {
+
+    public enum CircuitState {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * Outcome of {@link #allowRequest()}, to be handed back with the result of the forward. Only the result of the probe decides whether a
+     * half open circuit closes or opens again
+     */
+    public enum Permit {
+        REJECTED, ALLOWED, PROBE;
+
+        public boolean isAllowed() {
+            return this != REJECTED;
+        }
+    }
+
+    private final Semaphore bulkhead;
+    private final int maxConcurrentForwards;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier clock;
+
+    private CircuitState circuitState = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public ExecutionEndpointHealth(int maxConcurrentForwards, int failureThreshold, long openDurationMillis) {
+        this(maxConcurrentForwards, failureThreshold, openDurationMillis, System::currentTimeMillis);
+    }
+
+    ExecutionEndpointHealth(int maxConcurrentForwards, int failureThreshold, long openDurationMillis, LongSupplier clock) {
+        this.bulkhead = new Semaphore(maxConcurrentForwards);
+        this.maxConcurrentForwards = maxConcurrentForwards;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a slot of the bulkhead without waiting, to be released with {@link #exit()}
+     * @return false if the bulkhead is full
+     */
+    public boolean tryEnter() {
+        return bulkhead.tryAcquire();
+    }
+
+    /**
+     * Releases a slot taken with {@link #tryEnter()}
+     */
+    public void exit() {
+        bulkhead.release();
+    }
+
+    /**
+     * Checks if a forward is allowed by the circuit. Once the open duration elapses, the first caller is let through as the probe. The outcome
+     * of an allowed forward must be reported with {@link #onSuccess(Permit)} or {@link #onFailure(Permit)} along with its permit
+     */
+    public synchronized Permit allowRequest() {
+        switch (circuitState) {
+            case CLOSED:
+                return Permit.ALLOWED;
+            case OPEN:
+                if (clock.getAsLong() - openedAt >= openDurationMillis) {
+                    circuitState = CircuitState.HALF_OPEN;
+                    return Permit.PROBE;
+                }
+                return Permit.REJECTED;
+            default:
+                return Permit.REJECTED; // a probe is in progress
+        }
+    }
+
+    /**
+     * Records a successful forward. Only the probe closes a half open circuit, forwards which started before the circuit opened are ignored
+     * @return true if the forward was the probe and closed the circuit
+     */
+    public synchronized boolean onSuccess(Permit permit) {
+        if (permit == Permit.PROBE && circuitState == CircuitState.HALF_OPEN) {
+            circuitState = CircuitState.CLOSED;
+            consecutiveFailures = 0;
+            return true;
+        }
+        if (permit == Permit.ALLOWED && circuitState == CircuitState.CLOSED) {
+            consecutiveFailures = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Records a failed forward, opening the circuit if the threshold is reached or the probe failed. Failures of forwards which started
+     * before the circuit opened are ignored
+     * @return true if the circuit got opened
+     */
+    public synchronized boolean onFailure(Permit permit) {
+        boolean probeFailed = permit == Permit.PROBE && circuitState == CircuitState.HALF_OPEN;
+        if (!probeFailed && (permit != Permit.ALLOWED || circuitState != CircuitState.CLOSED)) {
+            return false;
+        }
+        consecutiveFailures++;
+        if (probeFailed || consecutiveFailures >= failureThreshold) {
+            circuitState = CircuitState.OPEN;
+            openedAt = clock.getAsLong();
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized CircuitState getCircuitState() {
+        return circuitState;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /** No. of forwards in progress */
+    public int getInFlight() {
+        return maxConcurrentForwards - bulkhead.availablePermits();
+    }
+}
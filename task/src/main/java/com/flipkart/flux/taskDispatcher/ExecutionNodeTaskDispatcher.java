@@ -21,5 +21,15 @@ import com.flipkart.flux.api.core.TaskExecutionMessage;
  */
 public interface ExecutionNodeTaskDispatcher {
 
+    /**
+     * Status returned when the execution node signalled back pressure, or the dispatcher is backing off the endpoint or rejected the forward
+     * as the endpoint's circuit is open or too many forwards to it are in progress
+     */
+    int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Forwards the message to the execution node endpoint.
+     * @return the http status code of the forward, {@link #TOO_MANY_REQUESTS} if the endpoint is being backed off and -1 on communication errors
+     */
     int forwardExecutionMessage(String endpoint, TaskExecutionMessage taskExecutionMessage);
 }
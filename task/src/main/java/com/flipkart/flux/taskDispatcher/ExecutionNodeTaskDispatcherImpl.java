@@ -16,11 +16,16 @@ package com.flipkart.flux.taskDispatcher;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.ws.rs.core.Response;
 
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
@@ -34,8 +39,11 @@ import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flipkart.flux.api.core.TaskExecutionMessage;
+import com.flipkart.flux.client.runtime.WireFormat;
 import com.flipkart.flux.metrics.iface.MetricsClient;
 import com.google.inject.Inject;
 
@@ -45,13 +53,44 @@ public class ExecutionNodeTaskDispatcherImpl implements ExecutionNodeTaskDispatc
     private static Logger logger = LogManager.getLogger(ExecutionNodeTaskDispatcherImpl.class);
     private final CloseableHttpClient closeableHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper smileObjectMapper = WireFormat.newSmileObjectMapper();
     private MetricsClient metricsClient;
 
+    /** Format in which task execution messages are forwarded to execution nodes */
+    private final WireFormat wireFormat;
+
+    /** Endpoints that rejected the wire format, messages to these are forwarded as JSON */
+    private final Set<String> jsonOnlyEndpoints = ConcurrentHashMap.newKeySet();
+
+    /** Meters of forward outcomes, looked up once as their names are fixed */
+    private final Meter forwarded2xxMeter;
+    private final Meter forwarded4xxMeter;
+    private final Meter forwarded5xxMeter;
+    private final Meter backPressureMeter;
+    private final Meter backedOffMeter;
+    private final Meter circuitOpenMeter;
+    private final Meter bulkheadFullMeter;
+
+    /** Back off applied to an endpoint that signalled back pressure without a usable Retry-After header */
+    private static final long DEFAULT_BACKOFF_MILLIS = 1000;
+
+    /** Time in millis till which forwards to a router of an endpoint are held back, as the router signalled back pressure. Keyed by {@link #getBackoffKey} */
+    private final ConcurrentHashMap<String, Long> endpointBackoffs = new ConcurrentHashMap<>();
+
+    /** Bulkhead and circuit breaker of each endpoint. Endpoints are bounded by the client ELBs */
+    private final ConcurrentHashMap<String, ExecutionEndpointHealth> endpointHealths = new ConcurrentHashMap<>();
+    private final int maxConcurrentForwardsPerEndpoint;
+    private final int circuitFailureThreshold;
+    private final int circuitOpenDurationMillis;
 
     @Inject
     public ExecutionNodeTaskDispatcherImpl(@Named("connector.max.connections") Integer maxConnections, @Named("connector.max.connections.per.route") Integer maxConnectionsPerRoute,
                                            @Named("connector.connection.timeout") Integer connectionTimeout, @Named("connector.socket.timeout") Integer socketTimeOut,
-                                           MetricsClient metricsClient) {
+                                           @Named("connector.wireFormat") String wireFormat, MetricsClient metricsClient,
+                                           @Named("connector.bulkhead.maxConcurrentForwardsPerEndpoint") Integer maxConcurrentForwardsPerEndpoint,
+                                           @Named("connector.circuitBreaker.failureThreshold") Integer circuitFailureThreshold,
+                                           @Named("connector.circuitBreaker.openDurationms") Integer circuitOpenDurationMillis) {
+        this.wireFormat = WireFormat.fromValue(wireFormat, WireFormat.JSON);
         RequestConfig clientConfig = RequestConfig.custom()
                 .setConnectTimeout((connectionTimeout).intValue())
                 .setSocketTimeout((socketTimeOut).intValue())
@@ -67,27 +106,90 @@ public class ExecutionNodeTaskDispatcherImpl implements ExecutionNodeTaskDispatc
             HttpClientUtils.closeQuietly(closeableHttpClient);
         }));
         this.metricsClient = metricsClient;
+        this.forwarded2xxMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.2xx");
+        this.forwarded4xxMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.4xx");
+        this.forwarded5xxMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.5xx");
+        this.backPressureMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.backPressure");
+        this.backedOffMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.backedOff");
+        this.circuitOpenMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.circuitOpen");
+        this.bulkheadFullMeter = metricsClient.getMeter("stateMachine.tasks.forwardToExecutor.bulkheadFull");
+        this.maxConcurrentForwardsPerEndpoint = maxConcurrentForwardsPerEndpoint;
+        this.circuitFailureThreshold = circuitFailureThreshold;
+        this.circuitOpenDurationMillis = circuitOpenDurationMillis;
     }
 
 
     @Override
     public int forwardExecutionMessage(String endPoint, TaskExecutionMessage taskExecutionMessage) {
+        String backoffKey = getBackoffKey(endPoint, taskExecutionMessage);
+        if (isBackedOff(backoffKey)) {
+            logger.warn("Not forwarding smId:{} taskId:{} as router: {} of endpoint: {} is being backed off",
+                    taskExecutionMessage.getAkkaMessage().getStateMachineId(), taskExecutionMessage.getAkkaMessage().getTaskId(),
+                    taskExecutionMessage.getRouterName(), endPoint);
+            backedOffMeter.mark();
+            return TOO_MANY_REQUESTS;
+        }
+        ExecutionEndpointHealth health = endpointHealths.computeIfAbsent(endPoint, this::createHealth);
+        if (!health.tryEnter()) {
+            logger.warn("Not forwarding smId:{} taskId:{} as {} forwards to endpoint: {} are in progress",
+                    taskExecutionMessage.getAkkaMessage().getStateMachineId(), taskExecutionMessage.getAkkaMessage().getTaskId(),
+                    maxConcurrentForwardsPerEndpoint, endPoint);
+            bulkheadFullMeter.mark();
+            return TOO_MANY_REQUESTS;
+        }
+        try {
+            ExecutionEndpointHealth.Permit permit = health.allowRequest();
+            if (!permit.isAllowed()) {
+                logger.warn("Not forwarding smId:{} taskId:{} as the circuit of endpoint: {} is open",
+                        taskExecutionMessage.getAkkaMessage().getStateMachineId(), taskExecutionMessage.getAkkaMessage().getTaskId(), endPoint);
+                circuitOpenMeter.mark();
+                return TOO_MANY_REQUESTS;
+            }
+            int statusCode = -1;
+            try {
+                statusCode = forward(endPoint, taskExecutionMessage);
+            } finally {
+                if (isFailure(statusCode)) {
+                    if (health.onFailure(permit)) {
+                        logger.error("Opened the circuit of endpoint: {} after {} consecutive failed forwards, forwards are left to the redriver for {}ms",
+                                endPoint, health.getConsecutiveFailures(), circuitOpenDurationMillis);
+                    }
+                } else if (health.onSuccess(permit)) {
+                    logger.info("Closed the circuit of endpoint: {} as the probe forward succeeded", endPoint);
+                }
+            }
+            return statusCode;
+        } finally {
+            health.exit();
+        }
+    }
+
+    private int forward(String endPoint, TaskExecutionMessage taskExecutionMessage) {
         int defaultStatusCode = -1;
         CloseableHttpResponse httpResponse = null;
-        HttpPost httpPostRequest;
-        httpPostRequest = new HttpPost(endPoint);
         try {
-            final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            objectMapper.writeValue(byteArrayOutputStream, taskExecutionMessage);
-
-            httpPostRequest.setEntity(new ByteArrayEntity(byteArrayOutputStream.toByteArray(), ContentType.APPLICATION_JSON));
-            httpResponse = closeableHttpClient.execute(httpPostRequest);
+            WireFormat format = jsonOnlyEndpoints.contains(endPoint) ? WireFormat.JSON : wireFormat;
+            httpResponse = post(endPoint, taskExecutionMessage, format);
             defaultStatusCode = httpResponse.getStatusLine().getStatusCode();
+            if (defaultStatusCode == WireFormat.UNSUPPORTED_MEDIA_TYPE && format != WireFormat.JSON) {
+                logger.warn("Endpoint: {} does not support wire format: {}, falling back to JSON", endPoint, format);
+                jsonOnlyEndpoints.add(endPoint);
+                HttpClientUtils.closeQuietly(httpResponse);
+                httpResponse = post(endPoint, taskExecutionMessage, WireFormat.JSON);
+                defaultStatusCode = httpResponse.getStatusLine().getStatusCode();
+            }
             if (defaultStatusCode == Response.Status.ACCEPTED.getStatusCode()) {
-                logger.info("Posting over http is successful. StatusCode: {} smId:{} taskId:{}", defaultStatusCode,
+                logger.debug("Posting over http is successful. StatusCode: {} smId:{} taskId:{}", defaultStatusCode,
                         taskExecutionMessage.getAkkaMessage().getStateMachineId(),
                         taskExecutionMessage.getAkkaMessage().getTaskId());
 
+            } else if (isBackPressure(defaultStatusCode)) {
+                long backoffMillis = getBackoffMillis(httpResponse);
+                endpointBackoffs.put(getBackoffKey(endPoint, taskExecutionMessage), System.currentTimeMillis() + backoffMillis);
+                logger.warn("Endpoint: {} signalled back pressure with StatusCode: {} for router: {} smId:{} taskId:{}, backing off for {}ms",
+                        endPoint, defaultStatusCode, taskExecutionMessage.getRouterName(),
+                        taskExecutionMessage.getAkkaMessage().getStateMachineId(),
+                        taskExecutionMessage.getAkkaMessage().getTaskId(), backoffMillis);
             } else {
                 logger.error("Did not receive a valid response from Flux core. StatusCode: {}, smId:{} taskId:{} message: {}",
                         defaultStatusCode,
@@ -101,23 +203,23 @@ public class ExecutionNodeTaskDispatcherImpl implements ExecutionNodeTaskDispatc
                     taskExecutionMessage.getAkkaMessage().getTaskId(),
                     e.getMessage(), e);
         } finally {
+            if (isBackPressure(defaultStatusCode)) {
+                backPressureMeter.mark();
+            }
             /* 200 <= defaultStatusCode < 301 */
-            if (defaultStatusCode >= Response.Status.OK.getStatusCode()
+            else if (defaultStatusCode >= Response.Status.OK.getStatusCode()
                     && defaultStatusCode < Response.Status.MOVED_PERMANENTLY.getStatusCode()) {
-                metricsClient.markMeter(new StringBuilder().
-                        append("stateMachine.tasks.forwardToExecutor.2xx").toString());
+                forwarded2xxMeter.mark();
             }
             /* 400 <= defaultStatusCode < 500 */
             else if (defaultStatusCode >= Response.Status.BAD_REQUEST.getStatusCode()
                     && defaultStatusCode < Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()) {
-                metricsClient.markMeter(new StringBuilder().
-                        append("stateMachine.tasks.forwardToExecutor.4xx").toString());
+                forwarded4xxMeter.mark();
             }
             /* 500 <= defaultStatusCode <= 505 */
             else if (defaultStatusCode >= Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()
                     && defaultStatusCode < Response.Status.HTTP_VERSION_NOT_SUPPORTED.getStatusCode()) {
-                metricsClient.markMeter(new StringBuilder().
-                        append("stateMachine.tasks.forwardToExecutor.5xx").toString());
+                forwarded5xxMeter.mark();
             }
 
         }
@@ -125,4 +227,73 @@ public class ExecutionNodeTaskDispatcherImpl implements ExecutionNodeTaskDispatc
         return defaultStatusCode;
     }
 
+    private CloseableHttpResponse post(String endPoint, TaskExecutionMessage taskExecutionMessage, WireFormat format) throws IOException {
+        HttpPost httpPostRequest = new HttpPost(endPoint);
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        (format == WireFormat.SMILE ? smileObjectMapper : objectMapper).writeValue(byteArrayOutputStream, taskExecutionMessage);
+        ContentType contentType = format == WireFormat.JSON ? ContentType.APPLICATION_JSON : ContentType.create(format.getMediaType());
+        httpPostRequest.setEntity(new ByteArrayEntity(byteArrayOutputStream.toByteArray(), contentType));
+        return closeableHttpClient.execute(httpPostRequest);
+    }
+
+    /**
+     * Returns the key of the back off of the message's router at the endpoint. Routers are bounded independently by the execution nodes,
+     * so back pressure from one router does not hold back forwards to the other routers of the endpoint
+     */
+    static String getBackoffKey(String endPoint, TaskExecutionMessage taskExecutionMessage) {
+        return endPoint + "#" + taskExecutionMessage.getRouterName();
+    }
+
+    /**
+     * Checks if forwards with the back off key are being held back, clearing the back off once it has elapsed
+     */
+    private boolean isBackedOff(String backoffKey) {
+        Long backoffUntil = endpointBackoffs.get(backoffKey);
+        if (backoffUntil == null) {
+            return false;
+        }
+        if (backoffUntil > System.currentTimeMillis()) {
+            return true;
+        }
+        endpointBackoffs.remove(backoffKey, backoffUntil);
+        return false;
+    }
+
+    /**
+     * Creates the bulkhead and circuit breaker of an endpoint, publishing its state as the gauges executionEndpoint.&lt;endpoint&gt;.*
+     */
+    private ExecutionEndpointHealth createHealth(String endPoint) {
+        ExecutionEndpointHealth health = new ExecutionEndpointHealth(maxConcurrentForwardsPerEndpoint, circuitFailureThreshold, circuitOpenDurationMillis);
+        String metricPrefix = "executionEndpoint." + endPoint.replaceFirst("^[a-z]+://", "").replaceAll("[^A-Za-z0-9]+", "_");
+        metricsClient.registerGauge(metricPrefix + ".circuitState", (Gauge<Integer>) () -> health.getCircuitState().ordinal());
+        metricsClient.registerGauge(metricPrefix + ".consecutiveFailures", (Gauge<Integer>) health::getConsecutiveFailures);
+        metricsClient.registerGauge(metricPrefix + ".inFlight", (Gauge<Integer>) health::getInFlight);
+        return health;
+    }
+
+    /** Communication errors and server errors other than back pressure count towards opening the circuit */
+    private boolean isFailure(int statusCode) {
+        return statusCode < 0 || (statusCode >= Response.Status.INTERNAL_SERVER_ERROR.getStatusCode() && !isBackPressure(statusCode));
+    }
+
+    /** 429 and 503 are returned by execution nodes whose router mailboxes are full or have no actors */
+    private boolean isBackPressure(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS || statusCode == Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+    }
+
+    /**
+     * Reads the back off duration from the Retry-After header, which execution nodes return in seconds
+     */
+    private long getBackoffMillis(CloseableHttpResponse httpResponse) {
+        Header retryAfter = httpResponse.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.getValue().trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring non numeric Retry-After header: {}", retryAfter.getValue());
+            }
+        }
+        return DEFAULT_BACKOFF_MILLIS;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.impl.task;
+
+import com.flipkart.flux.api.VersionedEventData;
+import com.flipkart.flux.api.core.FluxError;
+import com.flipkart.flux.domain.Event;
+import com.flipkart.flux.utils.Pair;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import org.junit.Test;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class TaskExecutorTest {
+
+    @Test
+    public void testExecute_shouldReturnEventForEachIsolationMode() throws Exception {
+        for (ExecutionIsolation isolation : ExecutionIsolation.values()) {
+            final TestTask task = new TestTask("testExecute_" + isolation, isolation, 1000, 0);
+            final Event event = new TaskExecutor(task, new VersionedEventData[0], "smId", "outputEvent", 0L).execute();
+            assertThat(event.getName()).isEqualTo("outputEvent");
+            assertThat(event.getEventData()).isEqualTo("data");
+            assertThat(event.getStateMachineInstanceId()).isEqualTo("smId");
+        }
+    }
+
+    @Test
+    public void testExecute_shouldNotUseActorThreadForVirtualThreadIsolation() throws Exception {
+        final TestTask task = new TestTask("testExecute_virtualThread", ExecutionIsolation.VIRTUAL_THREAD, 1000, 0);
+        new TaskExecutor(task, new VersionedEventData[0], "smId", "outputEvent", 0L).execute();
+        assertThat(task.executingThread).isNotSameAs(Thread.currentThread());
+    }
+
+    @Test
+    public void testExecute_shouldSignalTimeoutForSemaphoreIsolation() throws Exception {
+        final TestTask task = new TestTask("testTimeout_semaphore", ExecutionIsolation.SEMAPHORE, 100, 500);
+        try {
+            new TaskExecutor(task, new VersionedEventData[0], "smId", "outputEvent", 0L).execute();
+            fail("Expected a HystrixRuntimeException");
+        } catch (HystrixRuntimeException e) {
+            assertThat(e.getFailureType()).isEqualTo(HystrixRuntimeException.FailureType.TIMEOUT);
+        }
+    }
+
+    @Test
+    public void testExecute_shouldSignalTimeoutAndInterruptForVirtualThreadIsolation() throws Exception {
+        final TestTask task = new TestTask("testTimeout_virtualThread", ExecutionIsolation.VIRTUAL_THREAD, 100, 5000);
+        try {
+            new TaskExecutor(task, new VersionedEventData[0], "smId", "outputEvent", 0L).execute();
+            fail("Expected a HystrixRuntimeException");
+        } catch (HystrixRuntimeException e) {
+            // the wait on the virtual thread times out before the Hystrix timeout, which is set above it
+            assertThat(e.getFailureType()).isEqualTo(HystrixRuntimeException.FailureType.COMMAND_EXCEPTION);
+            assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+        }
+        task.executingThread.join(1000);
+        assertThat(task.interrupted).isTrue();
+    }
+
+    @Test
+    public void testFromValue_shouldResolveConfiguredValues() throws Exception {
+        assertThat(ExecutionIsolation.fromValue(null, ExecutionIsolation.THREAD)).isEqualTo(ExecutionIsolation.THREAD);
+        assertThat(ExecutionIsolation.fromValue("", ExecutionIsolation.THREAD)).isEqualTo(ExecutionIsolation.THREAD);
+        assertThat(ExecutionIsolation.fromValue("semaphore", ExecutionIsolation.THREAD)).isEqualTo(ExecutionIsolation.SEMAPHORE);
+        assertThat(ExecutionIsolation.fromValue("virtual-thread", ExecutionIsolation.THREAD)).isEqualTo(ExecutionIsolation.VIRTUAL_THREAD);
+    }
+
+    private static class TestTask extends AbstractTask {
+
+        private final String name;
+        private final ExecutionIsolation isolation;
+        private final int timeout;
+        private final long sleepTime;
+        private volatile Thread executingThread;
+        private volatile boolean interrupted;
+
+        TestTask(String name, ExecutionIsolation isolation, int timeout, long sleepTime) {
+            this.name = name;
+            this.isolation = isolation;
+            this.timeout = timeout;
+            this.sleepTime = sleepTime;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getTaskGroupName() {
+            return "flux";
+        }
+
+        @Override
+        public int getExecutionConcurrency() {
+            return 2;
+        }
+
+        @Override
+        public int getExecutionTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public ExecutionIsolation getExecutionIsolation() {
+            return isolation;
+        }
+
+        @Override
+        public Pair<Object, FluxError> execute(VersionedEventData[] events) {
+            executingThread = Thread.currentThread();
+            if (sleepTime > 0) {
+                try {
+                    Thread.sleep(sleepTime);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return new Pair<>(new SerializedEvent("java.lang.String", "data"), null);
+        }
+    }
+}
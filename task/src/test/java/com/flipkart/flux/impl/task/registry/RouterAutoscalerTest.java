@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.impl.task.registry;
+
+import com.flipkart.flux.metrics.BoundedCounter;
+import com.flipkart.flux.metrics.iface.MetricsClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RouterAutoscalerTest {
+
+    @Mock
+    RouterRegistry routerRegistry;
+
+    @Mock
+    MetricsClient metricsClient;
+
+    private RouterAutoscaler routerAutoscaler;
+
+    @Before
+    public void setUp() throws Exception {
+        routerAutoscaler = new RouterAutoscaler(routerRegistry, metricsClient, 2, 20, 10, 1000);
+    }
+
+    @Test
+    public void testComputeSize_shouldGrowWithBacklogWithinMax() throws Exception {
+        assertThat(routerAutoscaler.computeSize(5, 5, 0)).isEqualTo(5);
+        assertThat(routerAutoscaler.computeSize(5, 5, 50)).isEqualTo(5);
+        assertThat(routerAutoscaler.computeSize(5, 5, 81)).isEqualTo(9);
+        assertThat(routerAutoscaler.computeSize(5, 5, 1000)).isEqualTo(20);
+    }
+
+    @Test
+    public void testComputeSize_shouldShrinkGraduallyTillBaseSize() throws Exception {
+        assertThat(routerAutoscaler.computeSize(5, 20, 0)).isEqualTo(12);
+        assertThat(routerAutoscaler.computeSize(5, 12, 0)).isEqualTo(8);
+        assertThat(routerAutoscaler.computeSize(5, 6, 0)).isEqualTo(5);
+        assertThat(routerAutoscaler.computeSize(1, 1, 0)).isEqualTo(2);
+    }
+
+    @Test
+    public void testScale_shouldResizeRoutersWithBacklog() throws Exception {
+        Map<String, Integer> routerSizes = new HashMap<>();
+        routerSizes.put("router1", 5);
+        routerSizes.put("unloadedRouter", 0);
+        when(routerRegistry.getRouterSizes()).thenReturn(Collections.unmodifiableMap(routerSizes));
+        when(routerRegistry.getRouterBaseSizes()).thenReturn(Collections.unmodifiableMap(routerSizes));
+        BoundedCounter counter = new BoundedCounter();
+        counter.inc(100);
+        when(metricsClient.getBoundedCounter(RouterAutoscaler.getQueueSizeMetricName("router1"))).thenReturn(counter);
+
+        routerAutoscaler.scale();
+
+        verify(routerRegistry).autoscale("router1", 10);
+        verify(routerRegistry, never()).autoscale(eq("unloadedRouter"), anyInt());
+        verify(routerRegistry, never()).createOrResize(anyString(), anyInt());
+    }
+
+    @Test
+    public void testScale_shouldNotResizeWhenSizeMatchesBacklog() throws Exception {
+        when(routerRegistry.getRouterSizes()).thenReturn(Collections.singletonMap("router1", 5));
+        when(routerRegistry.getRouterBaseSizes()).thenReturn(Collections.singletonMap("router1", 5));
+        when(metricsClient.getBoundedCounter(anyString())).thenReturn(new BoundedCounter());
+
+        routerAutoscaler.scale();
+
+        verify(routerRegistry, never()).autoscale(anyString(), anyInt());
+    }
+
+    @Test
+    public void testScale_shouldShrinkTowardsBaseSizeSetOutsideAutoscaling() throws Exception {
+        // e.g. a router created by a deployment unit loaded at runtime, or resized through the routers api, then scaled up
+        when(routerRegistry.getRouterSizes()).thenReturn(Collections.singletonMap("router2", 12));
+        when(routerRegistry.getRouterBaseSizes()).thenReturn(Collections.singletonMap("router2", 3));
+        when(metricsClient.getBoundedCounter(anyString())).thenReturn(new BoundedCounter());
+
+        routerAutoscaler.scale();
+
+        verify(routerRegistry).autoscale("router2", 7);
+    }
+}
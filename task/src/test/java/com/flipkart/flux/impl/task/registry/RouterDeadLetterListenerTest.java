@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.impl.task.registry;
+import akka.actor.ActorPaths;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.actor.Props;
+import akka.testkit.TestActorRef;
+import com.flipkart.flux.impl.message.TaskAndEvents;
+import com.flipkart.flux.metrics.BoundedCounter;
+import com.flipkart.flux.metrics.iface.MetricsClient;
+import com.typesafe.config.ConfigFactory;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RouterDeadLetterListenerTest {
+
+    @Mock
+    MetricsClient metricsClient;
+
+    private static ActorSystem actorSystem;
+
+    private static ActorRef router;
+
+    private TestActorRef<RouterDeadLetterListener> listener;
+
+    private BoundedCounter queueSize;
+
+    @BeforeClass
+    public static void setUpActorSystem() throws Exception {
+        actorSystem = ActorSystem.create("RouterDeadLetterListenerTest",
+                ConfigFactory.parseString("akka.actor.provider = \"akka.actor.LocalActorRefProvider\""));
+        router = actorSystem.actorOf(Props.empty(), "someRouter");
+    }
+
+    @AfterClass
+    public static void tearDownActorSystem() throws Exception {
+        actorSystem.terminate();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        listener = TestActorRef.create(actorSystem, Props.create(RouterDeadLetterListener.class, metricsClient));
+        queueSize = new BoundedCounter();
+        queueSize.inc(2);
+        when(metricsClient.getBoundedCounter(RouterAutoscaler.getQueueSizeMetricName("someRouter"))).thenReturn(queueSize);
+    }
+
+    @Test
+    public void testGetRouterName_shouldResolveRouterOfRouteesAndRouters() throws Exception {
+        assertThat(RouterDeadLetterListener.getRouterName(ActorPaths.fromString("akka://flux/user/someRouter/$a"))).isEqualTo("someRouter");
+        assertThat(RouterDeadLetterListener.getRouterName(ActorPaths.fromString("akka://flux/user/someRouter"))).isEqualTo("someRouter");
+    }
+
+    @Test
+    public void testOnReceive_shouldDecrementQueueSizeOfDeadLetteredTaskMessage() throws Exception {
+        TaskAndEvents taskAndEvents = new TaskAndEvents("someTask", "someTaskIdentifier", 1L, null, "smId", "someStateMachine", null, 2);
+        listener.receive(new DeadLetter(taskAndEvents, actorSystem.deadLetters(), router));
+        assertThat(queueSize.getCount()).isEqualTo(1);
+        verify(metricsClient, times(1)).decCounter("someStateMachine", "someTask", "queueSize");
+    }
+
+    @Test
+    public void testOnReceive_shouldIgnoreOtherDeadLetters() throws Exception {
+        listener.receive(new DeadLetter("someMessage", actorSystem.deadLetters(), router));
+        assertThat(queueSize.getCount()).isEqualTo(2);
+        verify(metricsClient, never()).decCounter(anyString(), anyString(), anyString());
+    }
+}
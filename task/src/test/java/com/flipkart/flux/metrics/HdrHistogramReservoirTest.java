@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.metrics;
+
+import com.codahale.metrics.Snapshot;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class HdrHistogramReservoirTest {
+
+    @Test
+    public void testGetSnapshot_shouldReportPercentilesOfInterval() throws Exception {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir(0);
+        for (int i = 1; i <= 1000; i++) {
+            reservoir.update(i);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(1000);
+        assertThat(snapshot.getMin()).isEqualTo(1);
+        assertThat(snapshot.get99thPercentile()).isCloseTo(990, within(10.0));
+        assertThat(snapshot.getValues()).hasSize(1000);
+
+        // values recorded earlier are not carried over to the next interval
+        assertThat(reservoir.getSnapshot().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testGetSnapshot_shouldReturnSameSnapshotWithinInterval() throws Exception {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir(60000);
+        reservoir.update(5);
+
+        assertThat(reservoir.getSnapshot()).isSameAs(reservoir.getSnapshot());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.flipkart.flux.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsClientImplTest {
+
+    private MetricRegistry metricRegistry;
+
+    private MetricsClientImpl metricsClient;
+
+    @Before
+    public void setUp() throws Exception {
+        metricRegistry = new MetricRegistry();
+        metricsClient = new MetricsClientImpl(metricRegistry, 2, 2);
+    }
+
+    @Test
+    public void testTaskMetrics_shouldUseComposedMetricNames() throws Exception {
+        metricsClient.markMeter("sm1", "task1", "status.completed");
+        metricsClient.incCounter("sm1", "task1", "queueSize");
+        metricsClient.incCounter("sm1", "task1", "queueSize");
+        metricsClient.decCounter("sm1", "task1", "queueSize");
+        metricsClient.getTimer("sm1", "task1", "executionTime").update(1, TimeUnit.MILLISECONDS);
+
+        assertThat(metricRegistry.meter("stateMachine.sm1.task.task1.status.completed").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.counter("stateMachine.sm1.task.task1.queueSize").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.timer("stateMachine.sm1.task.task1.executionTime").getCount()).isEqualTo(1);
+        assertThat(metricsClient.getTimer("sm1", "task1", "executionTime")).isSameAs(metricsClient.getTimer("sm1", "task1", "executionTime"));
+    }
+
+    @Test
+    public void testBoundedCounter_shouldIncrementOnlyBelowBound() throws Exception {
+        BoundedCounter counter = metricsClient.getBoundedCounter("router.router1.queueSize");
+        assertThat(metricsClient.getBoundedCounter("router.router1.queueSize")).isSameAs(counter);
+        assertThat(counter.tryInc(2)).isTrue();
+        assertThat(counter.tryInc(2)).isTrue();
+        assertThat(counter.tryInc(2)).isFalse();
+        counter.dec();
+        assertThat(counter.tryInc(2)).isTrue();
+        assertThat(metricRegistry.counter("router.router1.queueSize").getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTaskMetrics_shouldReportNamesBeyondLimitsUnderOverflowName() throws Exception {
+        metricsClient.incCounter("sm1", "task1", "queueSize");
+        metricsClient.incCounter("sm2", "task1", "queueSize");
+        metricsClient.incCounter("sm3", "task1", "queueSize");
+        metricsClient.incCounter("sm4", "task1", "queueSize");
+        metricsClient.incCounter("sm1", "task2", "queueSize");
+        metricsClient.incCounter("sm1", "task3", "queueSize");
+
+        assertThat(metricRegistry.counter("stateMachine._other.task.task1.queueSize").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.counter("stateMachine.sm1.task._other.queueSize").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.getCounters().keySet()).doesNotContain("stateMachine.sm3.task.task1.queueSize", "stateMachine.sm1.task.task3.queueSize");
+    }
+
+    @Test
+    public void testRecordStage_shouldRecordPerStateMachineStageTimers() throws Exception {
+        metricsClient.recordStage("sm1", TaskLifecycleStage.DISPATCHED, TimeUnit.MILLISECONDS.toNanos(2));
+        metricsClient.recordStage("sm1", TaskLifecycleStage.DISPATCHED, TimeUnit.MILLISECONDS.toNanos(4));
+        metricsClient.recordStage("sm2", TaskLifecycleStage.DEQUEUED, 1);
+        metricsClient.recordStage("sm3", TaskLifecycleStage.DEQUEUED, 1);
+
+        assertThat(metricRegistry.timer("stateMachine.sm1.stage.dispatched").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.timer("stateMachine.sm2.stage.dequeued").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.timer("stateMachine._other.stage.dequeued").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRegisterGauge_shouldKeepFirstGaugeRegisteredWithName() throws Exception {
+        metricsClient.registerGauge("executionEndpoint.elb1.inFlight", () -> 1);
+        metricsClient.registerGauge("executionEndpoint.elb1.inFlight", () -> 2);
+
+        assertThat(metricRegistry.getGauges().get("executionEndpoint.elb1.inFlight").getValue()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.registry;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InFlightExecutionsTest {
+
+    @Test
+    public void testDrain_shouldCompleteRightAwayWithoutExecutionsInProgress() throws Exception {
+        InFlightExecutions inFlightExecutions = new InFlightExecutions();
+        inFlightExecutions.acquire();
+        inFlightExecutions.release();
+
+        assertThat(inFlightExecutions.drain().isDone()).isTrue();
+    }
+
+    @Test
+    public void testDrain_shouldCompleteOnceExecutionsInProgressComplete() throws Exception {
+        InFlightExecutions inFlightExecutions = new InFlightExecutions();
+        inFlightExecutions.acquire();
+        inFlightExecutions.acquire();
+
+        CompletableFuture<Void> drained = inFlightExecutions.drain();
+        assertThat(drained.isDone()).isFalse();
+
+        // executions may still start on a draining deployment unit
+        inFlightExecutions.acquire();
+        inFlightExecutions.release();
+        inFlightExecutions.release();
+        assertThat(drained.isDone()).isFalse();
+
+        inFlightExecutions.release();
+        assertThat(drained.isDone()).isTrue();
+        assertThat(inFlightExecutions.getCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2016, the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.flipkart.flux.taskDispatcher;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.flipkart.flux.taskDispatcher.ExecutionEndpointHealth.CircuitState;
+import com.flipkart.flux.taskDispatcher.ExecutionEndpointHealth.Permit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutionEndpointHealthTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+
+    @Test
+    public void testTryEnter_shouldRejectForwardsBeyondBulkhead() throws Exception {
+        ExecutionEndpointHealth health = new ExecutionEndpointHealth(2, 3, 10000, now::get);
+        assertThat(health.tryEnter()).isTrue();
+        assertThat(health.tryEnter()).isTrue();
+        assertThat(health.tryEnter()).isFalse();
+        assertThat(health.getInFlight()).isEqualTo(2);
+
+        health.exit();
+        assertThat(health.tryEnter()).isTrue();
+    }
+
+    @Test
+    public void testCircuit_shouldOpenAfterConsecutiveFailuresAndFailFast() throws Exception {
+        ExecutionEndpointHealth health = new ExecutionEndpointHealth(2, 3, 10000, now::get);
+        assertThat(health.onFailure(Permit.ALLOWED)).isFalse();
+        assertThat(health.onFailure(Permit.ALLOWED)).isFalse();
+        health.onSuccess(Permit.ALLOWED);
+        assertThat(health.onFailure(Permit.ALLOWED)).isFalse();
+        assertThat(health.onFailure(Permit.ALLOWED)).isFalse();
+        assertThat(health.allowRequest()).isEqualTo(Permit.ALLOWED);
+
+        assertThat(health.onFailure(Permit.ALLOWED)).isTrue();
+        assertThat(health.getCircuitState()).isEqualTo(CircuitState.OPEN);
+        assertThat(health.allowRequest()).isEqualTo(Permit.REJECTED);
+
+        // forwards which started before the circuit opened do not close it
+        assertThat(health.onSuccess(Permit.ALLOWED)).isFalse();
+        now.addAndGet(9999);
+        assertThat(health.allowRequest()).isEqualTo(Permit.REJECTED);
+    }
+
+    @Test
+    public void testCircuit_shouldLetASingleProbeThroughOnceOpenDurationElapses() throws Exception {
+        ExecutionEndpointHealth health = new ExecutionEndpointHealth(2, 1, 10000, now::get);
+        health.onFailure(Permit.ALLOWED);
+        now.addAndGet(10000);
+
+        assertThat(health.allowRequest()).isEqualTo(Permit.PROBE);
+        assertThat(health.getCircuitState()).isEqualTo(CircuitState.HALF_OPEN);
+        assertThat(health.allowRequest()).isEqualTo(Permit.REJECTED);
+
+        // failed probe opens the circuit again
+        assertThat(health.onFailure(Permit.PROBE)).isTrue();
+        assertThat(health.allowRequest()).isEqualTo(Permit.REJECTED);
+
+        now.addAndGet(10000);
+        assertThat(health.allowRequest()).isEqualTo(Permit.PROBE);
+        assertThat(health.onSuccess(Permit.PROBE)).isTrue();
+        assertThat(health.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+        assertThat(health.getConsecutiveFailures()).isEqualTo(0);
+        assertThat(health.allowRequest()).isEqualTo(Permit.ALLOWED);
+    }
+
+    @Test
+    public void testCircuit_shouldIgnoreForwardsOtherThanTheProbeWhileHalfOpen() throws Exception {
+        ExecutionEndpointHealth health = new ExecutionEndpointHealth(2, 1, 10000, now::get);
+        health.onFailure(Permit.ALLOWED);
+        now.addAndGet(10000);
+        assertThat(health.allowRequest()).isEqualTo(Permit.PROBE);
+
+        // forwards let through before the circuit opened complete while the probe is in progress
+        assertThat(health.onSuccess(Permit.ALLOWED)).isFalse();
+        assertThat(health.onFailure(Permit.ALLOWED)).isFalse();
+        assertThat(health.getCircuitState()).isEqualTo(CircuitState.HALF_OPEN);
+
+        assertThat(health.onSuccess(Permit.PROBE)).isTrue();
+        assertThat(health.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    }
+}